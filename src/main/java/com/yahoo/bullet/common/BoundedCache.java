@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache that holds at most a fixed number of entries and evicts the least recently used entry when full.
+ * This is meant for caching values that are expensive to compute from keys that are mostly, but not always, known
+ * ahead of time (for example, compiled patterns).
+ *
+ * Since these caches are shared by every evaluator in the process, getting a cached value does not take a lock. Each
+ * entry remembers when it was last used and only a miss that fills the cache takes a lock to find and evict the least
+ * recently used entry.
+ *
+ * @param <K> The type of the key.
+ * @param <V> The type of the value.
+ */
+public class BoundedCache<K, V> {
+    private static class Entry<V> {
+        private final V value;
+        private volatile long lastUsed;
+
+        private Entry(V value, long lastUsed) {
+            this.value = value;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Constructor that takes the maximum number of entries to hold.
+     *
+     * @param maxSize The positive maximum number of entries this cache can hold.
+     */
+    public BoundedCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the value for the given key, computing and caching it with the given function if it is not present. The
+     * function is not called while holding a lock on this cache, so it may be called more than once for a key if
+     * multiple threads ask for it at the same time.
+     *
+     * @param key The non-null key to get the value for.
+     * @param function The function to compute a non-null value for the key if it is not present.
+     * @return The cached or newly computed value.
+     */
+    public V get(K key, Function<K, V> function) {
+        Objects.requireNonNull(key);
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            // Only moves the clock if something else was used since so that a key used over and over does not contend
+            if (entry.lastUsed != clock.get()) {
+                entry.lastUsed = clock.incrementAndGet();
+            }
+            return entry.value;
+        }
+        V value = Objects.requireNonNull(function.apply(key));
+        entries.put(key, new Entry<>(value, clock.incrementAndGet()));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of entries currently in the cache.
+     *
+     * @return The number of cached entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all the entries in the cache.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private synchronized void evict() {
+        while (entries.size() > maxSize) {
+            K eldest = null;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+                long lastUsed = entry.getValue().lastUsed;
+                if (lastUsed < oldest) {
+                    oldest = lastUsed;
+                    eldest = entry.getKey();
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            entries.remove(eldest);
+        }
+    }
+}
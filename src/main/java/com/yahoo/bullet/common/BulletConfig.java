@@ -41,6 +41,7 @@ public class BulletConfig extends Config {
     public static final String GROUP_AGGREGATION_MAX_SIZE = "bullet.query.aggregation.group.max.size";
     public static final String GROUP_AGGREGATION_SKETCH_SAMPLING = "bullet.query.aggregation.group.sketch.sampling";
     public static final String GROUP_AGGREGATION_SKETCH_RESIZE_FACTOR = "bullet.query.aggregation.group.sketch.resize.factor";
+    public static final String GROUP_AGGREGATION_EXACT_ENABLE = "bullet.query.aggregation.group.exact.enable";
 
     public static final String DISTRIBUTION_AGGREGATION_SKETCH_ENTRIES = "bullet.query.aggregation.distribution.sketch.entries";
     public static final String DISTRIBUTION_AGGREGATION_MAX_POINTS = "bullet.query.aggregation.distribution.max.points";
@@ -61,6 +62,16 @@ public class BulletConfig extends Config {
     public static final String RATE_LIMIT_MAX_EMIT_COUNT = "bullet.query.rate.limit.max.emit.count";
     public static final String RATE_LIMIT_TIME_INTERVAL = "bullet.query.rate.limit.time.interval";
 
+    public static final String QUERY_TIMER_TICK_MS = "bullet.query.timer.tick.ms";
+    public static final String QUERY_TIMER_WHEEL_SIZE = "bullet.query.timer.wheel.size";
+    public static final String QUERY_SHARED_EVALUATION_ENABLE = "bullet.query.shared.evaluation.enable";
+    public static final String QUERY_FILTER_ADAPTIVE_ENABLE = "bullet.query.filter.adaptive.enable";
+    public static final String QUERY_FILTER_COMPILE_ENABLE = "bullet.query.filter.compile.enable";
+    public static final String QUERY_REQUIRED_FIELDS_ENABLE = "bullet.query.required.fields.enable";
+
+    public static final String CLOCK_COARSE_ENABLE = "bullet.clock.coarse.enable";
+    public static final String CLOCK_COARSE_RESOLUTION_MS = "bullet.clock.coarse.resolution.ms";
+
     public static final String PUBSUB_CONTEXT_NAME = "bullet.pubsub.context.name";
     public static final String PUBSUB_CLASS_NAME = "bullet.pubsub.class.name";
     public static final String PUBSUB_MESSAGE_SERDE_CLASS_NAME = "bullet.pubsub.message.serde.class.name";
@@ -76,6 +87,8 @@ public class BulletConfig extends Config {
     public static final String QUERY_PARTITIONER_CLASS_NAME = "bullet.query.partitioner.class.name";
     public static final String EQUALITY_PARTITIONER_FIELDS = "bullet.query.partitioner.equality.fields";
     public static final String EQUALITY_PARTITIONER_DELIMITER = "bullet.query.partitioner.equality.delimiter";
+    public static final String EQUALITY_PARTITIONER_MAX_KEYS = "bullet.query.partitioner.equality.max.keys";
+    public static final String INTERVAL_PARTITIONER_FIELDS = "bullet.query.partitioner.interval.fields";
 
     // Defaults
     public static final long DEFAULT_QUERY_DURATION = (long) Double.POSITIVE_INFINITY;
@@ -98,6 +111,7 @@ public class BulletConfig extends Config {
     public static final int DEFAULT_GROUP_AGGREGATION_MAX_SIZE = 500;
     public static final float DEFAULT_GROUP_AGGREGATION_SKETCH_SAMPLING = 1.0f;
     public static final int DEFAULT_GROUP_AGGREGATION_SKETCH_RESIZE_FACTOR = 8;
+    public static final boolean DEFAULT_GROUP_AGGREGATION_EXACT_ENABLE = false;
 
     public static final int DEFAULT_DISTRIBUTION_AGGREGATION_SKETCH_ENTRIES = 1024;
     public static final int DEFAULT_DISTRIBUTION_AGGREGATION_MAX_POINTS = 100;
@@ -141,6 +155,16 @@ public class BulletConfig extends Config {
     public static final long DEFAULT_RATE_LIMIT_MAX_EMIT_COUNT = 50;
     public static final long DEFAULT_RATE_LIMIT_TIME_INTERVAL = 100;
 
+    public static final int DEFAULT_QUERY_TIMER_TICK_MS = 100;
+    public static final int DEFAULT_QUERY_TIMER_WHEEL_SIZE = 512;
+    public static final boolean DEFAULT_QUERY_SHARED_EVALUATION_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_FILTER_ADAPTIVE_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_FILTER_COMPILE_ENABLE = false;
+    public static final boolean DEFAULT_QUERY_REQUIRED_FIELDS_ENABLE = false;
+
+    public static final boolean DEFAULT_CLOCK_COARSE_ENABLE = false;
+    public static final int DEFAULT_CLOCK_COARSE_RESOLUTION_MS = 10;
+
     public static final String DEFAULT_PUBSUB_CONTEXT_NAME = Context.QUERY_PROCESSING.name();
     public static final String DEFAULT_PUBSUB_CLASS_NAME = "com.yahoo.bullet.pubsub.MockPubSub";
     public static final String DEFAULT_PUBSUB_MESSAGE_SERDE_CLASS_NAME = "com.yahoo.bullet.pubsub.ByteArrayPubSubMessageSerDe";
@@ -149,7 +173,10 @@ public class BulletConfig extends Config {
 
     public static final boolean DEFAULT_QUERY_PARTITIONER_ENABLE = false;
     public static final String DEFAULT_QUERY_PARTITIONER_CLASS_NAME = "com.yahoo.bullet.querying.partitioning.SimpleEqualityPartitioner";
+    public static final String MULTI_VALUE_EQUALITY_PARTITIONER_CLASS_NAME = "com.yahoo.bullet.querying.partitioning.MultiValueEqualityPartitioner";
+    public static final String INTERVAL_PARTITIONER_CLASS_NAME = "com.yahoo.bullet.querying.partitioning.IntervalPartitioner";
     public static final String DEFAULT_EQUALITY_PARTITIONER_DELIMITER = "|";
+    public static final int DEFAULT_EQUALITY_PARTITIONER_MAX_KEYS = 64;
     public static final int MAXIMUM_EQUALITY_FIELDS = 10;
 
     // Validator definitions for the configs in this class.
@@ -222,6 +249,9 @@ public class BulletConfig extends Config {
                  .checkIf(Validator::isPowerOfTwo)
                  .checkIf(Validator.isInRange(1, 8))
                  .castTo(Validator::asInt);
+        VALIDATOR.define(GROUP_AGGREGATION_EXACT_ENABLE)
+                 .defaultTo(DEFAULT_GROUP_AGGREGATION_EXACT_ENABLE)
+                 .checkIf(Validator::isBoolean);
 
         VALIDATOR.define(DISTRIBUTION_AGGREGATION_SKETCH_ENTRIES)
                  .defaultTo(DEFAULT_DISTRIBUTION_AGGREGATION_SKETCH_ENTRIES)
@@ -274,6 +304,35 @@ public class BulletConfig extends Config {
                  .checkIf(Validator::isPositiveInt)
                  .castTo(Validator::asInt);
 
+        VALIDATOR.define(QUERY_TIMER_TICK_MS)
+                 .defaultTo(DEFAULT_QUERY_TIMER_TICK_MS)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_TIMER_WHEEL_SIZE)
+                 .defaultTo(DEFAULT_QUERY_TIMER_WHEEL_SIZE)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(QUERY_SHARED_EVALUATION_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_SHARED_EVALUATION_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_FILTER_ADAPTIVE_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_FILTER_ADAPTIVE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_FILTER_COMPILE_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_FILTER_COMPILE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(QUERY_REQUIRED_FIELDS_ENABLE)
+                 .defaultTo(DEFAULT_QUERY_REQUIRED_FIELDS_ENABLE)
+                 .checkIf(Validator::isBoolean);
+
+        VALIDATOR.define(CLOCK_COARSE_ENABLE)
+                 .defaultTo(DEFAULT_CLOCK_COARSE_ENABLE)
+                 .checkIf(Validator::isBoolean);
+        VALIDATOR.define(CLOCK_COARSE_RESOLUTION_MS)
+                 .defaultTo(DEFAULT_CLOCK_COARSE_RESOLUTION_MS)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+
         VALIDATOR.define(PUBSUB_CONTEXT_NAME)
                  .defaultTo(DEFAULT_PUBSUB_CONTEXT_NAME)
                  .checkIf(Validator.isIn(Context.QUERY_PROCESSING.name(), Context.QUERY_SUBMISSION.name()));
@@ -305,6 +364,14 @@ public class BulletConfig extends Config {
         VALIDATOR.define(EQUALITY_PARTITIONER_DELIMITER)
                  .defaultTo(DEFAULT_EQUALITY_PARTITIONER_DELIMITER)
                  .checkIf(Validator::isString);
+        VALIDATOR.define(EQUALITY_PARTITIONER_MAX_KEYS)
+                 .defaultTo(DEFAULT_EQUALITY_PARTITIONER_MAX_KEYS)
+                 .checkIf(Validator::isPositiveInt)
+                 .castTo(Validator::asInt);
+        VALIDATOR.define(INTERVAL_PARTITIONER_FIELDS)
+                 .checkIf(Validator.isListOfType(String.class))
+                 .unless(Validator::isNull)
+                 .orFail();
 
 
         VALIDATOR.relate("Max should be >= default", QUERY_MAX_DURATION, QUERY_DEFAULT_DURATION)
@@ -329,10 +396,15 @@ public class BulletConfig extends Config {
                             QUERY_PARTITIONER_ENABLE, QUERY_PARTITIONER_CLASS_NAME, EQUALITY_PARTITIONER_FIELDS)
                  .checkIf(BulletConfig::areEqualityPartitionerFieldsDefined)
                  .orFail();
+        VALIDATOR.evaluate("If the interval partitioner is used, the partitioner fields should be defined",
+                            QUERY_PARTITIONER_ENABLE, QUERY_PARTITIONER_CLASS_NAME, INTERVAL_PARTITIONER_FIELDS)
+                 .checkIf(BulletConfig::areIntervalPartitionerFieldsDefined)
+                 .orFail();
     }
 
     // Members
     private BulletRecordProvider provider;
+    private transient Clock clock;
 
     /**
      * Constructor that loads specific file augmented with defaults and validates itself.
@@ -376,6 +448,31 @@ public class BulletConfig extends Config {
         return provider;
     }
 
+    /**
+     * Get the {@link Clock} to use for time checks. This is a shared {@link CoarseClock} if
+     * {@link #CLOCK_COARSE_ENABLE} is true and {@link Clock#SYSTEM} otherwise, unless one was set using
+     * {@link #setClock(Clock)}.
+     *
+     * @return The Clock instance.
+     */
+    public Clock getClock() {
+        if (clock == null) {
+            boolean isCoarse = getAs(CLOCK_COARSE_ENABLE, Boolean.class);
+            clock = isCoarse ? CoarseClock.of(getAs(CLOCK_COARSE_RESOLUTION_MS, Integer.class)) : Clock.SYSTEM;
+        }
+        return clock;
+    }
+
+    /**
+     * Sets the {@link Clock} to use for time checks instead of the configured one. This is useful to control time in
+     * tests.
+     *
+     * @param clock The Clock instance or null to use the configured one.
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
     /**
      * Construct a {@link Schema} if configured.
      *
@@ -515,10 +612,20 @@ public class BulletConfig extends Config {
             return true;
         }
         String className = fields.get(1).toString();
-        if (!DEFAULT_QUERY_PARTITIONER_CLASS_NAME.equals(className)) {
+        if (!DEFAULT_QUERY_PARTITIONER_CLASS_NAME.equals(className) && !MULTI_VALUE_EQUALITY_PARTITIONER_CLASS_NAME.equals(className)) {
             return true;
         }
         List<String> partitionFields = ((List<String>) fields.get(2));
         return  partitionFields != null && !partitionFields.isEmpty();
     }
+
+    @SuppressWarnings("unchecked")
+    private static boolean areIntervalPartitionerFieldsDefined(List<Object> fields) {
+        boolean enabled = (Boolean) fields.get(0);
+        if (!enabled || !INTERVAL_PARTITIONER_CLASS_NAME.equals(fields.get(1).toString())) {
+            return true;
+        }
+        List<String> partitionFields = ((List<String>) fields.get(2));
+        return partitionFields != null && !partitionFields.isEmpty();
+    }
 }
@@ -0,0 +1,25 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+/**
+ * A source of the current time in milliseconds. Use this instead of calling {@link System#currentTimeMillis()} directly
+ * so that a cheaper {@link CoarseClock} or, in tests, a fixed time can be used instead.
+ */
+@FunctionalInterface
+public interface Clock {
+    /**
+     * The {@link Clock} that uses {@link System#currentTimeMillis()}.
+     */
+    Clock SYSTEM = System::currentTimeMillis;
+
+    /**
+     * Returns the current time.
+     *
+     * @return The current time in milliseconds since the epoch.
+     */
+    long currentTimeMillis();
+}
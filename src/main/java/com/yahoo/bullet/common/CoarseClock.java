@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Clock} that reads a timestamp updated by a background thread at a fixed resolution instead of calling
+ * {@link System#currentTimeMillis()} each time. Reading the time is a volatile read but the time can be behind by up to
+ * the resolution. There is a single instance and background thread for each resolution, shared by everything in the
+ * JVM, that lives as long as the JVM.
+ */
+public class CoarseClock implements Clock {
+    private static final Map<Long, CoarseClock> CLOCKS = new ConcurrentHashMap<>();
+
+    @Getter
+    private final long resolution;
+    private volatile long time;
+
+    private CoarseClock(long resolution) {
+        this.resolution = resolution;
+        time = System.currentTimeMillis();
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bullet-coarse-clock-" + resolution + "ms");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, resolution, resolution, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the shared {@link CoarseClock} for the given resolution, starting it if it has not been started.
+     *
+     * @param resolution The positive resolution in milliseconds.
+     * @return The shared instance for the resolution.
+     * @throws IllegalArgumentException if the resolution is not positive.
+     */
+    public static CoarseClock of(long resolution) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("The resolution must be positive");
+        }
+        return CLOCKS.computeIfAbsent(resolution, CoarseClock::new);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return time;
+    }
+
+    private void tick() {
+        time = System.currentTimeMillis();
+    }
+}
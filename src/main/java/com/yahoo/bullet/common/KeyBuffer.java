@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import java.util.Arrays;
+
+/**
+ * A reused buffer that builds the key of a value for a sketch without allocating for each value. Strings and longs are
+ * written as the same UTF-8 bytes as {@link String#getBytes(java.nio.charset.Charset)} and {@link Long#toString(long)},
+ * so a key written from them is the same as the one from their string forms. The bytes can then be copied into an
+ * array of their exact length that is reused for short keys.
+ */
+public class KeyBuffer {
+    private static final int INITIAL_SIZE = 64;
+    // Keys up to this length are copied into reused arrays
+    private static final int MAXIMUM_REUSED_LENGTH = 128;
+    private static final byte REPLACEMENT = '?';
+
+    private final byte[][] arrays = new byte[MAXIMUM_REUSED_LENGTH + 1][];
+    private byte[] buffer = new byte[INITIAL_SIZE];
+    private int length = 0;
+
+    /**
+     * Empties the buffer to start a new key.
+     */
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * Returns the number of bytes in the buffer.
+     *
+     * @return The length of the key.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Writes the given bytes.
+     *
+     * @param bytes The non-null bytes to write.
+     */
+    public void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    /**
+     * Writes the UTF-8 bytes of the given string. Unpaired surrogates are written as '?' like the JDK does.
+     *
+     * @param value The non-null string to write.
+     */
+    public void write(String value) {
+        int size = value.length();
+        ensureCapacity(3 * size);
+        for (int i = 0; i < size; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[length++] = REPLACEMENT;
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Writes the bytes of the decimal string form of the given long.
+     *
+     * @param value The long to write.
+     */
+    public void write(long value) {
+        // The most digits and a sign
+        ensureCapacity(20);
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    /**
+     * Returns the bytes in the buffer as an array of their exact length. Short keys are copied into an array that is
+     * reused by the next key of the same length.
+     *
+     * @return The bytes of the key.
+     */
+    public byte[] toByteArray() {
+        if (length > MAXIMUM_REUSED_LENGTH) {
+            return Arrays.copyOf(buffer, length);
+        }
+        byte[] array = arrays[length];
+        if (array == null) {
+            array = new byte[length];
+            arrays[length] = array;
+        }
+        System.arraycopy(buffer, 0, array, 0, length);
+        return array;
+    }
+
+    private void ensureCapacity(int size) {
+        if (length + size > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, length + size));
+        }
+    }
+}
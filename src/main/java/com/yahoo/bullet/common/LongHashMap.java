@@ -0,0 +1,196 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+/**
+ * A map from primitive longs to objects backed by an open-addressed, linearly probed array. This does not box its keys
+ * so lookups do not allocate. Null values are not supported.
+ *
+ * @param <V> The type of the values.
+ */
+public class LongHashMap<V> {
+    // Marks an empty slot in the table. The value for the actual key is tracked separately.
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MINIMUM_CAPACITY = 4;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private Object emptyValue;
+
+    /**
+     * Constructor that sizes the map to hold the given number of entries without resizing.
+     *
+     * @param expectedSize The number of entries expected to be added to the map.
+     */
+    public LongHashMap(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Gets the value for the given key.
+     *
+     * @param key The key to look up.
+     * @return The value for the key or null if the key is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            return (V) emptyValue;
+        }
+        int index = indexOf(key, mask);
+        long current;
+        while ((current = keys[index]) != EMPTY) {
+            if (current == key) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Puts the given value for the given key.
+     *
+     * @param key The key to add.
+     * @param value The non-null value to add.
+     * @return The previous value for the key or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        if (key == EMPTY) {
+            Object previous = emptyValue;
+            emptyValue = value;
+            if (previous == null) {
+                size++;
+            }
+            return (V) previous;
+        }
+        int index = indexOf(key, mask);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                Object previous = values[index];
+                values[index] = value;
+                return (V) previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the given key from the map.
+     *
+     * @param key The key to remove.
+     * @return The value for the removed key or null if the key was not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == EMPTY) {
+            Object previous = emptyValue;
+            if (previous != null) {
+                emptyValue = null;
+                size--;
+            }
+            return (V) previous;
+        }
+        int index = indexOf(key, mask);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                Object previous = values[index];
+                shiftBack(index);
+                size--;
+                return (V) previous;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return The size of the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks to see if the map has no entries.
+     *
+     * @return A boolean denoting whether the map is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Fills the freed slot with a later entry in the same probe run, if any, so that lookups do not stop early.
+    private void shiftBack(int freed) {
+        int index = freed;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = indexOf(key, mask);
+            // Move the entry if its home slot is not cyclically within (freed, index]
+            boolean inRange = freed <= index ? freed < home && home <= index : freed < home || home <= index;
+            if (!inRange) {
+                keys[freed] = key;
+                values[freed] = values[index];
+                freed = index;
+            }
+        }
+        keys[freed] = EMPTY;
+        values[freed] = null;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] newKeys = new long[oldKeys.length << 1];
+        Object[] newValues = new Object[oldKeys.length << 1];
+        int newMask = newKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int index = indexOf(key, newMask);
+            while (newKeys[index] != EMPTY) {
+                index = (index + 1) & newMask;
+            }
+            newKeys[index] = key;
+            newValues[index] = oldValues[i];
+        }
+        keys = newKeys;
+        values = newValues;
+        mask = newMask;
+    }
+
+    private static int indexOf(long key, int mask) {
+        return (int) LongHashSet.mix(key) & mask;
+    }
+}
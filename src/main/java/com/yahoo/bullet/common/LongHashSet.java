@@ -0,0 +1,139 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import java.io.Serializable;
+
+/**
+ * A set of primitive longs backed by an open-addressed, linearly probed array. This does not box its entries and is
+ * meant for fast membership checks against a fixed set of values that is built once and read many times.
+ */
+public class LongHashSet implements Serializable {
+    private static final long serialVersionUID = -3176950125263484271L;
+
+    // Marks an empty slot in the table. The actual value is tracked separately.
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MINIMUM_CAPACITY = 4;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean containsEmpty = false;
+
+    /**
+     * Constructor that sizes the set to hold the given number of entries without resizing.
+     *
+     * @param expectedSize The number of entries expected to be added to the set.
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the given value to the set.
+     *
+     * @param value The value to add.
+     * @return A boolean denoting whether the value was not already in the set.
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int index = indexOf(value, mask);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * Checks to see if the given value is in the set.
+     *
+     * @param value The value to check.
+     * @return A boolean denoting whether the value is in the set.
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        int index = indexOf(value, mask);
+        long key;
+        while ((key = keys[index]) != EMPTY) {
+            if (key == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return The size of the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Scrambles the bits of the given value so that values that differ only in their high bits, or that are sequential,
+     * spread out over a power of two sized table. This is the finalizer from MurmurHash3.
+     *
+     * @param value The value to mix.
+     * @return The mixed 64-bit hash of the value.
+     */
+    public static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] newKeys = new long[oldKeys.length << 1];
+        int newMask = newKeys.length - 1;
+        for (long key : oldKeys) {
+            if (key == EMPTY) {
+                continue;
+            }
+            int index = indexOf(key, newMask);
+            while (newKeys[index] != EMPTY) {
+                index = (index + 1) & newMask;
+            }
+            newKeys[index] = key;
+        }
+        keys = newKeys;
+        mask = newMask;
+    }
+
+    private static int indexOf(long value, int mask) {
+        return (int) mix(value) & mask;
+    }
+}
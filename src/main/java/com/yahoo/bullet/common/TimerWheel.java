@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hashed timing wheel that keeps items with deadlines in milliseconds. Time is divided into ticks of a fixed
+ * duration and each tick maps to a bucket in a wheel of buckets. Scheduling and cancelling an item is O(1) and
+ * advancing the wheel only looks at the buckets for the ticks that have passed, so finding the expired items does not
+ * look at every item. Items may be found up to a tick after their deadline.
+ *
+ * Items are unique. Scheduling an item that is already in the wheel moves it to the new deadline. This is not
+ * thread-safe.
+ *
+ * @param <T> The type of the items.
+ */
+public class TimerWheel<T> {
+    private static class Node<T> {
+        private final T item;
+        private final long tick;
+        private final int bucket;
+        private Node<T> previous;
+        private Node<T> next;
+
+        private Node(T item, long tick, int bucket) {
+            this.item = item;
+            this.tick = tick;
+            this.bucket = bucket;
+        }
+    }
+
+    private final long tickDuration;
+    private final Node<T>[] buckets;
+    private final int mask;
+    private final Map<T, Node<T>> nodes = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * Constructor that takes the duration of a tick, the number of buckets and the time to start at.
+     *
+     * @param tickDuration The positive duration of a tick in milliseconds.
+     * @param size The positive number of buckets. This is rounded up to a power of two.
+     * @param startTime The time in milliseconds to start the wheel at.
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickDuration, int size, long startTime) {
+        if (tickDuration <= 0 || size <= 0) {
+            throw new IllegalArgumentException("The tick duration and size must be positive");
+        }
+        this.tickDuration = tickDuration;
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        buckets = (Node<T>[]) new Node[capacity];
+        mask = capacity - 1;
+        currentTick = Math.floorDiv(startTime, tickDuration);
+    }
+
+    /**
+     * Schedules an item to expire at the given deadline. If the item is already scheduled, it is rescheduled. A deadline
+     * that has already passed expires the next time the wheel is advanced past the current tick.
+     *
+     * @param item The non-null item to schedule.
+     * @param deadline The time in milliseconds at which the item expires.
+     */
+    public void schedule(T item, long deadline) {
+        cancel(item);
+        // Round up so that an item is only expired once the time is at or past its deadline
+        long tick = Math.max(-Math.floorDiv(-deadline, tickDuration), currentTick + 1);
+        Node<T> node = new Node<>(item, tick, (int) (tick & mask));
+        Node<T> head = buckets[node.bucket];
+        if (head != null) {
+            head.previous = node;
+            node.next = head;
+        }
+        buckets[node.bucket] = node;
+        nodes.put(item, node);
+    }
+
+    /**
+     * Removes an item from the wheel if it is present.
+     *
+     * @param item The item to remove.
+     * @return A boolean denoting whether the item was present.
+     */
+    public boolean cancel(T item) {
+        Node<T> node = nodes.remove(item);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given time and removes and returns the items whose deadlines have passed.
+     *
+     * @param now The current time in milliseconds.
+     * @return A non-null {@link List} of the expired items.
+     */
+    public List<T> advance(long now) {
+        long nowTick = Math.floorDiv(now, tickDuration);
+        if (nowTick <= currentTick) {
+            return Collections.emptyList();
+        }
+        List<T> expired = new ArrayList<>();
+        // After a full rotation, every bucket has been looked at so there is no need to go further
+        long ticks = Math.min(nowTick - currentTick, buckets.length);
+        for (long i = 1; i <= ticks; i++) {
+            Node<T> node = buckets[(int) ((currentTick + i) & mask)];
+            while (node != null) {
+                Node<T> next = node.next;
+                // Items for later rotations of the wheel are left in place
+                if (node.tick <= nowTick) {
+                    unlink(node);
+                    nodes.remove(node.item);
+                    expired.add(node.item);
+                }
+                node = next;
+            }
+        }
+        currentTick = nowTick;
+        return expired;
+    }
+
+    /**
+     * Returns whether the item is scheduled.
+     *
+     * @param item The item to check.
+     * @return A boolean denoting whether the item is in the wheel.
+     */
+    public boolean contains(T item) {
+        return nodes.containsKey(item);
+    }
+
+    /**
+     * Returns the number of items scheduled.
+     *
+     * @return The number of items in the wheel.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    private void unlink(Node<T> node) {
+        if (node.previous == null) {
+            buckets[node.bucket] = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+        if (node.next != null) {
+            node.next.previous = node.previous;
+        }
+        node.previous = null;
+        node.next = null;
+    }
+}
@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.pubsub;
 
+import com.yahoo.bullet.common.Clock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -60,10 +61,15 @@ public abstract class BufferingSubscriber implements Subscriber {
      */
     protected int messageCount = 0;
 
+    /**
+     * The {@link Clock} to use for rate limiting.
+     */
+    protected Clock clock = Clock.SYSTEM;
+
     /**
      * The start time of the current rate limit interval.
      */
-    protected long startTime = System.currentTimeMillis();
+    protected long startTime = clock.currentTimeMillis();
 
     /**
      * Creates an instance of this class with the given max for uncommitted messages and rate limiting disabled.
@@ -106,14 +112,14 @@ public abstract class BufferingSubscriber implements Subscriber {
     }
 
     private boolean isRateLimited() {
-        return rateLimitEnable && startTime + rateLimitIntervalMS > System.currentTimeMillis() && messageCount >= rateLimitMaxMessages;
+        return rateLimitEnable && startTime + rateLimitIntervalMS > clock.currentTimeMillis() && messageCount >= rateLimitMaxMessages;
     }
 
     private void updateRateLimit() {
         if (!rateLimitEnable) {
             return;
         }
-        long timeNow = System.currentTimeMillis();
+        long timeNow = clock.currentTimeMillis();
         if (startTime + rateLimitIntervalMS > timeNow) {
             messageCount++;
         } else {
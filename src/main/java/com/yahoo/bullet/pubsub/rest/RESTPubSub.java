@@ -68,7 +68,7 @@ public class RESTPubSub extends PubSub {
             urls = Collections.singletonList(config.getAs(RESTPubSubConfig.RESULT_URL, String.class));
             minWait = config.getAs(RESTPubSubConfig.RESULT_SUBSCRIBER_MIN_WAIT, Long.class);
         }
-        return new RESTSubscriber(maxUncommittedMessages, urls, HttpClients.createDefault(), minWait, connectTimeout);
+        return new RESTSubscriber(maxUncommittedMessages, urls, HttpClients.createDefault(), minWait, connectTimeout, config.getClock());
     }
 
     @Override
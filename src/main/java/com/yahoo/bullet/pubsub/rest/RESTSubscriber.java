@@ -8,6 +8,7 @@ package com.yahoo.bullet.pubsub.rest;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializer;
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.pubsub.BufferingSubscriber;
 import com.yahoo.bullet.pubsub.Metadata;
 import com.yahoo.bullet.pubsub.PubSubMessage;
@@ -49,18 +50,35 @@ public class RESTSubscriber extends BufferingSubscriber {
      * @param connectTimeout The minimum time (ms) to wait for a connection to be made.
      */
     public RESTSubscriber(int maxUncommittedMessages, List<String> urls, CloseableHttpClient client, long minWait, int connectTimeout) {
+        this(maxUncommittedMessages, urls, client, minWait, connectTimeout, Clock.SYSTEM);
+    }
+
+    /**
+     * Create a RESTSubscriber that uses the given {@link Clock}.
+     *
+     * @param maxUncommittedMessages The maximum number of records that will be buffered before commit() must be called.
+     * @param urls The URLs which will be used to make the http request.
+     * @param client The client to use to make http requests.
+     * @param minWait The minimum time (ms) to wait between subsequent http requests.
+     * @param connectTimeout The minimum time (ms) to wait for a connection to be made.
+     * @param clock The non-null {@link Clock} to get the time from.
+     */
+    public RESTSubscriber(int maxUncommittedMessages, List<String> urls, CloseableHttpClient client, long minWait, int connectTimeout,
+                          Clock clock) {
         super(maxUncommittedMessages);
         this.client = client;
         this.urls = urls;
         this.minWait = minWait;
         this.lastRequest = 0;
         this.connectTimeout = connectTimeout;
+        this.clock = clock;
+        this.startTime = clock.currentTimeMillis();
     }
 
     @Override
     public List<PubSubMessage> getMessages() {
         List<PubSubMessage> messages = new ArrayList<>();
-        long currentTime = System.currentTimeMillis();
+        long currentTime = clock.currentTimeMillis();
         if (currentTime - lastRequest <= minWait) {
             return messages;
         }
@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.query.aggregations;
 
+import com.yahoo.bullet.querying.aggregations.HybridGroupingStrategy;
 import com.yahoo.bullet.querying.aggregations.TupleSketchingStrategy;
 import com.yahoo.bullet.querying.aggregations.Strategy;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation;
@@ -52,6 +53,9 @@ public class GroupBy extends Aggregation {
 
     @Override
     public Strategy getStrategy(BulletConfig config) {
+        if (config.getAs(BulletConfig.GROUP_AGGREGATION_EXACT_ENABLE, Boolean.class)) {
+            return new HybridGroupingStrategy(this, config);
+        }
         return new TupleSketchingStrategy(this, config);
     }
 
@@ -0,0 +1,216 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.query.expressions;
+
+import com.yahoo.bullet.querying.evaluators.Evaluator;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Rewrites an {@link Expression} into an equivalent one that is cheaper to evaluate. This should be used on an
+ * expression before getting its {@link Expression#getEvaluator()}. It
+ * <ul>
+ *   <li>folds {@link BinaryExpression}, {@link UnaryExpression}, {@link NAryExpression} and {@link CastExpression}
+ *       nodes whose operands are all constants into a {@link ValueExpression},</li>
+ *   <li>flattens nested AND and OR expressions, such as AND(AND(a, b), c), into a single n-ary AND(a, b, c) or
+ *       OR(a, b, c),</li>
+ *   <li>drops the operands of an AND or OR after a constant operand that decides the result since they are never
+ *       evaluated, and</li>
+ *   <li>removes double negations of boolean expressions.</li>
+ * </ul>
+ *
+ * The rewritten expression evaluates to the same results and in the same order as the original. Nodes that would throw
+ * when folded or that do not fold to a primitive value are not folded so that they behave the same as before. The
+ * given expression is not changed. Nodes that are not rewritten are reused.
+ */
+@Slf4j
+public class ExpressionOptimizer {
+    /**
+     * Returns an optimized expression that is equivalent to the given expression.
+     *
+     * @param expression The expression to optimize. Can be null.
+     * @return The optimized expression or the same expression if it could not be optimized.
+     */
+    public static Expression optimize(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            return optimize((BinaryExpression) expression);
+        } else if (expression instanceof UnaryExpression) {
+            return optimize((UnaryExpression) expression);
+        } else if (expression instanceof NAryExpression) {
+            return optimize((NAryExpression) expression);
+        } else if (expression instanceof CastExpression) {
+            return optimize((CastExpression) expression);
+        } else if (expression instanceof ListExpression) {
+            return optimize((ListExpression) expression);
+        }
+        return expression;
+    }
+
+    private static Expression optimize(BinaryExpression expression) {
+        Expression left = optimize(expression.getLeft());
+        Expression right = optimize(expression.getRight());
+        Operation op = expression.getOp();
+        if (isAndOr(op) && (isOperation(left, op) || isOperation(right, op) || isConstant(left) || isConstant(right))) {
+            List<Expression> operands = new ArrayList<>();
+            addOperands(operands, left, op);
+            addOperands(operands, right, op);
+            return optimizeAndOr(expression, operands, op);
+        }
+        if (left == expression.getLeft() && right == expression.getRight()) {
+            return fold(expression, left, right);
+        }
+        return fold(withType(new BinaryExpression(left, right, op), expression), left, right);
+    }
+
+    private static Expression optimize(UnaryExpression expression) {
+        Expression operand = optimize(expression.getOperand());
+        Operation op = expression.getOp();
+        if (op == Operation.NOT && isOperation(operand, Operation.NOT)) {
+            Expression negated = ((UnaryExpression) operand).getOperand();
+            // NOT casts its operand to a boolean so this is only the same if the operand was a boolean
+            if (negated.getType() == Type.BOOLEAN) {
+                return negated;
+            }
+        }
+        if (operand == expression.getOperand()) {
+            return fold(expression, operand);
+        }
+        return fold(withType(new UnaryExpression(operand, op), expression), operand);
+    }
+
+    private static Expression optimize(NAryExpression expression) {
+        List<Expression> operands = optimize(expression.getOperands());
+        Operation op = expression.getOp();
+        if (isAndOr(op)) {
+            List<Expression> flattened = new ArrayList<>();
+            operands.forEach(operand -> addOperands(flattened, operand, op));
+            if (flattened.size() != operands.size() || flattened.stream().anyMatch(ExpressionOptimizer::isConstant)) {
+                return optimizeAndOr(expression, flattened, op);
+            }
+        }
+        NAryExpression optimized = operands == expression.getOperands() ? expression :
+                                   withType(new NAryExpression(operands, op), expression);
+        // UNIXTIMESTAMP without arguments is the current time
+        if (op == Operation.UNIX_TIMESTAMP && operands.isEmpty()) {
+            return optimized;
+        }
+        return fold(optimized, operands.toArray(new Expression[0]));
+    }
+
+    private static Expression optimize(CastExpression expression) {
+        Expression value = optimize(expression.getValue());
+        if (value == expression.getValue()) {
+            return fold(expression, value);
+        }
+        return fold(withType(new CastExpression(value, expression.getCastType()), expression), value);
+    }
+
+    private static Expression optimize(ListExpression expression) {
+        // Lists are not folded since binary operations look for lists of constants to optimize themselves
+        List<Expression> values = optimize(expression.getValues());
+        return values == expression.getValues() ? expression : withType(new ListExpression(values), expression);
+    }
+
+    private static List<Expression> optimize(List<Expression> expressions) {
+        List<Expression> optimized = new ArrayList<>(expressions.size());
+        boolean changed = false;
+        for (Expression expression : expressions) {
+            Expression result = optimize(expression);
+            changed |= result != expression;
+            optimized.add(result);
+        }
+        return changed ? optimized : expressions;
+    }
+
+    private static Expression optimizeAndOr(Expression expression, List<Expression> operands, Operation op) {
+        // The first constant that decides the result is the last operand that is evaluated
+        boolean decider = op == Operation.OR;
+        List<Expression> evaluated = new ArrayList<>();
+        for (Expression operand : operands) {
+            evaluated.add(operand);
+            if (isConstant(operand, decider)) {
+                break;
+            }
+        }
+        if (evaluated.size() == 1) {
+            // Either a single operand or the decider. A single operand is still cast to a boolean.
+            Expression first = evaluated.get(0);
+            if (isConstant(first, decider) || first.getType() == Type.BOOLEAN) {
+                return isConstant(first, decider) ? new ValueExpression(decider) : first;
+            }
+        }
+        Expression optimized = withType(evaluated.size() == 2 ? new BinaryExpression(evaluated.get(0), evaluated.get(1), op) :
+                                                                new NAryExpression(evaluated, op),
+                                        expression);
+        return fold(optimized, evaluated.toArray(new Expression[0]));
+    }
+
+    private static void addOperands(List<Expression> operands, Expression operand, Operation op) {
+        if (operand instanceof BinaryExpression && ((BinaryExpression) operand).getOp() == op) {
+            BinaryExpression binary = (BinaryExpression) operand;
+            addOperands(operands, binary.getLeft(), op);
+            addOperands(operands, binary.getRight(), op);
+        } else if (operand instanceof NAryExpression && ((NAryExpression) operand).getOp() == op) {
+            ((NAryExpression) operand).getOperands().forEach(o -> addOperands(operands, o, op));
+        } else {
+            operands.add(operand);
+        }
+    }
+
+    private static Expression fold(Expression expression, Expression... operands) {
+        for (Expression operand : operands) {
+            if (!isConstant(operand)) {
+                return expression;
+            }
+        }
+        try {
+            TypedObject result = expression.getEvaluator().evaluate(null);
+            if (Evaluator.isError(result)) {
+                return expression;
+            }
+            Serializable value = result.getValue();
+            return new ValueExpression(value);
+        } catch (Exception e) {
+            // Leave it to fail or produce a non-primitive value while evaluating as it did before
+            log.debug("Could not fold constant expression: {}", expression, e);
+            return expression;
+        }
+    }
+
+    private static <E extends Expression> E withType(E expression, Expression original) {
+        expression.setType(original.getType());
+        return expression;
+    }
+
+    private static boolean isAndOr(Operation op) {
+        return op == Operation.AND || op == Operation.OR;
+    }
+
+    private static boolean isOperation(Expression expression, Operation op) {
+        if (expression instanceof BinaryExpression) {
+            return ((BinaryExpression) expression).getOp() == op;
+        } else if (expression instanceof NAryExpression) {
+            return ((NAryExpression) expression).getOp() == op;
+        } else if (expression instanceof UnaryExpression) {
+            return ((UnaryExpression) expression).getOp() == op;
+        }
+        return false;
+    }
+
+    private static boolean isConstant(Expression expression) {
+        return expression instanceof ValueExpression;
+    }
+
+    private static boolean isConstant(Expression expression, boolean value) {
+        return isConstant(expression) && Objects.equals(((ValueExpression) expression).getValue(), value);
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.querying.QueryManager.PartitionStat;
+import com.yahoo.bullet.querying.evaluators.FieldValueCache;
+import com.yahoo.bullet.querying.partitioning.HashingPartitioner;
+import com.yahoo.bullet.querying.partitioning.Partitioner;
+import com.yahoo.bullet.record.BulletRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe version of the {@link QueryManager} that lets multiple threads partition and categorize records for the
+ * same set of queries.
+ *
+ * The queries and partitions are kept in an immutable snapshot. Adding or removing queries copies the snapshot under a
+ * lock and publishes the new one, so {@link #partition(BulletRecord)} never locks and always sees a consistent set of
+ * queries. Adding and removing queries is linear in the number of queries and partitions and is meant to be far less
+ * frequent than partitioning records. Removing many queries at once with {@link #removeAndGetQueries(Set)} or
+ * {@link #removeQueries(Set)} only copies once.
+ *
+ * The {@link Querier} instances themselves are not thread-safe. {@link #categorize(BulletRecord)} locks each querier
+ * while it consumes the record and is categorized. Anything else that uses a querier managed here while records are
+ * being categorized, such as getting its result or resetting it, should also synchronize on the querier.
+ *
+ * The configured {@link Partitioner} must support {@link Partitioner#getKeys(BulletRecord)} being called from multiple
+ * threads while queries are added and removed. The partitioners provided here do.
+ */
+@Slf4j
+public class ConcurrentQueryManager {
+    private static final class Snapshot {
+        private final Map<String, Querier> queries;
+        private final Map<String, Set<String>> partitioning;
+        private final HashedPartitions hashedPartitions;
+
+        private Snapshot(Map<String, Querier> queries, Map<String, Set<String>> partitioning, HashingPartitioner partitioner) {
+            this.queries = queries;
+            this.partitioning = partitioning;
+            if (partitioner != null) {
+                hashedPartitions = new HashedPartitions(partitioner, partitioning.size());
+                partitioning.forEach(hashedPartitions::add);
+            } else {
+                hashedPartitions = null;
+            }
+        }
+    }
+
+    private final Partitioner partitioner;
+    private final HashingPartitioner hashingPartitioner;
+    private final ThreadLocal<long[]> hashes;
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+
+    private final LongAdder queriesSeen = new LongAdder();
+    private final LongAdder expectedQueriesSeen = new LongAdder();
+    private final LongAdder queriesSkipped = new LongAdder();
+
+    /**
+     * The constructor that takes a non-null {@link BulletConfig} instance that contains partitioning settings.
+     *
+     * @param config The non-null config.
+     */
+    public ConcurrentQueryManager(BulletConfig config) {
+        boolean enable = config.getAs(BulletConfig.QUERY_PARTITIONER_ENABLE, Boolean.class);
+        if (enable) {
+            partitioner = config.loadConfiguredClass(BulletConfig.QUERY_PARTITIONER_CLASS_NAME);
+            log.info("Partitioning for queries is enabled. Using {}", partitioner.getClass().getName());
+        } else {
+            partitioner = new QueryManager.NoPartitioner();
+        }
+        if (partitioner instanceof HashingPartitioner) {
+            hashingPartitioner = (HashingPartitioner) partitioner;
+            int size = hashingPartitioner.getMaximumRecordKeys();
+            hashes = ThreadLocal.withInitial(() -> new long[size]);
+        } else {
+            hashingPartitioner = null;
+            hashes = null;
+        }
+        snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyMap(), hashingPartitioner);
+    }
+
+    /**
+     * Adds a configured, initialized query instance {@link Querier} to the manager.
+     *
+     * @param id The query ID.
+     * @param querier A fully initialized {@link Querier} instance.
+     */
+    public void addQuery(String id, Querier querier) {
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            Map<String, Querier> queries = new HashMap<>(current.queries);
+            Map<String, Set<String>> partitioning = new HashMap<>(current.partitioning);
+            Set<String> keys = partitioner.getKeys(querier.getQuery());
+            for (String key : keys) {
+                Set<String> partition = new HashSet<>(partitioning.getOrDefault(key, Collections.emptySet()));
+                partition.add(id);
+                partitioning.put(key, Collections.unmodifiableSet(partition));
+                log.debug("Added query: {} to partition: {}", id, key);
+            }
+            queries.put(id, querier);
+            publish(queries, partitioning);
+        }
+    }
+
+    /**
+     * Removes and returns a {@link Querier} from the manager. The manager does not have any information pertaining to
+     * the query any longer.
+     *
+     * @param id The query ID to remove.
+     * @return The removed {@link Querier} instance.
+     */
+    public Querier removeAndGetQuery(String id) {
+        List<Querier> removed = removeAndGetQueries(Collections.singleton(id));
+        return removed.isEmpty() ? null : removed.get(0);
+    }
+
+    /**
+     * Removes and returns the {@link List} of {@link Querier} instances for the given non-null query IDs. The manager
+     * does not have any information pertaining to these queries after.
+     *
+     * @param ids The non-null {@link Set} of query IDs to remove.
+     * @return The removed {@link List} of {@link Querier} instances.
+     */
+    public List<Querier> removeAndGetQueries(Set<String> ids) {
+        List<Querier> removed = new ArrayList<>();
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            Map<String, Querier> queries = new HashMap<>(current.queries);
+            Map<String, Set<String>> partitioning = new HashMap<>(current.partitioning);
+            for (String id : ids) {
+                Querier querier = queries.remove(id);
+                if (querier == null) {
+                    continue;
+                }
+                removed.add(querier);
+                for (String key : partitioner.getKeys(querier.getQuery())) {
+                    Set<String> partition = new HashSet<>(partitioning.get(key));
+                    partition.remove(id);
+                    if (partition.isEmpty()) {
+                        log.debug("Partition: {} is empty. Removing...", key);
+                        partitioning.remove(key);
+                        partitioner.release(key);
+                    } else {
+                        partitioning.put(key, Collections.unmodifiableSet(partition));
+                    }
+                    log.debug("Removed query: {} from partition: {}", id, key);
+                }
+            }
+            if (!removed.isEmpty()) {
+                publish(queries, partitioning);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all the queries for the given non-null {@link Set} of query IDs from the manager completely. Use
+     * {@link #removeAndGetQueries(Set)} to get these queries.
+     *
+     * @param ids The non-null {@link Set} of query IDs to remove.
+     */
+    public void removeQueries(Set<String> ids) {
+        removeAndGetQueries(ids);
+    }
+
+    /**
+     * Retrieves a query stored in the manager or null, if not found.
+     *
+     * @param id The ID of the query.
+     * @return The {@link Querier} instance or null, if not present.
+     */
+    public Querier getQuery(String id) {
+        return snapshot.queries.get(id);
+    }
+
+    /**
+     * Checks to see if the given ID is stored in the manager.
+     *
+     * @param id The ID of the query.
+     * @return A boolean denoting whether this query is in the manager.
+     */
+    public boolean hasQuery(String id) {
+        return snapshot.queries.containsKey(id);
+    }
+
+    /**
+     * Returns the size of the queries in the manager.
+     *
+     * @return An int representing the number of queries in the manager.
+     */
+    public int size() {
+        return snapshot.queries.size();
+    }
+
+    /**
+     * Takes a {@link BulletRecord} instance and returns the matching queries (according to the {@link Partitioner})
+     * for it as as {@link Map} of query IDs to the {@link Querier} instances. This does not lock.
+     *
+     * @param record The non-null {@link BulletRecord} instance.
+     * @return The non-null {@link Map} of matching queries for the record.
+     */
+    public Map<String, Querier> partition(BulletRecord record) {
+        Snapshot current = snapshot;
+        Map<String, Querier> queries = current.queries;
+        Map<String, Querier> queriers = new HashMap<>();
+        findQueries(current, record, queryIDs -> queryIDs.forEach(id -> queriers.put(id, queries.get(id))));
+        updateStats(current, queriers.size(), record);
+        return queriers;
+    }
+
+    /**
+     * Categorizes all the queries in the manager regardless of partitioning, using a {@link QueryCategorizer}. Each
+     * {@link Querier} is locked while it is categorized.
+     *
+     * @return The {@link QueryCategorizer} instance with all the categorized queries in the manager.
+     */
+    public QueryCategorizer categorize() {
+        QueryCategorizer categorizer = new QueryCategorizer();
+        for (Map.Entry<String, Querier> entry : snapshot.queries.entrySet()) {
+            Querier querier = entry.getValue();
+            synchronized (querier) {
+                categorizer.categorize(Collections.singletonMap(entry.getKey(), querier));
+            }
+        }
+        return categorizer;
+    }
+
+    /**
+     * Categorizes only the queries for the {@link BulletRecord} after partitioning using the {@link QueryCategorizer}.
+     * Each {@link Querier} is locked while it consumes the record and is categorized. The fields of the record are
+     * extracted once for all the queries using the {@link FieldValueCache}.
+     *
+     * @param record The {@link BulletRecord} to consume for the partitioned queries.
+     * @return The {@link QueryCategorizer} instance with the categorized queries in the manager after partitioning.
+     */
+    public QueryCategorizer categorize(BulletRecord record) {
+        QueryCategorizer categorizer = new QueryCategorizer();
+        boolean caching = FieldValueCache.begin(record);
+        try {
+            for (Map.Entry<String, Querier> entry : partition(record).entrySet()) {
+                Querier querier = entry.getValue();
+                synchronized (querier) {
+                    categorizer.categorize(record, Collections.singletonMap(entry.getKey(), querier));
+                }
+            }
+        } finally {
+            if (caching) {
+                FieldValueCache.end();
+            }
+        }
+        return categorizer;
+    }
+
+    /**
+     * Categorizes only the queries for a batch of {@link BulletRecord} after partitioning each record, using the
+     * {@link QueryCategorizer}. Each query consumes all the records in the batch that were partitioned to it in order
+     * using {@link Querier#consume(List)} and is categorized once after. Each {@link Querier} is locked while it
+     * consumes its records and is categorized. The fields of the records are extracted once for all the queries using
+     * the {@link FieldValueCache}. Queries whose windows closed on a record before the end of their records
+     * did not consume the rest. These records are in {@link QueryCategorizer#getRemaining()} and should be given back
+     * to the queries with {@link #categorizeRemaining(Map)} after the closed queries have been emitted and reset.
+     *
+     * @param records The non-null {@link List} of {@link BulletRecord} to consume for the partitioned queries.
+     * @return The {@link QueryCategorizer} instance with the categorized queries in the manager after partitioning.
+     */
+    public QueryCategorizer categorize(List<BulletRecord> records) {
+        Snapshot current = snapshot;
+        Map<String, List<BulletRecord>> batches = new HashMap<>();
+        Set<String> queryIDs = new HashSet<>();
+        for (BulletRecord record : records) {
+            findQueries(current, record, queryIDs::addAll);
+            updateStats(current, queryIDs.size(), record);
+            for (String id : queryIDs) {
+                batches.computeIfAbsent(id, k -> new ArrayList<>()).add(record);
+            }
+            queryIDs.clear();
+        }
+        return categorize(current, records, batches);
+    }
+
+    /**
+     * Categorizes the queries that did not consume all their records in a batch because their windows closed, after
+     * making them consume the rest of their records. This is the same as {@link #categorize(List)} for those records
+     * and any records that are still not consumed are in {@link QueryCategorizer#getRemaining()} again. Queries that
+     * are no longer in the manager are skipped.
+     *
+     * @param remaining The non-null {@link Map} of query IDs to the records they did not consume.
+     * @return The {@link QueryCategorizer} instance with the categorized queries that consumed records.
+     */
+    public QueryCategorizer categorizeRemaining(Map<String, List<BulletRecord>> remaining) {
+        List<BulletRecord> records = new ArrayList<>();
+        remaining.values().forEach(records::addAll);
+        return categorize(snapshot, records, remaining);
+    }
+
+    /**
+     * Gets some statistics about the current state of partitioning and queries in this manager.
+     *
+     * @return A {@link Map} of {@link PartitionStat} to their values for the current state of the manager.
+     */
+    public Map<PartitionStat, Object> getStats() {
+        Snapshot current = snapshot;
+        return QueryManager.getStats(current.partitioning, current.queries.size(), queriesSeen.sum(),
+                                     expectedQueriesSeen.sum(), queriesSkipped.sum());
+    }
+
+    private static QueryCategorizer categorize(Snapshot current, List<BulletRecord> records,
+                                               Map<String, List<BulletRecord>> batches) {
+        QueryCategorizer categorizer = new QueryCategorizer();
+        boolean caching = FieldValueCache.begin(records);
+        try {
+            for (Map.Entry<String, List<BulletRecord>> batch : batches.entrySet()) {
+                String id = batch.getKey();
+                Querier querier = current.queries.get(id);
+                if (querier == null) {
+                    continue;
+                }
+                List<BulletRecord> queued = batch.getValue();
+                synchronized (querier) {
+                    int left = querier.consume(queued);
+                    if (left > 0) {
+                        categorizer.getRemaining().put(id, new ArrayList<>(queued.subList(queued.size() - left, queued.size())));
+                    }
+                    categorizer.categorize(Collections.singletonMap(id, querier));
+                }
+            }
+        } finally {
+            if (caching) {
+                FieldValueCache.end();
+            }
+        }
+        return categorizer;
+    }
+
+    private void findQueries(Snapshot current, BulletRecord record, Consumer<Set<String>> consumer) {
+        if (current.hashedPartitions != null) {
+            current.hashedPartitions.find(record, hashes.get(), consumer);
+        } else {
+            for (String key : partitioner.getKeys(record)) {
+                consumer.accept(current.partitioning.getOrDefault(key, Collections.emptySet()));
+            }
+        }
+    }
+
+    private void updateStats(Snapshot current, int queriesSeen, BulletRecord record) {
+        int allQueries = current.queries.size();
+        this.queriesSeen.add(queriesSeen);
+        expectedQueriesSeen.add(allQueries);
+        queriesSkipped.add(allQueries - queriesSeen);
+        log.trace("Retrieved {}/{} queries for record: {}", queriesSeen, allQueries, record);
+    }
+
+    private void publish(Map<String, Querier> queries, Map<String, Set<String>> partitioning) {
+        snapshot = new Snapshot(Collections.unmodifiableMap(queries), Collections.unmodifiableMap(partitioning), hashingPartitioner);
+    }
+}
@@ -5,23 +5,78 @@
  */
 package com.yahoo.bullet.querying;
 
+import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.ExpressionOptimizer;
+import com.yahoo.bullet.querying.evaluators.AdaptiveEvaluator;
 import com.yahoo.bullet.querying.evaluators.Evaluator;
+import com.yahoo.bullet.querying.evaluators.EvaluatorBuilder;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.util.Arrays;
+
 /**
  * Filter consists of an evaluator built from the filter expression in the bullet query.
  *
  * Note, the filter expression does not necessarily have to have boolean type as it will be force-casted anyways.
- * Also note that if the evaluator throws an exception, the filter will not match.
+ * Also note that if the evaluator throws an exception or returns {@link Evaluator#ERROR}, the filter will not match.
+ * These failures are counted and can be retrieved with {@link #getEvaluationErrors()}. Errors in the operands of ANDs and
+ * ORs evaluated by an {@link AdaptiveEvaluator} that did not end the evaluation because another operand decided the
+ * result are counted too if the filter may have such evaluators. These are counted per thread by the
+ * {@link AdaptiveEvaluator}, so if the evaluator shares an AND or an OR with other filters through a
+ * {@link SharedEvaluators}, its swallowed errors are only counted by the filter that evaluated it first for a record.
+ * The other filters reuse its result.
+ *
+ * A batch of records can be checked at once with {@link #match(BulletRecord[], int)}, which lets the evaluators that
+ * can work on a whole batch do so. See {@link Evaluator#evaluate(BulletRecord[], int[], int, byte[])}.
  */
 public class Filter {
     private Evaluator evaluator;
+    // Whether the evaluator may have AdaptiveEvaluators, so that the errors that they swallowed need to be counted
+    private final boolean adaptive;
+    long errors = 0;
 
     public Filter(Expression filter) {
-        evaluator = filter.getEvaluator();
+        this(ExpressionOptimizer.optimize(filter).getEvaluator(), false);
+    }
+
+    /**
+     * Constructor that builds the evaluator for the filter expression using the evaluation settings in the given
+     * {@link BulletConfig}. See {@link EvaluatorBuilder}.
+     *
+     * @param filter The filter expression.
+     * @param config The validated config to use.
+     */
+    public Filter(Expression filter, BulletConfig config) {
+        this(new EvaluatorBuilder(config), ExpressionOptimizer.optimize(filter));
+    }
+
+    /**
+     * Constructor that uses the given {@link Evaluator} for the filter expression. Since it may have
+     * {@link AdaptiveEvaluator} instances, the errors that they swallowed are counted.
+     *
+     * @param evaluator The evaluator for the filter expression.
+     */
+    public Filter(Evaluator evaluator) {
+        this(evaluator, true);
+    }
+
+    /**
+     * Constructor that uses the given {@link Evaluator} for the filter expression.
+     *
+     * @param evaluator The evaluator for the filter expression.
+     * @param adaptive Whether the evaluator may have {@link AdaptiveEvaluator} instances. If false, the errors that
+     *                 they swallowed are not counted.
+     */
+    public Filter(Evaluator evaluator, boolean adaptive) {
+        this.evaluator = evaluator;
+        this.adaptive = adaptive;
+    }
+
+    private Filter(EvaluatorBuilder builder, Expression filter) {
+        this(builder.build(filter), builder.isAdaptive());
     }
 
     /**
@@ -31,11 +86,67 @@ public class Filter {
      * @return True if the record matches this filter and false otherwise.
      */
     public boolean match(BulletRecord record) {
+        if (!adaptive) {
+            return evaluate(record);
+        }
+        long swallowed = AdaptiveEvaluator.getSwallowedErrors();
+        boolean matches = evaluate(record);
+        errors += AdaptiveEvaluator.getSwallowedErrors() - swallowed;
+        return matches;
+    }
+
+    private boolean evaluate(BulletRecord record) {
         try {
             TypedObject value = evaluator.evaluate(record);
+            if (value == Evaluator.ERROR) {
+                errors++;
+                return false;
+            }
             return !value.isNull() && (Boolean) value.forceCast(Type.BOOLEAN).getValue();
         } catch (Exception e) {
+            errors++;
             return false;
         }
     }
+
+    /**
+     * Checks which of the first n records in the given batch match this filter. This is the same as calling
+     * {@link #match(BulletRecord)} on each of them.
+     *
+     * @param batch The batch of BulletRecords to check.
+     * @param n The number of records in the batch to check.
+     * @return The indices of the records that match this filter in increasing order.
+     */
+    public int[] match(BulletRecord[] batch, int n) {
+        int[] selection = new int[n];
+        for (int i = 0; i < n; i++) {
+            selection[i] = i;
+        }
+        byte[] results = new byte[n];
+        if (adaptive) {
+            long swallowed = AdaptiveEvaluator.getSwallowedErrors();
+            evaluator.evaluate(batch, selection, n, results);
+            errors += AdaptiveEvaluator.getSwallowedErrors() - swallowed;
+        } else {
+            evaluator.evaluate(batch, selection, n, results);
+        }
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (results[i] == Evaluator.BATCH_TRUE) {
+                selection[count++] = i;
+            } else if (results[i] == Evaluator.BATCH_ERROR) {
+                errors++;
+            }
+        }
+        return Arrays.copyOf(selection, count);
+    }
+
+    /**
+     * Gets the number of records that this filter failed to evaluate.
+     *
+     * @return The number of evaluation errors.
+     */
+    public long getEvaluationErrors() {
+        return errors;
+    }
 }
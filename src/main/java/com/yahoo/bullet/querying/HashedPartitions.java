@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.LongHashMap;
+import com.yahoo.bullet.querying.partitioning.HashingPartitioner;
+import com.yahoo.bullet.record.BulletRecord;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A table of partitions keyed by the hashes of their keys from a {@link HashingPartitioner}. Partitions whose keys have
+ * the same hash are chained. The sets of query IDs for the partitions are not copied.
+ */
+class HashedPartitions {
+    private static class Partition {
+        private final String key;
+        private final Set<String> queryIDs;
+        private Partition next;
+
+        private Partition(String key, Set<String> queryIDs) {
+            this.key = key;
+            this.queryIDs = queryIDs;
+        }
+    }
+
+    private final HashingPartitioner partitioner;
+    private final LongHashMap<Partition> table;
+
+    /**
+     * Constructor that takes the partitioner to hash keys with.
+     *
+     * @param partitioner The non-null {@link HashingPartitioner} to use.
+     * @param expectedSize The number of partitions expected.
+     */
+    HashedPartitions(HashingPartitioner partitioner, int expectedSize) {
+        this.partitioner = partitioner;
+        this.table = new LongHashMap<>(expectedSize);
+    }
+
+    /**
+     * Adds a partition. The key must not already be present.
+     *
+     * @param key The key of the partition.
+     * @param queryIDs The {@link Set} of query IDs in the partition.
+     */
+    void add(String key, Set<String> queryIDs) {
+        Partition partition = new Partition(key, queryIDs);
+        partition.next = table.put(partitioner.getHash(key), partition);
+    }
+
+    /**
+     * Removes a partition if present.
+     *
+     * @param key The key of the partition.
+     */
+    void remove(String key) {
+        long hash = partitioner.getHash(key);
+        Partition head = table.get(hash);
+        if (head == null) {
+            return;
+        }
+        if (head.key.equals(key)) {
+            if (head.next == null) {
+                table.remove(hash);
+            } else {
+                table.put(hash, head.next);
+            }
+            return;
+        }
+        for (Partition previous = head; previous.next != null; previous = previous.next) {
+            if (previous.next.key.equals(key)) {
+                previous.next = previous.next.next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the partitions for a {@link BulletRecord} and gives their query IDs to the given {@link Consumer}.
+     *
+     * @param record The record to partition.
+     * @param hashes An array to use for the hashes of the keys of the record. It must have a size of at least
+     *               {@link HashingPartitioner#getMaximumRecordKeys()}.
+     * @param consumer The {@link Consumer} for the query IDs of each partition for the record.
+     */
+    void find(BulletRecord record, long[] hashes, Consumer<Set<String>> consumer) {
+        int count = partitioner.getHashes(record, hashes);
+        for (int i = 0; i < count; i++) {
+            Partition partition = table.get(hashes[i]);
+            if (partition == null) {
+                continue;
+            }
+            // A query seeing a record that it did not need to is harmless since it still applies its filter. So the
+            // actual key is only needed when there are multiple partitions to pick from.
+            if (partition.next == null) {
+                consumer.accept(partition.queryIDs);
+                continue;
+            }
+            String key = partitioner.getKey(record, i);
+            for (; partition != null; partition = partition.next) {
+                if (partition.key.equals(key)) {
+                    consumer.accept(partition.queryIDs);
+                }
+            }
+        }
+    }
+}
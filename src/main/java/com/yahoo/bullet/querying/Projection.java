@@ -6,6 +6,7 @@
 package com.yahoo.bullet.querying;
 
 import com.yahoo.bullet.query.Field;
+import com.yahoo.bullet.query.expressions.ExpressionOptimizer;
 import com.yahoo.bullet.querying.evaluators.Evaluator;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.record.BulletRecordProvider;
@@ -20,12 +21,14 @@ import java.util.stream.Collectors;
  * Projection consists of a mapping of names to evaluators built from the projection in the Bullet query.
  *
  * If an evaluator fails, only the corresponding field will not be projected, i.e. an evaluator failing does not fail
- * the entire projection. If all evaluators fail, there will be an empty record.
+ * the entire projection. If all evaluators fail, there will be an empty record. An evaluator fails if it throws or
+ * returns {@link Evaluator#ERROR}. These failures are counted and can be retrieved with {@link #getEvaluationErrors()}.
  *
  * Nulls are not projected.
  */
 public class Projection {
     private final Map<String, Evaluator> evaluators;
+    private long errors = 0;
 
     /**
      * Constructor that creates a Projection from the given fields.
@@ -48,10 +51,13 @@ public class Projection {
         evaluators.forEach((name, evaluator) -> {
             try {
                 TypedObject value = evaluator.evaluate(record);
-                if (!value.isNull()) {
+                if (value == Evaluator.ERROR) {
+                    errors++;
+                } else if (!value.isNull()) {
                     projected.typedSet(name, value);
                 }
-            } catch (Exception ignored) {
+            } catch (Exception e) {
+                errors++;
             }
         });
         return projected;
@@ -68,17 +74,29 @@ public class Projection {
         evaluators.forEach((name, evaluator) -> {
             try {
                 TypedObject value = evaluator.evaluate(record);
-                if (!value.isNull()) {
+                if (value == Evaluator.ERROR) {
+                    errors++;
+                } else if (!value.isNull()) {
                     map.put(name, value);
                 }
-            } catch (Exception ignored) {
+            } catch (Exception e) {
+                errors++;
             }
         });
         map.forEach(record::typedSet);
         return record;
     }
 
+    /**
+     * Gets the number of fields that this projection failed to evaluate.
+     *
+     * @return The number of evaluation errors.
+     */
+    public long getEvaluationErrors() {
+        return errors;
+    }
+
     private static Evaluator getEvaluator(Field field) {
-        return field.getValue().getEvaluator();
+        return ExpressionOptimizer.optimize(field.getValue()).getEvaluator();
     }
 }
@@ -10,6 +10,7 @@ import com.yahoo.bullet.query.tablefunctions.TableFunction;
 import com.yahoo.bullet.querying.aggregations.Strategy;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.common.BulletError;
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.common.Monoidal;
 import com.yahoo.bullet.query.Query;
 import com.yahoo.bullet.query.Window;
@@ -23,6 +24,7 @@ import com.yahoo.bullet.result.Meta;
 import com.yahoo.bullet.result.Meta.Concept;
 import com.yahoo.bullet.windowing.Basic;
 import com.yahoo.bullet.windowing.Scheme;
+import com.yahoo.bullet.windowing.SlidingRecord;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -31,6 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.yahoo.bullet.query.Projection.Type.COPY;
@@ -316,6 +319,23 @@ public class Querier implements Monoidal {
 
     private BulletRecordProvider provider;
 
+    private Clock clock;
+
+    // Whether the window only closes on records, in which case closing is published while consuming
+    private boolean isRecordBasedWindow;
+
+    /**
+     * An optional listener that is told when this changes into a {@link QueryCategorizer.Category} while consuming
+     * records. The changes published are having new data, exceeding the rate limit and, for windows that close on
+     * records instead of time, closing and being done. The rate limit is checked whenever records are consumed.
+     * Timing out and time based windows closing are not published and still need to be checked with {@link #isDone()}
+     * and {@link #isClosed()}. Each category is published at most once until the next {@link #reset()}.
+     */
+    @Setter
+    private Consumer<QueryCategorizer.Category> listener;
+
+    private QueryCategorizer.Category published;
+
     /**
      * Constructor that takes a {@link RunningQuery} instance and a configuration to use. This also starts executing
      * the query.
@@ -340,6 +360,7 @@ public class Querier implements Monoidal {
         this.runningQuery = query;
         this.config = config;
         this.provider = config.getBulletRecordProvider();
+        this.clock = config.getClock();
         start();
     }
 
@@ -356,14 +377,14 @@ public class Querier implements Monoidal {
         if (isRateLimitEnabled) {
             int maxEmit = config.getAs(BulletConfig.RATE_LIMIT_MAX_EMIT_COUNT, Integer.class);
             int timeInterval = config.getAs(BulletConfig.RATE_LIMIT_TIME_INTERVAL, Integer.class);
-            rateLimit = new RateLimiter(maxEmit, timeInterval);
+            rateLimit = new RateLimiter(maxEmit, timeInterval, clock);
         }
 
         Query query = runningQuery.getQuery();
 
         Expression filter = query.getFilter();
         if (filter != null) {
-            this.filter = new Filter(filter);
+            this.filter = new Filter(filter, config);
         }
 
         TableFunction tableFunction = query.getTableFunction();
@@ -386,6 +407,7 @@ public class Querier implements Monoidal {
 
         // Scheme is guaranteed to not be null. It is constructed in its "start" state.
         window = query.getWindow().getScheme(strategy, config);
+        isRecordBasedWindow = window instanceof Basic || window instanceof SlidingRecord;
     }
 
     /**
@@ -417,6 +439,51 @@ public class Querier implements Monoidal {
         } else {
             tableFunctor.apply(record, provider).forEach(this::consumeRecord);
         }
+        publishChanges();
+    }
+
+    /**
+     * Consume a {@link List} of {@link BulletRecord} in order for this query. This is the same as calling
+     * {@link #consume(BulletRecord)} for each record except that the query is checked for expiry once for the batch
+     * instead of once per record. A query whose last window closes while consuming the batch will not consume the rest.
+     * A query whose window closes on records but is not the last window stops consuming the batch when it closes, so
+     * that the rest can be given to it after it has been emitted and {@link #reset()}. If the query has a filter and no
+     * table function and its window cannot close partway through the batch, the filter is checked on the whole batch up
+     * front with {@link Filter#match(BulletRecord[], int)}.
+     *
+     * @param records The non-null {@link List} of BulletRecord to consume.
+     * @return The number of records at the end of the batch that were not consumed because the window closed.
+     */
+    public int consume(List<BulletRecord> records) {
+        if (isDone()) {
+            return 0;
+        }
+        boolean isLastWindow = isLastWindow();
+        // A window that is already closed keeps consuming like it does for single records
+        boolean canClose = isRecordBasedWindow && !isLastWindow && !isClosed();
+        if (tableFunctor == null && filter != null && !canClose) {
+            consumeFiltered(records, isLastWindow);
+            publishChanges();
+            return 0;
+        }
+        int consumed = 0;
+        for (BulletRecord record : records) {
+            if (tableFunctor == null) {
+                consumeRecord(record);
+            } else {
+                tableFunctor.apply(record, provider).forEach(this::consumeRecord);
+            }
+            consumed++;
+            if (isLastWindow && window.isClosed()) {
+                break;
+            }
+            if (canClose && isClosed()) {
+                publishChanges();
+                return records.size() - consumed;
+            }
+        }
+        publishChanges();
+        return 0;
     }
 
     /**
@@ -534,6 +601,7 @@ public class Querier implements Monoidal {
             window.reset();
         }
         hasNewData = false;
+        published = null;
     }
 
     // ********************************* Public helpers *********************************
@@ -554,7 +622,17 @@ public class Querier implements Monoidal {
      */
     public boolean isDone() {
         // We're done with the query if this is the last window and it is closed or query has timed out.
-        return (isLastWindow() && window.isClosed()) || runningQuery.isTimedOut();
+        return (isLastWindow() && window.isClosed()) || runningQuery.isTimedOut(clock.currentTimeMillis());
+    }
+
+    /**
+     * Returns the earliest time at which this query times out or its window closes because of time. Any other change in
+     * state only happens while consuming data. This time only moves later, such as when the window is {@link #reset()}.
+     *
+     * @return The time in milliseconds or {@link Long#MAX_VALUE} if neither happens.
+     */
+    public long getDeadline() {
+        return Math.min(runningQuery.getTimeoutTime(), window.getCloseTime());
     }
 
     /**
@@ -591,6 +669,29 @@ public class Querier implements Monoidal {
         return new RateLimitError(rateLimit.getCurrentRate(), rateLimit.getAbsoluteRateLimit());
     }
 
+    /**
+     * Returns the number of times the filter, projection or post aggregations of this instance failed to evaluate an
+     * expression, such as arithmetic on a field that is not a number. These records or fields are skipped. The count is
+     * for this instance only, so the Filter and Join stages each count their own errors.
+     *
+     * @return The number of evaluation errors so far.
+     */
+    public long getEvaluationErrors() {
+        long errors = 0;
+        if (filter != null) {
+            errors += filter.getEvaluationErrors();
+        }
+        if (projection != null) {
+            errors += projection.getEvaluationErrors();
+        }
+        if (postStrategies != null) {
+            for (PostStrategy postStrategy : postStrategies) {
+                errors += postStrategy.getEvaluationErrors();
+            }
+        }
+        return errors;
+    }
+
     /**
      * Returns if this query should buffer before emitting the final results. You can use this to wait for the final
      * results in your Join or Combine stage after a query is {@link #isDone()}.
@@ -622,11 +723,26 @@ public class Querier implements Monoidal {
 
     // ********************************* Private helpers *********************************
 
+    private void consumeFiltered(List<BulletRecord> records, boolean isLastWindow) {
+        // The filter is evaluated on the whole batch at once, so records past a last window that closes are still checked
+        BulletRecord[] batch = records.toArray(new BulletRecord[0]);
+        for (int index : filter.match(batch, batch.length)) {
+            consumeMatched(batch[index]);
+            if (isLastWindow && window.isClosed()) {
+                break;
+            }
+        }
+    }
+
     private void consumeRecord(BulletRecord record) {
         // Ignore if record doesn't match filters
         if (!filter(record)) {
             return;
         }
+        consumeMatched(record);
+    }
+
+    private void consumeMatched(BulletRecord record) {
         try {
             BulletRecord projected = project(record);
             window.consume(projected);
@@ -637,6 +753,51 @@ public class Querier implements Monoidal {
         }
     }
 
+    private void publishChanges() {
+        if (listener == null) {
+            return;
+        }
+        if (isExceedingRateLimit()) {
+            publish(QueryCategorizer.Category.RATE_LIMITED);
+        }
+        if (!hasNewData) {
+            return;
+        }
+        if (isRecordBasedWindow) {
+            if (isLastWindow() && window.isClosed()) {
+                publish(QueryCategorizer.Category.DONE);
+                return;
+            }
+            if (isClosed()) {
+                publish(QueryCategorizer.Category.CLOSED);
+                return;
+            }
+        }
+        publish(QueryCategorizer.Category.HAS_DATA);
+    }
+
+    private void publish(QueryCategorizer.Category category) {
+        // Categories are ordered by decreasing priority so only publish if this is higher than what was published
+        if (listener == null || (published != null && published.compareTo(category) <= 0)) {
+            return;
+        }
+        published = category;
+        listener.accept(category);
+    }
+
+    /**
+     * Replaces the {@link Filter} for the query if it has a filter. This is used by the {@link QueryManager} to share
+     * the evaluation of the filter with other queries.
+     *
+     * @param filter The {@link Filter} to use instead.
+     */
+    void setFilter(Filter filter) {
+        if (this.filter != null) {
+            filter.errors += this.filter.errors;
+            this.filter = filter;
+        }
+    }
+
     private boolean filter(BulletRecord record) {
         if (filter == null) {
             return true;
@@ -674,6 +835,7 @@ public class Querier implements Monoidal {
         addIfNonNull(meta, metaKeys, Concept.QUERY_OBJECT, runningQuery::toString);
         addIfNonNull(meta, metaKeys, Concept.QUERY_STRING, runningQuery::getQueryString);
         addIfNonNull(meta, metaKeys, Concept.QUERY_RECEIVE_TIME, runningQuery::getStartTime);
+        addIfNonNull(meta, metaKeys, Concept.QUERY_EVALUATION_ERRORS, this::getEvaluationErrors);
         return new Meta().add(metaKey, meta);
     }
 
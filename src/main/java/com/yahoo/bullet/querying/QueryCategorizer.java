@@ -5,11 +5,13 @@
  */
 package com.yahoo.bullet.querying;
 
+import com.yahoo.bullet.querying.evaluators.FieldValueCache;
 import com.yahoo.bullet.record.BulletRecord;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,13 +21,27 @@ import java.util.Map;
  * <p>
  * Use {@link #categorize(Map)} and {@link #categorize(BulletRecord, Map)}for categorizing queries. The latter
  * categorizes after making the Querier instances {@link Querier#consume(BulletRecord)}.
+ * <p>
+ * Queries can also be added one at a time to a {@link Category} as they change state using
+ * {@link #add(String, Querier, Category)}. A query is only ever in its highest priority category.
+ * <p>
+ * When queries consume batches of records, the records that a query did not consume because its window closed partway
+ * through the batch are kept by query ID in {@link #getRemaining()}.
  */
 @Getter @Slf4j
 public class QueryCategorizer {
+    /**
+     * The categories a query can be in, in decreasing order of priority.
+     */
+    public enum Category {
+        DONE, RATE_LIMITED, CLOSED, HAS_DATA
+    }
+
     private Map<String, Querier> rateLimited = new HashMap<>();
     private Map<String, Querier> closed = new HashMap<>();
     private Map<String, Querier> done = new HashMap<>();
     private Map<String, Querier> hasData = new HashMap<>();
+    private Map<String, List<BulletRecord>> remaining = new HashMap<>();
 
     /**
      * Categorize the given {@link Map} of query IDs to {@link Querier} instances.
@@ -39,20 +55,86 @@ public class QueryCategorizer {
     }
 
     /**
-     * Categorize the given {@link Map} of query IDs to {@link Querier} instances after consuming the given record.
+     * Categorize the given {@link Map} of query IDs to {@link Querier} instances after consuming the given record. The
+     * fields of the record are extracted once for all the queries using the {@link FieldValueCache}.
      *
      * @param record The {@link BulletRecord} to consume first.
      * @param queries The queries to categorize.
      * @return This object for chaining.
      */
     public QueryCategorizer categorize(BulletRecord record, Map<String, Querier> queries) {
-        for (Map.Entry<String, Querier> query : queries.entrySet()) {
-            query.getValue().consume(record);
-            classify(query);
+        boolean caching = FieldValueCache.begin(record);
+        try {
+            for (Map.Entry<String, Querier> query : queries.entrySet()) {
+                query.getValue().consume(record);
+                classify(query);
+            }
+        } finally {
+            if (caching) {
+                FieldValueCache.end();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds a query to the given {@link Category} unless it is already in that or a higher priority category. If it is
+     * in a lower priority category, it is moved.
+     *
+     * @param id The query ID.
+     * @param querier The {@link Querier} for the query.
+     * @param category The {@link Category} to add the query to.
+     * @return This object for chaining.
+     */
+    public QueryCategorizer add(String id, Querier querier, Category category) {
+        for (Category higher : Category.values()) {
+            if (higher == category) {
+                break;
+            }
+            if (getCategory(higher).containsKey(id)) {
+                return this;
+            }
+        }
+        remove(id);
+        getCategory(category).put(id, querier);
+        return this;
+    }
+
+    /**
+     * Removes a query from whichever category it is in.
+     *
+     * @param id The query ID.
+     * @return This object for chaining.
+     */
+    public QueryCategorizer remove(String id) {
+        for (Category category : Category.values()) {
+            getCategory(category).remove(id);
         }
         return this;
     }
 
+    /**
+     * Returns whether there are no queries in any category.
+     *
+     * @return A boolean denoting whether this is empty.
+     */
+    public boolean isEmpty() {
+        return done.isEmpty() && rateLimited.isEmpty() && closed.isEmpty() && hasData.isEmpty();
+    }
+
+    private Map<String, Querier> getCategory(Category category) {
+        switch (category) {
+            case DONE:
+                return done;
+            case RATE_LIMITED:
+                return rateLimited;
+            case CLOSED:
+                return closed;
+            default:
+                return hasData;
+        }
+    }
+
     private void classify(Map.Entry<String, Querier> query) {
         String id = query.getKey();
         Querier querier = query.getValue();
@@ -6,7 +6,12 @@
 package com.yahoo.bullet.querying;
 
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.Clock;
+import com.yahoo.bullet.common.TimerWheel;
 import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.querying.evaluators.FieldValueCache;
+import com.yahoo.bullet.querying.partitioning.HashingPartitioner;
 import com.yahoo.bullet.querying.partitioning.Partitioner;
 import com.yahoo.bullet.record.BulletRecord;
 import lombok.extern.slf4j.Slf4j;
@@ -20,29 +25,63 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * This class wraps the concept of the {@link Partitioner} and allows you to control using your configured (or not)
  * partitioner, what queries are seen for each {@link BulletRecord}. It also uses the {@link QueryCategorizer} to
- * categorize your queries for you if you use the {@link #categorize()} (for categorizing all queries) or
- * {@link #categorize(BulletRecord)} (for categorizing all partitioned queries for a record). You can get the queries
+ * categorize your queries for you if you use the {@link #categorize()} (for categorizing all queries),
+ * {@link #categorize(BulletRecord)} (for categorizing all partitioned queries for a record) or
+ * {@link #categorize(List)} (for categorizing all partitioned queries for a batch of records). You can get the queries
  * relevant to your record (after applying any partitioner) using {@link #partition(BulletRecord)}. You can use the
  * {@link #addQuery(String, Querier)} to add a query to the manager and the {@link #removeAndGetQuery(String)} and
  * {@link #removeQueries(Set)} methods to remove a query from the manager.
+ *
+ * Instead of categorizing queries for every record, you can also have them {@link #consume(BulletRecord)} or
+ * {@link #consume(List)} records and use {@link #drain()} whenever needed to get the queries that changed state. The
+ * queries publish these changes to the manager as they happen. Changes that depend on time still need to be found with
+ * {@link #categorize()} or, more cheaply, with {@link #categorizeExpired()}, which only looks at the queries whose
+ * deadlines have passed.
+ *
+ * A query with a window that closes on records stops consuming a batch of records when its window closes, like it
+ * would be emitted and reset at that record if records were categorized one at a time. The records it did not consume
+ * are returned in {@link QueryCategorizer#getRemaining()} and can be given back to it with
+ * {@link #categorizeRemaining(Map)} or {@link #consumeRemaining(Map)} once it has been emitted and reset.
+ *
+ * If the partitioner is a {@link HashingPartitioner}, the partitions are also kept in a table keyed by the hashes of
+ * their keys and records are partitioned using the hashes of their keys instead of the keys themselves.
+ *
+ * If {@link BulletConfig#QUERY_SHARED_EVALUATION_ENABLE} is set, the filters of the queries in the manager are
+ * registered with a {@link SharedEvaluators} so that subexpressions that are the same across queries are only
+ * evaluated once per record. A query removed from the manager goes back to evaluating its filter by itself.
+ *
+ * If {@link BulletConfig#QUERY_REQUIRED_FIELDS_ENABLE} is set, the queries are also indexed by the top-level fields
+ * that their filters require and the queries whose required fields are missing from a record are skipped when
+ * partitioning it, as if the partitioner had not returned them. Queries with table functions are never skipped.
  */
 @Slf4j
 public class QueryManager {
     private Map<String, Set<String>> partitioning;
     private Map<String, Querier> queries;
     private Partitioner partitioner;
+    private HashedPartitions hashedPartitions;
+    private long[] hashes;
     private long queriesSeen = 0;
     private long expectedQueriesSeen = 0;
+    private long queriesSkipped = 0;
+    private QueryCategorizer transitions = new QueryCategorizer();
+    private TimerWheel<String> deadlines;
+    private Clock clock;
+    private SharedEvaluators sharedEvaluators;
+    private RequiredFields requiredFields;
+    private BulletConfig config;
+    private final Set<String> queryIDs = new HashSet<>();
 
     public static final int QUANTILE_STEP = 10;
 
     public enum PartitionStat {
-        QUERY_COUNT, PARTITION_COUNT, ACTUAL_QUERIES_SEEN, EXPECTED_QUERIES_SEEN,
+        QUERY_COUNT, PARTITION_COUNT, ACTUAL_QUERIES_SEEN, EXPECTED_QUERIES_SEEN, QUERIES_SKIPPED,
         STDDEV_PARTITION_SIZE, LARGEST_PARTITION, SMALLEST_PARTITION, DISTRIBUTION_PARTITION_SIZE
     }
 
@@ -68,7 +107,7 @@ public class QueryManager {
         }
     }
 
-    private static class NoPartitioner implements Partitioner {
+    static class NoPartitioner implements Partitioner {
         private static final Set<String> EMPTY_KEYS = Collections.singleton("");
 
         @Override
@@ -95,8 +134,24 @@ public class QueryManager {
         } else {
             partitioner = new NoPartitioner();
         }
+        if (partitioner instanceof HashingPartitioner) {
+            HashingPartitioner hashingPartitioner = (HashingPartitioner) partitioner;
+            hashedPartitions = new HashedPartitions(hashingPartitioner, 0);
+            hashes = new long[hashingPartitioner.getMaximumRecordKeys()];
+        }
+        this.config = config;
         partitioning = new HashMap<>();
         queries = new HashMap<>();
+        int tick = config.getAs(BulletConfig.QUERY_TIMER_TICK_MS, Integer.class);
+        int size = config.getAs(BulletConfig.QUERY_TIMER_WHEEL_SIZE, Integer.class);
+        clock = config.getClock();
+        deadlines = new TimerWheel<>(tick, size, clock.currentTimeMillis());
+        if (config.getAs(BulletConfig.QUERY_SHARED_EVALUATION_ENABLE, Boolean.class)) {
+            sharedEvaluators = new SharedEvaluators(config);
+        }
+        if (config.getAs(BulletConfig.QUERY_REQUIRED_FIELDS_ENABLE, Boolean.class)) {
+            requiredFields = new RequiredFields();
+        }
     }
 
     /**
@@ -109,10 +164,20 @@ public class QueryManager {
         Query query = querier.getQuery();
         Set<String> keys = partitioner.getKeys(query);
         for (String key : keys) {
-            partitioning.computeIfAbsent(key, s -> new HashSet<>()).add(id);
+            partitioning.computeIfAbsent(key, this::createPartition).add(id);
             log.debug("Added query: {} to partition: {}", id, key);
         }
+        querier.setListener(category -> transitions.add(id, querier, category));
+        // A table function makes new records from the record, so the filter is not applied to the record itself
+        if (requiredFields != null && query.getTableFunction() == null) {
+            requiredFields.add(id, RequiredFields.of(query.getFilter()));
+        }
+        Expression filter = getFilter(query);
+        if (filter != null) {
+            querier.setFilter(new Filter(sharedEvaluators.register(filter), sharedEvaluators.isAdaptive()));
+        }
         queries.put(id, querier);
+        schedule(id, querier.getDeadline());
     }
 
     /**
@@ -125,7 +190,19 @@ public class QueryManager {
     public Querier removeAndGetQuery(String id) {
         Querier querier = queries.remove(id);
         if (querier != null) {
+            querier.setListener(null);
+            transitions.remove(id);
+            transitions.getRemaining().remove(id);
+            deadlines.cancel(id);
+            if (requiredFields != null) {
+                requiredFields.remove(id);
+            }
             Query query = querier.getQuery();
+            Expression filter = getFilter(query);
+            if (filter != null) {
+                sharedEvaluators.unregister(filter);
+                querier.setFilter(new Filter(filter, config));
+            }
             Set<String> keys = partitioner.getKeys(query);
             for (String key : keys) {
                 Set<String> partition = partitioning.get(key);
@@ -133,6 +210,10 @@ public class QueryManager {
                 if (partition.isEmpty()) {
                     log.debug("Partition: {} is empty. Removing...", key);
                     partitioning.remove(key);
+                    if (hashedPartitions != null) {
+                        hashedPartitions.remove(key);
+                    }
+                    partitioner.release(key);
                 }
                 log.debug("Removed query: {} from partition: {}", id, key);
             }
@@ -192,23 +273,17 @@ public class QueryManager {
 
     /**
      * Takes a {@link BulletRecord} instance and returns the matching queries (according to the {@link Partitioner})
-     * for it as as {@link Map} of query IDs to the {@link Querier} instances.
+     * for it as as {@link Map} of query IDs to the {@link Querier} instances. Any filter results shared across the
+     * queries for a previous record are forgotten, so the record is evaluated anew even if it is a reused instance.
      *
      * @param record The non-null {@link BulletRecord} instance.
      * @return The non-null {@link Map} of matching queries for the record.
      */
     public Map<String, Querier> partition(BulletRecord record) {
-        Set<String> keys = partitioner.getKeys(record);
+        clearSharedEvaluators();
         Map<String, Querier> queriers = new HashMap<>();
-        for (String key : keys) {
-            Set<String> queryIDs = partitioning.getOrDefault(key, Collections.emptySet());
-            queryIDs.forEach(id -> queriers.put(id, queries.get(id)));
-        }
-        int queriesSeen = queriers.size();
-        int allQueries = queries.size();
-        this.queriesSeen += queriesSeen;
-        expectedQueriesSeen += allQueries;
-        log.trace("Retrieved {}/{} queries for record: {}", queriesSeen, allQueries, record);
+        findQueries(record, queryIDs -> queryIDs.forEach(id -> queriers.put(id, queries.get(id))));
+        updateStats(queriers.size(), record);
         return queriers;
     }
 
@@ -221,6 +296,30 @@ public class QueryManager {
         return categorize(queries);
     }
 
+    /**
+     * Categorizes only the queries whose deadlines (see {@link Querier#getDeadline()}) have passed, using a
+     * {@link QueryCategorizer}. These are the queries that may have timed out or have time based windows that may have
+     * closed. The deadlines are kept in a {@link TimerWheel} so this only looks at these queries instead of all of
+     * them. A query whose deadline has passed is categorized again on every call until its deadline moves later (for
+     * instance, when its window is reset) or it is removed.
+     *
+     * @return The {@link QueryCategorizer} instance with the categorized queries whose deadlines have passed.
+     */
+    public QueryCategorizer categorizeExpired() {
+        long now = clock.currentTimeMillis();
+        Map<String, Querier> expired = new HashMap<>();
+        for (String id : deadlines.advance(now)) {
+            Querier querier = queries.get(id);
+            // The deadline may have moved later since it was scheduled
+            long deadline = querier.getDeadline();
+            if (deadline <= now) {
+                expired.put(id, querier);
+            }
+            schedule(id, deadline);
+        }
+        return categorize(expired);
+    }
+
     /**
      * Categorizes only the queries for the {@link BulletRecord} after partitioning using the {@link QueryCategorizer}.
      *
@@ -228,7 +327,108 @@ public class QueryManager {
      * @return The {@link QueryCategorizer} instance with the categorized queries in the manager after partitioning.
      */
     public QueryCategorizer categorize(BulletRecord record) {
-        return categorize(record, partition(record));
+        try {
+            return categorize(record, partition(record));
+        } finally {
+            clearSharedEvaluators();
+        }
+    }
+
+    /**
+     * Categorizes only the queries for a batch of {@link BulletRecord} after partitioning each record, using the
+     * {@link QueryCategorizer}. Each query consumes all the records in the batch that were partitioned to it in order
+     * using {@link Querier#consume(List)} and is categorized once after. The fields of the records are extracted once
+     * for all the queries using the {@link FieldValueCache}. Queries whose windows closed on a record before the end of
+     * their records did not consume the rest. These records are in
+     * {@link QueryCategorizer#getRemaining()} and should be given back to the queries with
+     * {@link #categorizeRemaining(Map)} after the closed queries have been emitted and reset.
+     *
+     * @param records The non-null {@link List} of {@link BulletRecord} to consume for the partitioned queries.
+     * @return The {@link QueryCategorizer} instance with the categorized queries in the manager after partitioning.
+     */
+    public QueryCategorizer categorize(List<BulletRecord> records) {
+        QueryCategorizer categorizer = new QueryCategorizer();
+        return categorizer.categorize(consumeBatch(records, batch(records), categorizer.getRemaining()));
+    }
+
+    /**
+     * Categorizes the queries that did not consume all their records in a batch because their windows closed, after
+     * making them consume the rest of their records. This is the same as {@link #categorize(List)} for those records
+     * and any records that are still not consumed are in {@link QueryCategorizer#getRemaining()} again. Queries that
+     * are no longer in the manager are skipped.
+     *
+     * @param remaining The non-null {@link Map} of query IDs to the records they did not consume.
+     * @return The {@link QueryCategorizer} instance with the categorized queries that consumed records.
+     */
+    public QueryCategorizer categorizeRemaining(Map<String, List<BulletRecord>> remaining) {
+        QueryCategorizer categorizer = new QueryCategorizer();
+        return categorizer.categorize(consumeRemaining(remaining, categorizer.getRemaining()));
+    }
+
+    /**
+     * Makes the queries for the {@link BulletRecord} after partitioning consume it without categorizing them. The
+     * queries that change state while consuming are found using {@link #drain()}.
+     *
+     * @param record The {@link BulletRecord} to consume for the partitioned queries.
+     */
+    public void consume(BulletRecord record) {
+        clearSharedEvaluators();
+        findQueries(record, queryIDs::addAll);
+        updateStats(queryIDs.size(), record);
+        boolean caching = FieldValueCache.begin(record);
+        try {
+            for (String id : queryIDs) {
+                queries.get(id).consume(record);
+            }
+        } finally {
+            if (caching) {
+                FieldValueCache.end();
+            }
+            clearSharedEvaluators();
+        }
+        queryIDs.clear();
+    }
+
+    /**
+     * Makes the queries for each {@link BulletRecord} in a batch after partitioning consume them without categorizing
+     * them. Each query consumes all the records in the batch that were partitioned to it in order using
+     * {@link Querier#consume(List)}. The fields of the records are extracted once for all the queries using the
+     * {@link FieldValueCache}. The queries that change state while consuming are found using {@link #drain()}. The
+     * records that queries did not consume because their windows closed are also found in the
+     * {@link QueryCategorizer#getRemaining()} of {@link #drain()} and should be given back to them with
+     * {@link #consumeRemaining(Map)} after the closed queries have been emitted and reset.
+     *
+     * @param records The non-null {@link List} of {@link BulletRecord} to consume for the partitioned queries.
+     */
+    public void consume(List<BulletRecord> records) {
+        consumeBatch(records, batch(records), transitions.getRemaining());
+    }
+
+    /**
+     * Makes the queries that did not consume all their records in a batch because their windows closed consume the
+     * rest of their records without categorizing them. This is the same as {@link #consume(List)} for those records.
+     * Queries that are no longer in the manager are skipped.
+     *
+     * @param remaining The non-null {@link Map} of query IDs to the records they did not consume.
+     */
+    public void consumeRemaining(Map<String, List<BulletRecord>> remaining) {
+        consumeRemaining(remaining, transitions.getRemaining());
+    }
+
+    /**
+     * Returns the queries that have changed state while consuming records since the last time this was called, using a
+     * {@link QueryCategorizer}. The queries publish these changes themselves (see {@link Querier#setListener(Consumer)})
+     * so this does not check any queries. The changes found this way are having new data, exceeding the rate limit
+     * and, for queries with windows that close on records, closing and being done. A query only finds that it exceeded
+     * its rate limit when it consumes a record, so use {@link #categorize()} periodically to find queries that have
+     * timed out, have time based windows that have closed or exceeded their rate limits while not consuming.
+     *
+     * @return The {@link QueryCategorizer} instance with the queries that have changed state since the last call.
+     */
+    public QueryCategorizer drain() {
+        QueryCategorizer drained = transitions;
+        transitions = new QueryCategorizer();
+        return drained;
     }
 
     /**
@@ -237,13 +437,19 @@ public class QueryManager {
      * @return A {@link Map} of {@link PartitionStat} to their values for the current state of the manager.
      */
     public Map<PartitionStat, Object> getStats() {
+        return getStats(partitioning, queries.size(), queriesSeen, expectedQueriesSeen, queriesSkipped);
+    }
+
+    static Map<PartitionStat, Object> getStats(Map<String, Set<String>> partitioning, int queryCount, long queriesSeen,
+                                               long expectedQueriesSeen, long queriesSkipped) {
         Map<PartitionStat, Object> stats = new HashMap<>();
         List<Partition> sorted = partitioning.entrySet().stream().map(Partition::new).sorted().collect(Collectors.toList());
         int size = sorted.size();
-        stats.put(PartitionStat.QUERY_COUNT, queries.size());
+        stats.put(PartitionStat.QUERY_COUNT, queryCount);
         stats.put(PartitionStat.PARTITION_COUNT, size);
         stats.put(PartitionStat.ACTUAL_QUERIES_SEEN, queriesSeen);
         stats.put(PartitionStat.EXPECTED_QUERIES_SEEN, expectedQueriesSeen);
+        stats.put(PartitionStat.QUERIES_SKIPPED, queriesSkipped);
         if (size > 0) {
             stats.put(PartitionStat.LARGEST_PARTITION, sorted.get(size - 1).toString());
             stats.put(PartitionStat.SMALLEST_PARTITION, sorted.get(0).toString());
@@ -254,7 +460,7 @@ public class QueryManager {
         return stats;
     }
 
-    private List<String> getDistributions(List<Partition> sorted) {
+    private static List<String> getDistributions(List<Partition> sorted) {
         int size = sorted.size();
         int step = size <= QUANTILE_STEP ? 1 : size / QUANTILE_STEP;
         List<Partition> quantiles = new ArrayList<>();
@@ -264,6 +470,120 @@ public class QueryManager {
         return quantiles.stream().map(Partition::toString).collect(Collectors.toList());
     }
 
+    private void schedule(String id, long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            deadlines.cancel(id);
+        } else {
+            deadlines.schedule(id, deadline);
+        }
+    }
+
+    private Map<String, List<BulletRecord>> batch(List<BulletRecord> records) {
+        Map<String, List<BulletRecord>> batches = new HashMap<>();
+        for (BulletRecord record : records) {
+            findQueries(record, queryIDs::addAll);
+            updateStats(queryIDs.size(), record);
+            for (String id : queryIDs) {
+                batches.computeIfAbsent(id, k -> new ArrayList<>()).add(record);
+            }
+            queryIDs.clear();
+        }
+        return batches;
+    }
+
+    private Map<String, Querier> consumeRemaining(Map<String, List<BulletRecord>> remaining,
+                                                  Map<String, List<BulletRecord>> stillRemaining) {
+        Map<String, List<BulletRecord>> batches = new HashMap<>();
+        List<BulletRecord> records = new ArrayList<>();
+        remaining.forEach((id, batch) -> {
+            if (queries.containsKey(id)) {
+                batches.put(id, batch);
+                records.addAll(batch);
+            }
+        });
+        return consumeBatch(records, batches, stillRemaining);
+    }
+
+    private Map<String, Querier> consumeBatch(List<BulletRecord> records, Map<String, List<BulletRecord>> batches,
+                                              Map<String, List<BulletRecord>> remaining) {
+        Map<String, Querier> queriers = new HashMap<>();
+        if (sharedEvaluators != null) {
+            sharedEvaluators.begin(records);
+        }
+        boolean caching = FieldValueCache.begin(records);
+        try {
+            batches.forEach((id, batch) -> {
+                Querier querier = queries.get(id);
+                int left = querier.consume(batch);
+                if (left > 0) {
+                    // These go after any records the query had left over from an earlier batch
+                    List<BulletRecord> rest = batch.subList(batch.size() - left, batch.size());
+                    remaining.computeIfAbsent(id, k -> new ArrayList<>()).addAll(rest);
+                }
+                queriers.put(id, querier);
+            });
+        } finally {
+            if (caching) {
+                FieldValueCache.end();
+            }
+            if (sharedEvaluators != null) {
+                sharedEvaluators.end();
+            }
+        }
+        return queriers;
+    }
+
+    private void findQueries(BulletRecord record, Consumer<Set<String>> consumer) {
+        Set<String> missing = requiredFields == null ? Collections.emptySet() : requiredFields.findMissing(record);
+        if (!missing.isEmpty()) {
+            findPartitions(record, queryIDs -> consumer.accept(without(queryIDs, missing)));
+            return;
+        }
+        findPartitions(record, consumer);
+    }
+
+    private void findPartitions(BulletRecord record, Consumer<Set<String>> consumer) {
+        if (hashedPartitions != null) {
+            hashedPartitions.find(record, hashes, consumer);
+        } else {
+            for (String key : partitioner.getKeys(record)) {
+                consumer.accept(partitioning.getOrDefault(key, Collections.emptySet()));
+            }
+        }
+    }
+
+    private static Set<String> without(Set<String> queryIDs, Set<String> missing) {
+        Set<String> remaining = new HashSet<>(queryIDs);
+        remaining.removeAll(missing);
+        return remaining;
+    }
+
+    private void updateStats(int queriesSeen, BulletRecord record) {
+        int allQueries = queries.size();
+        this.queriesSeen += queriesSeen;
+        expectedQueriesSeen += allQueries;
+        queriesSkipped += allQueries - queriesSeen;
+        log.trace("Retrieved {}/{} queries for record: {}", queriesSeen, allQueries, record);
+    }
+
+    private Expression getFilter(Query query) {
+        return sharedEvaluators == null || query == null ? null : query.getFilter();
+    }
+
+    private void clearSharedEvaluators() {
+        if (sharedEvaluators != null) {
+            sharedEvaluators.clear();
+        }
+    }
+
+    private Set<String> createPartition(String key) {
+        Set<String> queryIDs = new HashSet<>();
+        if (hashedPartitions != null) {
+            hashedPartitions.add(key, queryIDs);
+        }
+        return queryIDs;
+    }
+
     private QueryCategorizer categorize(Map<String, Querier> queries) {
         return new QueryCategorizer().categorize(queries);
     }
@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.querying;
 
+import com.yahoo.bullet.common.Clock;
 import lombok.Getter;
 
 /**
@@ -29,6 +30,7 @@ public class RateLimiter {
     private long count = 0;
     private long lastCount = 0;
     private long lastCheckTime;
+    private final Clock clock;
     @Getter
     private boolean exceededRate = false;
 
@@ -52,14 +54,27 @@ public class RateLimiter {
      * @throws IllegalArgumentException if the maximum or the time interval were not positive.
      */
     public RateLimiter(int maximum, int timeInterval) throws IllegalArgumentException {
+        this(maximum, timeInterval, Clock.SYSTEM);
+    }
+
+    /**
+     * Create an instance of this that uses the given maximum, the given time interval and the given {@link Clock}.
+     *
+     * @param maximum A positive maximum count that is the limit for each time interval.
+     * @param timeInterval The rate check will be done only at most once for this positive time interval in milliseconds.
+     * @param clock The non-null {@link Clock} to get the time from.
+     * @throws IllegalArgumentException if the maximum or the time interval were not positive.
+     */
+    public RateLimiter(int maximum, int timeInterval, Clock clock) throws IllegalArgumentException {
         if (maximum <= 0 || timeInterval <= 0) {
             throw new IllegalArgumentException("Provide positive numbers for maximum and/or timeInterval");
         }
         this.maximum = maximum;
         this.timeInterval = timeInterval;
         this.absoluteRateLimit = maximum / (double) timeInterval;
+        this.clock = clock;
 
-        lastCheckTime = System.currentTimeMillis();
+        lastCheckTime = clock.currentTimeMillis();
     }
 
     /**
@@ -93,7 +108,7 @@ public class RateLimiter {
         if (exceededRate) {
             return true;
         }
-        long timeNow = System.currentTimeMillis();
+        long timeNow = clock.currentTimeMillis();
         // Do nothing if too early
         if (isTooEarly(timeNow)) {
             return false;
@@ -113,7 +128,7 @@ public class RateLimiter {
      * @return A double representing the current absolute rate (per ms).
      */
     public double getCurrentRate() {
-        return getCurrentRate(System.currentTimeMillis());
+        return getCurrentRate(clock.currentTimeMillis());
     }
 
     /**
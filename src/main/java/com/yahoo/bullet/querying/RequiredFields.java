@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.record.BulletRecord;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of queries by the top-level fields that their filters require. A filter requires a field if the filter can
+ * only be true when the field is in the record. These are the fields under the ANDs at the top of the filter that are
+ * only used by operations that are null when any of their operands are null, such as comparisons and arithmetic. Fields
+ * under an OR, IF, IS NULL, IS NOT NULL or any other operation are not required.
+ *
+ * The queries whose required fields are missing from a record are found with one pass over the fields in the record.
+ */
+class RequiredFields {
+    // The operations that are null if any of their operands are null
+    private static final Set<Operation> NULL_IF_ANY_NULL =
+            EnumSet.of(Operation.ADD, Operation.SUB, Operation.MUL, Operation.DIV, Operation.MOD,
+                       Operation.EQUALS, Operation.EQUALS_ANY, Operation.EQUALS_ALL,
+                       Operation.NOT_EQUALS, Operation.NOT_EQUALS_ANY, Operation.NOT_EQUALS_ALL,
+                       Operation.GREATER_THAN, Operation.GREATER_THAN_ANY, Operation.GREATER_THAN_ALL,
+                       Operation.LESS_THAN, Operation.LESS_THAN_ANY, Operation.LESS_THAN_ALL,
+                       Operation.GREATER_THAN_OR_EQUALS, Operation.GREATER_THAN_OR_EQUALS_ANY, Operation.GREATER_THAN_OR_EQUALS_ALL,
+                       Operation.LESS_THAN_OR_EQUALS, Operation.LESS_THAN_OR_EQUALS_ANY, Operation.LESS_THAN_OR_EQUALS_ALL,
+                       Operation.REGEX_LIKE, Operation.REGEX_LIKE_ANY, Operation.NOT_REGEX_LIKE, Operation.NOT_REGEX_LIKE_ANY,
+                       Operation.SIZE_IS, Operation.CONTAINS_KEY, Operation.CONTAINS_VALUE, Operation.IN, Operation.NOT_IN,
+                       Operation.XOR, Operation.NOT, Operation.SIZE_OF, Operation.TRIM, Operation.ABS, Operation.LOWER,
+                       Operation.UPPER);
+
+    private final Map<String, Set<String>> queriesByField = new HashMap<>();
+    private final Map<String, Set<String>> fieldsByQuery = new HashMap<>();
+
+    /**
+     * Gets the top-level fields that the given filter requires.
+     *
+     * @param filter The filter expression.
+     * @return The non-null {@link Set} of the names of the required fields.
+     */
+    static Set<String> of(Expression filter) {
+        Set<String> fields = new HashSet<>();
+        if (filter != null) {
+            addRequired(filter, fields);
+        }
+        return fields;
+    }
+
+    /**
+     * Adds a query with the fields that it requires. Nothing is added if there are no required fields.
+     *
+     * @param id The query ID. It must not already be present.
+     * @param fields The non-null {@link Set} of the names of the fields that the query requires.
+     */
+    void add(String id, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return;
+        }
+        fieldsByQuery.put(id, fields);
+        for (String field : fields) {
+            queriesByField.computeIfAbsent(field, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Removes a query if present.
+     *
+     * @param id The query ID.
+     */
+    void remove(String id) {
+        Set<String> fields = fieldsByQuery.remove(id);
+        if (fields == null) {
+            return;
+        }
+        for (String field : fields) {
+            Set<String> queryIDs = queriesByField.get(field);
+            queryIDs.remove(id);
+            if (queryIDs.isEmpty()) {
+                queriesByField.remove(field);
+            }
+        }
+    }
+
+    /**
+     * Finds the queries that require a field that is not in the given record.
+     *
+     * @param record The non-null {@link BulletRecord} to look at.
+     * @return The non-null {@link Set} of the IDs of the queries whose filters cannot match the record.
+     */
+    @SuppressWarnings("unchecked")
+    Set<String> findMissing(BulletRecord record) {
+        if (queriesByField.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> present = new HashSet<>();
+        for (Map.Entry<String, ? extends Serializable> entry : (BulletRecord<? extends Serializable>) record) {
+            String field = entry.getKey();
+            if (queriesByField.containsKey(field)) {
+                present.add(field);
+            }
+        }
+        if (present.size() == queriesByField.size()) {
+            return Collections.emptySet();
+        }
+        Set<String> missing = new HashSet<>();
+        queriesByField.forEach((field, queryIDs) -> {
+            if (!present.contains(field)) {
+                missing.addAll(queryIDs);
+            }
+        });
+        return missing;
+    }
+
+    // An AND is only looked into at the top of the filter since it is not null if an operand is null and another is false
+    private static void addRequired(Expression expression, Set<String> fields) {
+        if (expression instanceof BinaryExpression && ((BinaryExpression) expression).getOp() == Operation.AND) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            addRequired(binary.getLeft(), fields);
+            addRequired(binary.getRight(), fields);
+        } else if (expression instanceof NAryExpression && ((NAryExpression) expression).getOp() == Operation.AND) {
+            ((NAryExpression) expression).getOperands().forEach(operand -> addRequired(operand, fields));
+        } else {
+            addNullIfNull(expression, fields);
+        }
+    }
+
+    // Adds the fields that the expression is null without
+    private static void addNullIfNull(Expression expression, Set<String> fields) {
+        if (expression instanceof FieldExpression) {
+            fields.add(((FieldExpression) expression).getField());
+        } else if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            if (NULL_IF_ANY_NULL.contains(binary.getOp())) {
+                addNullIfNull(binary.getLeft(), fields);
+                addNullIfNull(binary.getRight(), fields);
+            }
+        } else if (expression instanceof UnaryExpression) {
+            UnaryExpression unary = (UnaryExpression) expression;
+            if (NULL_IF_ANY_NULL.contains(unary.getOp())) {
+                addNullIfNull(unary.getOperand(), fields);
+            }
+        }
+    }
+}
@@ -46,7 +46,28 @@ public class RunningQuery {
      * @return A boolean denoting whether this query has timed out.
      */
     public boolean isTimedOut() {
+        return isTimedOut(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns true if this running query has timed out at the given time.
+     *
+     * @param now The current time in milliseconds.
+     * @return A boolean denoting whether this query has timed out.
+     */
+    public boolean isTimedOut(long now) {
         // Never add to query.getDuration() since it can be infinite (Long.MAX_VALUE)
-        return System.currentTimeMillis() - startTime >= query.getDuration();
+        return now - startTime >= query.getDuration();
+    }
+
+    /**
+     * Returns the time at which this running query times out.
+     *
+     * @return The time in milliseconds when this query times out or {@link Long#MAX_VALUE} if it never does.
+     */
+    public long getTimeoutTime() {
+        long duration = query.getDuration();
+        // The duration can be infinite (Long.MAX_VALUE) so do not overflow
+        return duration > Long.MAX_VALUE - startTime ? Long.MAX_VALUE : startTime + duration;
     }
 }
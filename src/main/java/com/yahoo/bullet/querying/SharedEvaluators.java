@@ -0,0 +1,283 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.ExpressionOptimizer;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.querying.evaluators.AdaptiveEvaluator;
+import com.yahoo.bullet.querying.evaluators.Evaluator;
+import com.yahoo.bullet.querying.evaluators.EvaluatorBuilder;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This shares the evaluation of structurally equal {@link Expression} nodes across many queries. Expressions are
+ * registered using {@link #register(Expression)}, which returns an {@link Evaluator} for them. Every node in a
+ * registered expression is hash-consed using the {@link Expression#equals(Object)} and {@link Expression#hashCode()}
+ * of the expressions, so equal subexpressions in different queries (or in the same query) map to the same node. Each
+ * node is given a slot and its result for a record is remembered in that slot of a scratch array for the record. A
+ * shared subexpression is thus only evaluated once per record no matter how many of the registered expressions use it.
+ * Errors are remembered and thrown again as well. Constant values are not shared since they are cheap to evaluate.
+ *
+ * The results are remembered for the last record seen. If records are reused and changed in place, use
+ * {@link #clear()} before evaluating a new record. To evaluate a batch of records in any order, such as when each query
+ * consumes a whole batch one after the other, use {@link #begin(List)} to set aside a scratch array for each record in
+ * the batch and {@link #end()} after.
+ *
+ * Expressions are optimized with the {@link ExpressionOptimizer} before they are registered. Nodes are counted by the
+ * number of registered expressions that use them and are freed by {@link #unregister(Expression)} once they are not
+ * used. The evaluators for an unregistered expression must not be used after. This is not thread-safe.
+ */
+public class SharedEvaluators {
+    private static class Node {
+        private final int slot;
+        private final List<Expression> children = new ArrayList<>();
+        private SlotEvaluator evaluator;
+        private int count = 1;
+
+        private Node(int slot) {
+            this.slot = slot;
+        }
+    }
+
+    private static class Row {
+        private BulletRecord record;
+        private TypedObject[] values = new TypedObject[0];
+        private RuntimeException[] errors = new RuntimeException[0];
+        private int[] stamps = new int[0];
+        private int generation;
+        private int version = -1;
+
+        private void reset(BulletRecord record, int version, int slots) {
+            this.record = record;
+            this.version = version;
+            if (stamps.length < slots) {
+                int capacity = Math.max(slots, stamps.length * 2);
+                values = Arrays.copyOf(values, capacity);
+                errors = Arrays.copyOf(errors, capacity);
+                stamps = Arrays.copyOf(stamps, capacity);
+            }
+            // Moving to a new generation forgets every remembered result without clearing the arrays
+            if (++generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+    }
+
+    private class SlotEvaluator extends Evaluator {
+        private static final long serialVersionUID = -2185335097357203742L;
+
+        private final int slot;
+        private Evaluator delegate;
+
+        private SlotEvaluator(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public TypedObject evaluate(BulletRecord record) {
+            Row row = getRow(record);
+            if (row.stamps[slot] == row.generation) {
+                RuntimeException error = row.errors[slot];
+                if (error != null) {
+                    throw error;
+                }
+                return row.values[slot];
+            }
+            TypedObject value;
+            try {
+                value = delegate.evaluate(record);
+            } catch (RuntimeException e) {
+                remember(row, null, e);
+                throw e;
+            }
+            remember(row, value, null);
+            return value;
+        }
+
+        private void remember(Row row, TypedObject value, RuntimeException error) {
+            row.values[slot] = value;
+            row.errors[slot] = error;
+            row.stamps[slot] = row.generation;
+        }
+    }
+
+    private final Map<Expression, Node> nodes = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int slots = 0;
+    // Changes whenever the nodes change so that the rows forget any results for slots that were freed
+    private int version = 0;
+
+    private final Row single = new Row();
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<BulletRecord, Row> batch = new IdentityHashMap<>();
+    private Row current = single;
+    private final EvaluatorBuilder builder;
+
+    /**
+     * Constructor that builds the same evaluators as {@link Expression#getEvaluator()} for the shared nodes.
+     */
+    public SharedEvaluators() {
+        builder = new EvaluatorBuilder();
+    }
+
+    /**
+     * Constructor that builds the evaluators for the shared nodes using the evaluation settings in the given
+     * {@link BulletConfig}. See {@link EvaluatorBuilder}.
+     *
+     * @param config The validated config to use.
+     */
+    public SharedEvaluators(BulletConfig config) {
+        builder = new EvaluatorBuilder(config);
+    }
+
+    /**
+     * Registers an {@link Expression} and returns an {@link Evaluator} for it that shares the evaluation of its nodes
+     * with all the other registered expressions.
+     *
+     * @param expression The non-null expression to register.
+     * @return An {@link Evaluator} for the expression.
+     */
+    public Evaluator register(Expression expression) {
+        return acquire(ExpressionOptimizer.optimize(expression));
+    }
+
+    /**
+     * Unregisters an {@link Expression} that was registered before. The nodes in it that are not used by any other
+     * registered expressions are freed.
+     *
+     * @param expression The non-null expression to unregister.
+     */
+    public void unregister(Expression expression) {
+        release(ExpressionOptimizer.optimize(expression));
+    }
+
+    /**
+     * Forgets the results for the last record seen and no longer holds on to the record. The next record evaluated is
+     * treated as a new record even if it is the same instance.
+     */
+    public void clear() {
+        single.reset(null, version, slots);
+        current = single;
+    }
+
+    /**
+     * Sets aside a scratch array for each record in the given batch so that the records may be evaluated in any order
+     * until {@link #end()} is called.
+     *
+     * @param records The non-null {@link List} of records in the batch.
+     */
+    public void begin(List<BulletRecord> records) {
+        end();
+        int size = records.size();
+        for (int i = 0; i < size; i++) {
+            if (i == rows.size()) {
+                rows.add(new Row());
+            }
+            BulletRecord record = records.get(i);
+            if (!batch.containsKey(record)) {
+                Row row = rows.get(i);
+                row.reset(record, version, slots);
+                batch.put(record, row);
+            }
+        }
+    }
+
+    /**
+     * Forgets the results for the batch of records given to {@link #begin(List)}.
+     */
+    public void end() {
+        batch.values().forEach(row -> row.record = null);
+        batch.clear();
+        clear();
+    }
+
+    /**
+     * Returns whether the shared nodes evaluate AND and OR with an {@link AdaptiveEvaluator}.
+     *
+     * @return True if the evaluators returned by {@link #register(Expression)} may have {@link AdaptiveEvaluator}
+     *         instances.
+     */
+    public boolean isAdaptive() {
+        return builder.isAdaptive();
+    }
+
+    /**
+     * Returns the number of distinct shared nodes in the registered expressions.
+     *
+     * @return The number of shared nodes.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    private Evaluator acquire(Expression expression) {
+        if (expression instanceof ValueExpression) {
+            return expression.getEvaluator();
+        }
+        Node node = nodes.get(expression);
+        if (node != null) {
+            node.count++;
+            return node.evaluator;
+        }
+        node = new Node(freeSlots.isEmpty() ? slots++ : freeSlots.pop());
+        SlotEvaluator evaluator = new SlotEvaluator(node.slot);
+        // Fields and anything else without operands are shared as a whole
+        List<Expression> children = node.children;
+        evaluator.delegate = builder.build(expression, child -> acquireChild(child, children));
+        node.evaluator = evaluator;
+        nodes.put(expression, node);
+        version++;
+        return evaluator;
+    }
+
+    private Evaluator acquireChild(Expression child, List<Expression> children) {
+        children.add(child);
+        return acquire(child);
+    }
+
+    private void release(Expression expression) {
+        if (expression instanceof ValueExpression) {
+            return;
+        }
+        Node node = nodes.get(expression);
+        if (node == null || --node.count > 0) {
+            return;
+        }
+        nodes.remove(expression);
+        freeSlots.push(node.slot);
+        version++;
+        node.children.forEach(this::release);
+    }
+
+    private Row getRow(BulletRecord record) {
+        Row row = current;
+        if (row.record == record && row.version == version) {
+            return row;
+        }
+        row = batch.isEmpty() ? null : batch.get(record);
+        if (row == null) {
+            row = single;
+        }
+        if (row.record != record || row.version != version) {
+            row.reset(record, version, slots);
+        }
+        current = row;
+        return row;
+    }
+}
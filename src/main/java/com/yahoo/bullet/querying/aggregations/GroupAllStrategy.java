@@ -8,7 +8,8 @@ package com.yahoo.bullet.querying.aggregations;
 import com.yahoo.bullet.query.aggregations.Aggregation;
 import com.yahoo.bullet.query.aggregations.GroupAll;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupData;
-import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperationLayout;
+import com.yahoo.bullet.querying.aggregations.grouping.PrimitiveGroupData;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.common.SerializerDeserializer;
 import com.yahoo.bullet.record.BulletRecord;
@@ -18,14 +19,13 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 @Slf4j
 public class GroupAllStrategy implements Strategy {
     // We only have a single group.
     private GroupData data;
 
-    private Set<GroupOperation> operations;
+    private GroupOperationLayout layout;
     private BulletRecordProvider provider;
     /**
      * Constructor that requires an {@link Aggregation}.
@@ -35,8 +35,8 @@ public class GroupAllStrategy implements Strategy {
      */
     public GroupAllStrategy(GroupAll aggregation, BulletConfig config) {
         // GroupOperations is all we care about - size etc. are meaningless for Group All since it's a single result
-        operations = aggregation.getOperations();
-        data = new GroupData(operations);
+        layout = new GroupOperationLayout(aggregation.getOperations());
+        data = new PrimitiveGroupData(layout);
         this.provider = config.getBulletRecordProvider();
     }
 
@@ -69,6 +69,6 @@ public class GroupAllStrategy implements Strategy {
 
     @Override
     public void reset() {
-        data = new GroupData(operations);
+        data = new PrimitiveGroupData(layout);
     }
 }
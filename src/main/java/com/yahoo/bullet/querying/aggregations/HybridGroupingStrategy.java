@@ -0,0 +1,198 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.aggregations.Aggregation;
+import com.yahoo.bullet.query.aggregations.GroupBy;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperationLayout;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupTable;
+import com.yahoo.bullet.querying.aggregations.grouping.PrimitiveGroupData;
+import com.yahoo.bullet.querying.aggregations.sketches.KMVSketch;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.BulletRecordProvider;
+import com.yahoo.bullet.result.Clip;
+import com.yahoo.bullet.result.Meta;
+import com.yahoo.bullet.result.Meta.Concept;
+import com.yahoo.bullet.typesystem.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.yahoo.bullet.result.Meta.addIfNonNull;
+
+/**
+ * This {@link Strategy} does a group by exactly until the number of unique groups exceeds the nominal entries of the
+ * Tuple Sketch of the {@link TupleSketchingStrategy}. Until then, the groups are kept in a {@link GroupTable} keyed on
+ * their group values. Once there are more groups, they are moved into the sketch and this behaves like the
+ * TupleSketchingStrategy. Whether the result is exact is reported in the metadata as the Sketch Estimated Result.
+ * While the groups are exact, the metadata has the same concepts as the metadata of the sketch, with a theta of 1.0 and
+ * the number of groups as the estimate and all the bounds. If the sketch samples the groups, the result cannot be
+ * exact, so this behaves like the TupleSketchingStrategy from the start.
+ */
+public class HybridGroupingStrategy extends TupleSketchingStrategy {
+    // The first byte of the data says whether the rest is the serialized table or the serialized sketch
+    static final byte EXACT = 0;
+    static final byte SKETCH = 1;
+
+    private final GroupTable table;
+    // This is reused for the duration of the strategy.
+    private final String[] values;
+    private final int maximumGroups;
+    private final int size;
+    private final BulletRecordProvider provider;
+    private final boolean canBeExact;
+
+    private boolean exact;
+
+    /**
+     * Constructor that requires an {@link Aggregation} and a {@link BulletConfig} configuration.
+     *
+     * @param aggregation An {@link Aggregation} with valid fields and attributes for this aggregation type.
+     * @param config The config that has relevant configs for this strategy.
+     */
+    public HybridGroupingStrategy(GroupBy aggregation, BulletConfig config) {
+        super(aggregation, config);
+        table = new GroupTable(new GroupOperationLayout(aggregation.getOperations()), fields, aggregation.getFieldsToNames());
+        values = new String[fields.size()];
+        maximumGroups = config.getAs(BulletConfig.GROUP_AGGREGATION_SKETCH_ENTRIES, Integer.class);
+        int maximumSize = config.getAs(BulletConfig.GROUP_AGGREGATION_MAX_SIZE, Integer.class);
+        size = Math.min(aggregation.getSize(), maximumSize);
+        provider = config.getBulletRecordProvider();
+        float samplingProbability = config.getAs(BulletConfig.GROUP_AGGREGATION_SKETCH_SAMPLING, Float.class);
+        canBeExact = samplingProbability == 1.0f;
+        exact = canBeExact;
+    }
+
+    @Override
+    public void consume(BulletRecord data) {
+        if (!exact) {
+            super.consume(data);
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Objects.toString(data.typedGet(fields.get(i)).forceCast(Type.STRING).getValue());
+        }
+        table.getOrCreate(values).consume(data);
+        if (table.size() > maximumGroups) {
+            switchToSketch();
+        }
+    }
+
+    @Override
+    public void combine(byte[] data) {
+        byte[] serialized = Arrays.copyOfRange(data, Byte.BYTES, data.length);
+        if (data[0] == SKETCH) {
+            switchToSketch();
+            super.combine(serialized);
+        } else if (data[0] == EXACT) {
+            GroupTable.deserialize(serialized, fields, this::add);
+        } else {
+            throw new IllegalArgumentException("Unknown mode of the group data: " + data[0]);
+        }
+    }
+
+    @Override
+    public byte[] getData() {
+        byte[] serialized = exact ? table.serialize() : super.getData();
+        byte[] data = new byte[Byte.BYTES + serialized.length];
+        data[0] = exact ? EXACT : SKETCH;
+        System.arraycopy(serialized, 0, data, Byte.BYTES, serialized.length);
+        return data;
+    }
+
+    @Override
+    public Clip getResult() {
+        if (!exact) {
+            return super.getResult();
+        }
+        return Clip.of(getMetadata()).add(getRecords());
+    }
+
+    @Override
+    public List<BulletRecord> getRecords() {
+        if (!exact) {
+            return super.getRecords();
+        }
+        List<BulletRecord> records = new ArrayList<>();
+        table.forEach((values, group) -> {
+            if (records.size() < size) {
+                records.add(group.getAsBulletRecord(provider));
+            }
+        });
+        return records;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Meta getMetadata() {
+        // The sketch is empty while the groups are exact but it still has the concepts that do not depend on the groups
+        Meta meta = super.getMetadata();
+        String metaKey = getMetaKey();
+        if (!exact || metaKey == null) {
+            return meta;
+        }
+        Map<String, Object> metadata = (Map<String, Object>) meta.asMap().get(metaKey);
+        double groups = table.size();
+        addIfNonNull(metadata, metadataKeys, Concept.SKETCH_ESTIMATED_RESULT, () -> false);
+        addIfNonNull(metadata, metadataKeys, Concept.SKETCH_THETA, () -> 1.0);
+        addIfNonNull(metadata, metadataKeys, Concept.SKETCH_UNIQUES_ESTIMATE, () -> groups);
+        addIfNonNull(metadata, metadataKeys, Concept.SKETCH_STANDARD_DEVIATIONS, () -> getStandardDeviations(groups));
+        return meta;
+    }
+
+    @Override
+    public void reset() {
+        table.clear();
+        exact = canBeExact;
+        super.reset();
+    }
+
+    /**
+     * Returns whether the groups are still exact, that is, they have not been moved into the sketch.
+     *
+     * @return A boolean denoting whether the groups are exact.
+     */
+    boolean isExact() {
+        return exact;
+    }
+
+    private void add(String[] values, PrimitiveGroupData group) {
+        if (!exact) {
+            update(values, group);
+            return;
+        }
+        table.merge(values, group);
+        if (table.size() > maximumGroups) {
+            switchToSketch();
+        }
+    }
+
+    private static Map<String, Map<String, Double>> getStandardDeviations(double groups) {
+        Map<String, Double> bounds = new HashMap<>();
+        bounds.put(KMVSketch.META_STD_DEV_LB, groups);
+        bounds.put(KMVSketch.META_STD_DEV_UB, groups);
+        Map<String, Map<String, Double>> standardDeviations = new HashMap<>();
+        standardDeviations.put(KMVSketch.META_STD_DEV_1, bounds);
+        standardDeviations.put(KMVSketch.META_STD_DEV_2, new HashMap<>(bounds));
+        standardDeviations.put(KMVSketch.META_STD_DEV_3, new HashMap<>(bounds));
+        return standardDeviations;
+    }
+
+    private void switchToSketch() {
+        if (!exact) {
+            return;
+        }
+        // The groups have no cached record so the sketch combines their data instead of consuming a record
+        table.forEach(this::update);
+        table.clear();
+        exact = false;
+    }
+}
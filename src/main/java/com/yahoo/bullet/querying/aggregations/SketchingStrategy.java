@@ -114,7 +114,12 @@ public abstract class SketchingStrategy<S extends Sketch> implements Strategy {
         return Arrays.asList(field.split(Pattern.quote(separator)));
     }
 
-    private String getMetaKey() {
+    /**
+     * Returns the key to add the sketch metadata as or null if metadata is not enabled.
+     *
+     * @return The String key or null.
+     */
+    String getMetaKey() {
         return shouldMeta ? metadataKeys.getOrDefault(Meta.Concept.SKETCH_METADATA.getName(), null) : null;
     }
 }
@@ -25,6 +25,8 @@ public class ThetaSketchingStrategy extends KMVStrategy<ThetaSketch> {
     public static final int DEFAULT_NOMINAL_ENTRIES = 16384;
 
     private final String name;
+    // This is reused for the duration of the strategy.
+    private final Object[] values;
 
     /**
      * Constructor that requires an {@link Aggregation} and a {@link BulletConfig} configuration.
@@ -42,13 +44,16 @@ public class ThetaSketchingStrategy extends KMVStrategy<ThetaSketch> {
         int nominalEntries = config.getAs(BulletConfig.COUNT_DISTINCT_AGGREGATION_SKETCH_ENTRIES, Integer.class);
 
         name = aggregation.getName();
+        values = new Object[fields.size()];
         sketch = new ThetaSketch(resizeFactor, family, samplingProbability, nominalEntries, config.getBulletRecordProvider());
     }
 
     @Override
     public void consume(BulletRecord data) {
-        String field = composeField(data);
-        sketch.update(field);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data.typedGet(fields.get(i)).getValue();
+        }
+        sketch.update(values, separator);
     }
 
     @Override
@@ -6,21 +6,15 @@
 package com.yahoo.bullet.querying.aggregations;
 
 import com.yahoo.bullet.querying.aggregations.grouping.CachingGroupData;
-import com.yahoo.bullet.querying.aggregations.grouping.GroupData;
-import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupKeyBuilder;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperationLayout;
 import com.yahoo.bullet.querying.aggregations.sketches.TupleSketch;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.query.aggregations.Aggregation;
 import com.yahoo.bullet.query.aggregations.GroupBy;
 import com.yahoo.bullet.record.BulletRecord;
-import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.sketches.ResizeFactor;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-
 /**
  * This {@link Strategy} implements a Tuple Sketch based approach to doing a group by. In particular, it
  * provides a uniform sample of the groups if the number of unique groups exceed the Sketch size. Metrics like
@@ -28,7 +22,8 @@ import java.util.Objects;
  * of the total sum and count across all the groups.
  */
 public class TupleSketchingStrategy extends KMVStrategy<TupleSketch> {
-    // This is reused for the duration of the strategy.
+    // These are reused for the duration of the strategy.
+    private final GroupKeyBuilder keyBuilder;
     private final CachingGroupData container;
 
     /**
@@ -41,8 +36,10 @@ public class TupleSketchingStrategy extends KMVStrategy<TupleSketch> {
     public TupleSketchingStrategy(GroupBy aggregation, BulletConfig config) {
         super(aggregation, config);
 
-        Map<GroupOperation, Number> metrics = GroupData.makeInitialMetrics(aggregation.getOperations());
-        container = new CachingGroupData(null, aggregation.getFieldsToNames(), metrics);
+        // The operations are laid out once and shared by all the groups
+        GroupOperationLayout layout = new GroupOperationLayout(aggregation.getOperations());
+        keyBuilder = new GroupKeyBuilder(fields, separator, aggregation.getFieldsToNames(), layout);
+        container = keyBuilder.getContainer();
 
         ResizeFactor resizeFactor = getResizeFactor(config, BulletConfig.GROUP_AGGREGATION_SKETCH_RESIZE_FACTOR);
         float samplingProbability = config.getAs(BulletConfig.GROUP_AGGREGATION_SKETCH_SAMPLING, Float.class);
@@ -53,31 +50,27 @@ public class TupleSketchingStrategy extends KMVStrategy<TupleSketch> {
         int maximumSize = config.getAs(BulletConfig.GROUP_AGGREGATION_MAX_SIZE, Integer.class);
         int size = Math.min(aggregation.getSize(), maximumSize);
 
-        sketch = new TupleSketch(resizeFactor, samplingProbability, nominalEntries, size, config.getBulletRecordProvider());
+        sketch = new TupleSketch(resizeFactor, samplingProbability, nominalEntries, size, config.getBulletRecordProvider(),
+                                 layout, aggregation.getFieldsToNames());
     }
 
     @Override
     public void consume(BulletRecord data) {
-        Map<String, String> fieldToValues = getFields(data);
-        // More optimal than calling composeFields
-        String key = getFieldsAsString(fields, fieldToValues);
+        // The group fields are only made from the values of the key if the sketch creates a new group
+        byte[] key = keyBuilder.build(data);
 
-        // Set the record and the group values into the container. The metrics are already initialized.
+        // Set the record into the container. The metrics are already initialized.
         container.setCachedRecord(data);
-        container.setGroupFields(fieldToValues);
         sketch.update(key, container);
     }
 
-    private Map<String, String> getFields(BulletRecord record) {
-        Map<String, String> fieldValues = new HashMap<>();
-        for (String field : fields) {
-            String value = Objects.toString(record.typedGet(field).forceCast(Type.STRING).getValue());
-            fieldValues.put(field, value);
-        }
-        return fieldValues;
-    }
-
-    private String getFieldsAsString(List<String> fields, Map<String, String> mapping) {
-        return composeField(fields.stream().map(mapping::get));
+    /**
+     * Updates the sketch with the already aggregated data of a group. The data must not have a cached record.
+     *
+     * @param values The values of the group in the order of the group fields.
+     * @param data The {@link CachingGroupData} of the group.
+     */
+    void update(String[] values, CachingGroupData data) {
+        sketch.update(keyBuilder.build(values), data);
     }
 }
@@ -53,10 +53,13 @@ public class CachingGroupData extends GroupData {
      * @return A {@link CachingGroupData} copy of the GroupData or null if it was null.
      */
     public static CachingGroupData copy(GroupData other) {
+        if (other instanceof PrimitiveGroupData) {
+            return ((PrimitiveGroupData) other).copy();
+        }
         return other != null ? new CachingGroupData(copy(other.groupFields), copy(other.fieldAliases), copy(other.metrics)) : null;
     }
 
-    private static <K, V> Map<K, V> copy(Map<K, V> map) {
+    static <K, V> Map<K, V> copy(Map<K, V> map) {
         if (map == null) {
             return null;
         }
@@ -190,7 +190,7 @@ public class GroupData implements Serializable {
 
     private void combine(Map.Entry<GroupOperation, Number> metric, GroupData otherData) {
         GroupOperation operation = metric.getKey();
-        Number value = otherData.metrics.get(metric.getKey());
+        Number value = otherData.getMetric(metric.getKey());
         switch (operation.getType()) {
             case MIN:
                 updateMetric(value, metric, GroupOperation.MIN);
@@ -238,6 +238,16 @@ public class GroupData implements Serializable {
         return sum.doubleValue() / count.longValue();
     }
 
+    /**
+     * Gets the current value of the metric for a {@link GroupOperation}.
+     *
+     * @param operation The operation to get the metric for.
+     * @return The value of the metric or null if there is none.
+     */
+    protected Number getMetric(GroupOperation operation) {
+        return metrics.get(operation);
+    }
+
     /**
      * Returns the name of the result field to use for the given {@link GroupOperation}.
      *
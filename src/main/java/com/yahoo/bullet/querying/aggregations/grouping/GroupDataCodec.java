@@ -0,0 +1,167 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compact binary format of the groups in a tuple sketch of {@link GroupDataSummary}. The header of the sketch,
+ * written by its {@link GroupDataSummaryFactory}, records the {@link GroupOperationLayout}, the group fields and their
+ * aliases once. Each group is then only its group values as UTF-8 strings, in the order of the group fields in the
+ * header, followed by its metrics as fixed-width primitives (see {@link PrimitiveGroupData#writeMetrics}).
+ *
+ * A string is written as its int length in bytes, or -1 if it is null, followed by its UTF-8 bytes.
+ */
+final class GroupDataCodec {
+    static final byte VERSION = 1;
+
+    private static final int NULL_LENGTH = -1;
+    private static final GroupOperationType[] TYPES = GroupOperationType.values();
+
+    private GroupDataCodec() {
+    }
+
+    /**
+     * Encodes the header of a sketch.
+     *
+     * @param layout The non-null layout of the operations.
+     * @param fields The non-null group fields in the order that their values are written in.
+     * @param fieldAliases The non-null mapping of the group fields to their aliases.
+     * @return The encoded header.
+     */
+    static byte[] encodeHeader(GroupOperationLayout layout, List<String> fields, Map<String, String> fieldAliases) {
+        byte[][] strings = new byte[2 * (layout.size() + fields.size())][];
+        int n = 0;
+        for (GroupOperation operation : layout.operations) {
+            strings[n++] = toBytes(operation.getField());
+            strings[n++] = toBytes(operation.getName());
+        }
+        for (String field : fields) {
+            strings[n++] = toBytes(field);
+            strings[n++] = toBytes(fieldAliases.get(field));
+        }
+        int size = Integer.BYTES + layout.size() * Byte.BYTES + Integer.BYTES;
+        for (byte[] string : strings) {
+            size += sizeOf(string);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        n = 0;
+        buffer.putInt(layout.size());
+        for (GroupOperation operation : layout.operations) {
+            buffer.put((byte) operation.getType().ordinal());
+            putString(buffer, strings[n++]);
+            putString(buffer, strings[n++]);
+        }
+        buffer.putInt(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            putString(buffer, strings[n++]);
+            putString(buffer, strings[n++]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes the header of a sketch into the factory that wrote it.
+     *
+     * @param header The header encoded by {@link #encodeHeader(GroupOperationLayout, List, Map)}.
+     * @return A {@link GroupDataSummaryFactory} with the header.
+     */
+    static GroupDataSummaryFactory decodeHeader(byte[] header) {
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        int size = buffer.getInt();
+        List<GroupOperation> operations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            GroupOperationType type = TYPES[buffer.get()];
+            String field = getString(buffer);
+            String name = getString(buffer);
+            operations.add(new GroupOperation(type, field, name));
+        }
+        size = buffer.getInt();
+        Map<String, String> fieldAliases = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String field = getString(buffer);
+            fieldAliases.put(field, getString(buffer));
+        }
+        return new GroupDataSummaryFactory(new GroupOperationLayout(operations), fieldAliases);
+    }
+
+    /**
+     * Encodes a group. The data must have a value for each of the given group fields.
+     *
+     * @param data The non-null data of the group.
+     * @param fields The non-null group fields in the order to write their values in.
+     * @return The encoded group.
+     */
+    static byte[] encodeGroup(PrimitiveGroupData data, List<String> fields) {
+        byte[][] values = new byte[fields.size()][];
+        int size = data.getMetricsSize();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = toBytes(data.groupFields.get(fields.get(i)));
+            size += sizeOf(values[i]);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] value : values) {
+            putString(buffer, value);
+        }
+        data.writeMetrics(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a group.
+     *
+     * @param group The group encoded by {@link #encodeGroup(PrimitiveGroupData, List)}.
+     * @param layout The layout of the operations from the header.
+     * @param fields The group fields from the header.
+     * @param fieldAliases The aliases of the group fields from the header. This is not copied.
+     * @return The decoded {@link PrimitiveGroupData}.
+     */
+    static PrimitiveGroupData decodeGroup(byte[] group, GroupOperationLayout layout, List<String> fields, Map<String, String> fieldAliases) {
+        ByteBuffer buffer = ByteBuffer.wrap(group);
+        Map<String, String> groupFields = new HashMap<>();
+        for (String field : fields) {
+            groupFields.put(field, getString(buffer));
+        }
+        PrimitiveGroupData data = new PrimitiveGroupData(groupFields, fieldAliases, layout);
+        data.readMetrics(buffer);
+        return data;
+    }
+
+    private static byte[] toBytes(String string) {
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] string) {
+        return Integer.BYTES + (string == null ? 0 : string.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] string) {
+        if (string == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+        buffer.putInt(string.length);
+        buffer.put(string);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+}
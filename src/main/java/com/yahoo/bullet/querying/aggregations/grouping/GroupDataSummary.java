@@ -6,6 +6,7 @@
 package com.yahoo.bullet.querying.aggregations.grouping;
 
 import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.memory.Memory;
 import com.yahoo.memory.NativeMemory;
 import com.yahoo.sketches.tuple.DeserializeResult;
@@ -19,20 +20,65 @@ public class GroupDataSummary implements UpdatableSummary<CachingGroupData> {
     public static final int SIZE_POSITION = Byte.BYTES;
     public static final int DATA_POSITION = SIZE_POSITION + Integer.BYTES;
 
+    // The byte at the INITIALIZED_POSITION has the initialized flag in its low bit and the version in its high bits
+    private static final int INITIALIZED_FLAG = 1;
+    private static final int VERSION_SHIFT = 4;
+
     @Getter(AccessLevel.PACKAGE)
     private boolean initialized = false;
 
     @Getter @Setter(AccessLevel.PACKAGE)
     private GroupData data;
 
+    // The factory whose header the data is written with if possible
+    private GroupDataSummaryFactory factory;
+    // The data in the compact format if it was read without the header of its sketch
+    private byte[] encoded;
+
+    /**
+     * Constructor that creates a summary that is written with Java serialization.
+     */
+    public GroupDataSummary() {
+        this(null);
+    }
+
+    /**
+     * Constructor that creates a summary of a sketch with the given factory.
+     *
+     * @param factory The {@link GroupDataSummaryFactory} of the sketch or null.
+     */
+    GroupDataSummary(GroupDataSummaryFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Updates the summary with the cached record of the given data. If the data has no cached record, it is the already
+     * aggregated data of the group and is copied or combined instead.
+     *
+     * @param value The {@link CachingGroupData} to update with.
+     */
     @Override
     public void update(CachingGroupData value) {
+        BulletRecord record = value.getCachedRecord();
+        if (record == null) {
+            updateWithData(value);
+            return;
+        }
         if (!initialized) {
             // This only needs to happen once per summary (i.e. once per group).
             data = value.partialCopy();
             initialized = true;
         }
-        data.consume(value.getCachedRecord());
+        data.consume(record);
+    }
+
+    private void updateWithData(CachingGroupData value) {
+        if (!initialized) {
+            data = CachingGroupData.copy(value);
+            initialized = true;
+        } else {
+            data.combine(value);
+        }
     }
 
     /**
@@ -76,21 +122,50 @@ public class GroupDataSummary implements UpdatableSummary<CachingGroupData> {
     @SuppressWarnings("unchecked")
     @Override
     public GroupDataSummary copy() {
-        GroupDataSummary copy = new GroupDataSummary();
+        GroupDataSummary copy = new GroupDataSummary(factory);
         copy.initialized = initialized;
         copy.data = CachingGroupData.copy(data);
+        copy.encoded = encoded;
         return copy;
     }
 
+    /**
+     * Reads the data of this summary if it is in the compact format and was deserialized without the header of its
+     * sketch. This must be done before the summary is used.
+     *
+     * @param factory The {@link GroupDataSummaryFactory} with the header of the sketch.
+     */
+    public void readWith(GroupDataSummaryFactory factory) {
+        if (encoded == null) {
+            return;
+        }
+        if (factory.getLayout() == null) {
+            throw new IllegalArgumentException("Cannot read the group data without the header of its sketch");
+        }
+        data = GroupDataCodec.decodeGroup(encoded, factory.getLayout(), factory.getFields(), factory.getFieldAliases());
+        encoded = null;
+        this.factory = factory;
+    }
+
     @Override
     public byte[] toByteArray() {
-        byte[] groupData = SerializerDeserializer.toBytes(data);
+        byte[] groupData;
+        int flags = initialized ? INITIALIZED_FLAG : 0;
+        if (encoded != null) {
+            groupData = encoded;
+            flags |= GroupDataCodec.VERSION << VERSION_SHIFT;
+        } else if (factory != null && factory.canEncode(data)) {
+            groupData = GroupDataCodec.encodeGroup((PrimitiveGroupData) data, factory.getFields());
+            flags |= GroupDataCodec.VERSION << VERSION_SHIFT;
+        } else {
+            groupData = SerializerDeserializer.toBytes(data);
+        }
         int length = groupData.length;
 
         // Create a new ByteBuffer to hold a byte, an integer and the data in bytes
         byte[] serialized = new byte[DATA_POSITION + length];
         Memory memory = new NativeMemory(serialized);
-        memory.putByte(INITIALIZED_POSITION, (byte) (initialized ? 1 : 0));
+        memory.putByte(INITIALIZED_POSITION, (byte) flags);
         memory.putInt(SIZE_POSITION, length);
         memory.putByteArray(DATA_POSITION, groupData, 0, length);
         return serialized;
@@ -103,16 +178,36 @@ public class GroupDataSummary implements UpdatableSummary<CachingGroupData> {
      * @return A {@link DeserializeResult} representing the deserialized summary.
      */
     public static DeserializeResult<GroupDataSummary> fromMemory(Memory serializedSummary) {
-        byte initialized = serializedSummary.getByte(INITIALIZED_POSITION);
+        return fromMemory(serializedSummary, null);
+    }
+
+    /**
+     * Deserializes an instance of this {@link GroupDataSummary} of a sketch from a {@link Memory}. If the summary is in
+     * the compact format and the factory has no header, the data is only read by {@link #readWith(GroupDataSummaryFactory)}.
+     *
+     * @param serializedSummary The serialized summary as a {@link Memory} object.
+     * @param factory The {@link GroupDataSummaryFactory} of the sketch or null.
+     * @return A {@link DeserializeResult} representing the deserialized summary.
+     */
+    static DeserializeResult<GroupDataSummary> fromMemory(Memory serializedSummary, GroupDataSummaryFactory factory) {
+        byte flags = serializedSummary.getByte(INITIALIZED_POSITION);
         int size = serializedSummary.getInt(SIZE_POSITION);
+        int version = (flags & 0xFF) >>> VERSION_SHIFT;
 
         byte[] data = new byte[size];
         serializedSummary.getByteArray(DATA_POSITION, data, 0, size);
-        GroupData deserializedData = SerializerDeserializer.fromBytes(data);
-
-        GroupDataSummary deserialized = new GroupDataSummary();
-        deserialized.initialized = initialized != 0;
-        deserialized.data = deserializedData;
+        GroupDataSummary deserialized = new GroupDataSummary(factory);
+        deserialized.initialized = (flags & INITIALIZED_FLAG) != 0;
+        if (version == 0) {
+            deserialized.data = SerializerDeserializer.fromBytes(data);
+        } else if (version == GroupDataCodec.VERSION) {
+            deserialized.encoded = data;
+            if (factory != null && factory.getLayout() != null) {
+                deserialized.readWith(factory);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported version of the group data format: " + version);
+        }
 
         // Size read is the size of size and the byte in bytes (DATA_POSITION) plus the size of the data (size)
         return new DeserializeResult<>(deserialized, size + DATA_POSITION);
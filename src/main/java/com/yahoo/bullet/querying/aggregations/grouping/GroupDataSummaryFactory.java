@@ -6,19 +6,70 @@
 package com.yahoo.bullet.querying.aggregations.grouping;
 
 import com.yahoo.memory.Memory;
+import com.yahoo.memory.NativeMemory;
 import com.yahoo.sketches.tuple.DeserializeResult;
 import com.yahoo.sketches.tuple.Summary;
 import com.yahoo.sketches.tuple.SummaryFactory;
 import com.yahoo.sketches.tuple.SummarySetOperations;
+import lombok.AccessLevel;
+import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The factory of the {@link GroupDataSummary} in a tuple sketch. If it is created with the layout of the operations and
+ * the group fields of the query, it is also the header of the sketch and its summaries are written in the compact format
+ * of {@link GroupDataCodec}. Otherwise, the summaries are written with Java serialization.
+ */
 public class GroupDataSummaryFactory implements SummaryFactory {
     public static final int SERIALIZED_SIZE = 1;
     public static final byte[] SERIALIZED = new byte[SERIALIZED_SIZE];
     public static final GroupDataSummarySetOperations SUMMARY_OPERATIONS = new GroupDataSummarySetOperations();
 
+    public static final int VERSION_POSITION = 0;
+    public static final int HEADER_SIZE_POSITION = Byte.BYTES;
+    public static final int HEADER_POSITION = HEADER_SIZE_POSITION + Integer.BYTES;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final GroupOperationLayout layout;
+    @Getter(AccessLevel.PACKAGE)
+    private final List<String> fields;
+    @Getter(AccessLevel.PACKAGE)
+    private final Map<String, String> fieldAliases;
+
+    /**
+     * Constructor that creates a factory without a header.
+     */
+    public GroupDataSummaryFactory() {
+        this(null, null);
+    }
+
+    /**
+     * Constructor that creates a factory with a header.
+     *
+     * @param layout The layout of the operations of the query or null if there is no header.
+     * @param fieldAliases The mapping of all the group fields of the query to their aliases. Must be non-null if the
+     *                     layout is non-null.
+     */
+    public GroupDataSummaryFactory(GroupOperationLayout layout, Map<String, String> fieldAliases) {
+        this.layout = layout;
+        this.fieldAliases = fieldAliases;
+        if (layout == null) {
+            fields = null;
+            return;
+        }
+        // Sorted so that the values are in the same order in any process
+        List<String> fields = new ArrayList<>(fieldAliases.keySet());
+        Collections.sort(fields);
+        this.fields = fields;
+    }
+
     @Override
     public Summary newSummary() {
-        return new GroupDataSummary();
+        return new GroupDataSummary(this);
     }
 
     @Override
@@ -29,12 +80,43 @@ public class GroupDataSummaryFactory implements SummaryFactory {
 
     @Override
     public DeserializeResult summaryFromMemory(Memory serializedSummary) {
-        return GroupDataSummary.fromMemory(serializedSummary);
+        return GroupDataSummary.fromMemory(serializedSummary, this);
     }
 
     @Override
     public byte[] toByteArray() {
-        return SERIALIZED;
+        if (layout == null) {
+            return SERIALIZED;
+        }
+        byte[] header = GroupDataCodec.encodeHeader(layout, fields, fieldAliases);
+        byte[] serialized = new byte[HEADER_POSITION + header.length];
+        Memory memory = new NativeMemory(serialized);
+        memory.putByte(VERSION_POSITION, GroupDataCodec.VERSION);
+        memory.putInt(HEADER_SIZE_POSITION, header.length);
+        memory.putByteArray(HEADER_POSITION, header, 0, header.length);
+        return serialized;
+    }
+
+    /**
+     * Checks if the given data can be written in the compact format with the header of this.
+     *
+     * @param data The data to check.
+     * @return True if this has a header and the data has the same layout and group fields.
+     */
+    boolean canEncode(GroupData data) {
+        if (layout == null || !(data instanceof PrimitiveGroupData) || !layout.equals(((PrimitiveGroupData) data).getLayout())) {
+            return false;
+        }
+        Map<String, String> groupFields = data.groupFields;
+        if (groupFields == null || groupFields.size() != fields.size()) {
+            return false;
+        }
+        for (String field : fields) {
+            if (!groupFields.containsKey(field)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -44,7 +126,17 @@ public class GroupDataSummaryFactory implements SummaryFactory {
      * @return A {@link DeserializeResult} representing the deserialized summary factory.
      */
     public static DeserializeResult<GroupDataSummaryFactory> fromMemory(Memory summaryFactory) {
-        // This has no state so it does not use the Memory
-        return new DeserializeResult<>(new GroupDataSummaryFactory(), SERIALIZED_SIZE);
+        byte version = summaryFactory.getByte(VERSION_POSITION);
+        if (version == 0) {
+            // No header
+            return new DeserializeResult<>(new GroupDataSummaryFactory(), SERIALIZED_SIZE);
+        }
+        if (version != GroupDataCodec.VERSION) {
+            throw new IllegalArgumentException("Unsupported version of the group data format: " + version);
+        }
+        int size = summaryFactory.getInt(HEADER_SIZE_POSITION);
+        byte[] header = new byte[size];
+        summaryFactory.getByteArray(HEADER_POSITION, header, 0, size);
+        return new DeserializeResult<>(GroupDataCodec.decodeHeader(header), HEADER_POSITION + size);
     }
 }
@@ -0,0 +1,140 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.bullet.common.KeyBuffer;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds the keys of the groups of a query for a tuple sketch without allocating for each record. The values of the
+ * group fields are written into a reused {@link KeyBuffer} as the UTF-8 bytes of their string forms joined by the
+ * separator, which are the same bytes as those of the composite field of the group. Strings, longs and ints are written
+ * directly and other values are cast to strings. Since the sketch hashes these bytes just as it hashes the composite
+ * field, the keys are the same as those of sketches updated with the composite fields.
+ *
+ * The string forms of the values are only made into group fields when a new group is created. The
+ * {@link PrimitiveGroupData} returned by {@link #getContainer()} does so when it is copied into a new summary.
+ */
+public class GroupKeyBuilder {
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final List<String> fields;
+    private final byte[] separator;
+    private final PrimitiveGroupData container;
+
+    // These are reused for the duration of the builder and hold the last built key.
+    private final Object[] values;
+    private final KeyBuffer buffer = new KeyBuffer();
+
+    /**
+     * Constructor that creates a builder for the given group fields and operations.
+     *
+     * @param fields The non-null group fields in the order to write their values in.
+     * @param separator The non-null separator of the values.
+     * @param fieldAliases The non-null mapping of the group fields to their aliases.
+     * @param layout The non-null layout of the operations of the groups.
+     */
+    public GroupKeyBuilder(List<String> fields, String separator, Map<String, String> fieldAliases, GroupOperationLayout layout) {
+        this.fields = fields;
+        this.separator = separator.getBytes(StandardCharsets.UTF_8);
+        this.values = new Object[fields.size()];
+        this.container = new KeyedGroupData(fieldAliases, layout);
+    }
+
+    /**
+     * Builds the key of the group of the given record.
+     *
+     * @param record The non-null record to build the key for.
+     * @return The key of the group. This array may be reused by the next key that is built.
+     */
+    public byte[] build(BulletRecord record) {
+        buffer.clear();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.write(separator);
+            }
+            TypedObject typedObject = record.typedGet(fields.get(i));
+            Object value = typedObject.getValue();
+            if (value == null) {
+                buffer.write(NULL);
+            } else if (value instanceof String) {
+                buffer.write((String) value);
+            } else if (value instanceof Long || value instanceof Integer) {
+                buffer.write(((Number) value).longValue());
+            } else {
+                value = Objects.toString(typedObject.forceCast(Type.STRING).getValue());
+                buffer.write((String) value);
+            }
+            values[i] = value;
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Builds the key of the group with the given values. This is the same key as that of a record with these values.
+     *
+     * @param values The non-null string values of the group in the order of the group fields.
+     * @return The key of the group. This array may be reused by the next key that is built.
+     */
+    public byte[] build(String[] values) {
+        buffer.clear();
+        for (int i = 0; i < this.values.length; i++) {
+            if (i > 0) {
+                buffer.write(separator);
+            }
+            String value = Objects.toString(values[i]);
+            buffer.write(value);
+            this.values[i] = value;
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Returns the data that should be given to the sketch with the keys. It is reused for the duration of the builder
+     * and its metrics are always empty. When a new group is created from it, the group fields are the values of the
+     * last key that was built.
+     *
+     * @return The reused {@link PrimitiveGroupData}.
+     */
+    public PrimitiveGroupData getContainer() {
+        return container;
+    }
+
+    /**
+     * Returns the group fields of the last key that was built.
+     *
+     * @return A new {@link Map} of the group fields to their values.
+     */
+    public Map<String, String> getGroupFields() {
+        Map<String, String> groupFields = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            groupFields.put(fields.get(i), value == null ? "null" : value.toString());
+        }
+        return groupFields;
+    }
+
+    private class KeyedGroupData extends PrimitiveGroupData {
+        private static final long serialVersionUID = -2283761426127095870L;
+
+        private KeyedGroupData(Map<String, String> fieldAliases, GroupOperationLayout layout) {
+            super(null, fieldAliases, layout);
+        }
+
+        @Override
+        public PrimitiveGroupData partialCopy() {
+            return new PrimitiveGroupData(getGroupFields(), fieldAliases, getLayout());
+        }
+    }
+}
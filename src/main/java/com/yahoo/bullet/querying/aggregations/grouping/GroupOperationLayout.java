@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+import static com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType.AVG;
+import static com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType.COUNT_FIELD;
+
+/**
+ * The positions of the {@link GroupOperation} of a query in a {@link PrimitiveGroupData}. This is resolved once per
+ * query and shared by all the groups of the query. The operations are sorted so that the same operations always have
+ * the same positions, even in other processes. Two layouts are equal if their operations are equal in the same
+ * positions.
+ */
+public class GroupOperationLayout implements Serializable {
+    private static final long serialVersionUID = -4107715632418326548L;
+
+    private static final Comparator<GroupOperation> ORDER =
+            Comparator.comparing(GroupOperation::getType)
+                      .thenComparing(GroupOperation::getField, Comparator.nullsFirst(Comparator.naturalOrder()))
+                      .thenComparing(GroupOperation::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    final GroupOperation[] operations;
+    final GroupOperationType[] types;
+    final String[] fields;
+    final String[] names;
+    // The COUNT_FIELD operations that a GroupData stores the counts of the AVG operations under or null
+    final GroupOperation[] counts;
+
+    /**
+     * Constructor that lays out the given operations.
+     *
+     * @param operations The non-null operations to lay out. They must not contain COUNT_FIELD operations.
+     */
+    public GroupOperationLayout(Collection<GroupOperation> operations) {
+        int size = operations.size();
+        this.operations = operations.toArray(new GroupOperation[size]);
+        Arrays.sort(this.operations, ORDER);
+        types = new GroupOperationType[size];
+        fields = new String[size];
+        names = new String[size];
+        counts = new GroupOperation[size];
+        for (int i = 0; i < size; i++) {
+            GroupOperation operation = this.operations[i];
+            types[i] = operation.getType();
+            fields[i] = operation.getField();
+            names[i] = GroupData.getResultName(operation);
+            if (types[i] == AVG) {
+                counts[i] = new GroupOperation(COUNT_FIELD, fields[i], null);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of operations in this layout.
+     *
+     * @return The number of operations.
+     */
+    public int size() {
+        return operations.length;
+    }
+
+    /**
+     * Finds the position of the given operation. A COUNT_FIELD operation is found at the position of the AVG operation
+     * on the same field.
+     *
+     * @param operation The operation to find.
+     * @return The position of the operation or -1 if it is not in this layout.
+     */
+    public int indexOf(GroupOperation operation) {
+        GroupOperation[] candidates = operation.getType() == COUNT_FIELD ? counts : operations;
+        for (int i = 0; i < candidates.length; i++) {
+            if (operation.equals(candidates[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof GroupOperationLayout)) {
+            return false;
+        }
+        return Arrays.equals(operations, ((GroupOperationLayout) object).operations);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(operations);
+    }
+}
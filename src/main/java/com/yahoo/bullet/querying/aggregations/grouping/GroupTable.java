@@ -0,0 +1,237 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.memory.NativeMemory;
+import com.yahoo.sketches.tuple.DeserializeResult;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An open-addressing hash table with linear probing of the exact groups of a query. The groups are keyed on their group
+ * values in the order of the group fields and their data is a {@link PrimitiveGroupData} of the layout of the query.
+ * Looking up an existing group does not allocate.
+ *
+ * The table is serialized in the compact format of {@link GroupDataCodec}: the header of a
+ * {@link GroupDataSummaryFactory}, the int number of groups and then each group as its int length followed by the
+ * encoded group.
+ */
+public class GroupTable {
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private final GroupOperationLayout layout;
+    private final List<String> fields;
+    private final Map<String, String> fieldAliases;
+    private final GroupDataSummaryFactory factory;
+
+    private String[][] keys;
+    private int[] hashes;
+    private PrimitiveGroupData[] groups;
+    private int mask;
+    private int size = 0;
+
+    /**
+     * Constructor that creates an empty table for the given operations and group fields.
+     *
+     * @param layout The non-null layout of the operations of the groups.
+     * @param fields The non-null group fields in the order of the values of the groups.
+     * @param fieldAliases The non-null mapping of the group fields to their aliases. This is not copied.
+     */
+    public GroupTable(GroupOperationLayout layout, List<String> fields, Map<String, String> fieldAliases) {
+        this.layout = layout;
+        this.fields = fields;
+        this.fieldAliases = fieldAliases;
+        this.factory = new GroupDataSummaryFactory(layout, fieldAliases);
+        allocate(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Returns the number of groups in the table.
+     *
+     * @return The number of groups.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the group with the given values or adds an empty one if there is none.
+     *
+     * @param values The values of the group in the order of the group fields. These are copied if the group is added
+     *               so the array can be reused.
+     * @return The {@link PrimitiveGroupData} of the group.
+     */
+    public PrimitiveGroupData getOrCreate(String[] values) {
+        int hash = hash(values);
+        int i = find(values, hash);
+        if (groups[i] != null) {
+            return groups[i];
+        }
+        String[] key = values.clone();
+        PrimitiveGroupData group = new PrimitiveGroupData(toGroupFields(key), fieldAliases, layout);
+        insert(i, key, hash, group);
+        return group;
+    }
+
+    /**
+     * Combines the data of a group into the group with the same values or adds it if there is none.
+     *
+     * @param values The values of the group in the order of the group fields. These are kept if the group is added.
+     * @param data The {@link PrimitiveGroupData} of the group. This is kept if the group is added.
+     */
+    public void merge(String[] values, PrimitiveGroupData data) {
+        int hash = hash(values);
+        int i = find(values, hash);
+        if (groups[i] != null) {
+            groups[i].combine(data);
+            return;
+        }
+        insert(i, values, hash, data);
+    }
+
+    /**
+     * Performs the given action on the values and the data of each group in the table.
+     *
+     * @param action The action to perform.
+     */
+    public void forEach(BiConsumer<String[], PrimitiveGroupData> action) {
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null) {
+                action.accept(keys[i], groups[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes all the groups from the table and shrinks it back to its minimum capacity.
+     */
+    public void clear() {
+        allocate(MINIMUM_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Serializes the groups in the table.
+     *
+     * @return The serialized table.
+     */
+    public byte[] serialize() {
+        byte[] header = factory.toByteArray();
+        byte[][] encoded = new byte[size][];
+        int length = header.length + Integer.BYTES;
+        int n = 0;
+        for (PrimitiveGroupData group : groups) {
+            if (group != null) {
+                encoded[n] = GroupDataCodec.encodeGroup(group, factory.getFields());
+                length += Integer.BYTES + encoded[n++].length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(header);
+        buffer.putInt(size);
+        for (byte[] group : encoded) {
+            buffer.putInt(group.length);
+            buffer.put(group);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Deserializes the groups of a table serialized using {@link #serialize()}.
+     *
+     * @param serialized The serialized table.
+     * @param fields The group fields in the order to give the values of the groups in.
+     * @param action The action to perform on the values and the data of each group.
+     */
+    public static void deserialize(byte[] serialized, List<String> fields, BiConsumer<String[], PrimitiveGroupData> action) {
+        DeserializeResult<GroupDataSummaryFactory> result = GroupDataSummaryFactory.fromMemory(new NativeMemory(serialized));
+        GroupDataSummaryFactory header = result.getObject();
+        if (header.getLayout() == null) {
+            throw new IllegalArgumentException("Cannot read the groups without a header");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(serialized);
+        buffer.position(result.getSize());
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] group = new byte[buffer.getInt()];
+            buffer.get(group);
+            PrimitiveGroupData data = GroupDataCodec.decodeGroup(group, header.getLayout(), header.getFields(), header.getFieldAliases());
+            String[] values = new String[fields.size()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = data.groupFields.get(fields.get(j));
+            }
+            action.accept(values, data);
+        }
+    }
+
+    private Map<String, String> toGroupFields(String[] values) {
+        Map<String, String> groupFields = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            groupFields.put(fields.get(i), values[i]);
+        }
+        return groupFields;
+    }
+
+    // Returns the position of the group with the values or the empty position to add it at
+    private int find(String[] values, int hash) {
+        int i = hash & mask;
+        while (groups[i] != null && (hashes[i] != hash || !Arrays.equals(keys[i], values))) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void insert(int i, String[] key, int hash, PrimitiveGroupData group) {
+        keys[i] = key;
+        hashes[i] = hash;
+        groups[i] = group;
+        size++;
+        // Keeps the load factor at or below a half so that the probes are short
+        if (2 * size > groups.length) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        String[][] oldKeys = keys;
+        int[] oldHashes = hashes;
+        PrimitiveGroupData[] oldGroups = groups;
+        allocate(2 * oldGroups.length);
+        for (int i = 0; i < oldGroups.length; i++) {
+            if (oldGroups[i] != null) {
+                int j = oldHashes[i] & mask;
+                while (groups[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                hashes[j] = oldHashes[i];
+                groups[j] = oldGroups[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity][];
+        hashes = new int[capacity];
+        groups = new PrimitiveGroupData[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(String[] values) {
+        int hash = 1;
+        for (String value : values) {
+            hash = 31 * hash + Objects.hashCode(value);
+        }
+        // Spreads the high bits into the low bits used for the position
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.BulletRecordProvider;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.yahoo.bullet.common.Utilities.extractFieldAsNumber;
+import static com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType.AVG;
+import static com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType.COUNT;
+import static com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType.COUNT_FIELD;
+
+/**
+ * A {@link GroupData} that stores its metrics in primitive arrays at the positions given by a shared
+ * {@link GroupOperationLayout} instead of in a {@link Map}. Consuming records and combining with another
+ * PrimitiveGroupData of an equal layout do not allocate. The results are the same as those of a GroupData with the
+ * same operations.
+ *
+ * The sums, minimums and maximums are stored as doubles and the counts as longs. An AVG stores its sum and count at its
+ * position in both. A bitmap records which metrics are not null.
+ */
+public class PrimitiveGroupData extends CachingGroupData {
+    private static final long serialVersionUID = -6012478417205337402L;
+
+    @Getter
+    private final GroupOperationLayout layout;
+    private final double[] values;
+    private final long[] counts;
+    private final long[] present;
+
+    /**
+     * Constructor that initializes the PrimitiveGroupData with a {@link GroupOperationLayout} and a {@link Map} of
+     * Strings that represent the group fields. These arguments are not copied.
+     *
+     * @param groupFields The mappings of field names to their values that represent this group.
+     * @param fieldAliases The mappings of field names to their new names.
+     * @param layout The non-null layout of the operations that this will compute metrics for.
+     */
+    public PrimitiveGroupData(Map<String, String> groupFields, Map<String, String> fieldAliases, GroupOperationLayout layout) {
+        super(groupFields, fieldAliases, null);
+        this.layout = layout;
+        int size = layout.size();
+        values = new double[size];
+        counts = new long[size];
+        present = new long[(size + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * Constructor that initializes the PrimitiveGroupData with a {@link GroupOperationLayout}.
+     *
+     * @param layout The non-null layout of the operations that this will compute metrics for.
+     */
+    public PrimitiveGroupData(GroupOperationLayout layout) {
+        this(null, Collections.emptyMap(), layout);
+    }
+
+    @Override
+    public void consume(BulletRecord data) {
+        GroupOperationType[] types = layout.types;
+        for (int i = 0; i < types.length; i++) {
+            GroupOperationType type = types[i];
+            if (type == COUNT) {
+                counts[i]++;
+                set(i);
+                continue;
+            }
+            Number number = extractFieldAsNumber(layout.fields[i], data);
+            if (number == null) {
+                continue;
+            }
+            update(i, type, number.doubleValue());
+            if (type == AVG) {
+                counts[i]++;
+            }
+        }
+    }
+
+    @Override
+    public void combine(GroupData otherData) {
+        if (otherData instanceof PrimitiveGroupData && layout.equals(((PrimitiveGroupData) otherData).layout)) {
+            combine((PrimitiveGroupData) otherData);
+            return;
+        }
+        // Another layout or a GroupData so look up the metrics by operation
+        GroupOperationType[] types = layout.types;
+        for (int i = 0; i < types.length; i++) {
+            Number value = otherData.getMetric(layout.operations[i]);
+            if (types[i] == COUNT) {
+                if (value != null) {
+                    counts[i] += value.longValue();
+                    set(i);
+                }
+                continue;
+            }
+            if (value != null) {
+                update(i, types[i], value.doubleValue());
+            }
+            if (types[i] == AVG) {
+                Number count = otherData.getMetric(layout.counts[i]);
+                counts[i] += count == null ? 0L : count.longValue();
+            }
+        }
+    }
+
+    @Override
+    public BulletRecord getMetricsAsBulletRecord(BulletRecordProvider provider) {
+        BulletRecord record = provider.getInstance();
+        GroupOperationType[] types = layout.types;
+        for (int i = 0; i < types.length; i++) {
+            String name = layout.names[i];
+            switch (types[i]) {
+                case COUNT:
+                    record.setLong(name, counts[i]);
+                    break;
+                case AVG:
+                    record.setDouble(name, isSet(i) ? values[i] / counts[i] : null);
+                    break;
+                case MIN:
+                case MAX:
+                case SUM:
+                    record.setDouble(name, isSet(i) ? values[i] : null);
+                    break;
+            }
+        }
+        return record;
+    }
+
+    @Override
+    protected Number getMetric(GroupOperation operation) {
+        int i = layout.indexOf(operation);
+        if (i < 0 || !isSet(i)) {
+            return null;
+        }
+        if (operation.getType() == COUNT || operation.getType() == COUNT_FIELD) {
+            return counts[i];
+        }
+        return values[i];
+    }
+
+    /**
+     * Creates a partial copy of itself. Only the metrics are copied, not the group. Since this is only used to start a
+     * new group, the metrics are empty.
+     *
+     * @return A copied {@link PrimitiveGroupData}.
+     */
+    @Override
+    public PrimitiveGroupData partialCopy() {
+        return new PrimitiveGroupData(groupFields, fieldAliases, layout);
+    }
+
+    /**
+     * Creates a full copy of itself. The layout is shared.
+     *
+     * @return A copied {@link PrimitiveGroupData}.
+     */
+    public PrimitiveGroupData copy() {
+        PrimitiveGroupData copy = new PrimitiveGroupData(copy(groupFields), copy(fieldAliases), layout);
+        System.arraycopy(values, 0, copy.values, 0, values.length);
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        System.arraycopy(present, 0, copy.present, 0, present.length);
+        return copy;
+    }
+
+    /**
+     * Returns the number of bytes that the metrics take when written with {@link #writeMetrics(ByteBuffer)}. This is the
+     * same for all data of a layout.
+     *
+     * @return The fixed size of the metrics in bytes.
+     */
+    int getMetricsSize() {
+        int size = present.length * Long.BYTES;
+        for (GroupOperationType type : layout.types) {
+            size += type == COUNT ? Long.BYTES : type == AVG ? Double.BYTES + Long.BYTES : Double.BYTES;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the metrics as fixed-width primitives: the bitmap of the metrics that are not null followed by each metric
+     * in position. A COUNT is a long, an AVG is a double sum and a long count and the others are doubles.
+     *
+     * @param buffer The buffer to write to.
+     */
+    void writeMetrics(ByteBuffer buffer) {
+        for (long word : present) {
+            buffer.putLong(word);
+        }
+        GroupOperationType[] types = layout.types;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != COUNT) {
+                buffer.putDouble(values[i]);
+            }
+            if (types[i] == COUNT || types[i] == AVG) {
+                buffer.putLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads the metrics written by {@link #writeMetrics(ByteBuffer)} into this.
+     *
+     * @param buffer The buffer to read from.
+     */
+    void readMetrics(ByteBuffer buffer) {
+        for (int i = 0; i < present.length; i++) {
+            present[i] = buffer.getLong();
+        }
+        GroupOperationType[] types = layout.types;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != COUNT) {
+                values[i] = buffer.getDouble();
+            }
+            if (types[i] == COUNT || types[i] == AVG) {
+                counts[i] = buffer.getLong();
+            }
+        }
+    }
+
+    private void combine(PrimitiveGroupData other) {
+        GroupOperationType[] types = layout.types;
+        for (int i = 0; i < types.length; i++) {
+            if (!other.isSet(i)) {
+                continue;
+            }
+            GroupOperationType type = types[i];
+            if (type != COUNT) {
+                update(i, type, other.values[i]);
+            }
+            if (type == COUNT || type == AVG) {
+                counts[i] += other.counts[i];
+            }
+            set(i);
+        }
+    }
+
+    // Applies the same operators as GroupOperation in the same order so the results are the same
+    private void update(int i, GroupOperationType type, double value) {
+        if (!isSet(i)) {
+            values[i] = value;
+            set(i);
+            return;
+        }
+        double current = values[i];
+        switch (type) {
+            case MIN:
+                values[i] = value < current ? value : current;
+                break;
+            case MAX:
+                values[i] = value > current ? value : current;
+                break;
+            case SUM:
+            case AVG:
+                values[i] = value + current;
+                break;
+        }
+    }
+
+    private boolean isSet(int i) {
+        return (present[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private void set(int i) {
+        present[i >>> 6] |= 1L << i;
+    }
+}
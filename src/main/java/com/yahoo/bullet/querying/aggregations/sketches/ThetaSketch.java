@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.querying.aggregations.sketches;
 
+import com.yahoo.bullet.common.KeyBuffer;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.record.BulletRecordProvider;
 import com.yahoo.bullet.result.Clip;
@@ -20,6 +21,7 @@ import com.yahoo.sketches.theta.UpdateSketch;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class ThetaSketch extends KMVSketch {
     private UpdateSketch updateSketch;
@@ -28,6 +30,9 @@ public class ThetaSketch extends KMVSketch {
 
     private String family;
 
+    // This is reused to write the values presented to the sketch.
+    private final KeyBuffer buffer = new KeyBuffer();
+
     public static final String COUNT_FIELD = "count";
 
     /**
@@ -60,6 +65,52 @@ public class ThetaSketch extends KMVSketch {
         super.update();
     }
 
+    /**
+     * Update the sketch with a long field. This is the same as updating with its string form but does not create it.
+     *
+     * @param field The field to present to the sketch.
+     */
+    public void update(long field) {
+        buffer.clear();
+        buffer.write(field);
+        updateFromBuffer();
+    }
+
+    /**
+     * Update the sketch with a double field. This is the same as updating with its string form.
+     *
+     * @param field The field to present to the sketch.
+     */
+    public void update(double field) {
+        buffer.clear();
+        buffer.write(Double.toString(field));
+        updateFromBuffer();
+    }
+
+    /**
+     * Update the sketch with a composite field made of the string forms of the given values joined by the separator.
+     * This is the same as updating with the composite field but does not create it or the string forms of strings,
+     * longs and ints. Null values are written as "null".
+     *
+     * @param values The non-null values that make up the field.
+     * @param separator The non-null separator of the values.
+     */
+    public void update(Object[] values, String separator) {
+        buffer.clear();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.write(separator);
+            }
+            Object value = values[i];
+            if (value instanceof Long || value instanceof Integer) {
+                buffer.write(((Number) value).longValue());
+            } else {
+                buffer.write(Objects.toString(value));
+            }
+        }
+        updateFromBuffer();
+    }
+
     @Override
     public void union(byte[] serialized) {
         Sketch deserialized = Sketches.wrapSketch(new NativeMemory(serialized));
@@ -153,6 +204,12 @@ public class ThetaSketch extends KMVSketch {
         return result.getUpperBound(standardDeviation);
     }
 
+    private void updateFromBuffer() {
+        // These are the same bytes the sketch hashes for the string form, so the estimates are the same
+        updateSketch.update(buffer.toByteArray());
+        super.update();
+    }
+
     private BulletRecord getCount() {
         double count = result.getEstimate();
         BulletRecord record = provider.getInstance();
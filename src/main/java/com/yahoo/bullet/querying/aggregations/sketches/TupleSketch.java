@@ -9,13 +9,17 @@ import com.yahoo.bullet.querying.aggregations.grouping.CachingGroupData;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupData;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupDataSummary;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupDataSummaryFactory;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperationLayout;
+import com.yahoo.bullet.querying.aggregations.grouping.PrimitiveGroupData;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.record.BulletRecordProvider;
 import com.yahoo.bullet.result.Clip;
 import com.yahoo.bullet.result.Meta.Concept;
+import com.yahoo.memory.Memory;
 import com.yahoo.memory.NativeMemory;
 import com.yahoo.sketches.Family;
 import com.yahoo.sketches.ResizeFactor;
+import com.yahoo.sketches.tuple.DeserializeResult;
 import com.yahoo.sketches.tuple.Sketch;
 import com.yahoo.sketches.tuple.SketchIterator;
 import com.yahoo.sketches.tuple.Sketches;
@@ -24,16 +28,26 @@ import com.yahoo.sketches.tuple.UpdatableSketch;
 import com.yahoo.sketches.tuple.UpdatableSketchBuilder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import static com.yahoo.bullet.result.Meta.addIfNonNull;
 
 public class TupleSketch extends KMVSketch {
+    // Serialized sketches start with this magic and the version of the format, followed by the header of the factory.
+    // The first byte of a tuple sketch serialized before there was a header is the number of its preamble longs, which
+    // is never the first byte of the magic, so those are still read as they were written.
+    static final byte[] MAGIC = { (byte) 0xB7, 'T', 'U', 'P' };
+    static final byte FORMAT_VERSION = 1;
+    static final int PREFIX_SIZE = MAGIC.length + Byte.BYTES;
+
     private UpdatableSketch<CachingGroupData, GroupDataSummary> updateSketch;
     private Union<GroupDataSummary> unionSketch;
     private Sketch<GroupDataSummary> result;
 
+    // Also the header that is serialized before the sketch
+    private final GroupDataSummaryFactory factory;
     private final int maxSize;
     /**
      * Initialize a tuple sketch for summarizing group data.
@@ -44,9 +58,32 @@ public class TupleSketch extends KMVSketch {
      * @param maxSize The maximum size of groups to return.
      * @param provider A BulletRecordProvider to generate BulletRecords.
      */
-    @SuppressWarnings("unchecked")
     public TupleSketch(ResizeFactor resizeFactor, float samplingProbability, int nominalEntries, int maxSize, BulletRecordProvider provider) {
-        GroupDataSummaryFactory factory = new GroupDataSummaryFactory();
+        this(resizeFactor, samplingProbability, nominalEntries, maxSize, provider, new GroupDataSummaryFactory());
+    }
+
+    /**
+     * Initialize a tuple sketch for summarizing group data that is serialized in the compact format for the given
+     * operations and group fields. The groups must be updated with {@link PrimitiveGroupData} of the same layout and
+     * group fields.
+     *
+     * @param resizeFactor The {@link ResizeFactor} to use for the sketch.
+     * @param samplingProbability The sampling probability to use.
+     * @param nominalEntries The nominal entries for the sketch.
+     * @param maxSize The maximum size of groups to return.
+     * @param provider A BulletRecordProvider to generate BulletRecords.
+     * @param layout The non-null layout of the operations of the groups.
+     * @param fieldAliases The non-null mapping of the group fields to their aliases.
+     */
+    public TupleSketch(ResizeFactor resizeFactor, float samplingProbability, int nominalEntries, int maxSize, BulletRecordProvider provider,
+                       GroupOperationLayout layout, Map<String, String> fieldAliases) {
+        this(resizeFactor, samplingProbability, nominalEntries, maxSize, provider, new GroupDataSummaryFactory(layout, fieldAliases));
+    }
+
+    @SuppressWarnings("unchecked")
+    private TupleSketch(ResizeFactor resizeFactor, float samplingProbability, int nominalEntries, int maxSize, BulletRecordProvider provider,
+                        GroupDataSummaryFactory factory) {
+        this.factory = factory;
         UpdatableSketchBuilder<CachingGroupData, GroupDataSummary> builder = new UpdatableSketchBuilder(factory);
 
         updateSketch = builder.setResizeFactor(resizeFactor)
@@ -70,9 +107,40 @@ public class TupleSketch extends KMVSketch {
         super.update();
     }
 
+    /**
+     * Update the sketch with a key representing a group and the data for it. The key is the same as the string of its
+     * UTF-8 bytes and is ignored if it is empty, like an empty string.
+     *
+     * @param key The key to present the data to the sketch as. This can be reused once this returns.
+     * @param data The data for the group.
+     */
+    public void update(byte[] key, CachingGroupData data) {
+        updateSketch.update(key, data);
+        super.update();
+    }
+
     @Override
     public void union(byte[] serialized) {
-        Sketch<GroupDataSummary> deserialized = Sketches.heapifySketch(new NativeMemory(serialized));
+        if (!hasPrefix(serialized)) {
+            // Written before there was a header, so the summaries are read by themselves
+            unionSketch.update(Sketches.heapifySketch(new NativeMemory(serialized)));
+            super.union();
+            return;
+        }
+        byte version = serialized[MAGIC.length];
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported version of the serialized tuple sketch: " + version);
+        }
+        Memory memory = new NativeMemory(Arrays.copyOfRange(serialized, PREFIX_SIZE, serialized.length));
+        DeserializeResult<GroupDataSummaryFactory> header = GroupDataSummaryFactory.fromMemory(memory);
+        int start = PREFIX_SIZE + header.getSize();
+        Memory sketch = new NativeMemory(Arrays.copyOfRange(serialized, start, serialized.length));
+        Sketch<GroupDataSummary> deserialized = Sketches.heapifySketch(sketch);
+        // Summaries in the compact format are read with the header of the sketch that they came from
+        SketchIterator<GroupDataSummary> iterator = deserialized.iterator();
+        while (iterator.next()) {
+            iterator.getSummary().readWith(header.getObject());
+        }
         unionSketch.update(deserialized);
         super.union();
     }
@@ -80,7 +148,14 @@ public class TupleSketch extends KMVSketch {
     @Override
     public byte[] serialize() {
         merge();
-        return result.toByteArray();
+        byte[] header = factory.toByteArray();
+        byte[] sketch = result.toByteArray();
+        byte[] serialized = new byte[PREFIX_SIZE + header.length + sketch.length];
+        System.arraycopy(MAGIC, 0, serialized, 0, MAGIC.length);
+        serialized[MAGIC.length] = FORMAT_VERSION;
+        System.arraycopy(header, 0, serialized, PREFIX_SIZE, header.length);
+        System.arraycopy(sketch, 0, serialized, PREFIX_SIZE + header.length, sketch.length);
+        return serialized;
     }
 
     @Override
@@ -185,4 +260,16 @@ public class TupleSketch extends KMVSketch {
     private Double getUniquesEstimate() {
         return result.getEstimate();
     }
+
+    private static boolean hasPrefix(byte[] serialized) {
+        if (serialized.length < PREFIX_SIZE) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (serialized[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
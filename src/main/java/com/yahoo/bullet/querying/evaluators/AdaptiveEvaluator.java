@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An evaluator for AND and OR that reorders its operands while it runs so that the ones that are cheap and most likely
+ * to decide the result (false for AND and true for OR) are evaluated first.
+ *
+ * Every {@link #SAMPLE_PERIOD} evaluations, all the operands are evaluated and timed to sample how long each takes and
+ * how often each decides the result. Every {@link #SAMPLES_PER_REORDER} samples, the operands are sorted by their
+ * average time divided by how often they decide the result and the samples are halved so that the order follows
+ * changes in the data.
+ *
+ * The results are the same as for the AND and OR in {@link BinaryOperations} and {@link NAryOperations} regardless of
+ * the order: a null operand makes the result null unless another operand decides the result. Since operands may be
+ * evaluated in any order, an operand that throws or is {@link #ERROR} does not stop the evaluation. If another operand
+ * decides the result, that is the result. Otherwise, the first error is thrown or, if none was thrown, the result is
+ * {@link #ERROR}. Note that this differs from AND and OR evaluated in order, where an error in an operand before the
+ * one that decides the result ends the evaluation. The errors that do not end the evaluation are counted per thread
+ * and can be retrieved with {@link #getSwallowedErrors()}. This is not thread-safe.
+ */
+public class AdaptiveEvaluator extends Evaluator {
+    private static final long serialVersionUID = 4309628795102374153L;
+
+    public static final int SAMPLE_PERIOD = 64;
+    public static final int SAMPLES_PER_REORDER = 16;
+
+    // The number of operand errors on each thread that did not end the evaluation because another operand decided it
+    private static final ThreadLocal<long[]> SWALLOWED_ERRORS = ThreadLocal.withInitial(() -> new long[1]);
+
+    final Evaluator[] operands;
+    final Operation op;
+    // The value that decides the result: false for AND and true for OR
+    private final boolean decider;
+    final int[] order;
+    private final long[] nanos;
+    private final long[] decided;
+    private long evaluations = 0;
+    private int samples = 0;
+
+    /**
+     * Constructor that creates an adaptive evaluator for the given operands of an AND or an OR.
+     *
+     * @param operands The non-empty {@link List} of evaluators for the operands.
+     * @param op Either {@link Operation#AND} or {@link Operation#OR}.
+     */
+    public AdaptiveEvaluator(List<Evaluator> operands, Operation op) {
+        if (op != Operation.AND && op != Operation.OR) {
+            throw new IllegalArgumentException("Only AND and OR can be evaluated adaptively");
+        }
+        this.operands = operands.toArray(new Evaluator[0]);
+        this.op = op;
+        decider = op == Operation.OR;
+        int size = this.operands.length;
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        nanos = new long[size];
+        decided = new long[size];
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        if (++evaluations % SAMPLE_PERIOD == 0) {
+            return sample(record);
+        }
+        boolean containsNull = false;
+        int errors = 0;
+        RuntimeException error = null;
+        for (int i : order) {
+            TypedObject value;
+            try {
+                value = evaluate(operands[i], record);
+            } catch (RuntimeException e) {
+                error = error == null ? e : error;
+                errors++;
+                continue;
+            }
+            if (value == ERROR) {
+                errors++;
+            } else if (value.isNull()) {
+                containsNull = true;
+            } else if ((Boolean) value.getValue() == decider) {
+                return decide(errors);
+            }
+        }
+        return getResult(containsNull, errors > 0, error);
+    }
+
+    /**
+     * Returns the number of errors in operands on the current thread so far that did not end the evaluation because
+     * another operand decided the result. These would have been errors for the whole AND or OR if it had been evaluated
+     * in order.
+     *
+     * @return The number of swallowed errors on this thread.
+     */
+    public static long getSwallowedErrors() {
+        return SWALLOWED_ERRORS.get()[0];
+    }
+
+    private TypedObject sample(BulletRecord record) {
+        boolean containsNull = false;
+        boolean isDecided = false;
+        int errors = 0;
+        RuntimeException error = null;
+        for (int i = 0; i < operands.length; i++) {
+            long start = System.nanoTime();
+            TypedObject value = TypedObject.NULL;
+            try {
+                value = evaluate(operands[i], record);
+            } catch (RuntimeException e) {
+                error = error == null ? e : error;
+                errors++;
+            }
+            nanos[i] += System.nanoTime() - start;
+            if (value == ERROR) {
+                errors++;
+            } else if (value.isNull()) {
+                containsNull = true;
+            } else if ((Boolean) value.getValue() == decider) {
+                decided[i]++;
+                isDecided = true;
+            }
+        }
+        if (++samples == SAMPLES_PER_REORDER) {
+            reorder();
+        }
+        return isDecided ? decide(errors) : getResult(containsNull, errors > 0, error);
+    }
+
+    private void reorder() {
+        int size = operands.length;
+        double[] ranks = new double[size];
+        for (int i = 0; i < size; i++) {
+            // The chance of deciding is smoothed so that operands that never decide are still ordered by their cost
+            ranks[i] = (nanos[i] + 1.0) / ((decided[i] + 1.0) / (samples + 2.0));
+            nanos[i] /= 2;
+            decided[i] /= 2;
+        }
+        samples /= 2;
+        Integer[] sorted = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = order[i];
+        }
+        // The sort is stable so ties keep their current order
+        Arrays.sort(sorted, (a, b) -> Double.compare(ranks[a], ranks[b]));
+        for (int i = 0; i < size; i++) {
+            order[i] = sorted[i];
+        }
+    }
+
+    private TypedObject decide(int errors) {
+        if (errors > 0) {
+            SWALLOWED_ERRORS.get()[0] += errors;
+        }
+        return TypedObject.valueOf(decider);
+    }
+
+    private TypedObject getResult(boolean containsNull, boolean containsError, RuntimeException error) {
+        if (error != null) {
+            throw error;
+        } else if (containsError) {
+            return ERROR;
+        }
+        return containsNull ? TypedObject.NULL : TypedObject.valueOf(!decider);
+    }
+
+    private static TypedObject evaluate(Evaluator evaluator, BulletRecord record) {
+        TypedObject value = evaluator.evaluate(record);
+        return value.isNull() ? value : value.forceCast(Type.BOOLEAN);
+    }
+}
@@ -6,18 +6,45 @@
 package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
 /**
  * An evaluator that applies a binary operator to the result of a left evaluator and the result of a right evaluator.
+ *
+ * Operators that can do work up front for a constant right operand, such as compiling a regex, are specialized when
+ * this is constructed.
+ *
+ * Arithmetic and comparisons of operands that are known to be numbers are done with primitives. Comparisons of numbers
+ * of different types are not, except for ordering an {@link Type#INTEGER} and a {@link Type#LONG}. On a batch of
+ * records, the operands of these comparisons are evaluated into columns first and then compared together, and AND and
+ * OR only evaluate the right operand on the records that the left operand did not decide.
+ *
+ * If an operand turns out not to be of its declared type, such as a field declared as a {@link Type#LONG} holding a
+ * {@link Type#DOUBLE}, the boxed operator is applied instead, as it would have been without the declared types.
  */
 public class BinaryEvaluator extends Evaluator {
     private static final long serialVersionUID = -467853226398830498L;
 
+    private static final Set<Operation> ARITHMETIC =
+            EnumSet.of(Operation.ADD, Operation.SUB, Operation.MUL, Operation.DIV, Operation.MOD);
+    private static final Set<Operation> EQUALITY = EnumSet.of(Operation.EQUALS, Operation.NOT_EQUALS);
+    private static final Set<Operation> ORDERING =
+            EnumSet.of(Operation.GREATER_THAN, Operation.LESS_THAN, Operation.GREATER_THAN_OR_EQUALS, Operation.LESS_THAN_OR_EQUALS);
+
     final Evaluator left;
     final Evaluator right;
     final BinaryOperations.BinaryOperator op;
+    private final Operation operation;
+    private final Type primitiveType;
 
     /**
      * Constructor that creates a binary evaluator from a {@link BinaryExpression}.
@@ -25,13 +52,301 @@ public class BinaryEvaluator extends Evaluator {
      * @param binaryExpression The binary expression to construct the evaluator from.
      */
     public BinaryEvaluator(BinaryExpression binaryExpression) {
-        left = binaryExpression.getLeft().getEvaluator();
-        right = binaryExpression.getRight().getEvaluator();
-        op = BinaryOperations.BINARY_OPERATORS.get(binaryExpression.getOp());
+        this(binaryExpression, Expression::getEvaluator);
+    }
+
+    /**
+     * Constructor that creates a binary evaluator from a {@link BinaryExpression} using the given function to get the
+     * evaluators for its operands.
+     *
+     * @param binaryExpression The binary expression to construct the evaluator from.
+     * @param evaluators The function to get the evaluator for an operand.
+     */
+    public BinaryEvaluator(BinaryExpression binaryExpression, Function<Expression, Evaluator> evaluators) {
+        left = evaluators.apply(binaryExpression.getLeft());
+        right = evaluators.apply(binaryExpression.getRight());
+        op = BinaryOperations.getOperator(binaryExpression);
+        operation = binaryExpression.getOp();
+        primitiveType = getPrimitiveType(operation, left.getPrimitiveType(), right.getPrimitiveType());
     }
 
     @Override
     public TypedObject evaluate(BulletRecord record) {
+        if (primitiveType != null) {
+            try {
+                return toTypedObject(this, record);
+            } catch (TypeMismatch e) {
+                // A value was not of its declared type, so the boxed operation is used with its actual type
+            }
+        }
         return op.apply(left, right, record);
     }
+
+    @Override
+    public Type getPrimitiveType() {
+        return primitiveType;
+    }
+
+    @Override
+    public long evaluateLong(BulletRecord record) {
+        if (!isIntegral(primitiveType)) {
+            return super.evaluateLong(record);
+        }
+        long leftValue = left.evaluateLong(record);
+        if (left.wasNull()) {
+            wasNull = true;
+            return 0L;
+        }
+        long rightValue = right.evaluateLong(record);
+        if (right.wasNull()) {
+            wasNull = true;
+            return 0L;
+        }
+        wasNull = false;
+        return primitiveType == Type.INTEGER ? apply((int) leftValue, (int) rightValue) : apply(leftValue, rightValue);
+    }
+
+    @Override
+    public double evaluateDouble(BulletRecord record) {
+        if (primitiveType != Type.FLOAT && primitiveType != Type.DOUBLE) {
+            return super.evaluateDouble(record);
+        }
+        boolean isFloat = primitiveType == Type.FLOAT;
+        double leftValue = isFloat ? evaluateFloat(left, record) : evaluateNumber(left, record);
+        if (left.wasNull()) {
+            wasNull = true;
+            return 0.0;
+        }
+        double rightValue = isFloat ? evaluateFloat(right, record) : evaluateNumber(right, record);
+        if (right.wasNull()) {
+            wasNull = true;
+            return 0.0;
+        }
+        wasNull = false;
+        return isFloat ? apply((float) leftValue, (float) rightValue) : apply(leftValue, rightValue);
+    }
+
+    @Override
+    public boolean evaluateBoolean(BulletRecord record) {
+        if (primitiveType != Type.BOOLEAN) {
+            return super.evaluateBoolean(record);
+        }
+        boolean integral = isIntegral(left.getPrimitiveType());
+        int comparison;
+        if (integral) {
+            long leftValue = left.evaluateLong(record);
+            if (left.wasNull()) {
+                wasNull = true;
+                return false;
+            }
+            long rightValue = right.evaluateLong(record);
+            if (right.wasNull()) {
+                wasNull = true;
+                return false;
+            }
+            comparison = Long.compare(leftValue, rightValue);
+        } else {
+            double leftValue = left.evaluateDouble(record);
+            if (left.wasNull()) {
+                wasNull = true;
+                return false;
+            }
+            double rightValue = right.evaluateDouble(record);
+            if (right.wasNull()) {
+                wasNull = true;
+                return false;
+            }
+            comparison = Double.compare(leftValue, rightValue);
+        }
+        wasNull = false;
+        return test(comparison);
+    }
+
+    @Override
+    public void evaluate(BulletRecord[] batch, int[] selection, int size, byte[] results) {
+        if (operation == Operation.AND) {
+            NAryOperations.allMatch(Arrays.asList(left, right), batch, selection, size, results);
+        } else if (operation == Operation.OR) {
+            NAryOperations.anyMatch(Arrays.asList(left, right), batch, selection, size, results);
+        } else if (primitiveType == Type.BOOLEAN) {
+            compare(batch, selection, size, results);
+        } else {
+            super.evaluate(batch, selection, size, results);
+        }
+    }
+
+    private void compare(BulletRecord[] batch, int[] selection, int size, byte[] results) {
+        // The records that are left after each operand are the ones where neither operand was null or failed
+        int[] present = Arrays.copyOf(selection, size);
+        int count;
+        if (isIntegral(left.getPrimitiveType())) {
+            long[] leftValues = new long[results.length];
+            long[] rightValues = new long[results.length];
+            count = extract(left, batch, present, size, results, leftValues);
+            count = extract(right, batch, present, count, results, rightValues);
+            for (int i = 0; i < count; i++) {
+                int index = present[i];
+                results[index] = toBatchResult(test(Long.compare(leftValues[index], rightValues[index])), false);
+            }
+        } else {
+            double[] leftValues = new double[results.length];
+            double[] rightValues = new double[results.length];
+            count = extract(left, batch, present, size, results, leftValues);
+            count = extract(right, batch, present, count, results, rightValues);
+            for (int i = 0; i < count; i++) {
+                int index = present[i];
+                results[index] = toBatchResult(test(Double.compare(leftValues[index], rightValues[index])), false);
+            }
+        }
+    }
+
+    private boolean test(int comparison) {
+        switch (operation) {
+            case EQUALS:
+                return comparison == 0;
+            case NOT_EQUALS:
+                return comparison != 0;
+            case GREATER_THAN:
+                return comparison > 0;
+            case LESS_THAN:
+                return comparison < 0;
+            case GREATER_THAN_OR_EQUALS:
+                return comparison >= 0;
+            default:
+                return comparison <= 0;
+        }
+    }
+
+    private int apply(int leftValue, int rightValue) {
+        switch (operation) {
+            case ADD:
+                return leftValue + rightValue;
+            case SUB:
+                return leftValue - rightValue;
+            case MUL:
+                return leftValue * rightValue;
+            case DIV:
+                return leftValue / rightValue;
+            default:
+                return leftValue % rightValue;
+        }
+    }
+
+    private long apply(long leftValue, long rightValue) {
+        switch (operation) {
+            case ADD:
+                return leftValue + rightValue;
+            case SUB:
+                return leftValue - rightValue;
+            case MUL:
+                return leftValue * rightValue;
+            case DIV:
+                return leftValue / rightValue;
+            default:
+                return leftValue % rightValue;
+        }
+    }
+
+    private float apply(float leftValue, float rightValue) {
+        switch (operation) {
+            case ADD:
+                return leftValue + rightValue;
+            case SUB:
+                return leftValue - rightValue;
+            case MUL:
+                return leftValue * rightValue;
+            case DIV:
+                return leftValue / rightValue;
+            default:
+                return leftValue % rightValue;
+        }
+    }
+
+    private double apply(double leftValue, double rightValue) {
+        switch (operation) {
+            case ADD:
+                return leftValue + rightValue;
+            case SUB:
+                return leftValue - rightValue;
+            case MUL:
+                return leftValue * rightValue;
+            case DIV:
+                return leftValue / rightValue;
+            default:
+                return leftValue % rightValue;
+        }
+    }
+
+    // Stores the values of the operand on the selected records and keeps the ones where it was not null or did not fail
+    private int extract(Evaluator operand, BulletRecord[] batch, int[] selection, int size, byte[] results, long[] values) {
+        int remaining = 0;
+        for (int i = 0; i < size; i++) {
+            int index = selection[i];
+            try {
+                long value = operand.evaluateLong(batch[index]);
+                if (operand.wasNull()) {
+                    results[index] = BATCH_NULL;
+                    continue;
+                }
+                values[index] = value;
+                selection[remaining++] = index;
+            } catch (TypeMismatch e) {
+                results[index] = compareBoxed(batch[index]);
+            } catch (RuntimeException e) {
+                results[index] = BATCH_ERROR;
+            }
+        }
+        return remaining;
+    }
+
+    private int extract(Evaluator operand, BulletRecord[] batch, int[] selection, int size, byte[] results, double[] values) {
+        int remaining = 0;
+        for (int i = 0; i < size; i++) {
+            int index = selection[i];
+            try {
+                double value = operand.evaluateDouble(batch[index]);
+                if (operand.wasNull()) {
+                    results[index] = BATCH_NULL;
+                    continue;
+                }
+                values[index] = value;
+                selection[remaining++] = index;
+            } catch (TypeMismatch e) {
+                results[index] = compareBoxed(batch[index]);
+            } catch (RuntimeException e) {
+                results[index] = BATCH_ERROR;
+            }
+        }
+        return remaining;
+    }
+
+    private byte compareBoxed(BulletRecord record) {
+        try {
+            return toBatchResult(op.apply(left, right, record));
+        } catch (RuntimeException e) {
+            return BATCH_ERROR;
+        }
+    }
+
+    private static float evaluateFloat(Evaluator evaluator, BulletRecord record) {
+        // A long is converted directly to a float as Number#floatValue does, rather than through a double
+        return isIntegral(evaluator.getPrimitiveType()) ? (float) evaluator.evaluateLong(record) : (float) evaluator.evaluateDouble(record);
+    }
+
+    private static Type getPrimitiveType(Operation op, Type leftType, Type rightType) {
+        if (!isNumeric(leftType) || !isNumeric(rightType)) {
+            return null;
+        }
+        if (ARITHMETIC.contains(op)) {
+            return BinaryOperations.getArithmeticResultType(leftType, rightType);
+        }
+        // Numbers of different types may not be equal as objects, so only the same types are compared for equality
+        if (EQUALITY.contains(op)) {
+            return leftType == rightType ? Type.BOOLEAN : null;
+        }
+        if (ORDERING.contains(op) && (leftType == rightType || (isIntegral(leftType) && isIntegral(rightType)))) {
+            return Type.BOOLEAN;
+        }
+        return null;
+    }
 }
@@ -5,7 +5,13 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.common.BoundedCache;
+import com.yahoo.bullet.common.LongHashSet;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.ListExpression;
 import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
@@ -13,14 +19,21 @@ import com.yahoo.bullet.typesystem.TypedObject;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static com.yahoo.bullet.querying.evaluators.Evaluator.ERROR;
+import static com.yahoo.bullet.querying.evaluators.Evaluator.nullOrError;
+
 /**
  * Binary operations used by BinaryEvaluator.
  */
@@ -32,6 +45,10 @@ public class BinaryOperations {
 
     static final Map<Operation, BinaryOperator> BINARY_OPERATORS = new EnumMap<>(Operation.class);
 
+    // Patterns that are not constant in the query are compiled once and shared across all evaluators
+    static final int PATTERN_CACHE_SIZE = 1024;
+    static final BoundedCache<String, Pattern> PATTERN_CACHE = new BoundedCache<>(PATTERN_CACHE_SIZE);
+
     static {
         BINARY_OPERATORS.put(Operation.ADD, BinaryOperations::add);
         BINARY_OPERATORS.put(Operation.SUB, BinaryOperations::sub);
@@ -71,88 +88,155 @@ public class BinaryOperations {
         BINARY_OPERATORS.put(Operation.FILTER, BinaryOperations::filter);
     }
 
+    /**
+     * Gets the {@link BinaryOperator} to use for the given {@link BinaryExpression}. If the operation can be specialized
+     * for a constant right operand, such as a regex pattern or a list of values to look up, the work that only depends
+     * on that operand is done once here instead of for every record. Otherwise, this is the operator in
+     * {@link #BINARY_OPERATORS}.
+     *
+     * @param binaryExpression The binary expression to get the operator for.
+     * @return The binary operator to apply for the expression.
+     */
+    static BinaryOperator getOperator(BinaryExpression binaryExpression) {
+        Operation op = binaryExpression.getOp();
+        Expression right = binaryExpression.getRight();
+        BinaryOperator specialized = null;
+        switch (op) {
+            case REGEX_LIKE:
+                specialized = constantRegexLike(getConstantPattern(right));
+                break;
+            case NOT_REGEX_LIKE:
+                specialized = constantNotRegexLike(getConstantPattern(right));
+                break;
+            case REGEX_LIKE_ANY:
+                specialized = constantRegexLikeAny(getConstantPatterns(right));
+                break;
+            case NOT_REGEX_LIKE_ANY:
+                specialized = constantNotRegexLikeAny(getConstantPatterns(right));
+                break;
+            case IN:
+            case EQUALS_ANY:
+                specialized = constantContains(getConstantSet(right), BINARY_OPERATORS.get(op), false);
+                break;
+            case NOT_IN:
+            case NOT_EQUALS_ALL:
+                specialized = constantContains(getConstantSet(right), BINARY_OPERATORS.get(op), true);
+                break;
+        }
+        return specialized != null ? specialized : BINARY_OPERATORS.get(op);
+    }
+
     static TypedObject add(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> {
-            Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
-            switch (type) {
-                case DOUBLE:
-                    return new TypedObject(Type.DOUBLE, getDouble(leftValue) + getDouble(rightValue));
-                case FLOAT:
-                    return new TypedObject(Type.FLOAT, getFloat(leftValue) + getFloat(rightValue));
-                case LONG:
-                    return new TypedObject(Type.LONG, getLong(leftValue) + getLong(rightValue));
-                default:
-                    return new TypedObject(Type.INTEGER, getInteger(leftValue) + getInteger(rightValue));
-            }
-        });
+        return checkNull(left, right, record, BinaryOperations::add);
+    }
+
+    static TypedObject add(TypedObject leftValue, TypedObject rightValue) {
+        if (!isNumbers(leftValue, rightValue)) {
+            return ERROR;
+        }
+        Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
+        switch (type) {
+            case DOUBLE:
+                return new TypedObject(Type.DOUBLE, getDouble(leftValue) + getDouble(rightValue));
+            case FLOAT:
+                return new TypedObject(Type.FLOAT, getFloat(leftValue) + getFloat(rightValue));
+            case LONG:
+                return new TypedObject(Type.LONG, getLong(leftValue) + getLong(rightValue));
+            default:
+                return new TypedObject(Type.INTEGER, getInteger(leftValue) + getInteger(rightValue));
+        }
     }
 
     static TypedObject sub(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> {
-            Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
-            switch (type) {
-                case DOUBLE:
-                    return new TypedObject(Type.DOUBLE, getDouble(leftValue) - getDouble(rightValue));
-                case FLOAT:
-                    return new TypedObject(Type.FLOAT, getFloat(leftValue) - getFloat(rightValue));
-                case LONG:
-                    return new TypedObject(Type.LONG, getLong(leftValue) - getLong(rightValue));
-                default:
-                    return new TypedObject(Type.INTEGER, getInteger(leftValue) - getInteger(rightValue));
-            }
-        });
+        return checkNull(left, right, record, BinaryOperations::sub);
+    }
+
+    static TypedObject sub(TypedObject leftValue, TypedObject rightValue) {
+        if (!isNumbers(leftValue, rightValue)) {
+            return ERROR;
+        }
+        Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
+        switch (type) {
+            case DOUBLE:
+                return new TypedObject(Type.DOUBLE, getDouble(leftValue) - getDouble(rightValue));
+            case FLOAT:
+                return new TypedObject(Type.FLOAT, getFloat(leftValue) - getFloat(rightValue));
+            case LONG:
+                return new TypedObject(Type.LONG, getLong(leftValue) - getLong(rightValue));
+            default:
+                return new TypedObject(Type.INTEGER, getInteger(leftValue) - getInteger(rightValue));
+        }
     }
 
     static TypedObject mul(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> {
-            Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
-            switch (type) {
-                case DOUBLE:
-                    return new TypedObject(Type.DOUBLE, getDouble(leftValue) * getDouble(rightValue));
-                case FLOAT:
-                    return new TypedObject(Type.FLOAT, getFloat(leftValue) * getFloat(rightValue));
-                case LONG:
-                    return new TypedObject(Type.LONG, getLong(leftValue) * getLong(rightValue));
-                default:
-                    return new TypedObject(Type.INTEGER, getInteger(leftValue) * getInteger(rightValue));
-            }
-        });
+        return checkNull(left, right, record, BinaryOperations::mul);
+    }
+
+    static TypedObject mul(TypedObject leftValue, TypedObject rightValue) {
+        if (!isNumbers(leftValue, rightValue)) {
+            return ERROR;
+        }
+        Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
+        switch (type) {
+            case DOUBLE:
+                return new TypedObject(Type.DOUBLE, getDouble(leftValue) * getDouble(rightValue));
+            case FLOAT:
+                return new TypedObject(Type.FLOAT, getFloat(leftValue) * getFloat(rightValue));
+            case LONG:
+                return new TypedObject(Type.LONG, getLong(leftValue) * getLong(rightValue));
+            default:
+                return new TypedObject(Type.INTEGER, getInteger(leftValue) * getInteger(rightValue));
+        }
     }
 
     static TypedObject div(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> {
-            Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
-            switch (type) {
-                case DOUBLE:
-                    return new TypedObject(Type.DOUBLE, getDouble(leftValue) / getDouble(rightValue));
-                case FLOAT:
-                    return new TypedObject(Type.FLOAT, getFloat(leftValue) / getFloat(rightValue));
-                case LONG:
-                    return new TypedObject(Type.LONG, getLong(leftValue) / getLong(rightValue));
-                default:
-                    return new TypedObject(Type.INTEGER, getInteger(leftValue) / getInteger(rightValue));
-            }
-        });
+        return checkNull(left, right, record, BinaryOperations::div);
+    }
+
+    static TypedObject div(TypedObject leftValue, TypedObject rightValue) {
+        if (!isNumbers(leftValue, rightValue)) {
+            return ERROR;
+        }
+        Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
+        switch (type) {
+            case DOUBLE:
+                return new TypedObject(Type.DOUBLE, getDouble(leftValue) / getDouble(rightValue));
+            case FLOAT:
+                return new TypedObject(Type.FLOAT, getFloat(leftValue) / getFloat(rightValue));
+            case LONG:
+                return new TypedObject(Type.LONG, getLong(leftValue) / getLong(rightValue));
+            default:
+                return new TypedObject(Type.INTEGER, getInteger(leftValue) / getInteger(rightValue));
+        }
     }
 
     static TypedObject mod(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> {
-            Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
-            switch (type) {
-                case DOUBLE:
-                    return new TypedObject(Type.DOUBLE, getDouble(leftValue) % getDouble(rightValue));
-                case FLOAT:
-                    return new TypedObject(Type.FLOAT, getFloat(leftValue) % getFloat(rightValue));
-                case LONG:
-                    return new TypedObject(Type.LONG, getLong(leftValue) % getLong(rightValue));
-                default:
-                    return new TypedObject(Type.INTEGER, getInteger(leftValue) % getInteger(rightValue));
-            }
-        });
+        return checkNull(left, right, record, BinaryOperations::mod);
+    }
+
+    static TypedObject mod(TypedObject leftValue, TypedObject rightValue) {
+        if (!isNumbers(leftValue, rightValue)) {
+            return ERROR;
+        }
+        Type type = getArithmeticResultType(leftValue.getType(), rightValue.getType());
+        switch (type) {
+            case DOUBLE:
+                return new TypedObject(Type.DOUBLE, getDouble(leftValue) % getDouble(rightValue));
+            case FLOAT:
+                return new TypedObject(Type.FLOAT, getFloat(leftValue) % getFloat(rightValue));
+            case LONG:
+                return new TypedObject(Type.LONG, getLong(leftValue) % getLong(rightValue));
+            default:
+                return new TypedObject(Type.INTEGER, getInteger(leftValue) % getInteger(rightValue));
+        }
     }
 
     static TypedObject equals(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> TypedObject.valueOf(leftValue.equalTo(rightValue)));
+        return checkNull(left, right, record, BinaryOperations::equals);
+    }
+
+    static TypedObject equals(TypedObject leftValue, TypedObject rightValue) {
+        return TypedObject.valueOf(leftValue.equalTo(rightValue));
     }
 
     static TypedObject equalsAny(Evaluator left, Evaluator right, BulletRecord record) {
@@ -164,7 +248,11 @@ public class BinaryOperations {
     }
 
     static TypedObject notEquals(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> TypedObject.valueOf(!leftValue.equalTo(rightValue)));
+        return checkNull(left, right, record, BinaryOperations::notEquals);
+    }
+
+    static TypedObject notEquals(TypedObject leftValue, TypedObject rightValue) {
+        return TypedObject.valueOf(!leftValue.equalTo(rightValue));
     }
 
     static TypedObject notEqualsAny(Evaluator left, Evaluator right, BulletRecord record) {
@@ -176,7 +264,11 @@ public class BinaryOperations {
     }
 
     static TypedObject greaterThan(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> TypedObject.valueOf(leftValue.compareTo(rightValue) > 0));
+        return checkNull(left, right, record, BinaryOperations::greaterThan);
+    }
+
+    static TypedObject greaterThan(TypedObject leftValue, TypedObject rightValue) {
+        return TypedObject.valueOf(leftValue.compareTo(rightValue) > 0);
     }
 
     static TypedObject greaterThanAny(Evaluator left, Evaluator right, BulletRecord record) {
@@ -188,7 +280,11 @@ public class BinaryOperations {
     }
 
     static TypedObject lessThan(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> TypedObject.valueOf(leftValue.compareTo(rightValue) < 0));
+        return checkNull(left, right, record, BinaryOperations::lessThan);
+    }
+
+    static TypedObject lessThan(TypedObject leftValue, TypedObject rightValue) {
+        return TypedObject.valueOf(leftValue.compareTo(rightValue) < 0);
     }
 
     static TypedObject lessThanAny(Evaluator left, Evaluator right, BulletRecord record) {
@@ -200,7 +296,11 @@ public class BinaryOperations {
     }
 
     static TypedObject greaterThanOrEquals(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> TypedObject.valueOf(leftValue.compareTo(rightValue) >= 0));
+        return checkNull(left, right, record, BinaryOperations::greaterThanOrEquals);
+    }
+
+    static TypedObject greaterThanOrEquals(TypedObject leftValue, TypedObject rightValue) {
+        return TypedObject.valueOf(leftValue.compareTo(rightValue) >= 0);
     }
 
     static TypedObject greaterThanOrEqualsAny(Evaluator left, Evaluator right, BulletRecord record) {
@@ -212,7 +312,11 @@ public class BinaryOperations {
     }
 
     static TypedObject lessThanOrEquals(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) -> TypedObject.valueOf(leftValue.compareTo(rightValue) <= 0));
+        return checkNull(left, right, record, BinaryOperations::lessThanOrEquals);
+    }
+
+    static TypedObject lessThanOrEquals(TypedObject leftValue, TypedObject rightValue) {
+        return TypedObject.valueOf(leftValue.compareTo(rightValue) <= 0);
     }
 
     static TypedObject lessThanOrEqualsAny(Evaluator left, Evaluator right, BulletRecord record) {
@@ -224,21 +328,28 @@ public class BinaryOperations {
     }
 
     static TypedObject regexLike(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) ->
-                TypedObject.valueOf(Pattern.compile((String) rightValue.getValue())
-                                           .matcher((String) leftValue.getValue())
-                                           .matches()));
+        return checkNull(left, right, record, (leftValue, rightValue) -> {
+            if (leftValue.getType() != Type.STRING || rightValue.getType() != Type.STRING) {
+                return ERROR;
+            }
+            return TypedObject.valueOf(getPattern((String) rightValue.getValue()).matcher((String) leftValue.getValue()).matches());
+        });
     }
 
     @SuppressWarnings("unchecked")
     static TypedObject regexLikeAny(Evaluator left, Evaluator right, BulletRecord record) {
         return checkNull(left, right, record, (leftValue, rightValue) -> {
+            if (leftValue.getType() != Type.STRING) {
+                return ERROR;
+            }
             String value = (String) leftValue.getValue();
             boolean containsNull = false;
             for (Serializable object : (List<? extends Serializable>) rightValue.getValue()) {
                 if (object == null) {
                     containsNull = true;
-                } else if (Pattern.compile((String) object).matcher(value).matches()) {
+                } else if (!(object instanceof String)) {
+                    return ERROR;
+                } else if (getPattern((String) object).matcher(value).matches()) {
                     return TypedObject.TRUE;
                 }
             }
@@ -247,21 +358,58 @@ public class BinaryOperations {
     }
 
     static TypedObject notRegexLike(Evaluator left, Evaluator right, BulletRecord record) {
-        return checkNull(left, right, record, (leftValue, rightValue) ->
-                TypedObject.valueOf(!Pattern.compile((String) rightValue.getValue())
-                                            .matcher((String) leftValue.getValue())
-                                            .matches()));
+        TypedObject result = regexLike(left, right, record);
+        if (result.isNull()) {
+            return nullOrError(result);
+        }
+        return (Boolean) result.getValue() ? TypedObject.FALSE : TypedObject.TRUE;
     }
 
     @SuppressWarnings("unchecked")
     static TypedObject notRegexLikeAny(Evaluator left, Evaluator right, BulletRecord record) {
         TypedObject result = regexLikeAny(left, right, record);
         if (result.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(result);
         }
         return (Boolean) result.getValue() ? TypedObject.FALSE : TypedObject.TRUE;
     }
 
+    static BinaryOperator constantRegexLike(Pattern pattern) {
+        if (pattern == null) {
+            return null;
+        }
+        return (left, right, record) -> checkNull(left, record, leftValue ->
+                leftValue.getType() != Type.STRING ? ERROR : TypedObject.valueOf(pattern.matcher((String) leftValue.getValue()).matches()));
+    }
+
+    static BinaryOperator constantNotRegexLike(Pattern pattern) {
+        if (pattern == null) {
+            return null;
+        }
+        return (left, right, record) -> checkNull(left, record, leftValue ->
+                leftValue.getType() != Type.STRING ? ERROR : TypedObject.valueOf(!pattern.matcher((String) leftValue.getValue()).matches()));
+    }
+
+    static BinaryOperator constantRegexLikeAny(ConstantPatterns patterns) {
+        if (patterns == null) {
+            return null;
+        }
+        return (left, right, record) -> checkNull(left, record, patterns::matchAny);
+    }
+
+    static BinaryOperator constantNotRegexLikeAny(ConstantPatterns patterns) {
+        if (patterns == null) {
+            return null;
+        }
+        return (left, right, record) -> checkNull(left, record, leftValue -> {
+            TypedObject result = patterns.matchAny(leftValue);
+            if (result.isNull()) {
+                return nullOrError(result);
+            }
+            return (Boolean) result.getValue() ? TypedObject.FALSE : TypedObject.TRUE;
+        });
+    }
+
     static TypedObject sizeIs(Evaluator left, Evaluator right, BulletRecord record) {
         return checkNull(left, right, record, (leftValue, rightValue) -> TypedObject.valueOf(leftValue.size() == (int) rightValue.getValue()));
     }
@@ -296,12 +444,15 @@ public class BinaryOperations {
 
     static TypedObject and(Evaluator left, Evaluator right, BulletRecord record) {
         TypedObject leftValue = left.evaluate(record);
-        if (!leftValue.isNull() && !((Boolean) leftValue.forceCast(Type.BOOLEAN).getValue())) {
-            return TypedObject.FALSE;
+        if (isFalseOrError(leftValue)) {
+            return falseOrError(leftValue);
         }
-        TypedObject rightValue = right.evaluate(record);
+        return and(leftValue, right.evaluate(record));
+    }
+
+    static TypedObject and(TypedObject leftValue, TypedObject rightValue) {
         if (rightValue.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(rightValue);
         } else if (!((Boolean) rightValue.forceCast(Type.BOOLEAN).getValue())) {
             return TypedObject.FALSE;
         } else if (leftValue.isNull()) {
@@ -313,12 +464,15 @@ public class BinaryOperations {
 
     static TypedObject or(Evaluator left, Evaluator right, BulletRecord record) {
         TypedObject leftValue = left.evaluate(record);
-        if (!leftValue.isNull() && (Boolean) leftValue.forceCast(Type.BOOLEAN).getValue()) {
-            return TypedObject.TRUE;
+        if (isTrueOrError(leftValue)) {
+            return trueOrError(leftValue);
         }
-        TypedObject rightValue = right.evaluate(record);
+        return or(leftValue, right.evaluate(record));
+    }
+
+    static TypedObject or(TypedObject leftValue, TypedObject rightValue) {
         if (rightValue.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(rightValue);
         } else if ((Boolean) rightValue.forceCast(Type.BOOLEAN).getValue()) {
             return TypedObject.TRUE;
         } else if (leftValue.isNull()) {
@@ -328,6 +482,22 @@ public class BinaryOperations {
         }
     }
 
+    static boolean isFalseOrError(TypedObject value) {
+        return value == ERROR || (!value.isNull() && !((Boolean) value.forceCast(Type.BOOLEAN).getValue()));
+    }
+
+    static boolean isTrueOrError(TypedObject value) {
+        return value == ERROR || (!value.isNull() && (Boolean) value.forceCast(Type.BOOLEAN).getValue());
+    }
+
+    static TypedObject falseOrError(TypedObject value) {
+        return value == ERROR ? ERROR : TypedObject.FALSE;
+    }
+
+    static TypedObject trueOrError(TypedObject value) {
+        return value == ERROR ? ERROR : TypedObject.TRUE;
+    }
+
     static TypedObject xor(Evaluator left, Evaluator right, BulletRecord record) {
         return checkNull(left, right, record, (leftValue, rightValue) ->
                 TypedObject.valueOf((Boolean) leftValue.forceCast(Type.BOOLEAN).getValue() ^
@@ -349,15 +519,53 @@ public class BinaryOperations {
     private static TypedObject checkNull(Evaluator left, Evaluator right, BulletRecord record, BiFunction<TypedObject, TypedObject, TypedObject> operator) {
         TypedObject leftValue = left.evaluate(record);
         if (leftValue.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(leftValue);
         }
         TypedObject rightValue = right.evaluate(record);
         if (rightValue.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(rightValue);
         }
         return operator.apply(leftValue, rightValue);
     }
 
+    /**
+     * Creates an operator that looks up the left value in a constant set of values. This has the same results as the
+     * operators for IN and EQUALS_ANY (or their negations, NOT_IN and NOT_EQUALS_ALL). If the left value is of a
+     * different type than the values in the set, this falls back to the given operator.
+     *
+     * @param set The {@link ConstantSet} of values to look up the left value in.
+     * @param fallback The {@link BinaryOperator} to use if the left value cannot be looked up in the set.
+     * @param negate Whether the result of the lookup should be negated.
+     * @return The specialized {@link BinaryOperator} or null if the set was null.
+     */
+    static BinaryOperator constantContains(ConstantSet set, BinaryOperator fallback, boolean negate) {
+        if (set == null) {
+            return null;
+        }
+        return (left, right, record) -> {
+            TypedObject leftValue = left.evaluate(record);
+            if (leftValue.isNull()) {
+                return nullOrError(leftValue);
+            }
+            if (leftValue.getType() != set.type) {
+                return fallback.apply(left, right, record);
+            }
+            TypedObject result = set.contains(leftValue.getValue());
+            if (!negate || result.isNull()) {
+                return result;
+            }
+            return (Boolean) result.getValue() ? TypedObject.FALSE : TypedObject.TRUE;
+        };
+    }
+
+    private static TypedObject checkNull(Evaluator left, BulletRecord record, Function<TypedObject, TypedObject> operator) {
+        TypedObject leftValue = left.evaluate(record);
+        if (leftValue.isNull()) {
+            return nullOrError(leftValue);
+        }
+        return operator.apply(leftValue);
+    }
+
     @SuppressWarnings("unchecked")
     private static TypedObject ternaryAnyMatch(TypedObject leftValue, TypedObject rightValue, Predicate<Integer> predicate) {
         Type subType = rightValue.getType().getSubType();
@@ -386,7 +594,189 @@ public class BinaryOperations {
         return !hasNull ? TypedObject.TRUE : TypedObject.NULL;
     }
 
-    private static Type getArithmeticResultType(Type left, Type right) {
+    private static Pattern getPattern(String regex) {
+        return PATTERN_CACHE.get(regex, Pattern::compile);
+    }
+
+    /**
+     * Compiles the pattern in the given expression if it is a constant, non-null String that is a valid regex.
+     *
+     * @param expression The expression that may be a constant pattern.
+     * @return The compiled {@link Pattern} or null if the expression was not a valid constant pattern.
+     */
+    static Pattern getConstantPattern(Expression expression) {
+        if (!(expression instanceof ValueExpression)) {
+            return null;
+        }
+        Serializable value = ((ValueExpression) expression).getValue();
+        if (!(value instanceof String)) {
+            return null;
+        }
+        try {
+            return Pattern.compile((String) value);
+        } catch (PatternSyntaxException e) {
+            // Leave it to be compiled (and fail) on each record just like a non-constant pattern
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the patterns in the given expression if it is a {@link ListExpression} of only constant Strings (or
+     * nulls) that are valid regexes.
+     *
+     * @param expression The expression that may be a list of constant patterns.
+     * @return The compiled {@link ConstantPatterns} or null if the expression was not a valid constant list of patterns.
+     */
+    static ConstantPatterns getConstantPatterns(Expression expression) {
+        if (!(expression instanceof ListExpression)) {
+            return null;
+        }
+        List<Expression> values = ((ListExpression) expression).getValues();
+        List<Pattern> patterns = new ArrayList<>();
+        boolean containsNull = false;
+        for (Expression value : values) {
+            if (value instanceof ValueExpression && ((ValueExpression) value).getValue() == null) {
+                containsNull = true;
+                continue;
+            }
+            Pattern pattern = getConstantPattern(value);
+            if (pattern == null) {
+                return null;
+            }
+            patterns.add(pattern);
+        }
+        return new ConstantPatterns(patterns.toArray(new Pattern[0]), containsNull);
+    }
+
+    /**
+     * Holds the compiled patterns from a constant list of patterns and whether that list contained a null.
+     */
+    static class ConstantPatterns implements Serializable {
+        private static final long serialVersionUID = 4521867390415587043L;
+
+        final Pattern[] patterns;
+        final boolean containsNull;
+
+        ConstantPatterns(Pattern[] patterns, boolean containsNull) {
+            this.patterns = patterns;
+            this.containsNull = containsNull;
+        }
+
+        TypedObject matchAny(TypedObject leftValue) {
+            if (leftValue.getType() != Type.STRING) {
+                return ERROR;
+            }
+            String value = (String) leftValue.getValue();
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(value).matches()) {
+                    return TypedObject.TRUE;
+                }
+            }
+            return !containsNull ? TypedObject.FALSE : TypedObject.NULL;
+        }
+    }
+
+    /**
+     * Creates a {@link ConstantSet} from the given expression if it is a {@link ListExpression} of only constant
+     * primitives (or nulls) that all have the same type. The list must have at least one non-null value.
+     *
+     * @param expression The expression that may be a list of constant values.
+     * @return The {@link ConstantSet} or null if the expression was not a valid constant list of values.
+     */
+    static ConstantSet getConstantSet(Expression expression) {
+        if (!(expression instanceof ListExpression)) {
+            return null;
+        }
+        List<Expression> values = ((ListExpression) expression).getValues();
+        Type type = null;
+        boolean containsNull = false;
+        for (Expression value : values) {
+            if (!(value instanceof ValueExpression)) {
+                return null;
+            }
+            Type valueType = value.getType();
+            if (Type.isNull(valueType)) {
+                containsNull = true;
+            } else if (type == null) {
+                type = valueType;
+            } else if (type != valueType) {
+                return null;
+            }
+        }
+        if (type == null || !Type.isPrimitive(type)) {
+            return null;
+        }
+        ConstantSet set = new ConstantSet(type, containsNull, values.size());
+        for (Expression value : values) {
+            set.add(((ValueExpression) value).getValue());
+        }
+        return set;
+    }
+
+    /**
+     * Holds the values from a constant list of values of the same type for constant time lookups, and whether that list
+     * contained a null. Numeric values are stored as primitive longs (floating point values by their bits) so that
+     * they are not boxed. Looking up a value of the same type has the same result as checking for it in the list.
+     */
+    static class ConstantSet implements Serializable {
+        private static final long serialVersionUID = -2473104937626407458L;
+
+        final Type type;
+        final boolean containsNull;
+        private final LongHashSet numbers;
+        private final Set<Serializable> objects;
+
+        ConstantSet(Type type, boolean containsNull, int expectedSize) {
+            this.type = type;
+            this.containsNull = containsNull;
+            boolean isNumeric = Type.isNumeric(type);
+            numbers = isNumeric ? new LongHashSet(expectedSize) : null;
+            objects = isNumeric ? null : new HashSet<>();
+        }
+
+        private void add(Serializable value) {
+            if (value == null) {
+                return;
+            }
+            if (numbers != null) {
+                numbers.add(toLong(value));
+            } else {
+                objects.add(value);
+            }
+        }
+
+        /**
+         * Looks up a non-null value of the same type as this set.
+         *
+         * @param value The non-null value to look up.
+         * @return {@link TypedObject#TRUE} if present, {@link TypedObject#NULL} if not but this set contained a null
+         *         and {@link TypedObject#FALSE} otherwise.
+         */
+        TypedObject contains(Serializable value) {
+            boolean found = numbers != null ? numbers.contains(toLong(value)) : objects.contains(value);
+            if (found) {
+                return TypedObject.TRUE;
+            }
+            return !containsNull ? TypedObject.FALSE : TypedObject.NULL;
+        }
+
+        private long toLong(Serializable value) {
+            switch (type) {
+                case DOUBLE:
+                    return Double.doubleToLongBits(((Number) value).doubleValue());
+                case FLOAT:
+                    return Float.floatToIntBits(((Number) value).floatValue());
+                default:
+                    return ((Number) value).longValue();
+            }
+        }
+    }
+
+    private static boolean isNumbers(TypedObject leftValue, TypedObject rightValue) {
+        return Type.isNumeric(leftValue.getType()) && Type.isNumeric(rightValue.getType());
+    }
+
+    static Type getArithmeticResultType(Type left, Type right) {
         if (left == Type.DOUBLE || right == Type.DOUBLE) {
             return Type.DOUBLE;
         }
@@ -6,10 +6,13 @@
 package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.query.expressions.CastExpression;
+import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.util.function.Function;
+
 /**
  * An evaluator that force casts the result of an evaluator to a given type.
  */
@@ -18,6 +21,7 @@ public class CastEvaluator extends Evaluator {
 
     final Evaluator value;
     final Type castType;
+    private final Type primitiveType;
 
     /**
      * Constructor that creates a cast evaluator from a {@link CastExpression}.
@@ -25,12 +29,65 @@ public class CastEvaluator extends Evaluator {
      * @param castExpression The cast expression to construct the evaluator from.
      */
     public CastEvaluator(CastExpression castExpression) {
-        value = castExpression.getValue().getEvaluator();
+        this(castExpression, Expression::getEvaluator);
+    }
+
+    /**
+     * Constructor that creates a cast evaluator from a {@link CastExpression} using the given function to get the
+     * evaluator for its value.
+     *
+     * @param castExpression The cast expression to construct the evaluator from.
+     * @param evaluators The function to get the evaluator for the value.
+     */
+    public CastEvaluator(CastExpression castExpression, Function<Expression, Evaluator> evaluators) {
+        value = evaluators.apply(castExpression.getValue());
         castType = castExpression.getCastType();
+        // Only casts between numbers are done with primitives
+        primitiveType = isNumeric(castType) && isNumeric(value.getPrimitiveType()) ? castType : null;
     }
 
     @Override
     public TypedObject evaluate(BulletRecord record) {
-        return value.evaluate(record).forceCast(castType);
+        TypedObject result = value.evaluate(record);
+        return result == ERROR ? ERROR : result.forceCast(castType);
+    }
+
+    @Override
+    public Type getPrimitiveType() {
+        return primitiveType;
+    }
+
+    @Override
+    public long evaluateLong(BulletRecord record) {
+        if (primitiveType == null) {
+            return super.evaluateLong(record);
+        }
+        long result;
+        if (isIntegral(value.getPrimitiveType())) {
+            long number = value.evaluateLong(record);
+            result = castType == Type.INTEGER ? (int) number : number;
+        } else {
+            double number = value.evaluateDouble(record);
+            result = castType == Type.INTEGER ? (int) number : (long) number;
+        }
+        wasNull = value.wasNull();
+        return result;
+    }
+
+    @Override
+    public double evaluateDouble(BulletRecord record) {
+        if (primitiveType == null) {
+            return super.evaluateDouble(record);
+        }
+        double result;
+        if (isIntegral(value.getPrimitiveType())) {
+            long number = value.evaluateLong(record);
+            result = castType == Type.FLOAT ? (float) number : (double) number;
+        } else {
+            double number = value.evaluateDouble(record);
+            result = castType == Type.FLOAT ? (float) number : number;
+        }
+        wasNull = value.wasNull();
+        return result;
     }
 }
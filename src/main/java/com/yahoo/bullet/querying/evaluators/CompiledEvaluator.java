@@ -0,0 +1,212 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An evaluator that compiles an {@link Expression} tree into a single {@link MethodHandle}. Since the whole tree is one
+ * method handle, the JIT can compile it into one method and inline the operations into each other instead of making a
+ * virtual call for each node as the interpreted evaluators do.
+ *
+ * The arithmetic, comparison, AND, OR, NOT, IS NULL and IS NOT NULL operations are compiled. These apply the same
+ * operations in {@link BinaryOperations} and {@link UnaryOperations} in the same order as the interpreted evaluators so
+ * the results, including any errors and {@link #ERROR} results, are the same. Any other node, such as one that is
+ * specialized for a constant operand or one that is evaluated adaptively, is evaluated by its interpreted evaluator
+ * within the compiled tree.
+ */
+public class CompiledEvaluator extends Evaluator {
+    private static final long serialVersionUID = -2873195046250921866L;
+
+    private static final MethodType EVALUATE_TYPE = MethodType.methodType(TypedObject.class, BulletRecord.class);
+    private static final MethodType TEST_TYPE = MethodType.methodType(boolean.class, TypedObject.class);
+    private static final MethodType UNARY_TYPE = MethodType.methodType(TypedObject.class, TypedObject.class);
+    private static final MethodType BINARY_TYPE = MethodType.methodType(TypedObject.class, TypedObject.class, TypedObject.class);
+
+    private static final MethodHandle EVALUATE;
+    private static final MethodHandle IS_NULL;
+    private static final MethodHandle IS_FALSE;
+    private static final MethodHandle IS_TRUE;
+    private static final MethodHandle NULL_OR_ERROR;
+    private static final MethodHandle FALSE_OR_ERROR;
+    private static final MethodHandle TRUE_OR_ERROR;
+    private static final Map<Operation, MethodHandle> UNARY_OPERATORS = new EnumMap<>(Operation.class);
+    private static final Map<Operation, MethodHandle> BINARY_OPERATORS = new EnumMap<>(Operation.class);
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            EVALUATE = lookup.findVirtual(Evaluator.class, "evaluate", EVALUATE_TYPE);
+            IS_NULL = lookup.findVirtual(TypedObject.class, "isNull", MethodType.methodType(boolean.class));
+            IS_FALSE = lookup.findStatic(BinaryOperations.class, "isFalseOrError", TEST_TYPE);
+            IS_TRUE = lookup.findStatic(BinaryOperations.class, "isTrueOrError", TEST_TYPE);
+            NULL_OR_ERROR = lookup.findStatic(Evaluator.class, "nullOrError", UNARY_TYPE);
+            FALSE_OR_ERROR = lookup.findStatic(BinaryOperations.class, "falseOrError", UNARY_TYPE);
+            TRUE_OR_ERROR = lookup.findStatic(BinaryOperations.class, "trueOrError", UNARY_TYPE);
+            UNARY_OPERATORS.put(Operation.NOT, lookup.findStatic(UnaryOperations.class, "not", UNARY_TYPE));
+            UNARY_OPERATORS.put(Operation.IS_NULL, lookup.findStatic(CompiledEvaluator.class, "isNull", UNARY_TYPE));
+            UNARY_OPERATORS.put(Operation.IS_NOT_NULL, lookup.findStatic(CompiledEvaluator.class, "isNotNull", UNARY_TYPE));
+            BINARY_OPERATORS.put(Operation.ADD, lookup.findStatic(BinaryOperations.class, "add", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.SUB, lookup.findStatic(BinaryOperations.class, "sub", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.MUL, lookup.findStatic(BinaryOperations.class, "mul", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.DIV, lookup.findStatic(BinaryOperations.class, "div", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.MOD, lookup.findStatic(BinaryOperations.class, "mod", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.EQUALS, lookup.findStatic(BinaryOperations.class, "equals", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.NOT_EQUALS, lookup.findStatic(BinaryOperations.class, "notEquals", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.GREATER_THAN, lookup.findStatic(BinaryOperations.class, "greaterThan", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.LESS_THAN, lookup.findStatic(BinaryOperations.class, "lessThan", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.GREATER_THAN_OR_EQUALS, lookup.findStatic(BinaryOperations.class, "greaterThanOrEquals", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.LESS_THAN_OR_EQUALS, lookup.findStatic(BinaryOperations.class, "lessThanOrEquals", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.AND, lookup.findStatic(BinaryOperations.class, "and", BINARY_TYPE));
+            BINARY_OPERATORS.put(Operation.OR, lookup.findStatic(BinaryOperations.class, "or", BINARY_TYPE));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Expression expression;
+    private final EvaluatorBuilder builder;
+    private transient MethodHandle handle;
+
+    private CompiledEvaluator(Expression expression, EvaluatorBuilder builder) {
+        this.expression = expression;
+        this.builder = builder;
+        handle = toHandle(expression, builder);
+    }
+
+    @Override
+    public TypedObject evaluate(BulletRecord record) {
+        try {
+            return (TypedObject) handle.invokeExact(record);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            // The compiled operations do not throw checked exceptions
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Compiles the given {@link Expression} if it can be compiled. Otherwise, this is the interpreted evaluator for it.
+     *
+     * @param expression The non-null expression to compile.
+     * @param builder The builder to get the interpreted evaluators for the nodes that are not compiled.
+     * @return A {@link CompiledEvaluator} or the interpreted evaluator if the expression cannot be compiled.
+     */
+    static Evaluator compile(Expression expression, EvaluatorBuilder builder) {
+        if (!isCompiled(expression, builder)) {
+            return builder.interpret(expression);
+        }
+        return new CompiledEvaluator(expression, builder);
+    }
+
+    private static boolean isCompiled(Expression expression, EvaluatorBuilder builder) {
+        if (expression instanceof BinaryExpression) {
+            Operation op = ((BinaryExpression) expression).getOp();
+            return BINARY_OPERATORS.containsKey(op) && (!isAndOr(op) || !builder.isAdaptive());
+        } else if (expression instanceof NAryExpression) {
+            NAryExpression nAry = (NAryExpression) expression;
+            // A single operand is only cast to a boolean, so it is left to the interpreter
+            return isAndOr(nAry.getOp()) && nAry.getOperands().size() > 1 && !builder.isAdaptive();
+        } else if (expression instanceof UnaryExpression) {
+            return UNARY_OPERATORS.containsKey(((UnaryExpression) expression).getOp());
+        }
+        return false;
+    }
+
+    private static MethodHandle toHandle(Expression expression, EvaluatorBuilder builder) {
+        if (expression instanceof ValueExpression) {
+            return constant(builder.interpret(expression).evaluate(null), BulletRecord.class);
+        }
+        if (!isCompiled(expression, builder)) {
+            return EVALUATE.bindTo(builder.interpret(expression));
+        }
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            return combine(binary.getOp(), toHandle(binary.getLeft(), builder), toHandle(binary.getRight(), builder));
+        } else if (expression instanceof NAryExpression) {
+            // AND(a, b, c) evaluates the same as AND(AND(a, b), c) and likewise for OR
+            NAryExpression nAry = (NAryExpression) expression;
+            List<Expression> operands = nAry.getOperands();
+            MethodHandle result = toHandle(operands.get(0), builder);
+            for (int i = 1; i < operands.size(); i++) {
+                result = combine(nAry.getOp(), result, toHandle(operands.get(i), builder));
+            }
+            return result;
+        }
+        UnaryExpression unary = (UnaryExpression) expression;
+        MethodHandle operand = toHandle(unary.getOperand(), builder);
+        MethodHandle operator = UNARY_OPERATORS.get(unary.getOp());
+        if (unary.getOp() != Operation.NOT) {
+            return MethodHandles.filterReturnValue(operand, operator);
+        }
+        // value.isNull() ? nullOrError(value) : operator(value)
+        return MethodHandles.filterReturnValue(operand, MethodHandles.guardWithTest(IS_NULL, NULL_OR_ERROR, operator));
+    }
+
+    private static MethodHandle combine(Operation op, MethodHandle left, MethodHandle right) {
+        MethodHandle operator = BINARY_OPERATORS.get(op);
+        // Both take the left value and the record: (leftValue, record) -> operator(leftValue, right(record))
+        MethodHandle withRight = MethodHandles.filterArguments(operator, 1, right);
+        MethodHandle target;
+        if (op == Operation.AND) {
+            target = guard(IS_FALSE, FALSE_OR_ERROR, withRight);
+        } else if (op == Operation.OR) {
+            target = guard(IS_TRUE, TRUE_OR_ERROR, withRight);
+        } else {
+            // (leftValue, rightValue) -> rightValue.isNull() ? nullOrError(rightValue) : operator(leftValue, rightValue)
+            MethodHandle rightIsNull = MethodHandles.dropArguments(IS_NULL, 0, TypedObject.class);
+            MethodHandle rightNullOrError = MethodHandles.dropArguments(NULL_OR_ERROR, 0, TypedObject.class);
+            MethodHandle checked = MethodHandles.guardWithTest(rightIsNull, rightNullOrError, operator);
+            target = guard(IS_NULL, NULL_OR_ERROR, MethodHandles.filterArguments(checked, 1, right));
+        }
+        // record -> target(left(record), record)
+        return MethodHandles.foldArguments(target, left);
+    }
+
+    private static MethodHandle guard(MethodHandle test, MethodHandle result, MethodHandle target) {
+        // (leftValue, record) -> test(leftValue) ? result(leftValue) : target(leftValue, record)
+        return MethodHandles.guardWithTest(MethodHandles.dropArguments(test, 1, BulletRecord.class),
+                                           MethodHandles.dropArguments(result, 1, BulletRecord.class), target);
+    }
+
+    private static MethodHandle constant(TypedObject value, Class<?>... arguments) {
+        return MethodHandles.dropArguments(MethodHandles.constant(TypedObject.class, value), 0, arguments);
+    }
+
+    private static boolean isAndOr(Operation op) {
+        return op == Operation.AND || op == Operation.OR;
+    }
+
+    private static TypedObject isNull(TypedObject value) {
+        return value == ERROR ? ERROR : TypedObject.valueOf(value.isNull());
+    }
+
+    private static TypedObject isNotNull(TypedObject value) {
+        return value == ERROR ? ERROR : TypedObject.valueOf(!value.isNull());
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        handle = toHandle(expression, builder);
+    }
+}
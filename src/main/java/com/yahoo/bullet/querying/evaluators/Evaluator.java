@@ -6,6 +6,7 @@
 package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
 import java.io.Serializable;
@@ -13,10 +14,55 @@ import java.io.Serializable;
 /**
  * Evaluators are built from expressions. They are evaluated given a {@link BulletRecord} and will throw exceptions on
  * any errors which are most likely to be the result of missing fields or incorrect types.
+ *
+ * Evaluators whose result type is known to be numeric or boolean up front report it in {@link #getPrimitiveType()} and
+ * can be evaluated with {@link #evaluateLong(BulletRecord)}, {@link #evaluateDouble(BulletRecord)} or
+ * {@link #evaluateBoolean(BulletRecord)} without creating a {@link TypedObject} for each result. As with JDBC, since a
+ * primitive cannot be null, {@link #wasNull()} tells if the last primitive result was actually null. The primitive type
+ * of a field is only what the query declared, so a value that turns out to be of another type or {@link #ERROR} cannot
+ * be evaluated as a primitive. Evaluating then throws {@link TypeMismatch} and {@link #evaluate(BulletRecord)} falls back
+ * to the boxed operations, which use the actual types of the values.
+ *
+ * For the common errors on bad data, such as arithmetic on a value that is not a number, evaluators return
+ * {@link #ERROR} instead of throwing. Since creating and throwing an exception is expensive, this is much cheaper when
+ * many records fail. {@link #ERROR} is a null, so code that does not check for it treats it as a null. The operations
+ * pass it on wherever an exception would have been passed on, so a result is {@link #ERROR} if evaluating would
+ * otherwise have thrown.
+ *
+ * Evaluators can also be evaluated as booleans on a batch of records with
+ * {@link #evaluate(BulletRecord[], int[], int, byte[])}. By default, this evaluates each record in turn, but evaluators
+ * that can do better, such as AND and OR narrowing down the records that their later operands are evaluated on, do so.
  */
 public abstract class Evaluator implements Serializable {
     private static final long serialVersionUID = 8998958368200061680L;
 
+    /**
+     * The result of an evaluation that failed. This is checked by reference.
+     */
+    public static final TypedObject ERROR = new TypedObject(Type.NULL, null);
+
+    // The results of evaluating a batch of records as booleans
+    public static final byte BATCH_FALSE = 0;
+    public static final byte BATCH_TRUE = 1;
+    public static final byte BATCH_NULL = 2;
+    public static final byte BATCH_ERROR = 3;
+
+    protected transient boolean wasNull;
+
+    /**
+     * Thrown when a value cannot be evaluated as a primitive because it is not of the primitive type that was expected.
+     * It is a stackless singleton since it is only used to fall back to the boxed operations.
+     */
+    static final class TypeMismatch extends RuntimeException {
+        private static final long serialVersionUID = -2311926148425377093L;
+
+        static final TypeMismatch INSTANCE = new TypeMismatch();
+
+        private TypeMismatch() {
+            super("The value is not of the expected primitive type", null, false, false);
+        }
+    }
+
     /**
      * Evaluates this evaluator on the given {@link BulletRecord}.
      *
@@ -24,4 +70,170 @@ public abstract class Evaluator implements Serializable {
      * @return The result of this evaluator on the given Bullet record.
      */
     public abstract TypedObject evaluate(BulletRecord record);
+
+    /**
+     * Gets the type of the results of this evaluator if they are known to be an {@link Type#INTEGER}, {@link Type#LONG},
+     * {@link Type#FLOAT}, {@link Type#DOUBLE} or {@link Type#BOOLEAN} and can be evaluated as a primitive without
+     * creating any objects.
+     *
+     * @return The primitive type of the results or null if not known.
+     */
+    public Type getPrimitiveType() {
+        return null;
+    }
+
+    /**
+     * Evaluates this evaluator as a long. This is for the {@link Type#INTEGER} and {@link Type#LONG} results.
+     *
+     * @param record The Bullet record to evaluate this evaluator on.
+     * @return The result as a long or 0 if it was null.
+     * @throws TypeMismatch if the result was {@link #ERROR} or not of the primitive type if there is one.
+     */
+    public long evaluateLong(BulletRecord record) {
+        TypedObject value = checkPrimitive(evaluate(record));
+        wasNull = value.isNull();
+        return wasNull ? 0L : ((Number) value.getValue()).longValue();
+    }
+
+    /**
+     * Evaluates this evaluator as a double. This is for the {@link Type#FLOAT} and {@link Type#DOUBLE} results.
+     *
+     * @param record The Bullet record to evaluate this evaluator on.
+     * @return The result as a double or 0 if it was null.
+     * @throws TypeMismatch if the result was {@link #ERROR} or not of the primitive type if there is one.
+     */
+    public double evaluateDouble(BulletRecord record) {
+        TypedObject value = checkPrimitive(evaluate(record));
+        wasNull = value.isNull();
+        return wasNull ? 0.0 : ((Number) value.getValue()).doubleValue();
+    }
+
+    /**
+     * Evaluates this evaluator as a boolean. The result is cast to a boolean if needed.
+     *
+     * @param record The Bullet record to evaluate this evaluator on.
+     * @return The result as a boolean or false if it was null.
+     * @throws TypeMismatch if the result was {@link #ERROR}.
+     */
+    public boolean evaluateBoolean(BulletRecord record) {
+        TypedObject value = evaluate(record);
+        if (value == ERROR) {
+            throw TypeMismatch.INSTANCE;
+        }
+        wasNull = value.isNull();
+        return !wasNull && (Boolean) value.forceCast(Type.BOOLEAN).getValue();
+    }
+
+    /**
+     * Evaluates this evaluator as a boolean on the selected records in the given batch. The result for each record is
+     * the same as evaluating it on its own: {@link #BATCH_ERROR} if the evaluation returned {@link #ERROR} or threw,
+     * {@link #BATCH_NULL} if it was null and otherwise {@link #BATCH_TRUE} or {@link #BATCH_FALSE} after casting it to
+     * a boolean.
+     *
+     * @param batch The batch of Bullet records.
+     * @param selection The indices into the batch of the records to evaluate this evaluator on in increasing order.
+     * @param size The number of indices in the selection.
+     * @param results The array to store the result for each selected record in at its index in the batch.
+     */
+    public void evaluate(BulletRecord[] batch, int[] selection, int size, byte[] results) {
+        boolean isBoolean = getPrimitiveType() == Type.BOOLEAN;
+        for (int i = 0; i < size; i++) {
+            int index = selection[i];
+            try {
+                results[index] = isBoolean ? evaluateBatchResult(batch[index]) : toBatchResult(evaluate(batch[index]));
+            } catch (RuntimeException e) {
+                results[index] = BATCH_ERROR;
+            }
+        }
+    }
+
+    private byte evaluateBatchResult(BulletRecord record) {
+        try {
+            return toBatchResult(evaluateBoolean(record), wasNull);
+        } catch (TypeMismatch e) {
+            return toBatchResult(evaluate(record));
+        }
+    }
+
+    private TypedObject checkPrimitive(TypedObject value) {
+        Type type = getPrimitiveType();
+        if (value == ERROR || (type != null && !value.isNull() && value.getType() != type)) {
+            throw TypeMismatch.INSTANCE;
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether the last result from {@link #evaluateLong(BulletRecord)}, {@link #evaluateDouble(BulletRecord)} or
+     * {@link #evaluateBoolean(BulletRecord)} was null. Like evaluating, this is not thread-safe.
+     *
+     * @return A boolean denoting whether the last primitive result was null.
+     */
+    public boolean wasNull() {
+        return wasNull;
+    }
+
+    /**
+     * Returns whether the given result is {@link #ERROR}.
+     *
+     * @param value The result of an evaluation.
+     * @return A boolean denoting whether the evaluation failed.
+     */
+    public static boolean isError(TypedObject value) {
+        return value == ERROR;
+    }
+
+    /**
+     * Gets the result of an operation on the given null operand, which is {@link #ERROR} if it is {@link #ERROR} and
+     * {@link TypedObject#NULL} otherwise.
+     *
+     * @param value The null operand.
+     * @return {@link #ERROR} or {@link TypedObject#NULL}.
+     */
+    static TypedObject nullOrError(TypedObject value) {
+        return value == ERROR ? ERROR : TypedObject.NULL;
+    }
+
+    static byte toBatchResult(TypedObject value) {
+        if (value == ERROR) {
+            return BATCH_ERROR;
+        }
+        return toBatchResult(!value.isNull() && (Boolean) value.forceCast(Type.BOOLEAN).getValue(), value.isNull());
+    }
+
+    static byte toBatchResult(boolean value, boolean isNull) {
+        return isNull ? BATCH_NULL : value ? BATCH_TRUE : BATCH_FALSE;
+    }
+
+    static double evaluateNumber(Evaluator evaluator, BulletRecord record) {
+        return isIntegral(evaluator.getPrimitiveType()) ? evaluator.evaluateLong(record) : evaluator.evaluateDouble(record);
+    }
+
+    static TypedObject toTypedObject(Evaluator evaluator, BulletRecord record) {
+        switch (evaluator.getPrimitiveType()) {
+            case BOOLEAN:
+                boolean bool = evaluator.evaluateBoolean(record);
+                return evaluator.wasNull ? TypedObject.NULL : TypedObject.valueOf(bool);
+            case INTEGER:
+                int integer = (int) evaluator.evaluateLong(record);
+                return evaluator.wasNull ? TypedObject.NULL : new TypedObject(Type.INTEGER, integer);
+            case LONG:
+                long number = evaluator.evaluateLong(record);
+                return evaluator.wasNull ? TypedObject.NULL : new TypedObject(Type.LONG, number);
+            case FLOAT:
+                float decimal = (float) evaluator.evaluateDouble(record);
+                return evaluator.wasNull ? TypedObject.NULL : new TypedObject(Type.FLOAT, decimal);
+            default:
+                double real = evaluator.evaluateDouble(record);
+                return evaluator.wasNull ? TypedObject.NULL : new TypedObject(Type.DOUBLE, real);
+        }
+    }
+
+    static boolean isIntegral(Type type) {
+        return type == Type.INTEGER || type == Type.LONG;
+    }
+
+    static boolean isNumeric(Type type) {
+        return isIntegral(type) || type == Type.FLOAT || type == Type.DOUBLE;
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.CastExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the {@link Evaluator} for an {@link Expression} using the evaluation settings in a {@link BulletConfig}. With no
+ * settings, this builds the same evaluators as {@link Expression#getEvaluator()}.
+ *
+ * If {@link BulletConfig#QUERY_FILTER_ADAPTIVE_ENABLE} is set, AND and OR are evaluated by an {@link AdaptiveEvaluator}.
+ * If {@link BulletConfig#QUERY_FILTER_COMPILE_ENABLE} is set, the expressions given to {@link #build(Expression)} are
+ * compiled into a {@link CompiledEvaluator} where possible.
+ */
+public class EvaluatorBuilder implements Serializable {
+    private static final long serialVersionUID = 6417102598835528237L;
+
+    private final boolean adaptive;
+    private final boolean compiled;
+
+    /**
+     * Constructor that creates a builder that builds the same evaluators as {@link Expression#getEvaluator()}.
+     */
+    public EvaluatorBuilder() {
+        adaptive = false;
+        compiled = false;
+    }
+
+    /**
+     * Constructor that creates a builder using the settings in the given {@link BulletConfig}.
+     *
+     * @param config The validated config to use.
+     */
+    public EvaluatorBuilder(BulletConfig config) {
+        adaptive = config.getAs(BulletConfig.QUERY_FILTER_ADAPTIVE_ENABLE, Boolean.class);
+        compiled = config.getAs(BulletConfig.QUERY_FILTER_COMPILE_ENABLE, Boolean.class);
+    }
+
+    /**
+     * Builds the {@link Evaluator} for the given {@link Expression} and its operands.
+     *
+     * @param expression The non-null expression to build the evaluator for.
+     * @return The evaluator for the expression.
+     */
+    public Evaluator build(Expression expression) {
+        return compiled ? CompiledEvaluator.compile(expression, this) : interpret(expression);
+    }
+
+    /**
+     * Builds the {@link Evaluator} for the given {@link Expression} using the given function to get the evaluators for
+     * its operands. This is never compiled.
+     *
+     * @param expression The non-null expression to build the evaluator for.
+     * @param evaluators The function to get the evaluator for an operand.
+     * @return The evaluator for the expression.
+     */
+    public Evaluator build(Expression expression, Function<Expression, Evaluator> evaluators) {
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            if (adaptive && isAndOr(binary.getOp())) {
+                return adapt(Arrays.asList(binary.getLeft(), binary.getRight()), binary.getOp(), evaluators);
+            }
+            return new BinaryEvaluator(binary, evaluators);
+        } else if (expression instanceof NAryExpression) {
+            NAryExpression nAry = (NAryExpression) expression;
+            if (adaptive && isAndOr(nAry.getOp()) && !nAry.getOperands().isEmpty()) {
+                return adapt(nAry.getOperands(), nAry.getOp(), evaluators);
+            }
+            return new NAryEvaluator(nAry, evaluators);
+        } else if (expression instanceof UnaryExpression) {
+            return new UnaryEvaluator((UnaryExpression) expression, evaluators);
+        } else if (expression instanceof ListExpression) {
+            return new ListEvaluator((ListExpression) expression, evaluators);
+        } else if (expression instanceof CastExpression) {
+            return new CastEvaluator((CastExpression) expression, evaluators);
+        }
+        return expression.getEvaluator();
+    }
+
+    Evaluator interpret(Expression expression) {
+        return build(expression, this::interpret);
+    }
+
+    /**
+     * Returns whether this builder evaluates AND and OR with an {@link AdaptiveEvaluator}.
+     *
+     * @return True if the evaluators built may have {@link AdaptiveEvaluator} instances.
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    private static Evaluator adapt(List<Expression> operands, Operation op, Function<Expression, Evaluator> evaluators) {
+        return new AdaptiveEvaluator(operands.stream().map(evaluators).collect(Collectors.toList()), op);
+    }
+
+    private static boolean isAndOr(Operation op) {
+        return op == Operation.AND || op == Operation.OR;
+    }
+}
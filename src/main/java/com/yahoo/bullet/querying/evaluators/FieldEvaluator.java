@@ -12,10 +12,14 @@ import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * An evaluator that extracts a given field from a {@link BulletRecord}. This is the only evaluator that directly takes a
  * {@link BulletRecord}.
+ *
+ * Fields whose keys do not depend on the record are extracted through the {@link FieldValueCache}, so they are only
+ * extracted once per record when many queries consume the same record.
  */
 public class FieldEvaluator extends Evaluator {
     private static final long serialVersionUID = -1186787768122072138L;
@@ -26,6 +30,9 @@ public class FieldEvaluator extends Evaluator {
     }
 
     private final FieldExtractor fieldExtractor;
+    // The key for the field in the FieldValueCache or null if the field is not cached
+    private final Serializable path;
+    private final Type primitiveType;
 
     /**
      * Constructor that creates a field evaluator from a {@link FieldExpression}.
@@ -34,11 +41,19 @@ public class FieldEvaluator extends Evaluator {
      */
     public FieldEvaluator(FieldExpression fieldExpression) {
         fieldExtractor = getFieldExtractor(fieldExpression);
+        path = getPath(fieldExpression);
+        Type type = fieldExpression.getType();
+        primitiveType = isNumeric(type) || type == Type.BOOLEAN ? type : null;
     }
 
     @Override
     public TypedObject evaluate(BulletRecord record) {
-        return fieldExtractor.extract(record);
+        return path == null ? fieldExtractor.extract(record) : FieldValueCache.get(record, path, fieldExtractor);
+    }
+
+    @Override
+    public Type getPrimitiveType() {
+        return primitiveType;
     }
 
     private static FieldExtractor getFieldExtractor(FieldExpression fieldExpression) {
@@ -127,4 +142,14 @@ public class FieldEvaluator extends Evaluator {
             return record -> record.typedGet(field);
         }
     }
+
+    private static Serializable getPath(FieldExpression fieldExpression) {
+        Serializable key = fieldExpression.getKey();
+        Serializable subKey = fieldExpression.getSubKey();
+        if (key instanceof Expression || subKey instanceof Expression) {
+            return null;
+        }
+        // The keys are compared with their types, so a map key "0" and a list index 0 are different paths
+        return (Serializable) Arrays.asList(fieldExpression.getField(), key, subKey);
+    }
 }
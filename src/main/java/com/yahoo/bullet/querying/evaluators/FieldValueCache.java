@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A scratch cache of the field values extracted from a single {@link BulletRecord} so that many queries consuming the
+ * record share the extraction. While a record is cached with {@link #begin(BulletRecord)}, a {@link FieldEvaluator}
+ * for a field path that does not depend on the record, such as demographics.country, extracts it from that record only
+ * once no matter how many queries use it. Other records, such as copies of the record, are not cached.
+ *
+ * A batch of records can be cached at once with {@link #begin(List)}. Since each query evaluates all its records in
+ * the batch before the next query does, the values of every record in the batch are kept until {@link #end()}.
+ *
+ * The cache is kept per thread, so records may be cached on many threads at once. The record must not be changed while
+ * it is cached.
+ */
+public final class FieldValueCache {
+    private static final ThreadLocal<FieldValueCache> CACHE = ThreadLocal.withInitial(FieldValueCache::new);
+    // The number of threads caching a record. Evaluators skip the thread local entirely when nothing is cached.
+    private static final AtomicInteger CACHING = new AtomicInteger();
+
+    private final Map<Object, TypedObject> values = new HashMap<>();
+    private BulletRecord record;
+    // The values of each record in the batch being cached, if any, by the identity of the record
+    private final Map<BulletRecord, Map<Object, TypedObject>> batch = new IdentityHashMap<>();
+
+    private FieldValueCache() {
+    }
+
+    /**
+     * Starts caching the field values of the given record on this thread unless it is already being cached.
+     *
+     * @param record The non-null {@link BulletRecord} to cache the field values of.
+     * @return True if this started caching the record, in which case {@link #end()} must be called after, or false if
+     *         the record was already being cached.
+     */
+    public static boolean begin(BulletRecord record) {
+        FieldValueCache cache = CACHE.get();
+        if (cache.record == record || cache.batch.containsKey(record)) {
+            return false;
+        }
+        if (!cache.isCaching()) {
+            CACHING.incrementAndGet();
+        }
+        cache.values.clear();
+        cache.batch.clear();
+        cache.record = record;
+        return true;
+    }
+
+    /**
+     * Starts caching the field values of all the records in the given batch on this thread unless a batch is already
+     * being cached. Any single record being cached is no longer cached.
+     *
+     * @param records The non-null {@link List} of non-null {@link BulletRecord} to cache the field values of.
+     * @return True if this started caching the records, in which case {@link #end()} must be called after, or false if
+     *         the batch was empty or a batch was already being cached.
+     */
+    public static boolean begin(List<BulletRecord> records) {
+        FieldValueCache cache = CACHE.get();
+        if (records.isEmpty() || !cache.batch.isEmpty()) {
+            return false;
+        }
+        if (cache.record == null) {
+            CACHING.incrementAndGet();
+        }
+        cache.values.clear();
+        cache.record = null;
+        for (BulletRecord record : records) {
+            cache.batch.put(record, new HashMap<>());
+        }
+        return true;
+    }
+
+    /**
+     * Stops caching field values on this thread and forgets them.
+     */
+    public static void end() {
+        FieldValueCache cache = CACHE.get();
+        if (!cache.isCaching()) {
+            return;
+        }
+        CACHING.decrementAndGet();
+        cache.values.clear();
+        cache.batch.clear();
+        cache.record = null;
+    }
+
+    /**
+     * Gets the value of the field at the given path in the record, extracting it only if it is not cached.
+     *
+     * @param record The record to get the value from.
+     * @param path The path of the field, which must be equal to the path of another field if and only if it is the same.
+     * @param extractor The extractor to extract the value with.
+     * @return The value of the field.
+     */
+    static TypedObject get(BulletRecord record, Object path, FieldEvaluator.FieldExtractor extractor) {
+        if (CACHING.get() == 0) {
+            return extractor.extract(record);
+        }
+        FieldValueCache cache = CACHE.get();
+        Map<Object, TypedObject> values = cache.record == record ? cache.values : cache.batch.get(record);
+        if (values == null) {
+            return extractor.extract(record);
+        }
+        TypedObject value = values.get(path);
+        if (value == null) {
+            // If this throws, nothing is cached and the next evaluator tries again
+            value = extractor.extract(record);
+            values.put(path, value);
+        }
+        return value;
+    }
+
+    private boolean isCaching() {
+        return record != null || !batch.isEmpty();
+    }
+}
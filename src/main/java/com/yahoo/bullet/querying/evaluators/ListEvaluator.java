@@ -10,8 +10,10 @@ import com.yahoo.bullet.query.expressions.ListExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -28,11 +30,30 @@ public class ListEvaluator extends Evaluator {
      * @param listExpression The list expression to construct the evaluator from.
      */
     public ListEvaluator(ListExpression listExpression) {
-        evaluators = listExpression.getValues().stream().map(Expression::getEvaluator).collect(Collectors.toList());
+        this(listExpression, Expression::getEvaluator);
+    }
+
+    /**
+     * Constructor that creates a list evaluator from a {@link ListExpression} using the given function to get the
+     * evaluators for its values.
+     *
+     * @param listExpression The list expression to construct the evaluator from.
+     * @param evaluators The function to get the evaluator for a value.
+     */
+    public ListEvaluator(ListExpression listExpression, Function<Expression, Evaluator> evaluators) {
+        this.evaluators = listExpression.getValues().stream().map(evaluators).collect(Collectors.toList());
     }
 
     @Override
     public TypedObject evaluate(BulletRecord record) {
-        return new TypedObject(evaluators.stream().map(e -> e.evaluate(record).getValue()).collect(Collectors.toCollection(ArrayList::new)));
+        ArrayList<Serializable> values = new ArrayList<>(evaluators.size());
+        for (Evaluator evaluator : evaluators) {
+            TypedObject value = evaluator.evaluate(record);
+            if (value == ERROR) {
+                return ERROR;
+            }
+            values.add(value.getValue());
+        }
+        return new TypedObject(values);
     }
 }
@@ -7,20 +7,34 @@ package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * An evaluator that applies an n-ary operator to the results of a list of evaluators.
+ *
+ * BETWEEN and NOT BETWEEN of operands that are known to be numbers are done with primitives. AND and OR on a batch of
+ * records evaluate each operand only on the records that the operands before it did not decide.
  */
 public class NAryEvaluator extends Evaluator {
     private static final long serialVersionUID = 54879052369401372L;
 
+    private static final Set<Operation> LOGICAL = EnumSet.of(Operation.AND, Operation.OR);
+
     final List<Evaluator> operands;
     final NAryOperations.NAryOperator op;
+    private final boolean negated;
+    // AND or OR if this is one and null otherwise
+    private final Operation logical;
+    private final Type primitiveType;
 
     /**
      * Constructor that creates an n-ary evaluator from a {@link NAryExpression}.
@@ -28,12 +42,76 @@ public class NAryEvaluator extends Evaluator {
      * @param nAryExpression The n-ary expression to construct the evaluator from.
      */
     public NAryEvaluator(NAryExpression nAryExpression) {
-        operands = nAryExpression.getOperands().stream().map(Expression::getEvaluator).collect(Collectors.toList());
-        op = NAryOperations.N_ARY_OPERATORS.get(nAryExpression.getOp());
+        this(nAryExpression, Expression::getEvaluator);
+    }
+
+    /**
+     * Constructor that creates an n-ary evaluator from a {@link NAryExpression} using the given function to get the
+     * evaluators for its operands.
+     *
+     * @param nAryExpression The n-ary expression to construct the evaluator from.
+     * @param evaluators The function to get the evaluator for an operand.
+     */
+    public NAryEvaluator(NAryExpression nAryExpression, Function<Expression, Evaluator> evaluators) {
+        operands = nAryExpression.getOperands().stream().map(evaluators).collect(Collectors.toList());
+        op = NAryOperations.getOperator(nAryExpression);
+        negated = nAryExpression.getOp() == Operation.NOT_BETWEEN;
+        logical = LOGICAL.contains(nAryExpression.getOp()) ? nAryExpression.getOp() : null;
+        boolean between = nAryExpression.getOp() == Operation.BETWEEN || negated;
+        primitiveType = between && operands.stream().allMatch(operand -> isNumeric(operand.getPrimitiveType())) ? Type.BOOLEAN : null;
     }
 
     @Override
     public TypedObject evaluate(BulletRecord record) {
+        if (primitiveType != null) {
+            try {
+                return toTypedObject(this, record);
+            } catch (TypeMismatch e) {
+                // A value was not of its declared type, so the boxed operation is used with its actual type
+            }
+        }
         return op.apply(operands, record);
     }
+
+    @Override
+    public void evaluate(BulletRecord[] batch, int[] selection, int size, byte[] results) {
+        if (logical == Operation.AND) {
+            NAryOperations.allMatch(operands, batch, selection, size, results);
+        } else if (logical == Operation.OR) {
+            NAryOperations.anyMatch(operands, batch, selection, size, results);
+        } else {
+            super.evaluate(batch, selection, size, results);
+        }
+    }
+
+    @Override
+    public Type getPrimitiveType() {
+        return primitiveType;
+    }
+
+    @Override
+    public boolean evaluateBoolean(BulletRecord record) {
+        if (primitiveType == null) {
+            return super.evaluateBoolean(record);
+        }
+        // The same as NAryOperations#between for numbers
+        double value = evaluateNumber(operands.get(0), record);
+        if (operands.get(0).wasNull()) {
+            wasNull = true;
+            return false;
+        }
+        double lower = evaluateNumber(operands.get(1), record);
+        boolean lowerIsNull = operands.get(1).wasNull();
+        double upper = evaluateNumber(operands.get(2), record);
+        boolean upperIsNull = operands.get(2).wasNull();
+        // Past the bound that is not null, the value is not between them. Otherwise, whether it is between is unknown.
+        boolean isUnknown = (lowerIsNull && upperIsNull) || (lowerIsNull && !(upper < value)) || (upperIsNull && !(value < lower));
+        if (isUnknown) {
+            wasNull = true;
+            return false;
+        }
+        boolean result = !lowerIsNull && !upperIsNull && lower <= value && value <= upper;
+        wasNull = false;
+        return negated != result;
+    }
 }
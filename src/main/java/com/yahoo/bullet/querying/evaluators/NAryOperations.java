@@ -5,20 +5,28 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.common.BoundedCache;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
 import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
 import java.io.Serializable;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.yahoo.bullet.querying.evaluators.Evaluator.BATCH_ERROR;
+import static com.yahoo.bullet.querying.evaluators.Evaluator.BATCH_FALSE;
+import static com.yahoo.bullet.querying.evaluators.Evaluator.BATCH_NULL;
+import static com.yahoo.bullet.querying.evaluators.Evaluator.BATCH_TRUE;
+import static com.yahoo.bullet.querying.evaluators.Evaluator.ERROR;
+import static com.yahoo.bullet.querying.evaluators.Evaluator.nullOrError;
+
 public class NAryOperations {
     @FunctionalInterface
     public interface NAryOperator extends Serializable {
@@ -27,6 +35,10 @@ public class NAryOperations {
 
     static final Map<Operation, NAryOperator> N_ARY_OPERATORS = new EnumMap<>(Operation.class);
 
+    // Patterns that are not constant in the query are compiled once and shared across all evaluators
+    static final int FORMAT_CACHE_SIZE = 256;
+    static final BoundedCache<String, TimestampFormat> FORMAT_CACHE = new BoundedCache<>(FORMAT_CACHE_SIZE);
+
     static {
         N_ARY_OPERATORS.put(Operation.AND, NAryOperations::allMatch);
         N_ARY_OPERATORS.put(Operation.OR, NAryOperations::anyMatch);
@@ -37,11 +49,31 @@ public class NAryOperations {
         N_ARY_OPERATORS.put(Operation.UNIX_TIMESTAMP, NAryOperations::unixTimestamp);
     }
 
+    /**
+     * Gets the {@link NAryOperator} to use for the given {@link NAryExpression}. If the operation can be specialized for
+     * constant operands, such as the pattern for UNIXTIMESTAMP, the work that only depends on those operands is done
+     * once here instead of for every record. Otherwise, this is the operator in {@link #N_ARY_OPERATORS}.
+     *
+     * @param nAryExpression The n-ary expression to get the operator for.
+     * @return The n-ary operator to apply for the expression.
+     */
+    static NAryOperator getOperator(NAryExpression nAryExpression) {
+        Operation op = nAryExpression.getOp();
+        List<Expression> operands = nAryExpression.getOperands();
+        NAryOperator specialized = null;
+        if (op == Operation.UNIX_TIMESTAMP && operands.size() == 2) {
+            specialized = constantUnixTimestamp(getConstantFormat(operands.get(1)));
+        }
+        return specialized != null ? specialized : N_ARY_OPERATORS.get(op);
+    }
+
     static TypedObject allMatch(List<Evaluator> evaluators, BulletRecord record) {
         boolean containsNull = false;
         for (Evaluator evaluator : evaluators) {
             TypedObject value = evaluator.evaluate(record);
-            if (value.isNull()) {
+            if (value == ERROR) {
+                return ERROR;
+            } else if (value.isNull()) {
                 containsNull = true;
             } else if (!((Boolean) value.forceCast(Type.BOOLEAN).getValue())) {
                 return TypedObject.FALSE;
@@ -54,7 +86,9 @@ public class NAryOperations {
         boolean containsNull = false;
         for (Evaluator evaluator : evaluators) {
             TypedObject value = evaluator.evaluate(record);
-            if (value.isNull()) {
+            if (value == ERROR) {
+                return ERROR;
+            } else if (value.isNull()) {
                 containsNull = true;
             } else if ((Boolean) value.forceCast(Type.BOOLEAN).getValue()) {
                 return TypedObject.TRUE;
@@ -63,8 +97,50 @@ public class NAryOperations {
         return !containsNull ? TypedObject.FALSE : TypedObject.NULL;
     }
 
+    static void allMatch(List<Evaluator> evaluators, BulletRecord[] batch, int[] selection, int size, byte[] results) {
+        match(evaluators, batch, selection, size, results, BATCH_FALSE, BATCH_TRUE);
+    }
+
+    static void anyMatch(List<Evaluator> evaluators, BulletRecord[] batch, int[] selection, int size, byte[] results) {
+        match(evaluators, batch, selection, size, results, BATCH_TRUE, BATCH_FALSE);
+    }
+
+    // Each operand is only evaluated on the records that the operands before it did not decide
+    private static void match(List<Evaluator> evaluators, BulletRecord[] batch, int[] selection, int size, byte[] results,
+                              byte decided, byte undecided) {
+        int[] pending = Arrays.copyOf(selection, size);
+        int pendingSize = size;
+        for (int i = 0; i < pendingSize; i++) {
+            results[pending[i]] = undecided;
+        }
+        byte[] values = new byte[results.length];
+        for (Evaluator evaluator : evaluators) {
+            if (pendingSize == 0) {
+                return;
+            }
+            evaluator.evaluate(batch, pending, pendingSize, values);
+            int remaining = 0;
+            for (int i = 0; i < pendingSize; i++) {
+                int index = pending[i];
+                byte value = values[index];
+                if (value == decided || value == BATCH_ERROR) {
+                    results[index] = value;
+                    continue;
+                }
+                if (value == BATCH_NULL) {
+                    results[index] = BATCH_NULL;
+                }
+                pending[remaining++] = index;
+            }
+            pendingSize = remaining;
+        }
+    }
+
     static TypedObject ternary(List<Evaluator> evaluators, BulletRecord record) {
         TypedObject condition = evaluators.get(0).evaluate(record);
+        if (condition == ERROR) {
+            return ERROR;
+        }
         return !condition.isNull() && (Boolean) condition.getValue() ? evaluators.get(1).evaluate(record) :
                                                                        evaluators.get(2).evaluate(record);
     }
@@ -72,12 +148,15 @@ public class NAryOperations {
     static TypedObject between(List<Evaluator> evaluators, BulletRecord record) {
         TypedObject valueArg = evaluators.get(0).evaluate(record);
         if (valueArg.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(valueArg);
         }
         if (Type.isNumeric(valueArg.getType())) {
             double value = ((Number) valueArg.getValue()).doubleValue();
             TypedObject lowerArg = evaluators.get(1).evaluate(record);
             TypedObject upperArg = evaluators.get(2).evaluate(record);
+            if (!isNullOr(lowerArg, Number.class) || !isNullOr(upperArg, Number.class)) {
+                return ERROR;
+            }
             Number lower = (Number) lowerArg.getValue();
             Number upper = (Number) upperArg.getValue();
             if (lowerArg.isNull() && upperArg.isNull()) {
@@ -88,10 +167,13 @@ public class NAryOperations {
                 return value < lower.doubleValue() ? TypedObject.FALSE : TypedObject.NULL;
             }
             return TypedObject.valueOf(lower.doubleValue() <= value && value <= upper.doubleValue());
-        } else {
+        } else if (valueArg.getType() == Type.STRING) {
             String value = (String) valueArg.getValue();
             TypedObject lowerArg = evaluators.get(1).evaluate(record);
             TypedObject upperArg = evaluators.get(2).evaluate(record);
+            if (!isNullOr(lowerArg, String.class) || !isNullOr(upperArg, String.class)) {
+                return ERROR;
+            }
             String lower = (String) lowerArg.getValue();
             String upper = (String) upperArg.getValue();
             if (lowerArg.isNull() && upperArg.isNull()) {
@@ -103,12 +185,13 @@ public class NAryOperations {
             }
             return TypedObject.valueOf(lower.compareTo(value) <= 0 && value.compareTo(upper) <= 0);
         }
+        return ERROR;
     }
 
     static TypedObject notBetween(List<Evaluator> evaluators, BulletRecord record) {
         TypedObject result = between(evaluators, record);
         if (result.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(result);
         }
         return (Boolean) result.getValue() ? TypedObject.FALSE : TypedObject.TRUE;
     }
@@ -116,19 +199,22 @@ public class NAryOperations {
     static TypedObject substring(List<Evaluator> evaluators, BulletRecord record) {
         TypedObject stringArg = evaluators.get(0).evaluate(record);
         if (stringArg.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(stringArg);
         }
         TypedObject startArg = evaluators.get(1).evaluate(record);
         if (startArg.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(startArg);
         }
         TypedObject lengthArg = null;
         if (evaluators.size() > 2) {
             lengthArg = evaluators.get(2).evaluate(record);
             if (lengthArg.isNull()) {
-                return TypedObject.NULL;
+                return nullOrError(lengthArg);
             }
         }
+        if (stringArg.getType() != Type.STRING || !Type.isNumeric(startArg.getType()) || (lengthArg != null && !Type.isNumeric(lengthArg.getType()))) {
+            return ERROR;
+        }
         String string = (String) stringArg.getValue();
         if (string.isEmpty()) {
             return TypedObject.valueOf("");
@@ -158,25 +244,75 @@ public class NAryOperations {
         if (evaluators.size() == 1) {
             TypedObject dateArg = evaluators.get(0).evaluate(record);
             if (dateArg.isNull()) {
-                return TypedObject.NULL;
+                return nullOrError(dateArg);
+            }
+            if (dateArg.getType() != Type.STRING) {
+                return ERROR;
             }
-            Timestamp timestamp = Timestamp.valueOf((String) dateArg.getValue());
-            return TypedObject.valueOf(timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+            return TimestampFormat.parseDefault((String) dateArg.getValue());
         } else if (evaluators.size() == 2) {
             TypedObject dateArg = evaluators.get(0).evaluate(record);
             if (dateArg.isNull()) {
-                return TypedObject.NULL;
+                return nullOrError(dateArg);
             }
             TypedObject patternArg = evaluators.get(1).evaluate(record);
             if (patternArg.isNull()) {
-                return TypedObject.NULL;
+                return nullOrError(patternArg);
+            }
+            if (patternArg.getType() != Type.STRING) {
+                return ERROR;
             }
-            // First argument can be a number
-            String date = Type.isNumeric(dateArg.getType()) ? Long.toString(((Number) dateArg.getValue()).longValue()) : (String) dateArg.getValue();
-            String pattern = (String) patternArg.getValue();
-            LocalDateTime localDateTime = LocalDateTime.parse(date, DateTimeFormatter.ofPattern(pattern));
-            return TypedObject.valueOf(localDateTime.toEpochSecond(ZoneOffset.UTC));
+            return unixTimestamp(dateArg, FORMAT_CACHE.get((String) patternArg.getValue(), TimestampFormat::new));
         }
         return TypedObject.valueOf(System.currentTimeMillis() / 1000);
     }
+
+    static NAryOperator constantUnixTimestamp(TimestampFormat format) {
+        if (format == null) {
+            return null;
+        }
+        return (evaluators, record) -> {
+            TypedObject dateArg = evaluators.get(0).evaluate(record);
+            if (dateArg.isNull()) {
+                return nullOrError(dateArg);
+            }
+            return unixTimestamp(dateArg, format);
+        };
+    }
+
+    private static TypedObject unixTimestamp(TypedObject dateArg, TimestampFormat format) {
+        // First argument can be a number
+        if (Type.isNumeric(dateArg.getType())) {
+            return format.parse(Long.toString(((Number) dateArg.getValue()).longValue()));
+        } else if (dateArg.getType() == Type.STRING) {
+            return format.parse((String) dateArg.getValue());
+        }
+        return ERROR;
+    }
+
+    /**
+     * Compiles the pattern in the given expression if it is a constant, non-null String that is a valid pattern.
+     *
+     * @param expression The expression that may be a constant pattern.
+     * @return The compiled {@link TimestampFormat} or null if the expression was not a valid constant pattern.
+     */
+    static TimestampFormat getConstantFormat(Expression expression) {
+        if (!(expression instanceof ValueExpression)) {
+            return null;
+        }
+        Serializable value = ((ValueExpression) expression).getValue();
+        if (!(value instanceof String)) {
+            return null;
+        }
+        try {
+            return new TimestampFormat((String) value);
+        } catch (IllegalArgumentException e) {
+            // Leave it to be compiled (and fail) on each record just like a non-constant pattern
+            return null;
+        }
+    }
+
+    private static boolean isNullOr(TypedObject value, Class<?> type) {
+        return value.isNull() || type.isInstance(value.getValue());
+    }
 }
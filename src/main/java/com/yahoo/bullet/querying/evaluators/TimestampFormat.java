@@ -0,0 +1,156 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.text.Format;
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A compiled date and time pattern for UNIXTIMESTAMP that parses dates into seconds since the epoch in UTC.
+ *
+ * The default layout (yyyy-MM-dd HH:mm:ss) and the ISO layout (yyyy-MM-dd'T'HH:mm:ss) are parsed by hand when the date
+ * is a valid date in exactly that layout. Anything else, such as a single digit month or an invalid day, is left to
+ * {@link DateTimeFormatter} or {@link Timestamp#valueOf(String)} so that the results are the same as before.
+ *
+ * Since {@link Timestamp#valueOf(String)} reads the date in the default time zone, a local time that does not exist there
+ * (such as in the gap when daylight saving time starts) is moved forward, as is a day skipped when its calendar moved
+ * to the Gregorian calendar. The default layout is thus only parsed by hand when the default time zone is UTC and the
+ * date is in the Gregorian calendar, where every local time exists.
+ */
+class TimestampFormat implements Serializable {
+    private static final long serialVersionUID = -6170498434811437255L;
+
+    static final String DEFAULT_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    static final String ISO_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
+
+    private static final long INVALID = Long.MIN_VALUE;
+    private static final int LAYOUT_LENGTH = 19;
+    private static final int MAX_FRACTION_LENGTH = 9;
+    private static final long SECONDS_PER_DAY = 86400L;
+    // The first day of the Gregorian calendar used by Timestamp
+    private static final long GREGORIAN_START = LocalDate.of(1582, 10, 15).toEpochDay() * SECONDS_PER_DAY;
+
+    private final String pattern;
+    // The separator between the date and the time if the pattern is one of the layouts parsed by hand and 0 otherwise
+    private final char separator;
+    private transient Format format;
+
+    /**
+     * Constructor that compiles the given pattern.
+     *
+     * @param pattern The non-null {@link DateTimeFormatter} pattern.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    TimestampFormat(String pattern) {
+        this.pattern = pattern;
+        separator = DEFAULT_PATTERN.equals(pattern) ? ' ' : ISO_PATTERN.equals(pattern) ? 'T' : 0;
+        format = compile(pattern);
+    }
+
+    /**
+     * Parses the given date with this pattern.
+     *
+     * @param date The non-null date to parse.
+     * @return The seconds since the epoch or {@link Evaluator#ERROR} if the date could not be parsed.
+     */
+    TypedObject parse(String date) {
+        if (separator != 0) {
+            long seconds = parseLayout(date, separator, false);
+            if (seconds != INVALID) {
+                return TypedObject.valueOf(seconds);
+            }
+        }
+        // Unlike DateTimeFormatter#parse, this does not throw if the date cannot be parsed
+        ParsePosition position = new ParsePosition(0);
+        LocalDateTime localDateTime = (LocalDateTime) format.parseObject(date, position);
+        if (localDateTime == null || position.getIndex() != date.length()) {
+            return Evaluator.ERROR;
+        }
+        return TypedObject.valueOf(localDateTime.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /**
+     * Parses the given date in the format taken by {@link Timestamp#valueOf(String)}.
+     *
+     * @param date The non-null date to parse.
+     * @return The seconds since the epoch.
+     * @throws IllegalArgumentException if the date could not be parsed.
+     */
+    static TypedObject parseDefault(String date) {
+        if (isDefaultZoneUTC()) {
+            long seconds = parseLayout(date, ' ', true);
+            if (seconds != INVALID && seconds >= GREGORIAN_START) {
+                return TypedObject.valueOf(seconds);
+            }
+        }
+        return TypedObject.valueOf(Timestamp.valueOf(date).toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+    }
+
+    private static long parseLayout(String date, char separator, boolean fraction) {
+        int length = date.length();
+        if (length != LAYOUT_LENGTH && !(fraction && isFraction(date, length))) {
+            return INVALID;
+        }
+        if (date.charAt(4) != '-' || date.charAt(7) != '-' || date.charAt(10) != separator || date.charAt(13) != ':' || date.charAt(16) != ':') {
+            return INVALID;
+        }
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 7);
+        int day = parseDigits(date, 8, 10);
+        int hour = parseDigits(date, 11, 13);
+        int minute = parseDigits(date, 14, 16);
+        int second = parseDigits(date, 17, 19);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year)) ||
+            hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+        // Any fraction of a second is dropped
+        return LocalDate.of(year, month, day).toEpochDay() * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    }
+
+    private static boolean isDefaultZoneUTC() {
+        return ZoneOffset.UTC.equals(ZoneId.systemDefault().normalized());
+    }
+
+    private static boolean isFraction(String date, int length) {
+        return length > LAYOUT_LENGTH + 1 && length <= LAYOUT_LENGTH + 1 + MAX_FRACTION_LENGTH &&
+               date.charAt(LAYOUT_LENGTH) == '.' && parseDigits(date, LAYOUT_LENGTH + 1, length) >= 0;
+    }
+
+    private static int parseDigits(String date, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = date.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static Format compile(String pattern) {
+        return DateTimeFormatter.ofPattern(pattern).toFormat(LocalDateTime::from);
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        format = compile(pattern);
+    }
+}
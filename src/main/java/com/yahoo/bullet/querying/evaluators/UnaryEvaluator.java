@@ -5,10 +5,13 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.query.expressions.UnaryExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.typesystem.TypedObject;
 
+import java.util.function.Function;
+
 /**
  * An evaluator that applies a unary operator to the result of an evaluator.
  */
@@ -24,7 +27,18 @@ public class UnaryEvaluator extends Evaluator {
      * @param unaryExpression The unary expression to construct the evaluator from.
      */
     public UnaryEvaluator(UnaryExpression unaryExpression) {
-        operand = unaryExpression.getOperand().getEvaluator();
+        this(unaryExpression, Expression::getEvaluator);
+    }
+
+    /**
+     * Constructor that creates a unary evaluator from a {@link UnaryExpression} using the given function to get the
+     * evaluator for its operand.
+     *
+     * @param unaryExpression The unary expression to construct the evaluator from.
+     * @param evaluators The function to get the evaluator for the operand.
+     */
+    public UnaryEvaluator(UnaryExpression unaryExpression, Function<Expression, Evaluator> evaluators) {
+        operand = evaluators.apply(unaryExpression.getOperand());
         op = UnaryOperations.UNARY_OPERATORS.get(unaryExpression.getOp());
     }
 
@@ -15,6 +15,9 @@ import java.util.EnumMap;
 import java.util.Map;
 import java.util.function.Function;
 
+import static com.yahoo.bullet.querying.evaluators.Evaluator.ERROR;
+import static com.yahoo.bullet.querying.evaluators.Evaluator.nullOrError;
+
 /**
  * Unary operations used by UnaryEvaluator.
  */
@@ -38,7 +41,11 @@ public class UnaryOperations {
     }
 
     static TypedObject not(Evaluator evaluator, BulletRecord record) {
-        return checkNull(evaluator, record, value -> TypedObject.valueOf(!((Boolean) value.forceCast(Type.BOOLEAN).getValue())));
+        return checkNull(evaluator, record, UnaryOperations::not);
+    }
+
+    static TypedObject not(TypedObject value) {
+        return TypedObject.valueOf(!((Boolean) value.forceCast(Type.BOOLEAN).getValue()));
     }
 
     static TypedObject sizeOf(Evaluator evaluator, BulletRecord record) {
@@ -46,11 +53,13 @@ public class UnaryOperations {
     }
 
     static TypedObject isNull(Evaluator evaluator, BulletRecord record) {
-        return TypedObject.valueOf(evaluator.evaluate(record).isNull());
+        TypedObject value = evaluator.evaluate(record);
+        return value == ERROR ? ERROR : TypedObject.valueOf(value.isNull());
     }
 
     static TypedObject isNotNull(Evaluator evaluator, BulletRecord record) {
-        return TypedObject.valueOf(!evaluator.evaluate(record).isNull());
+        TypedObject value = evaluator.evaluate(record);
+        return value == ERROR ? ERROR : TypedObject.valueOf(!value.isNull());
     }
 
     static TypedObject trim(Evaluator evaluator, BulletRecord record) {
@@ -93,7 +102,7 @@ public class UnaryOperations {
     private static TypedObject checkNull(Evaluator evaluator, BulletRecord record, Function<TypedObject, TypedObject> operator) {
         TypedObject value = evaluator.evaluate(record);
         if (value.isNull()) {
-            return TypedObject.NULL;
+            return nullOrError(value);
         }
         return operator.apply(value);
     }
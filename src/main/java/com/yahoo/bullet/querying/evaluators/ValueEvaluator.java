@@ -7,6 +7,7 @@ package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 
 /**
@@ -30,4 +31,10 @@ public class ValueEvaluator extends Evaluator {
     public TypedObject evaluate(BulletRecord record) {
         return value;
     }
+
+    @Override
+    public Type getPrimitiveType() {
+        Type type = value.getType();
+        return !value.isNull() && (isNumeric(type) || type == Type.BOOLEAN) ? type : null;
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.record.BulletRecord;
+
+/**
+ * A {@link Partitioner} that can also provide 64-bit hashes of the keys for a {@link BulletRecord} without creating the
+ * keys themselves. The hash of each key for a record must be the same as {@link #getHash(String)} for that key. Since
+ * different keys can have the same hash, users of the hashes should use {@link #getKey(BulletRecord, int)} to get the
+ * actual key when the hash alone is not enough to tell them apart.
+ */
+public interface HashingPartitioner extends Partitioner {
+    /**
+     * Returns the hash for a key returned by {@link #getKeys(Query)}.
+     *
+     * @param key The non-null key.
+     * @return The 64-bit hash of the key.
+     */
+    long getHash(String key);
+
+    /**
+     * Returns the maximum number of keys for a {@link BulletRecord}. Arrays passed to
+     * {@link #getHashes(BulletRecord, long[])} should be at least of this size.
+     *
+     * @return The maximum number of keys for a record.
+     */
+    int getMaximumRecordKeys();
+
+    /**
+     * Writes the hashes of the keys for this {@link BulletRecord} instance into the given array. These are the hashes of
+     * the keys returned by {@link #getKeys(BulletRecord)}.
+     *
+     * @param record The record to partition.
+     * @param hashes The array to write the hashes to. It must have a size of at least {@link #getMaximumRecordKeys()}.
+     * @return The number of hashes written.
+     */
+    int getHashes(BulletRecord record, long[] hashes);
+
+    /**
+     * Returns the key for the hash at the given position that {@link #getHashes(BulletRecord, long[])} wrote for this
+     * {@link BulletRecord}.
+     *
+     * @param record The record that was partitioned.
+     * @param index The position of the hash.
+     * @return The key whose hash is at that position.
+     */
+    String getKey(BulletRecord record, int index);
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A closed range of doubles. The bounds may be infinite.
+ */
+@Getter
+public class Interval {
+    public static final Interval ALL = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    private final double lower;
+    private final double upper;
+
+    /**
+     * Constructor that takes the inclusive bounds of the interval.
+     *
+     * @param lower The lower bound.
+     * @param upper The upper bound.
+     */
+    public Interval(double lower, double upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Checks to see if this interval contains no values.
+     *
+     * @return A boolean denoting whether this interval is empty.
+     */
+    public boolean isEmpty() {
+        return !(lower <= upper);
+    }
+
+    /**
+     * Checks to see if this interval contains the given value.
+     *
+     * @param value The value to check.
+     * @return A boolean denoting whether the value is within the bounds.
+     */
+    public boolean contains(double value) {
+        return lower <= value && value <= upper;
+    }
+
+    /**
+     * Intersects this interval with another.
+     *
+     * @param other The other interval.
+     * @return The interval containing the values in both or null if there are no such values.
+     */
+    public Interval intersect(Interval other) {
+        Interval interval = new Interval(Math.max(lower, other.lower), Math.min(upper, other.upper));
+        return interval.isEmpty() ? null : interval;
+    }
+
+    /**
+     * Normalizes a list of intervals by removing empty intervals and merging any that overlap. The result is sorted by
+     * the lower bounds of the intervals.
+     *
+     * @param intervals The list of intervals to normalize.
+     * @return A new list of disjoint, non-empty intervals covering the same values.
+     */
+    public static List<Interval> normalize(List<Interval> intervals) {
+        List<Interval> sorted = new ArrayList<>(intervals);
+        sorted.removeIf(Interval::isEmpty);
+        sorted.sort(Comparator.comparingDouble(Interval::getLower));
+        List<Interval> merged = new ArrayList<>();
+        Interval current = null;
+        for (Interval interval : sorted) {
+            if (current == null) {
+                current = interval;
+            } else if (interval.lower <= current.upper) {
+                current = new Interval(current.lower, Math.max(current.upper, interval.upper));
+            } else {
+                merged.add(current);
+                current = interval;
+            }
+        }
+        if (current != null) {
+            merged.add(current);
+        }
+        return merged;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lower + ", " + upper + "]";
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This partitioner uses a list of numeric fields to partition queries that filter on ranges of values for them. If
+ * fields A and B are used to partition, queries with filters such as A &gt; 500 or B BETWEEN (1, 10) are placed in
+ * partitions for those ranges and records only see the queries whose ranges contain their values for A or B (and
+ * queries that could not be partitioned).
+ *
+ * The ranges for a field are found from:
+ *
+ * 1) Comparisons against a numeric value: A &gt; 500, A &gt;= 500, A &lt; 500, A &lt;= 500 or 500 &lt; A etc.
+ * 2) BETWEEN and NOT BETWEEN against numeric values
+ * 3) ANDs of filters, where a field restricted by both sides is restricted to the intersection of the ranges
+ * 4) ORs of filters, where a field restricted by all sides is restricted to the union of the ranges
+ *
+ * The ranges are all treated as closed. Records with a value at the boundary of an open range are let through and the
+ * filter makes the final decision.
+ *
+ * A query is placed in a partition for each range of the first field, in the order the fields were configured, that
+ * its filter restricts. It will default partition the query if its filter does not restrict any field or if it allows
+ * no value for the field. Records that are missing the field or have a null value for it do not see any query
+ * partitioned on that field since such a filter can never be true. Records with non-numeric values for the field see
+ * all of them.
+ *
+ * The ranges for each field are kept in an {@link IntervalTree}, which is rebuilt when it is next needed after queries
+ * for new ranges are added or after ranges are released. This partitioner is thread-safe. Records are partitioned
+ * without locking unless the tree needs to be rebuilt.
+ */
+public class IntervalPartitioner implements Partitioner {
+    // ANY represents all values and is used for queries that could not be partitioned.
+    private static final String ANY = "*";
+    private static final String SEPARATOR = ":";
+
+    private static class Index {
+        // Guarded by this. The tree is set to null when these change and rebuilt when next needed.
+        private final Map<String, Interval> intervals = new HashMap<>();
+        private volatile IntervalTree<String> tree;
+
+        private synchronized void add(String key, Interval interval) {
+            if (intervals.putIfAbsent(key, interval) == null) {
+                tree = null;
+            }
+        }
+
+        private synchronized boolean remove(String key) {
+            if (intervals.remove(key) == null) {
+                return false;
+            }
+            tree = null;
+            return true;
+        }
+
+        private IntervalTree<String> getTree() {
+            IntervalTree<String> current = tree;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (tree == null) {
+                    tree = new IntervalTree<>(intervals);
+                }
+                return tree;
+            }
+        }
+    }
+
+    private final List<String> fields;
+    private final Map<String, Index> indices;
+    private final Set<String> defaultKeys = Collections.singleton(ANY);
+
+    /**
+     * Constructor that takes a {@link BulletConfig} instance with definitions for the various settings this needs.
+     * Fields to partition on: {@link BulletConfig#INTERVAL_PARTITIONER_FIELDS}
+     *
+     * @param config The non-null config containing settings for this class.
+     */
+    @SuppressWarnings("unchecked")
+    public IntervalPartitioner(BulletConfig config) {
+        fields = (List<String>) config.getAs(BulletConfig.INTERVAL_PARTITIONER_FIELDS, List.class);
+        indices = new LinkedHashMap<>();
+        fields.forEach(field -> indices.put(field, new Index()));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * This partitioner returns a key for each range of the field the query is partitioned on. The ranges for the keys
+     * are remembered until they are released with {@link #release(String)}.
+     *
+     * @param query {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Set<String> getKeys(Query query) {
+        Objects.requireNonNull(query);
+
+        Expression filter = query.getFilter();
+
+        // If no filter, default partition
+        if (filter == null) {
+            return defaultKeys;
+        }
+
+        Map<String, List<Interval>> restrictions = getRestrictions(filter);
+        for (String field : fields) {
+            List<Interval> intervals = restrictions.get(field);
+            if (intervals == null) {
+                continue;
+            }
+            // If the field can have no value, default partition to be safe
+            if (intervals.isEmpty()) {
+                return defaultKeys;
+            }
+            Index index = indices.get(field);
+            Set<String> keys = new HashSet<>();
+            for (Interval interval : intervals) {
+                String key = field + SEPARATOR + interval;
+                index.add(key, interval);
+                keys.add(key);
+            }
+            return keys;
+        }
+        return defaultKeys;
+    }
+
+    @Override
+    public Set<String> getKeys(BulletRecord record) {
+        Set<String> keys = new HashSet<>();
+        keys.add(ANY);
+        for (Map.Entry<String, Index> entry : indices.entrySet()) {
+            IntervalTree<String> tree = entry.getValue().getTree();
+            if (tree.size() == 0) {
+                continue;
+            }
+            TypedObject value = record.typedExtract(entry.getKey());
+            if (value.isNull()) {
+                continue;
+            }
+            if (Type.isNumeric(value.getType())) {
+                double number = ((Number) value.getValue()).doubleValue();
+                if (!Double.isNaN(number)) {
+                    tree.find(number, keys);
+                    continue;
+                }
+            }
+            keys.addAll(tree.getValues());
+        }
+        return keys;
+    }
+
+    @Override
+    public void release(String key) {
+        for (Index index : indices.values()) {
+            if (index.remove(key)) {
+                return;
+            }
+        }
+    }
+
+    private Map<String, List<Interval>> getRestrictions(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            switch (binary.getOp()) {
+                case AND:
+                    return intersect(getRestrictions(binary.getLeft()), getRestrictions(binary.getRight()));
+                case OR:
+                    return union(getRestrictions(binary.getLeft()), getRestrictions(binary.getRight()));
+                case GREATER_THAN:
+                case GREATER_THAN_OR_EQUALS:
+                    return getBoundRestriction(binary.getLeft(), binary.getRight(), true);
+                case LESS_THAN:
+                case LESS_THAN_OR_EQUALS:
+                    return getBoundRestriction(binary.getLeft(), binary.getRight(), false);
+            }
+        } else if (expression instanceof NAryExpression) {
+            NAryExpression nAry = (NAryExpression) expression;
+            List<Expression> operands = nAry.getOperands();
+            switch (nAry.getOp()) {
+                case AND:
+                    return operands.stream().map(this::getRestrictions).reduce(IntervalPartitioner::intersect)
+                                            .orElse(Collections.emptyMap());
+                case OR:
+                    return operands.stream().map(this::getRestrictions).reduce(IntervalPartitioner::union)
+                                            .orElse(Collections.emptyMap());
+                case BETWEEN:
+                    return getBetweenRestriction(operands, false);
+                case NOT_BETWEEN:
+                    return getBetweenRestriction(operands, true);
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    private Map<String, List<Interval>> getBoundRestriction(Expression left, Expression right, boolean isLowerBound) {
+        if (left instanceof FieldExpression) {
+            return getRestriction((FieldExpression) left, getNumber(right), isLowerBound);
+        } else if (right instanceof FieldExpression) {
+            // For 500 < A, A is bounded from the other side
+            return getRestriction((FieldExpression) right, getNumber(left), !isLowerBound);
+        }
+        return Collections.emptyMap();
+    }
+
+    private Map<String, List<Interval>> getBetweenRestriction(List<Expression> operands, boolean isNegated) {
+        if (operands.size() != 3 || !(operands.get(0) instanceof FieldExpression)) {
+            return Collections.emptyMap();
+        }
+        Double lower = getNumber(operands.get(1));
+        Double upper = getNumber(operands.get(2));
+        if (lower == null || upper == null) {
+            return Collections.emptyMap();
+        }
+        FieldExpression field = (FieldExpression) operands.get(0);
+        if (!isNegated) {
+            return getRestriction(field, Collections.singletonList(new Interval(lower, upper)));
+        }
+        return getRestriction(field, Arrays.asList(new Interval(Double.NEGATIVE_INFINITY, lower),
+                                                   new Interval(upper, Double.POSITIVE_INFINITY)));
+    }
+
+    private Map<String, List<Interval>> getRestriction(FieldExpression fieldExpression, Double value, boolean isLowerBound) {
+        if (value == null) {
+            return Collections.emptyMap();
+        }
+        Interval bound = isLowerBound ? new Interval(value, Double.POSITIVE_INFINITY) : new Interval(Double.NEGATIVE_INFINITY, value);
+        return getRestriction(fieldExpression, Collections.singletonList(bound));
+    }
+
+    private Map<String, List<Interval>> getRestriction(FieldExpression fieldExpression, List<Interval> intervals) {
+        if (fieldExpression.getKey() instanceof Expression || fieldExpression.getSubKey() instanceof Expression) {
+            return Collections.emptyMap();
+        }
+        String field = fieldExpression.getName();
+        if (!indices.containsKey(field)) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<Interval>> restriction = new HashMap<>();
+        restriction.put(field, Interval.normalize(intervals));
+        return restriction;
+    }
+
+    private static Double getNumber(Expression expression) {
+        if (!(expression instanceof ValueExpression)) {
+            return null;
+        }
+        Serializable value = ((ValueExpression) expression).getValue();
+        if (!(value instanceof Number)) {
+            return null;
+        }
+        double number = ((Number) value).doubleValue();
+        return Double.isNaN(number) ? null : number;
+    }
+
+    private static Map<String, List<Interval>> intersect(Map<String, List<Interval>> a, Map<String, List<Interval>> b) {
+        Map<String, List<Interval>> result = new HashMap<>(a);
+        b.forEach((field, intervals) -> result.merge(field, intervals, IntervalPartitioner::overlap));
+        return result;
+    }
+
+    private static List<Interval> overlap(List<Interval> a, List<Interval> b) {
+        List<Interval> result = new ArrayList<>();
+        for (Interval first : a) {
+            for (Interval second : b) {
+                Interval intersection = first.intersect(second);
+                if (intersection != null) {
+                    result.add(intersection);
+                }
+            }
+        }
+        return Interval.normalize(result);
+    }
+
+    private static Map<String, List<Interval>> union(Map<String, List<Interval>> a, Map<String, List<Interval>> b) {
+        Map<String, List<Interval>> result = new HashMap<>();
+        a.forEach((field, intervals) -> {
+            List<Interval> others = b.get(field);
+            if (others != null) {
+                List<Interval> union = new ArrayList<>(intervals);
+                union.addAll(others);
+                result.put(field, Interval.normalize(union));
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, centered interval tree that maps {@link Interval} instances to values. It can find the values for all
+ * the intervals containing a point in O(log n + k) time, where k is the number of such intervals.
+ *
+ * @param <T> The type of the values stored with the intervals.
+ */
+public class IntervalTree<T> {
+    private static class Node<T> {
+        private double center;
+        // The intervals containing the center sorted by ascending lower bounds and by descending upper bounds
+        private List<Map.Entry<T, Interval>> byLower;
+        private List<Map.Entry<T, Interval>> byUpper;
+        private Node<T> left;
+        private Node<T> right;
+    }
+
+    private final Node<T> root;
+    private final List<T> values;
+
+    /**
+     * Constructor that builds the tree from the given values and their intervals. Empty intervals are ignored.
+     *
+     * @param intervals The {@link Map} of values to their intervals.
+     */
+    public IntervalTree(Map<T, Interval> intervals) {
+        List<Map.Entry<T, Interval>> entries = new ArrayList<>();
+        List<T> values = new ArrayList<>();
+        for (Map.Entry<T, Interval> entry : intervals.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                values.add(entry.getKey());
+            }
+        }
+        this.values = Collections.unmodifiableList(values);
+        root = build(entries);
+    }
+
+    /**
+     * Adds the values for all the intervals that contain the given point to the given {@link Collection}.
+     *
+     * @param point The point to look up. No interval contains NaN.
+     * @param result The non-null {@link Collection} to add the values to.
+     */
+    public void find(double point, Collection<T> result) {
+        if (Double.isNaN(point)) {
+            return;
+        }
+        Node<T> node = root;
+        while (node != null) {
+            if (point < node.center) {
+                for (Map.Entry<T, Interval> entry : node.byLower) {
+                    if (entry.getValue().getLower() > point) {
+                        break;
+                    }
+                    result.add(entry.getKey());
+                }
+                node = node.left;
+            } else if (point > node.center) {
+                for (Map.Entry<T, Interval> entry : node.byUpper) {
+                    if (entry.getValue().getUpper() < point) {
+                        break;
+                    }
+                    result.add(entry.getKey());
+                }
+                node = node.right;
+            } else {
+                node.byLower.forEach(entry -> result.add(entry.getKey()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of intervals in the tree.
+     *
+     * @return The number of intervals.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Returns the values for all the intervals in the tree.
+     *
+     * @return An unmodifiable {@link List} of the values.
+     */
+    public List<T> getValues() {
+        return values;
+    }
+
+    private static <T> Node<T> build(List<Map.Entry<T, Interval>> entries) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        double[] endpoints = new double[entries.size() * 2];
+        int i = 0;
+        for (Map.Entry<T, Interval> entry : entries) {
+            endpoints[i++] = entry.getValue().getLower();
+            endpoints[i++] = entry.getValue().getUpper();
+        }
+        Arrays.sort(endpoints);
+
+        // The median endpoint belongs to at least one interval so every node holds at least one interval
+        Node<T> node = new Node<>();
+        node.center = endpoints[endpoints.length / 2];
+        List<Map.Entry<T, Interval>> lefts = new ArrayList<>();
+        List<Map.Entry<T, Interval>> rights = new ArrayList<>();
+        List<Map.Entry<T, Interval>> centers = new ArrayList<>();
+        for (Map.Entry<T, Interval> entry : entries) {
+            Interval interval = entry.getValue();
+            if (interval.getUpper() < node.center) {
+                lefts.add(entry);
+            } else if (interval.getLower() > node.center) {
+                rights.add(entry);
+            } else {
+                centers.add(entry);
+            }
+        }
+        node.byLower = new ArrayList<>(centers);
+        node.byLower.sort(Comparator.comparingDouble(entry -> entry.getValue().getLower()));
+        node.byUpper = new ArrayList<>(centers);
+        node.byUpper.sort(Comparator.comparingDouble((Map.Entry<T, Interval> entry) -> entry.getValue().getUpper()).reversed());
+        node.left = build(lefts);
+        node.right = build(rights);
+        return node;
+    }
+}
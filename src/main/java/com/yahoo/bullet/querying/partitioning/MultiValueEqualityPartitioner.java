@@ -0,0 +1,207 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This partitioner extends the {@link SimpleEqualityPartitioner} to partition queries whose filters restrict a field to
+ * one of several values. Records are partitioned exactly as in the {@link SimpleEqualityPartitioner} but a query may
+ * be placed in more than one partition - one for each combination of the values its filter allows for the fields.
+ *
+ * The values a field is restricted to are found from:
+ *
+ * 1) Equality filters against a value: A == foo
+ * 2) IN or = ANY filters against a list of values: A IN [foo, bar] or A = ANY [foo, bar]
+ * 3) ANDs of filters, where a field restricted by both sides is restricted to the values allowed by both
+ * 4) ORs of filters, where a field restricted by all sides is restricted to the values allowed by any of them
+ *
+ * Ex: (A == foo OR A == bar) AND B IN [baz, qux] using the fields [A, B] will place the query in the four partitions
+ * for the keys [foo, baz], [foo, qux], [bar, baz] and [bar, qux].
+ *
+ * If the number of partitions for a query would exceed {@link BulletConfig#EQUALITY_PARTITIONER_MAX_KEYS} or if the
+ * filter does not allow any value for a field, the query is default partitioned.
+ */
+public class MultiValueEqualityPartitioner extends SimpleEqualityPartitioner {
+    private final int maxKeys;
+
+    /**
+     * Constructor that takes a {@link BulletConfig} instance with definitions for the various settings this needs.
+     * Delimiter: {@link BulletConfig#EQUALITY_PARTITIONER_DELIMITER},
+     * Fields to partition on: {@link BulletConfig#EQUALITY_PARTITIONER_FIELDS} and
+     * Maximum partitions per query: {@link BulletConfig#EQUALITY_PARTITIONER_MAX_KEYS}
+     *
+     * @param config The non-null config containing settings for this class.
+     */
+    public MultiValueEqualityPartitioner(BulletConfig config) {
+        super(config);
+        maxKeys = config.getAs(BulletConfig.EQUALITY_PARTITIONER_MAX_KEYS, Integer.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * This partitioner may return multiple keys for a query. A record will only ever match one of them.
+     *
+     * @param query {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Set<String> getKeys(Query query) {
+        Objects.requireNonNull(query);
+
+        Expression filter = query.getFilter();
+
+        // If no filter, default partition
+        if (filter == null) {
+            return defaultKeys;
+        }
+
+        // Map each field to the values that it is restricted to. Fields that are not present are not restricted.
+        Map<String, Set<Serializable>> restrictions = getRestrictions(filter);
+
+        long count = 1;
+        for (Set<Serializable> values : restrictions.values()) {
+            count *= values.size();
+            if (count > maxKeys) {
+                return defaultKeys;
+            }
+        }
+        // If some field can have no value, the query cannot match anything but default partition anyway to be safe
+        if (count == 0) {
+            return defaultKeys;
+        }
+
+        // Generate the keys in fields order and pad with ANY if no restriction present
+        List<String> keys = Collections.singletonList("");
+        for (int i = 0; i < fields.size(); i++) {
+            String separator = i == 0 ? "" : delimiter;
+            Set<Serializable> values = restrictions.get(fields.get(i));
+            List<String> entries = new ArrayList<>();
+            if (values == null) {
+                entries.add(ANY);
+            } else {
+                values.stream().map(this::getKeyEntry).forEach(entries::add);
+            }
+            List<String> expanded = new ArrayList<>(keys.size() * entries.size());
+            for (String key : keys) {
+                for (String entry : entries) {
+                    expanded.add(key + separator + entry);
+                }
+            }
+            keys = expanded;
+        }
+        return new HashSet<>(keys);
+    }
+
+    private Map<String, Set<Serializable>> getRestrictions(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            switch (binary.getOp()) {
+                case AND:
+                    return intersect(getRestrictions(binary.getLeft()), getRestrictions(binary.getRight()));
+                case OR:
+                    return union(getRestrictions(binary.getLeft()), getRestrictions(binary.getRight()));
+                case EQUALS:
+                    return getEqualityRestriction(binary.getLeft(), binary.getRight());
+                case IN:
+                case EQUALS_ANY:
+                    return getListRestriction(binary.getLeft(), binary.getRight());
+            }
+        } else if (expression instanceof NAryExpression) {
+            NAryExpression nAry = (NAryExpression) expression;
+            List<Expression> operands = nAry.getOperands();
+            switch (nAry.getOp()) {
+                case AND:
+                    return operands.stream().map(this::getRestrictions).reduce(MultiValueEqualityPartitioner::intersect)
+                                            .orElse(Collections.emptyMap());
+                case OR:
+                    return operands.stream().map(this::getRestrictions).reduce(MultiValueEqualityPartitioner::union)
+                                            .orElse(Collections.emptyMap());
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    private Map<String, Set<Serializable>> getEqualityRestriction(Expression left, Expression right) {
+        if (left instanceof FieldExpression && right instanceof ValueExpression) {
+            return getRestriction((FieldExpression) left, Collections.singleton(((ValueExpression) right).getValue()));
+        } else if (right instanceof FieldExpression && left instanceof ValueExpression) {
+            return getRestriction((FieldExpression) right, Collections.singleton(((ValueExpression) left).getValue()));
+        }
+        return Collections.emptyMap();
+    }
+
+    private Map<String, Set<Serializable>> getListRestriction(Expression left, Expression right) {
+        if (!(left instanceof FieldExpression) || !(right instanceof ListExpression)) {
+            return Collections.emptyMap();
+        }
+        Set<Serializable> values = new HashSet<>();
+        for (Expression value : ((ListExpression) right).getValues()) {
+            if (!(value instanceof ValueExpression)) {
+                return Collections.emptyMap();
+            }
+            // A null in the list can never make the filter true so it does not need a partition
+            Serializable object = ((ValueExpression) value).getValue();
+            if (object != null) {
+                values.add(object);
+            }
+        }
+        return getRestriction((FieldExpression) left, values);
+    }
+
+    private Map<String, Set<Serializable>> getRestriction(FieldExpression fieldExpression, Set<Serializable> values) {
+        String field = getPartitionField(fieldExpression);
+        if (field == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Set<Serializable>> restriction = new HashMap<>();
+        restriction.put(field, new HashSet<>(values));
+        return restriction;
+    }
+
+    private static Map<String, Set<Serializable>> intersect(Map<String, Set<Serializable>> a, Map<String, Set<Serializable>> b) {
+        Map<String, Set<Serializable>> result = new HashMap<>(a);
+        b.forEach((field, values) -> result.merge(field, values, MultiValueEqualityPartitioner::retain));
+        return result;
+    }
+
+    private static Set<Serializable> retain(Set<Serializable> a, Set<Serializable> b) {
+        Set<Serializable> result = new HashSet<>(a);
+        result.retainAll(b);
+        return result;
+    }
+
+    private static Map<String, Set<Serializable>> union(Map<String, Set<Serializable>> a, Map<String, Set<Serializable>> b) {
+        Map<String, Set<Serializable>> result = new HashMap<>();
+        a.forEach((field, values) -> {
+            Set<Serializable> others = b.get(field);
+            if (others != null) {
+                Set<Serializable> union = new HashSet<>(values);
+                union.addAll(others);
+                result.put(field, union);
+            }
+        });
+        return result;
+    }
+}
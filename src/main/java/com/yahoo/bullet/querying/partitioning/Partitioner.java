@@ -26,4 +26,13 @@ public interface Partitioner {
      * @return A non-null {@link Set} of Strings representing the keys for this record.
      */
     Set<String> getKeys(BulletRecord record);
+
+    /**
+     * Lets the partitioner know that a key returned for a {@link Query} is no longer used by any query. Partitioners
+     * that keep state for their keys can release it here. By default, this does nothing.
+     *
+     * @param key The key that is no longer used.
+     */
+    default void release(String key) {
+    }
 }
@@ -6,6 +6,7 @@
 package com.yahoo.bullet.querying.partitioning;
 
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.LongHashSet;
 import com.yahoo.bullet.query.Query;
 import com.yahoo.bullet.query.expressions.BinaryExpression;
 import com.yahoo.bullet.query.expressions.Expression;
@@ -63,23 +64,29 @@ import java.util.stream.IntStream;
  *
  * Using these keys and presenting the record to all the queries with the same key will ensure that the record is
  * seen by exactly only the queries that need to see it.
+ *
+ * This partitioner is also a {@link HashingPartitioner}. The hashes of the keys for a record are computed from the
+ * values of the fields directly, sharing the work for the common prefixes of the keys, without creating the keys.
  */
-public class SimpleEqualityPartitioner implements Partitioner {
+public class SimpleEqualityPartitioner implements HashingPartitioner {
     /*
     NULL represents the null value (as opposed to the string "null"). ANY represents all values and is a wildcard used
     when a field doesn't have a filter, i.e. the field's value does not matter.
     */
-    private static final String ANY = "*";
-    private static final String NULL = "null";
+    protected static final String ANY = "*";
+    protected static final String NULL = "null";
     private static final int LOWEST_BIT_MASK = 1;
     private static final int ZERO = 0;
     // This appends this char to all non-null values to disambiguate them if they actually had NO_FIELD as their values
     public static final char DISAMBIGUATOR = '.';
+    // The keys are hashed with 64-bit FNV-1a over their chars followed by a final mix
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
 
-    private List<String> fields;
-    private Set<String> fieldSet;
-    private String delimiter;
-    private final Set<String> defaultKeys;
+    protected List<String> fields;
+    protected Set<String> fieldSet;
+    protected String delimiter;
+    protected final Set<String> defaultKeys;
 
     /**
      * Constructor that takes a {@link BulletConfig} instance with definitions for the various settings this needs.
@@ -143,6 +150,46 @@ public class SimpleEqualityPartitioner implements Partitioner {
         return IntStream.range(0, 1 << fields.size()).mapToObj(i -> binaryToKey(i, values)).collect(Collectors.toSet());
     }
 
+    @Override
+    public long getHash(String key) {
+        return LongHashSet.mix(hash(FNV_OFFSET_BASIS, key));
+    }
+
+    @Override
+    public int getMaximumRecordKeys() {
+        return 1 << fields.size();
+    }
+
+    @Override
+    public int getHashes(BulletRecord record, long[] hashes) {
+        /*
+         * This computes the hashes of the same keys as getKeys(BulletRecord), in the same order as the truth table. The
+         * hashes of the keys for the first i fields are extended with ANY in place and with the value into the second
+         * half. The i-th bit of the position of a hash is therefore set if the value for the i-th field is used.
+         */
+        int count = 1;
+        hashes[0] = FNV_OFFSET_BASIS;
+        for (int i = 0; i < fields.size(); i++) {
+            TypedObject value = record.typedExtract(fields.get(i));
+            String entry = value.isNull() ? null : value.getValue().toString();
+            for (int j = 0; j < count; j++) {
+                long prefix = i == 0 ? hashes[j] : hash(hashes[j], delimiter);
+                hashes[j + count] = entry == null ? hash(prefix, NULL) : hash(hash(prefix, entry), DISAMBIGUATOR);
+                hashes[j] = hash(prefix, ANY);
+            }
+            count <<= 1;
+        }
+        for (int j = 0; j < count; j++) {
+            hashes[j] = LongHashSet.mix(hashes[j]);
+        }
+        return count;
+    }
+
+    @Override
+    public String getKey(BulletRecord record, int index) {
+        return binaryToKey(index, getFieldValues(record));
+    }
+
     private void mapFieldsToValues(Expression expression, Map<String, Set<Serializable>> mapping) {
         if (!(expression instanceof BinaryExpression)) {
             return;
@@ -161,11 +208,8 @@ public class SimpleEqualityPartitioner implements Partitioner {
     }
 
     private void addFieldToMapping(FieldExpression fieldExpression, ValueExpression valueExpression, Map<String, Set<Serializable>> mapping) {
-        if (fieldExpression.getKey() instanceof Expression || fieldExpression.getSubKey() instanceof Expression) {
-            return;
-        }
-        String field = fieldExpression.getName();
-        if (fieldSet.contains(field)) {
+        String field = getPartitionField(fieldExpression);
+        if (field != null) {
             Serializable value = valueExpression.getValue();
             mapping.computeIfAbsent(field, s -> new HashSet<>()).add(value);
         }
@@ -175,11 +219,31 @@ public class SimpleEqualityPartitioner implements Partitioner {
         if (values == null) {
             return ANY;
         }
-        Serializable value = values.iterator().next();
-        if (value == null) {
-            return NULL;
+        return getKeyEntry(values.iterator().next());
+    }
+
+    /**
+     * Gets the name of the field in the given {@link FieldExpression} if it is one of the fields used to partition.
+     *
+     * @param fieldExpression The field expression to check.
+     * @return The name of the field or null if the field is not used to partition or has non-constant keys.
+     */
+    protected String getPartitionField(FieldExpression fieldExpression) {
+        if (fieldExpression.getKey() instanceof Expression || fieldExpression.getSubKey() instanceof Expression) {
+            return null;
         }
-        return makeKeyEntry(value.toString());
+        String field = fieldExpression.getName();
+        return fieldSet.contains(field) ? field : null;
+    }
+
+    /**
+     * Gets the entry in a key that represents the given value for a field.
+     *
+     * @param value The possibly null value.
+     * @return The String entry to use in a key for this value.
+     */
+    protected String getKeyEntry(Serializable value) {
+        return value == null ? NULL : makeKeyEntry(value.toString());
     }
 
     private Map<String, String> getFieldValues(BulletRecord record) {
@@ -205,4 +269,16 @@ public class SimpleEqualityPartitioner implements Partitioner {
     private String makeKeyEntry(String value) {
         return value + DISAMBIGUATOR;
     }
+
+    private static long hash(long seed, String value) {
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash = hash(hash, value.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, char value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
 }
@@ -5,13 +5,16 @@
  */
 package com.yahoo.bullet.querying.postaggregations;
 
+import com.yahoo.bullet.query.expressions.ExpressionOptimizer;
 import com.yahoo.bullet.query.postaggregations.Having;
 import com.yahoo.bullet.querying.evaluators.Evaluator;
 import com.yahoo.bullet.result.Clip;
 import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
 
 public class HavingStrategy implements PostStrategy {
     private final Evaluator evaluator;
+    private long errors = 0;
 
     /**
      * Constructor that creates a Having post-strategy.
@@ -19,18 +22,29 @@ public class HavingStrategy implements PostStrategy {
      * @param having The Having post-aggregation to create a strategy for.
      */
     public HavingStrategy(Having having) {
-        evaluator = having.getExpression().getEvaluator();
+        evaluator = ExpressionOptimizer.optimize(having.getExpression()).getEvaluator();
     }
 
     @Override
     public Clip execute(Clip clip) {
         clip.getRecords().removeIf(record -> {
             try {
-                return !((Boolean) evaluator.evaluate(record).forceCast(Type.BOOLEAN).getValue());
-            } catch (Exception ignored) {
+                TypedObject value = evaluator.evaluate(record);
+                if (value == Evaluator.ERROR) {
+                    errors++;
+                    return true;
+                }
+                return value.isNull() || !((Boolean) value.forceCast(Type.BOOLEAN).getValue());
+            } catch (Exception e) {
+                errors++;
                 return true;
             }
         });
         return clip;
     }
+
+    @Override
+    public long getEvaluationErrors() {
+        return errors;
+    }
 }
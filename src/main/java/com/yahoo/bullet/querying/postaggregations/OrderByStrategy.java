@@ -28,6 +28,7 @@ public class OrderByStrategy implements PostStrategy {
     private final List<OrderBy.Direction> directions;
     private final Map<BulletRecord, LazyArray> mapping;
     private final int numberOfFields;
+    private long errors = 0;
 
     private class LazyArray {
         private final BulletRecord record;
@@ -44,6 +45,10 @@ public class OrderByStrategy implements PostStrategy {
                 try {
                     value = evaluators.get(index).evaluate(record);
                 } catch (Exception e) {
+                    value = Evaluator.ERROR;
+                }
+                if (value == Evaluator.ERROR) {
+                    errors++;
                     value = TypedObject.NULL;
                 }
                 values[index] = value;
@@ -74,6 +79,11 @@ public class OrderByStrategy implements PostStrategy {
         return clip;
     }
 
+    @Override
+    public long getEvaluationErrors() {
+        return errors;
+    }
+
     private Comparator<BulletRecord> getComparator() {
         return (a, b) -> {
             LazyArray lazyArrayA = mapping.get(a);
@@ -15,4 +15,13 @@ public interface PostStrategy {
      * @return The output {@link Clip}.
      */
     Clip execute(Clip clip);
+
+    /**
+     * Gets the number of times this post aggregation failed to evaluate an expression.
+     *
+     * @return The number of evaluation errors.
+     */
+    default long getEvaluationErrors() {
+        return 0;
+    }
 }
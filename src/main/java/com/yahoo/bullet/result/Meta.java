@@ -31,6 +31,7 @@ public class Meta {
         QUERY_ID("Query ID"),
         QUERY_OBJECT("Query Object"),
         QUERY_STRING("Query String"),
+        QUERY_EVALUATION_ERRORS("Query Evaluation Errors"),
 
         // Sketching metadata
         SKETCH_METADATA("Sketch Metadata"),
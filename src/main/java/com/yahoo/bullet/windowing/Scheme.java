@@ -71,6 +71,16 @@ public abstract class Scheme implements Monoidal {
      */
     public abstract void start();
 
+    /**
+     * Returns the time at which this window closes because of time. Windows that do not close because of time return
+     * {@link Long#MAX_VALUE}.
+     *
+     * @return The time in milliseconds when this window closes or {@link Long#MAX_VALUE}.
+     */
+    public long getCloseTime() {
+        return Long.MAX_VALUE;
+    }
+
     /**
      * Return any {@link Meta} for this windowing scheme and the {@link Strategy}.
      *
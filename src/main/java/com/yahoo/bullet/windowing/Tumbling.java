@@ -7,6 +7,7 @@ package com.yahoo.bullet.windowing;
 
 import com.yahoo.bullet.querying.aggregations.Strategy;
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.Clock;
 import com.yahoo.bullet.query.Window;
 import com.yahoo.bullet.result.Meta;
 
@@ -19,6 +20,7 @@ public class Tumbling extends Basic {
 
     protected long nextCloseTime;
     protected long windowLength;
+    protected Clock clock;
 
     /**
      * Creates an instance of this windowing scheme with the provided {@link Strategy} and {@link BulletConfig}.
@@ -30,7 +32,8 @@ public class Tumbling extends Basic {
     public Tumbling(Strategy aggregation, Window window, BulletConfig config) {
         super(aggregation, window, config);
         windowLength = (long) window.getEmitEvery();
-        nextCloseTime = System.currentTimeMillis() + windowLength;
+        clock = config.getClock();
+        nextCloseTime = clock.currentTimeMillis() + windowLength;
     }
 
     @Override
@@ -48,7 +51,7 @@ public class Tumbling extends Basic {
 
     @Override
     public boolean isClosed() {
-        return System.currentTimeMillis() >= nextCloseTime;
+        return clock.currentTimeMillis() >= nextCloseTime;
     }
 
     @Override
@@ -57,9 +60,14 @@ public class Tumbling extends Basic {
         return isClosed();
     }
 
+    @Override
+    public long getCloseTime() {
+        return nextCloseTime;
+    }
+
     @Override
     public void start() {
-        nextCloseTime = System.currentTimeMillis() + windowLength;
+        nextCloseTime = clock.currentTimeMillis() + windowLength;
     }
 
     @Override
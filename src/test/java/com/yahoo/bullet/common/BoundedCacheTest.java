@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedCacheTest {
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        new BoundedCache<String, String>(0);
+    }
+
+    @Test
+    public void testComputesOnlyOnMiss() {
+        AtomicInteger calls = new AtomicInteger();
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+
+        Assert.assertEquals(cache.get("foo", k -> calls.incrementAndGet()), (Integer) 1);
+        Assert.assertEquals(cache.get("foo", k -> calls.incrementAndGet()), (Integer) 1);
+        Assert.assertEquals(calls.get(), 1);
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+        cache.get("a", String::toUpperCase);
+        cache.get("b", String::toUpperCase);
+        // Touch a so that b is the least recently used
+        cache.get("a", String::toUpperCase);
+        cache.get("c", String::toUpperCase);
+
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(cache.get("a", k -> "missed"), "A");
+        Assert.assertEquals(cache.get("c", k -> "missed"), "C");
+        Assert.assertEquals(cache.get("b", k -> "missed"), "missed");
+    }
+
+    @Test
+    public void testSharingAcrossThreads() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(16);
+        AtomicInteger wrong = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    Integer key = j % 32;
+                    if (cache.get(key, k -> k * 2) != key * 2) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(wrong.get(), 0);
+        Assert.assertTrue(cache.size() <= 16);
+    }
+
+    @Test
+    public void testClear() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+        cache.get("a", String::toUpperCase);
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.get("a", k -> "missed"), "missed");
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullValuesNotAllowed() {
+        new BoundedCache<String, String>(2).get("a", k -> null);
+    }
+}
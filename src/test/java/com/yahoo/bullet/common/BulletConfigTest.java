@@ -534,6 +534,24 @@ public class BulletConfigTest {
         Assert.assertEquals(config.get(BulletConfig.EQUALITY_PARTITIONER_FIELDS), asList("A", "B"));
     }
 
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testMultiValueEqualityPartitioningWithNoFieldsValidation() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_PARTITIONER_ENABLE, true);
+        config.set(BulletConfig.QUERY_PARTITIONER_CLASS_NAME, BulletConfig.MULTI_VALUE_EQUALITY_PARTITIONER_CLASS_NAME);
+        config.validate();
+    }
+
+    @Test
+    public void testMultiValueEqualityPartitioningMaxKeysValidation() {
+        BulletConfig config = new BulletConfig();
+        Assert.assertEquals(config.get(BulletConfig.EQUALITY_PARTITIONER_MAX_KEYS), BulletConfig.DEFAULT_EQUALITY_PARTITIONER_MAX_KEYS);
+
+        config.set(BulletConfig.EQUALITY_PARTITIONER_MAX_KEYS, -1);
+        config.validate();
+        Assert.assertEquals(config.get(BulletConfig.EQUALITY_PARTITIONER_MAX_KEYS), BulletConfig.DEFAULT_EQUALITY_PARTITIONER_MAX_KEYS);
+    }
+
     @Test
     public void testCustomPartitionerValidation() {
         BulletConfig config = new BulletConfig();
@@ -544,6 +562,32 @@ public class BulletConfigTest {
         Assert.assertEquals(config.get(BulletConfig.QUERY_PARTITIONER_CLASS_NAME), MockPartitioner.class.getName());
     }
 
+    @Test
+    public void testGetClock() {
+        BulletConfig config = new BulletConfig();
+        Assert.assertSame(config.getClock(), Clock.SYSTEM);
+
+        config = new BulletConfig();
+        config.set(BulletConfig.CLOCK_COARSE_ENABLE, true);
+        config.set(BulletConfig.CLOCK_COARSE_RESOLUTION_MS, 20);
+        config.validate();
+        Assert.assertSame(config.getClock(), CoarseClock.of(20));
+
+        Clock clock = () -> 42L;
+        config.setClock(clock);
+        Assert.assertSame(config.getClock(), clock);
+        config.setClock(null);
+        Assert.assertSame(config.getClock(), CoarseClock.of(20));
+    }
+
+    @Test
+    public void testCoarseClockResolutionValidation() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.CLOCK_COARSE_RESOLUTION_MS, 0);
+        config.validate();
+        Assert.assertEquals(config.get(BulletConfig.CLOCK_COARSE_RESOLUTION_MS), BulletConfig.DEFAULT_CLOCK_COARSE_RESOLUTION_MS);
+    }
+
     @Test
     public void testGetSchema() {
         BulletConfig config = new BulletConfig();
@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CoarseClockTest {
+    @Test
+    public void testSystemClock() {
+        long start = System.currentTimeMillis();
+        long time = Clock.SYSTEM.currentTimeMillis();
+        Assert.assertTrue(time >= start && time <= System.currentTimeMillis());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveResolution() {
+        CoarseClock.of(0);
+    }
+
+    @Test
+    public void testSharedForResolution() {
+        CoarseClock clock = CoarseClock.of(5);
+        Assert.assertSame(CoarseClock.of(5), clock);
+        Assert.assertNotSame(CoarseClock.of(6), clock);
+        Assert.assertEquals(clock.getResolution(), 5L);
+    }
+
+    @Test
+    public void testTimeAdvances() throws Exception {
+        CoarseClock clock = CoarseClock.of(1);
+        long start = clock.currentTimeMillis();
+        Assert.assertTrue(start <= System.currentTimeMillis());
+        long end = start;
+        for (int i = 0; i < 100 && end == start; i++) {
+            Thread.sleep(10);
+            end = clock.currentTimeMillis();
+        }
+        Assert.assertTrue(end > start);
+        Assert.assertTrue(end <= System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class KeyBufferTest {
+    private static void assertBytes(KeyBuffer buffer, byte[] expected) {
+        Assert.assertEquals(buffer.length(), expected.length);
+        Assert.assertEquals(buffer.toByteArray(), expected);
+    }
+
+    private static void assertString(KeyBuffer buffer, String value) {
+        buffer.clear();
+        buffer.write(value);
+        assertBytes(buffer, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertLong(KeyBuffer buffer, long value) {
+        buffer.clear();
+        buffer.write(value);
+        assertBytes(buffer, Long.toString(value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWritingStrings() {
+        KeyBuffer buffer = new KeyBuffer();
+        assertString(buffer, "");
+        assertString(buffer, "foo");
+        assertString(buffer, "0123456789abcdef");
+        assertString(buffer, "0123456789abcdefg");
+        assertString(buffer, "\u00e9\u65e5\u672c");
+        assertString(buffer, "\ud83d\ude00 \ud83d \ude00");
+    }
+
+    @Test
+    public void testWritingLongs() {
+        KeyBuffer buffer = new KeyBuffer();
+        assertLong(buffer, 0L);
+        assertLong(buffer, 7L);
+        assertLong(buffer, -42L);
+        assertLong(buffer, 1234567890123L);
+        assertLong(buffer, Long.MAX_VALUE);
+        assertLong(buffer, Long.MIN_VALUE);
+    }
+
+    @Test
+    public void testWritingMultipleValues() {
+        KeyBuffer buffer = new KeyBuffer();
+        buffer.write("foo");
+        buffer.write("|".getBytes(StandardCharsets.UTF_8));
+        buffer.write(-1L);
+        assertBytes(buffer, "foo|-1".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGrowing() {
+        KeyBuffer buffer = new KeyBuffer();
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            value.append("\u00e9").append(i);
+        }
+        assertString(buffer, value.toString());
+        assertString(buffer, "foo");
+    }
+
+    @Test
+    public void testReusingArrays() {
+        KeyBuffer buffer = new KeyBuffer();
+        buffer.write("foo");
+        byte[] array = buffer.toByteArray();
+
+        buffer.clear();
+        buffer.write("bar");
+        Assert.assertSame(buffer.toByteArray(), array);
+        Assert.assertEquals(new String(array, StandardCharsets.UTF_8), "bar");
+
+        buffer.clear();
+        for (int i = 0; i < 20; i++) {
+            buffer.write("0123456789");
+        }
+        Assert.assertNotSame(buffer.toByteArray(), buffer.toByteArray());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongHashMapTest {
+    @Test
+    public void testPutGetAndRemove() {
+        LongHashMap<String> map = new LongHashMap<>(4);
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put(1L, "a"));
+        Assert.assertNull(map.put(-1L, "b"));
+        Assert.assertEquals(map.put(1L, "c"), "a");
+        Assert.assertEquals(map.size(), 2);
+
+        Assert.assertEquals(map.get(1L), "c");
+        Assert.assertEquals(map.get(-1L), "b");
+        Assert.assertNull(map.get(2L));
+
+        Assert.assertEquals(map.remove(1L), "c");
+        Assert.assertNull(map.remove(1L));
+        Assert.assertNull(map.get(1L));
+        Assert.assertEquals(map.size(), 1);
+    }
+
+    @Test
+    public void testZero() {
+        LongHashMap<String> map = new LongHashMap<>(4);
+        Assert.assertNull(map.get(0L));
+        Assert.assertNull(map.put(0L, "a"));
+        Assert.assertEquals(map.put(0L, "b"), "a");
+        Assert.assertEquals(map.get(0L), "b");
+        Assert.assertEquals(map.size(), 1);
+        Assert.assertEquals(map.remove(0L), "b");
+        Assert.assertNull(map.remove(0L));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullValuesNotAllowed() {
+        new LongHashMap<String>(4).put(1L, null);
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        Random random = new Random(42);
+        LongHashMap<Long> map = new LongHashMap<>(0);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            // A small key space so that there are many collisions, removals and re-insertions
+            long key = random.nextInt(2000) - 1000;
+            if (random.nextBoolean()) {
+                Assert.assertEquals(map.put(key, (long) i), expected.put(key, (long) i));
+            } else {
+                Assert.assertEquals(map.remove(key), expected.remove(key));
+            }
+            Assert.assertEquals(map.size(), expected.size());
+        }
+        for (long key = -1000; key < 1000; key++) {
+            Assert.assertEquals(map.get(key), expected.get(key));
+        }
+    }
+}
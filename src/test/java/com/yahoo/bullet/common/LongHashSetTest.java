@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LongHashSetTest {
+    @Test
+    public void testAddAndContains() {
+        LongHashSet set = new LongHashSet(4);
+        Assert.assertTrue(set.add(1L));
+        Assert.assertTrue(set.add(-1L));
+        Assert.assertTrue(set.add(Long.MAX_VALUE));
+        Assert.assertFalse(set.add(1L));
+        Assert.assertEquals(set.size(), 3);
+
+        Assert.assertTrue(set.contains(1L));
+        Assert.assertTrue(set.contains(-1L));
+        Assert.assertTrue(set.contains(Long.MAX_VALUE));
+        Assert.assertFalse(set.contains(2L));
+        Assert.assertFalse(set.contains(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testZero() {
+        LongHashSet set = new LongHashSet(4);
+        Assert.assertFalse(set.contains(0L));
+        Assert.assertTrue(set.add(0L));
+        Assert.assertFalse(set.add(0L));
+        Assert.assertTrue(set.contains(0L));
+        Assert.assertEquals(set.size(), 1);
+    }
+
+    @Test
+    public void testResizing() {
+        LongHashSet set = new LongHashSet(0);
+        for (long i = 0; i < 10000; i++) {
+            Assert.assertTrue(set.add(i * 31));
+        }
+        Assert.assertEquals(set.size(), 10000);
+        for (long i = 0; i < 10000; i++) {
+            Assert.assertTrue(set.contains(i * 31));
+            Assert.assertFalse(set.contains(i * 31 + 1));
+        }
+    }
+
+    @Test
+    public void testMix() {
+        Assert.assertEquals(LongHashSet.mix(0L), 0L);
+        Assert.assertNotEquals(LongHashSet.mix(1L), 1L);
+        Assert.assertNotEquals(LongHashSet.mix(1L), LongHashSet.mix(2L));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class TimerWheelTest {
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveTickDuration() {
+        new TimerWheel<String>(0, 8, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        new TimerWheel<String>(10, 0, 0);
+    }
+
+    @Test
+    public void testExpiring() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8, 1000);
+        wheel.schedule("a", 1005);
+        wheel.schedule("b", 1010);
+        wheel.schedule("c", 1011);
+        wheel.schedule("d", 1500);
+        Assert.assertEquals(wheel.size(), 4);
+
+        Assert.assertTrue(wheel.advance(1009).isEmpty());
+        Assert.assertEquals(wheel.advance(1010), Arrays.asList("b", "a"));
+        Assert.assertTrue(wheel.advance(1019).isEmpty());
+        Assert.assertEquals(wheel.advance(1020), Arrays.asList("c"));
+        Assert.assertFalse(wheel.contains("c"));
+        Assert.assertTrue(wheel.contains("d"));
+
+        // d is in a bucket that is seen many times before its deadline
+        Assert.assertTrue(wheel.advance(1499).isEmpty());
+        Assert.assertEquals(wheel.advance(1500), Arrays.asList("d"));
+        Assert.assertEquals(wheel.size(), 0);
+    }
+
+    @Test
+    public void testPastDeadlines() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8, 1000);
+        wheel.schedule("a", 0);
+        Assert.assertTrue(wheel.advance(1000).isEmpty());
+        Assert.assertEquals(wheel.advance(1010), Arrays.asList("a"));
+    }
+
+    @Test
+    public void testReschedulingAndCancelling() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8, 0);
+        wheel.schedule("a", 10);
+        wheel.schedule("b", 10);
+        wheel.schedule("a", 30);
+        Assert.assertEquals(wheel.size(), 2);
+        Assert.assertTrue(wheel.cancel("b"));
+        Assert.assertFalse(wheel.cancel("b"));
+        Assert.assertFalse(wheel.cancel("c"));
+
+        Assert.assertTrue(wheel.advance(20).isEmpty());
+        Assert.assertEquals(wheel.advance(30), Arrays.asList("a"));
+    }
+
+    @Test
+    public void testAdvancingPastFullRotations() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 4, 0);
+        wheel.schedule("a", 15);
+        wheel.schedule("b", 35);
+        wheel.schedule("c", 1000);
+        Assert.assertEquals(new HashSet<>(wheel.advance(500)), set("a", "b"));
+        Assert.assertTrue(wheel.advance(990).isEmpty());
+        Assert.assertEquals(wheel.advance(10000), Arrays.asList("c"));
+    }
+
+    @Test
+    public void testAdvancingBackwards() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 4, 100);
+        wheel.schedule("a", 110);
+        Assert.assertTrue(wheel.advance(50).isEmpty());
+        Assert.assertEquals(wheel.advance(110), Arrays.asList("a"));
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(42);
+        TimerWheel<Integer> wheel = new TimerWheel<>(7, 16, 0);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        long now = 0;
+        for (int i = 0; i < 2000; i++) {
+            int item = random.nextInt(200);
+            if (random.nextInt(10) == 0) {
+                wheel.cancel(item);
+                deadlines.remove(item);
+            } else {
+                long deadline = now + random.nextInt(1000);
+                wheel.schedule(item, deadline);
+                deadlines.put(item, deadline);
+            }
+            now += random.nextInt(20);
+            List<Integer> expired = wheel.advance(now);
+            for (Integer e : expired) {
+                // Nothing is expired early and nothing is expired more than a tick late
+                Assert.assertTrue(deadlines.remove(e) <= now);
+            }
+            for (long deadline : deadlines.values()) {
+                Assert.assertTrue(deadline > now - 7);
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@
  */
 package com.yahoo.bullet.query.aggregations;
 
+import com.yahoo.bullet.querying.aggregations.HybridGroupingStrategy;
 import com.yahoo.bullet.querying.aggregations.TupleSketchingStrategy;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation;
 import com.yahoo.bullet.common.BulletConfig;
@@ -68,6 +69,18 @@ public class GroupByTest {
         aggregation.configure(config);
 
         Assert.assertTrue(aggregation.getStrategy(config) instanceof TupleSketchingStrategy);
+        Assert.assertFalse(aggregation.getStrategy(config) instanceof HybridGroupingStrategy);
+    }
+
+    @Test
+    public void testGetExactStrategy() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.GROUP_AGGREGATION_EXACT_ENABLE, true);
+        config.validate();
+        GroupBy aggregation = new GroupBy(null, Collections.singletonMap("abc", "def"), Collections.emptySet());
+        aggregation.configure(config);
+
+        Assert.assertTrue(aggregation.getStrategy(config) instanceof HybridGroupingStrategy);
     }
 
     @Test
@@ -0,0 +1,222 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.query.expressions;
+
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ExpressionOptimizerTest {
+    private static <E extends Expression> E typed(E expression, Type type) {
+        expression.setType(type);
+        return expression;
+    }
+
+    private static Expression field(String name) {
+        return typed(new FieldExpression(name), Type.BOOLEAN);
+    }
+
+    private static Expression binary(Expression left, Expression right, Operation op) {
+        return typed(new BinaryExpression(left, right, op), Type.BOOLEAN);
+    }
+
+    private static Expression not(Expression operand) {
+        return typed(new UnaryExpression(operand, Operation.NOT), Type.BOOLEAN);
+    }
+
+    private static int depth(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            return 1 + Math.max(depth(binary.getLeft()), depth(binary.getRight()));
+        } else if (expression instanceof NAryExpression) {
+            return 1 + ((NAryExpression) expression).getOperands().stream().mapToInt(ExpressionOptimizerTest::depth).max().orElse(0);
+        } else if (expression instanceof UnaryExpression) {
+            return 1 + depth(((UnaryExpression) expression).getOperand());
+        }
+        return 1;
+    }
+
+    private static void assertSameResults(Expression original, Expression optimized, BulletRecord... records) {
+        for (BulletRecord record : records) {
+            TypedObject expected = original.getEvaluator().evaluate(record);
+            TypedObject actual = optimized.getEvaluator().evaluate(record);
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+    @Test
+    public void testNull() {
+        Assert.assertNull(ExpressionOptimizer.optimize(null));
+    }
+
+    @Test
+    public void testFoldingConstants() {
+        Expression expression = new BinaryExpression(new ValueExpression(1), new ValueExpression(2), Operation.ADD);
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression(3));
+
+        expression = new CastExpression(new ValueExpression("5"), Type.LONG);
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression(5L));
+
+        expression = new UnaryExpression(new ValueExpression(-5), Operation.ABS);
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression(5));
+
+        expression = new NAryExpression(Arrays.asList(new ValueExpression("hello"), new ValueExpression(2)), Operation.SUBSTRING);
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression("ello"));
+    }
+
+    @Test
+    public void testFoldingConstantSubtrees() {
+        Expression sum = new BinaryExpression(new ValueExpression(1), new ValueExpression(2), Operation.ADD);
+        Expression expression = typed(new BinaryExpression(new FieldExpression("a"), sum, Operation.GREATER_THAN), Type.BOOLEAN);
+        Expression optimized = ExpressionOptimizer.optimize(expression);
+
+        Expression expected = typed(new BinaryExpression(new FieldExpression("a"), new ValueExpression(3), Operation.GREATER_THAN), Type.BOOLEAN);
+        Assert.assertEquals(optimized, expected);
+        assertSameResults(expression, optimized, RecordBox.get().add("a", 5).getRecord(), RecordBox.get().add("a", 3).getRecord());
+    }
+
+    @Test
+    public void testNotFoldingFailures() {
+        Expression expression = new BinaryExpression(new ValueExpression(1), new ValueExpression(0), Operation.DIV);
+        Assert.assertSame(ExpressionOptimizer.optimize(expression), expression);
+    }
+
+    @Test
+    public void testNotFoldingCurrentTime() {
+        Expression expression = new NAryExpression(Collections.emptyList(), Operation.UNIX_TIMESTAMP);
+        Assert.assertSame(ExpressionOptimizer.optimize(expression), expression);
+    }
+
+    @Test
+    public void testNotFoldingLists() {
+        Expression list = new ListExpression(Arrays.asList(new ValueExpression(1), new ValueExpression(2)));
+        Expression expression = new BinaryExpression(new FieldExpression("a"), list, Operation.IN);
+        Assert.assertSame(ExpressionOptimizer.optimize(expression), expression);
+
+        Expression sum = new BinaryExpression(new ValueExpression(1), new ValueExpression(2), Operation.ADD);
+        Expression optimized = ExpressionOptimizer.optimize(new ListExpression(Arrays.asList(sum, new FieldExpression("a"))));
+        Assert.assertEquals(optimized, new ListExpression(Arrays.asList(new ValueExpression(3), new FieldExpression("a"))));
+    }
+
+    @Test
+    public void testUnchangedExpressions() {
+        Expression expression = binary(field("a"), binary(field("b"), field("c"), Operation.OR), Operation.AND);
+        Assert.assertSame(ExpressionOptimizer.optimize(expression), expression);
+
+        expression = field("a");
+        Assert.assertSame(ExpressionOptimizer.optimize(expression), expression);
+
+        expression = not(field("a"));
+        Assert.assertSame(ExpressionOptimizer.optimize(expression), expression);
+    }
+
+    @Test
+    public void testFlatteningAnd() {
+        Expression expression = binary(binary(binary(field("a"), field("b"), Operation.AND), field("c"), Operation.AND),
+                                       field("d"), Operation.AND);
+        Expression optimized = ExpressionOptimizer.optimize(expression);
+
+        Expression expected = typed(new NAryExpression(Arrays.asList(field("a"), field("b"), field("c"), field("d")), Operation.AND), Type.BOOLEAN);
+        Assert.assertEquals(optimized, expected);
+        Assert.assertEquals(depth(expression), 4);
+        Assert.assertEquals(depth(optimized), 2);
+    }
+
+    @Test
+    public void testFlatteningOr() {
+        Expression nested = typed(new NAryExpression(Arrays.asList(field("b"), binary(field("c"), field("d"), Operation.OR)), Operation.OR), Type.BOOLEAN);
+        Expression expression = binary(field("a"), nested, Operation.OR);
+        Expression optimized = ExpressionOptimizer.optimize(expression);
+
+        Expression expected = typed(new NAryExpression(Arrays.asList(field("a"), field("b"), field("c"), field("d")), Operation.OR), Type.BOOLEAN);
+        Assert.assertEquals(optimized, expected);
+    }
+
+    @Test
+    public void testNotFlatteningMixedOperations() {
+        Expression expression = binary(binary(field("a"), field("b"), Operation.OR), field("c"), Operation.AND);
+        Assert.assertSame(ExpressionOptimizer.optimize(expression), expression);
+    }
+
+    @Test
+    public void testFlattenedResults() {
+        Expression expression = binary(binary(field("a"), field("b"), Operation.AND), binary(field("c"), field("a"), Operation.OR), Operation.AND);
+        Expression optimized = ExpressionOptimizer.optimize(expression);
+        Assert.assertTrue(optimized instanceof NAryExpression);
+
+        Boolean[] values = {true, false, null};
+        for (Boolean a : values) {
+            for (Boolean b : values) {
+                for (Boolean c : values) {
+                    RecordBox box = RecordBox.get();
+                    box = a == null ? box.addNull("a") : box.add("a", a);
+                    box = b == null ? box.addNull("b") : box.add("b", b);
+                    box = c == null ? box.addNull("c") : box.add("c", c);
+                    assertSameResults(expression, optimized, box.getRecord());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDroppingOperandsAfterDecidingConstant() {
+        Expression expression = binary(binary(field("a"), new ValueExpression(false), Operation.AND), field("b"), Operation.AND);
+        Expression optimized = ExpressionOptimizer.optimize(expression);
+        Assert.assertEquals(optimized, binary(field("a"), new ValueExpression(false), Operation.AND));
+
+        expression = binary(new ValueExpression(true), field("a"), Operation.OR);
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression(true));
+
+        expression = binary(new ValueExpression(false), field("a"), Operation.AND);
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression(false));
+
+        expression = binary(new ValueExpression(true), new ValueExpression(false), Operation.OR);
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression(true));
+
+        expression = binary(new ValueExpression(true), new ValueExpression(true), Operation.AND);
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression(true));
+    }
+
+    @Test
+    public void testKeepingOperandsBeforeNonDecidingConstant() {
+        Expression expression = binary(field("a"), new ValueExpression(true), Operation.AND);
+        Expression optimized = ExpressionOptimizer.optimize(expression);
+        Assert.assertEquals(optimized, expression);
+        assertSameResults(expression, optimized, RecordBox.get().add("a", false).getRecord(), RecordBox.get().getRecord());
+    }
+
+    @Test
+    public void testRemovingDoubleNegation() {
+        Expression expression = not(not(field("a")));
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), field("a"));
+
+        expression = not(not(not(field("a"))));
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), not(field("a")));
+
+        // Not a boolean, so the negations also cast it
+        expression = not(not(typed(new FieldExpression("a"), Type.INTEGER)));
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), expression);
+
+        expression = not(not(new ValueExpression(true)));
+        Assert.assertEquals(ExpressionOptimizer.optimize(expression), new ValueExpression(true));
+    }
+
+    @Test
+    public void testKeepingTypes() {
+        Expression sum = new BinaryExpression(new ValueExpression(1), new ValueExpression(2), Operation.ADD);
+        Expression expression = typed(new CastExpression(typed(new BinaryExpression(new FieldExpression("a"), sum, Operation.ADD), Type.LONG), Type.STRING), Type.STRING);
+        Expression optimized = ExpressionOptimizer.optimize(expression);
+        Assert.assertEquals(optimized.getType(), Type.STRING);
+        Assert.assertEquals(((CastExpression) optimized).getValue().getType(), Type.LONG);
+        assertSameResults(expression, optimized, RecordBox.get().add("a", 5L).getRecord());
+    }
+}
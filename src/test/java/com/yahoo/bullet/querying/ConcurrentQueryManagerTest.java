@@ -0,0 +1,305 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.pubsub.Metadata;
+import com.yahoo.bullet.query.Projection;
+import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.query.Window;
+import com.yahoo.bullet.query.WindowUtils;
+import com.yahoo.bullet.query.aggregations.Raw;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConcurrentQueryManagerTest {
+    private static final int THREADS = 4;
+    private static final int RECORDS = 5000;
+
+    private static Querier getQuerier(Query query) {
+        Querier querier = QueryCategorizerTest.makeQuerier(false, false, false, false);
+        when(querier.getQuery()).thenReturn(query);
+        return querier;
+    }
+
+    private static Query getQuery(Expression filter) {
+        Query query = new Query(new Projection(), filter, new Raw(null), null, new Window(), null);
+        query.configure(new BulletConfig());
+        return query;
+    }
+
+    private static Query getQuery(String field, Serializable value) {
+        return getQuery(new BinaryExpression(new FieldExpression(field), new ValueExpression(value), Operation.EQUALS));
+    }
+
+    private static BulletConfig getConfig(String className, String fieldsKey, String... fields) {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_PARTITIONER_ENABLE, true);
+        config.set(BulletConfig.QUERY_PARTITIONER_CLASS_NAME, className);
+        config.set(fieldsKey, asList(fields));
+        return config.validate();
+    }
+
+    private static BulletConfig getEqualityPartitionerConfig(String... fields) {
+        return getConfig(BulletConfig.DEFAULT_QUERY_PARTITIONER_CLASS_NAME, BulletConfig.EQUALITY_PARTITIONER_FIELDS, fields);
+    }
+
+    @Test
+    public void testCategorizingBatchWithRecordWindows() {
+        BulletConfig config = new BulletConfig();
+        Query query = new Query(new Projection(), null, new Raw(null), null, WindowUtils.makeSlidingWindow(1), null);
+        query.configure(config);
+        Querier querier = new Querier(new RunningQuery("idA", query, new Metadata()), config);
+        ConcurrentQueryManager manager = new ConcurrentQueryManager(config);
+        manager.addQuery("idA", querier);
+
+        List<BulletRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(RecordBox.get().add("id", i).getRecord());
+        }
+
+        QueryCategorizer categorizer = manager.categorize(records);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(categorizer.getClosed().keySet(), Collections.singleton("idA"));
+            Assert.assertEquals(querier.getRecords(), Collections.singletonList(records.get(i)));
+            querier.reset();
+            categorizer = manager.categorizeRemaining(categorizer.getRemaining());
+        }
+        Assert.assertTrue(categorizer.isEmpty());
+
+        manager.removeAndGetQuery("idA");
+        Assert.assertTrue(manager.categorizeRemaining(Collections.singletonMap("idA", records)).isEmpty());
+    }
+
+    @Test
+    public void testSharingFieldExtractionInBatches() {
+        BulletConfig config = new BulletConfig();
+        ConcurrentQueryManager manager = new ConcurrentQueryManager(config);
+        manager.addQuery("idA", new Querier(new RunningQuery("idA", getQuery("A", "foo"), new Metadata()), config));
+        manager.addQuery("idB", new Querier(new RunningQuery("idB", getQuery("A", "bar"), new Metadata()), config));
+
+        BulletRecord recordA = spy(RecordBox.get().add("A", "foo").getRecord());
+        BulletRecord recordB = spy(RecordBox.get().add("A", "baz").getRecord());
+        QueryCategorizer categorizer = manager.categorize(asList(recordA, recordB));
+        verify(recordA, times(1)).typedGet("A");
+        verify(recordB, times(1)).typedGet("A");
+        Assert.assertEquals(categorizer.getHasData().keySet(), Collections.singleton("idA"));
+    }
+
+    @Test
+    public void testNoPartitioning() {
+        ConcurrentQueryManager manager = new ConcurrentQueryManager(new BulletConfig());
+        Querier querierA = getQuerier(getQuery("A", "foo"));
+        Querier querierB = getQuerier(getQuery(null));
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+
+        Map<String, Querier> expected = new HashMap<>();
+        expected.put("idA", querierA);
+        expected.put("idB", querierB);
+        Assert.assertEquals(manager.partition(RecordBox.get().getRecord()), expected);
+        Assert.assertEquals(manager.size(), 2);
+        Assert.assertTrue(manager.hasQuery("idA"));
+        Assert.assertSame(manager.getQuery("idB"), querierB);
+    }
+
+    @Test
+    public void testAddingAndRemovingQueries() {
+        ConcurrentQueryManager manager = new ConcurrentQueryManager(getEqualityPartitionerConfig("A"));
+        Querier querierA = getQuerier(getQuery("A", "foo"));
+        Querier querierB = getQuerier(getQuery("A", "foo"));
+        Querier querierC = getQuerier(getQuery("A", "bar"));
+        Querier querierD = getQuerier(getQuery(null));
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+        manager.addQuery("idD", querierD);
+
+        Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERY_COUNT), 4);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.PARTITION_COUNT), 3);
+
+        BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+        Map<String, Querier> expected = new HashMap<>();
+        expected.put("idA", querierA);
+        expected.put("idB", querierB);
+        expected.put("idD", querierD);
+        Assert.assertEquals(manager.partition(record), expected);
+
+        Assert.assertSame(manager.removeAndGetQuery("idA"), querierA);
+        Assert.assertNull(manager.removeAndGetQuery("idA"));
+        expected.remove("idA");
+        Assert.assertEquals(manager.partition(record), expected);
+
+        Assert.assertEquals(new HashSet<>(manager.removeAndGetQueries(new HashSet<>(asList("idB", "idC", "idE")))),
+                            new HashSet<>(asList(querierB, querierC)));
+        expected.remove("idB");
+        Assert.assertEquals(manager.partition(record), expected);
+
+        stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERY_COUNT), 1);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.PARTITION_COUNT), 1);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 6L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 8L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED), 2L);
+
+        manager.removeQueries(new HashSet<>(asList("idD")));
+        Assert.assertEquals(manager.size(), 0);
+        Assert.assertTrue(manager.partition(record).isEmpty());
+    }
+
+    @Test
+    public void testCategorizing() {
+        ConcurrentQueryManager manager = new ConcurrentQueryManager(getEqualityPartitionerConfig("A"));
+        Querier querierA = QueryCategorizerTest.makeQuerier(false, false, false, true);
+        when(querierA.getQuery()).thenReturn(getQuery("A", "foo"));
+        Querier querierB = QueryCategorizerTest.makeQuerier(true, false, false, false);
+        when(querierB.getQuery()).thenReturn(getQuery("A", "bar"));
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+
+        BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+        QueryCategorizer categorizer = manager.categorize(record);
+        Assert.assertEquals(categorizer.getHasData().keySet(), new HashSet<>(asList("idA")));
+        Assert.assertTrue(categorizer.getDone().isEmpty());
+        verify(querierA, times(1)).consume(record);
+        verify(querierB, times(0)).consume(record);
+
+        categorizer = manager.categorize();
+        Assert.assertEquals(categorizer.getHasData().keySet(), new HashSet<>(asList("idA")));
+        Assert.assertEquals(categorizer.getDone().keySet(), new HashSet<>(asList("idB")));
+    }
+
+    @Test
+    public void testIntervalPartitioning() {
+        ConcurrentQueryManager manager = new ConcurrentQueryManager(getConfig(BulletConfig.INTERVAL_PARTITIONER_CLASS_NAME,
+                                                                              BulletConfig.INTERVAL_PARTITIONER_FIELDS, "A"));
+        Querier querierA = getQuerier(getQuery(new BinaryExpression(new FieldExpression("A"), new ValueExpression(10), Operation.GREATER_THAN)));
+        manager.addQuery("idA", querierA);
+
+        Map<String, Querier> expected = new HashMap<>();
+        expected.put("idA", querierA);
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", 20).getRecord()), expected);
+        Assert.assertTrue(manager.partition(RecordBox.get().add("A", 5).getRecord()).isEmpty());
+    }
+
+    @Test(timeOut = 60000L)
+    public void testConcurrentPartitioningWithFixedQueries() throws Exception {
+        ConcurrentQueryManager manager = new ConcurrentQueryManager(getEqualityPartitionerConfig("A", "B"));
+        for (int i = 0; i < 10; i++) {
+            manager.addQuery("a" + i, getQuerier(getQuery("A", String.valueOf(i))));
+            manager.addQuery("b" + i, getQuerier(getQuery("B", String.valueOf(i))));
+        }
+        manager.addQuery("all", getQuerier(getQuery(null)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < RECORDS; i++) {
+                    String a = String.valueOf((i + thread) % 10);
+                    String b = String.valueOf(i % 10);
+                    BulletRecord record = RecordBox.get().add("A", a).add("B", b).getRecord();
+                    Map<String, Querier> queriers = manager.partition(record);
+                    if (!queriers.keySet().equals(new HashSet<>(asList("a" + a, "b" + b, "all")))) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        long records = (long) THREADS * RECORDS;
+        Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 3 * records);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 21 * records);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED), 18 * records);
+    }
+
+    @Test(timeOut = 60000L)
+    public void testConcurrentPartitioningWhileAddingAndRemovingQueries() throws Exception {
+        ConcurrentQueryManager manager = new ConcurrentQueryManager(getEqualityPartitionerConfig("A"));
+        Querier fixed = getQuerier(getQuery("A", "fixed"));
+        manager.addQuery("fixed", fixed);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Boolean>> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            readers.add(executor.submit(() -> {
+                BulletRecord record = RecordBox.get().add("A", "fixed").getRecord();
+                while (running.get()) {
+                    Map<String, Querier> queriers = manager.partition(record);
+                    // The fixed query is always seen and the changing queries never are since they are for other values
+                    if (queriers.size() != 1 || queriers.get("fixed") != fixed) {
+                        return false;
+                    }
+                    manager.categorize(record);
+                }
+                return true;
+            }));
+        }
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 1000; i++) {
+                String id = "id" + i;
+                manager.addQuery(id, getQuerier(getQuery("A", String.valueOf(i % 7))));
+                if (i % 2 == 1) {
+                    manager.removeQueries(new HashSet<>(asList(id, "id" + (i - 1))));
+                }
+            }
+            running.set(false);
+        });
+        writer.get();
+        for (Future<Boolean> reader : readers) {
+            Assert.assertTrue(reader.get());
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals(manager.size(), 1);
+        Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.PARTITION_COUNT), 1);
+        long seen = (Long) stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN);
+        long skipped = (Long) stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED);
+        Assert.assertEquals(seen + skipped, stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN));
+    }
+}
@@ -5,16 +5,139 @@
  */
 package com.yahoo.bullet.querying;
 
+import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
 import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
 import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.querying.evaluators.Evaluator;
+import com.yahoo.bullet.querying.evaluators.EvaluatorBuilder;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class FilterTest {
+    private static FieldExpression field(String name, Type type) {
+        FieldExpression field = new FieldExpression(name);
+        field.setType(type);
+        return field;
+    }
+
+    private static Expression binary(Expression left, Expression right, Operation op) {
+        return new BinaryExpression(left, right, op);
+    }
+
+    private static BulletRecord[] makeBatch() {
+        List<BulletRecord> records = new ArrayList<>();
+        Serializable[] as = {1, 0, -3, "foo", null};
+        Serializable[] bs = {2.5, 0.0, null};
+        Boolean[] cs = {true, false, null};
+        for (Serializable a : as) {
+            for (Serializable b : bs) {
+                for (Boolean c : cs) {
+                    RecordBox box = RecordBox.get();
+                    box = a == null ? box.addNull("a") : box.add("a", a);
+                    box = b == null ? box.addNull("b") : box.add("b", b);
+                    box = c == null ? box.addNull("c") : box.add("c", c);
+                    records.add(box.getRecord());
+                }
+            }
+        }
+        records.add(RecordBox.get().getRecord());
+        records.add(null);
+        return records.toArray(new BulletRecord[0]);
+    }
+
+    private static void assertSameAsPerRecord(Expression expression, BulletConfig config) {
+        BulletRecord[] batch = makeBatch();
+        Filter filter = new Filter(expression, config);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < batch.length; i++) {
+            if (filter.match(batch[i])) {
+                expected.add(i);
+            }
+        }
+        long expectedErrors = filter.getEvaluationErrors();
+
+        Filter batchFilter = new Filter(expression, config);
+        List<Integer> actual = new ArrayList<>();
+        for (int index : batchFilter.match(batch, batch.length)) {
+            actual.add(index);
+        }
+        Assert.assertEquals(actual, expected, expression.toString());
+        Assert.assertEquals(batchFilter.getEvaluationErrors(), expectedErrors, expression.toString());
+    }
+
+    @Test
+    public void testCountingErrorsOfAdaptiveOperands() {
+        Expression sum = binary(new FieldExpression("a"), new ValueExpression(1), Operation.ADD);
+        Expression expression = binary(binary(sum, new ValueExpression(2), Operation.GREATER_THAN), new FieldExpression("c"), Operation.OR);
+        BulletRecord record = RecordBox.get().add("a", "foo").add("c", true).getRecord();
+
+        // In order, the error in the first operand is the result
+        Filter filter = new Filter(expression, new BulletConfig());
+        Assert.assertFalse(filter.match(record));
+        Assert.assertEquals(filter.getEvaluationErrors(), 1L);
+
+        // Adaptively, the second operand decides the result but the error is still counted
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_FILTER_ADAPTIVE_ENABLE, true);
+        filter = new Filter(expression, config.validate());
+        Assert.assertTrue(filter.match(record));
+        Assert.assertEquals(filter.getEvaluationErrors(), 1L);
+        Assert.assertEquals(filter.match(new BulletRecord[] { record, record }, 2).length, 2);
+        Assert.assertEquals(filter.getEvaluationErrors(), 3L);
+    }
+
+    @Test
+    public void testCountingErrorsOfAdaptiveOperandsOnlyWhenAdaptive() {
+        Expression sum = binary(new FieldExpression("a"), new ValueExpression(1), Operation.ADD);
+        Expression expression = binary(binary(sum, new ValueExpression(2), Operation.GREATER_THAN), new FieldExpression("c"), Operation.OR);
+        BulletRecord record = RecordBox.get().add("a", "foo").add("c", true).getRecord();
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_FILTER_ADAPTIVE_ENABLE, true);
+        Evaluator evaluator = new EvaluatorBuilder(config.validate()).build(expression);
+
+        Filter filter = new Filter(evaluator, false);
+        Assert.assertTrue(filter.match(record));
+        Assert.assertEquals(filter.match(new BulletRecord[] { record }, 1).length, 1);
+        Assert.assertEquals(filter.getEvaluationErrors(), 0L);
+
+        filter = new Filter(evaluator);
+        Assert.assertTrue(filter.match(record));
+        Assert.assertEquals(filter.getEvaluationErrors(), 1L);
+    }
+
+    @Test
+    public void testCountingErrorsOfSharedAdaptiveOperandsOnce() {
+        Expression sum = binary(new FieldExpression("a"), new ValueExpression(1), Operation.ADD);
+        Expression expression = binary(binary(sum, new ValueExpression(2), Operation.GREATER_THAN), new FieldExpression("c"), Operation.OR);
+        BulletRecord record = RecordBox.get().add("a", "foo").add("c", true).getRecord();
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_FILTER_ADAPTIVE_ENABLE, true);
+        SharedEvaluators shared = new SharedEvaluators(config.validate());
+        Assert.assertTrue(shared.isAdaptive());
+
+        Filter filter = new Filter(shared.register(expression), shared.isAdaptive());
+        Filter another = new Filter(shared.register(expression), shared.isAdaptive());
+        Assert.assertTrue(filter.match(record));
+        Assert.assertTrue(another.match(record));
+
+        // The second filter reuses the result of the shared OR so only the first counts its swallowed error
+        Assert.assertEquals(filter.getEvaluationErrors(), 1L);
+        Assert.assertEquals(another.getEvaluationErrors(), 0L);
+    }
+
     @Test
     public void testFilterMatch() {
         Filter filter = new Filter(new BinaryExpression(new FieldExpression("abc"), new ValueExpression(0), Operation.GREATER_THAN));
@@ -28,10 +151,97 @@ public class FilterTest {
         Assert.assertFalse(filter.match(recordC));
     }
 
+    @Test
+    public void testFilterMatchWithConfig() {
+        Expression greater = new BinaryExpression(new FieldExpression("abc"), new ValueExpression(0), Operation.GREATER_THAN);
+        Expression less = new BinaryExpression(new FieldExpression("abc"), new ValueExpression(5), Operation.LESS_THAN);
+        Filter filter = new Filter(new BinaryExpression(greater, less, Operation.AND), new BulletConfig());
+
+        Assert.assertTrue(filter.match(RecordBox.get().add("abc", 1).getRecord()));
+        Assert.assertFalse(filter.match(RecordBox.get().add("abc", 0).getRecord()));
+        Assert.assertFalse(filter.match(RecordBox.get().add("abc", 5).getRecord()));
+        Assert.assertFalse(filter.match(RecordBox.get().getRecord()));
+    }
+
     @Test
     public void testFilterMatchException() {
         Filter filter = new Filter(new FieldExpression("abc"));
 
         Assert.assertFalse(filter.match(null));
     }
+
+    @Test
+    public void testEvaluationErrors() {
+        Expression sum = new BinaryExpression(new FieldExpression("abc"), new ValueExpression(1), Operation.ADD);
+        Filter filter = new Filter(new BinaryExpression(sum, new ValueExpression(0), Operation.GREATER_THAN));
+
+        Assert.assertTrue(filter.match(RecordBox.get().add("abc", 1).getRecord()));
+        Assert.assertFalse(filter.match(RecordBox.get().getRecord()));
+        Assert.assertEquals(filter.getEvaluationErrors(), 0L);
+
+        // Returns an error instead of throwing
+        Assert.assertFalse(filter.match(RecordBox.get().add("abc", "foo").getRecord()));
+        Assert.assertEquals(filter.getEvaluationErrors(), 1L);
+
+        // Throws
+        Assert.assertFalse(filter.match(null));
+        Assert.assertEquals(filter.getEvaluationErrors(), 2L);
+    }
+
+    @Test
+    public void testBatchMatch() {
+        Filter filter = new Filter(new BinaryExpression(new FieldExpression("abc"), new ValueExpression(0), Operation.GREATER_THAN));
+        BulletRecord[] batch = {RecordBox.get().add("abc", 1).getRecord(), RecordBox.get().add("abc", 0).getRecord(),
+                                RecordBox.get().add("abc", 2).getRecord(), RecordBox.get().getRecord(), null};
+
+        Assert.assertEquals(filter.match(batch, batch.length), new int[] {0, 2});
+        Assert.assertEquals(filter.getEvaluationErrors(), 1L);
+        Assert.assertEquals(filter.match(batch, 2), new int[] {0});
+        Assert.assertEquals(filter.match(batch, 0), new int[0]);
+    }
+
+    @Test
+    public void testBatchMatchSameAsPerRecord() {
+        Expression a = field("a", Type.INTEGER);
+        Expression b = field("b", Type.DOUBLE);
+        Expression c = field("c", Type.BOOLEAN);
+        Expression sum = binary(new FieldExpression("a"), new ValueExpression(1), Operation.ADD);
+        List<Expression> expressions = new ArrayList<>();
+        for (Operation op : Arrays.asList(Operation.EQUALS, Operation.NOT_EQUALS, Operation.GREATER_THAN, Operation.LESS_THAN,
+                                          Operation.GREATER_THAN_OR_EQUALS, Operation.LESS_THAN_OR_EQUALS)) {
+            expressions.add(binary(a, new ValueExpression(0), op));
+            expressions.add(binary(b, new ValueExpression(0.0), op));
+            expressions.add(binary(sum, new ValueExpression(1), op));
+        }
+        Expression positive = binary(a, new ValueExpression(0), Operation.GREATER_THAN);
+        Expression small = binary(b, new ValueExpression(1.0), Operation.LESS_THAN);
+        for (Operation op : Arrays.asList(Operation.AND, Operation.OR)) {
+            expressions.add(binary(positive, small, op));
+            expressions.add(binary(c, positive, op));
+            expressions.add(binary(positive, c, op));
+            // Casting a number to a boolean throws
+            expressions.add(binary(c, new FieldExpression("a"), op));
+            expressions.add(binary(binary(sum, new ValueExpression(1), Operation.GREATER_THAN), c, op));
+            expressions.add(new NAryExpression(Arrays.asList(c, positive, small), op));
+            expressions.add(new NAryExpression(Arrays.asList(small, binary(c, positive, op == Operation.AND ? Operation.OR : Operation.AND)), op));
+        }
+        expressions.add(new UnaryExpression(binary(positive, c, Operation.AND), Operation.NOT));
+        expressions.add(c);
+        expressions.add(new FieldExpression("a"));
+
+        List<BulletConfig> configs = new ArrayList<>();
+        configs.add(new BulletConfig());
+        BulletConfig adaptive = new BulletConfig();
+        adaptive.set(BulletConfig.QUERY_FILTER_ADAPTIVE_ENABLE, true);
+        configs.add(adaptive.validate());
+        BulletConfig compiled = new BulletConfig();
+        compiled.set(BulletConfig.QUERY_FILTER_COMPILE_ENABLE, true);
+        configs.add(compiled.validate());
+
+        for (Expression expression : expressions) {
+            for (BulletConfig config : configs) {
+                assertSameAsPerRecord(expression, config);
+            }
+        }
+    }
 }
@@ -10,6 +10,7 @@ import com.yahoo.bullet.query.expressions.BinaryExpression;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.record.avro.TypedAvroBulletRecordProvider;
 import com.yahoo.bullet.result.RecordBox;
@@ -77,4 +78,25 @@ public class ProjectionTest {
         Assert.assertEquals(oldRecord.typedGet("d").getValue(), 10);
         Assert.assertEquals(oldRecord, record);
     }
+
+    @Test
+    public void testEvaluationErrors() {
+        List<Field> fields = Arrays.asList(new Field("b", new BinaryExpression(new FieldExpression("a"),
+                                                                               new ValueExpression(1),
+                                                                               Operation.ADD)),
+                                           new Field("c", new FieldExpression("a")));
+        Projection projection = new Projection(fields);
+
+        BulletRecord newRecord = projection.project(RecordBox.get().add("a", "foo").getRecord(), new TypedAvroBulletRecordProvider());
+        Assert.assertEquals(newRecord.fieldCount(), 1);
+        Assert.assertEquals(newRecord.typedGet("c").getValue(), "foo");
+        Assert.assertEquals(projection.getEvaluationErrors(), 1L);
+
+        projection.project(RecordBox.get().add("a", 1).getRecord());
+        projection.project(RecordBox.get().getRecord());
+        Assert.assertEquals(projection.getEvaluationErrors(), 1L);
+
+        projection.project(RecordBox.get().add("a", true).getRecord());
+        Assert.assertEquals(projection.getEvaluationErrors(), 2L);
+    }
 }
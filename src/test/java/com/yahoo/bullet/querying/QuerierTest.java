@@ -47,11 +47,13 @@ import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -300,6 +302,212 @@ public class QuerierTest {
         Assert.assertEquals((Object) querier.getRecords().size(), BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE);
     }
 
+    @Test
+    public void testConsumingBatch() {
+        Querier querier = make(Querier.Mode.ALL, makeRawQuery());
+
+        querier.consume(makeStream(BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE - 1).collect(Collectors.toList()));
+        Assert.assertFalse(querier.isClosed());
+        Assert.assertEquals(querier.getRecords().size(), BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE - 1);
+
+        querier.consume(makeStream(5).collect(Collectors.toList()));
+        Assert.assertTrue(querier.isClosed());
+        Assert.assertTrue(querier.isDone());
+        Assert.assertEquals(querier.getRecords().size(), BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE);
+
+        querier.consume(makeStream(5).collect(Collectors.toList()));
+        Assert.assertEquals(querier.getRecords().size(), BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE);
+    }
+
+    @Test
+    public void testFilteringBatch() {
+        Expression filter = new BinaryExpression(new FieldExpression("field"), new ValueExpression("foo"), Operation.EQUALS);
+        Query query = new Query(new Projection(), filter, new Raw(null), null, new Window(), null);
+        Querier querier = make(Querier.Mode.ALL, query);
+
+        querier.consume(Collections.emptyList());
+        Assert.assertFalse(querier.hasNewData());
+
+        BulletRecord recordA = RecordBox.get().add("field", "foo").add("id", 1).getRecord();
+        BulletRecord recordB = RecordBox.get().add("field", "bar").add("id", 2).getRecord();
+        BulletRecord recordC = RecordBox.get().add("field", "foo").add("id", 3).getRecord();
+        querier.consume(Arrays.asList(recordA, recordB, recordC));
+
+        Assert.assertTrue(querier.hasNewData());
+        Assert.assertEquals(querier.getRecords(), Arrays.asList(recordA, recordC));
+    }
+
+    @Test
+    public void testFilteringBatchWithErrors() {
+        Expression sum = new BinaryExpression(new FieldExpression("field"), new ValueExpression(1), Operation.ADD);
+        Expression filter = new BinaryExpression(sum, new ValueExpression(2), Operation.GREATER_THAN);
+        Query query = new Query(new Projection(), filter, new Raw(null), null, new Window(), null);
+        Querier querier = make(Querier.Mode.ALL, query);
+
+        BulletRecord recordA = RecordBox.get().add("field", 5).getRecord();
+        BulletRecord recordB = RecordBox.get().add("field", "foo").getRecord();
+        BulletRecord recordC = RecordBox.get().add("field", 1).getRecord();
+        BulletRecord recordD = RecordBox.get().add("field", 2).getRecord();
+        querier.consume(Arrays.asList(recordA, recordB, recordC, recordD));
+
+        Assert.assertEquals(querier.getRecords(), Arrays.asList(recordA, recordD));
+        Assert.assertEquals(querier.getEvaluationErrors(), 1L);
+    }
+
+    @Test
+    public void testConsumingBatchStopsWhenRecordWindowCloses() {
+        Expression filter = new BinaryExpression(new FieldExpression("field"), new ValueExpression("foo"), Operation.EQUALS);
+        Query query = new Query(new Projection(), filter, new Raw(null), null, WindowUtils.makeSlidingWindow(1), null);
+        Querier querier = make(Querier.Mode.ALL, query);
+
+        BulletRecord recordA = RecordBox.get().add("field", "foo").add("id", 1).getRecord();
+        BulletRecord recordB = RecordBox.get().add("field", "bar").add("id", 2).getRecord();
+        BulletRecord recordC = RecordBox.get().add("field", "foo").add("id", 3).getRecord();
+        BulletRecord recordD = RecordBox.get().add("field", "foo").add("id", 4).getRecord();
+        List<BulletRecord> records = Arrays.asList(recordA, recordB, recordC, recordD);
+
+        Assert.assertEquals(querier.consume(records), 3);
+        Assert.assertTrue(querier.isClosed());
+        Assert.assertEquals(querier.getRecords(), Collections.singletonList(recordA));
+        querier.reset();
+
+        Assert.assertEquals(querier.consume(records.subList(1, 4)), 1);
+        Assert.assertEquals(querier.getRecords(), Collections.singletonList(recordC));
+
+        // A window that was not reset after closing consumes the whole batch like it would one record at a time
+        Assert.assertEquals(querier.consume(records.subList(3, 4)), 0);
+        Assert.assertEquals(querier.getRecords(), Arrays.asList(recordC, recordD));
+    }
+
+    @Test
+    public void testEvaluationErrors() {
+        List<Map<String, String>> metadata = new ArrayList<>();
+        for (Meta.Concept concept : Arrays.asList(Meta.Concept.QUERY_METADATA, Meta.Concept.QUERY_EVALUATION_ERRORS)) {
+            Map<String, String> entry = new HashMap<>();
+            entry.put(BulletConfig.RESULT_METADATA_METRICS_CONCEPT_KEY, concept.getName());
+            entry.put(BulletConfig.RESULT_METADATA_METRICS_NAME_KEY, concept.getName());
+            metadata.add(entry);
+        }
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.RESULT_METADATA_METRICS, metadata);
+        config.validate();
+
+        Expression sum = new BinaryExpression(new FieldExpression("field"), new ValueExpression(1), Operation.ADD);
+        Expression filter = new BinaryExpression(sum, new ValueExpression(2), Operation.GREATER_THAN);
+        List<Field> fields = Collections.singletonList(new Field("size", new UnaryExpression(new FieldExpression("field"), Operation.SIZE_OF)));
+        Query query = new Query(new Projection(fields, false), filter, new Raw(null), null, new Window(), null);
+        query.configure(config);
+        Querier querier = make(Querier.Mode.ALL, query, config);
+
+        querier.consume(RecordBox.get().add("field", 5).getRecord());
+        querier.consume(RecordBox.get().add("field", "foo").getRecord());
+        querier.consume(RecordBox.get().add("field", "bar").getRecord());
+        querier.consume(RecordBox.get().getRecord());
+
+        // Two records fail the filter and the one that passes fails the projection
+        Assert.assertEquals(querier.getRecords().size(), 1);
+        Assert.assertEquals(querier.getEvaluationErrors(), 3L);
+
+        Map<String, Object> queryMeta = (Map<String, Object>) querier.getMetadata().asMap().get(Meta.Concept.QUERY_METADATA.getName());
+        Assert.assertEquals(queryMeta.get(Meta.Concept.QUERY_EVALUATION_ERRORS.getName()), 3L);
+    }
+
+    @Test
+    public void testPublishingChanges() {
+        List<QueryCategorizer.Category> published = new ArrayList<>();
+        Querier querier = make(Querier.Mode.ALL, makeRawQuery());
+        querier.setListener(published::add);
+
+        querier.consume(RecordBox.get().getRecord());
+        querier.consume(RecordBox.get().getRecord());
+        Assert.assertEquals(published, Collections.singletonList(QueryCategorizer.Category.HAS_DATA));
+
+        querier.consume(makeStream(BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE).collect(Collectors.toList()));
+        Assert.assertEquals(published, Arrays.asList(QueryCategorizer.Category.HAS_DATA, QueryCategorizer.Category.DONE));
+
+        querier.setListener(null);
+        querier.reset();
+        querier.consume(RecordBox.get().getRecord());
+        Assert.assertEquals(published.size(), 2);
+    }
+
+    @Test
+    public void testPublishingRateLimits() throws Exception {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.RATE_LIMIT_ENABLE, true);
+        config.set(BulletConfig.RATE_LIMIT_TIME_INTERVAL, 1);
+        config.set(BulletConfig.RATE_LIMIT_MAX_EMIT_COUNT, 1);
+        config.validate();
+
+        Query query = makeRawQuery();
+        query.configure(config);
+
+        List<QueryCategorizer.Category> published = new ArrayList<>();
+        Querier querier = make(Querier.Mode.ALL, "", query, config);
+        querier.setListener(published::add);
+        querier.consume(RecordBox.get().getRecord());
+        Assert.assertEquals(published, Collections.singletonList(QueryCategorizer.Category.HAS_DATA));
+
+        IntStream.range(0, 1000).forEach(i -> querier.getRecords());
+        // To make sure it's time to check again
+        Thread.sleep(2);
+
+        querier.consume(RecordBox.get().getRecord());
+        querier.consume(RecordBox.get().getRecord());
+        Assert.assertEquals(published, Arrays.asList(QueryCategorizer.Category.HAS_DATA, QueryCategorizer.Category.RATE_LIMITED));
+
+        // Published once again after a reset since the rate limit stays exceeded
+        querier.reset();
+        querier.consume(RecordBox.get().getRecord());
+        Assert.assertEquals(published, Arrays.asList(QueryCategorizer.Category.HAS_DATA, QueryCategorizer.Category.RATE_LIMITED,
+                                                     QueryCategorizer.Category.RATE_LIMITED));
+    }
+
+    @Test
+    public void testPublishingClosingForRecordWindows() {
+        List<QueryCategorizer.Category> published = new ArrayList<>();
+        Query query = new Query(new Projection(), null, new Raw(null), null, WindowUtils.makeSlidingWindow(2), null);
+        Querier querier = make(Querier.Mode.ALL, query);
+        querier.setListener(published::add);
+
+        querier.consume(RecordBox.get().getRecord());
+        querier.consume(RecordBox.get().getRecord());
+        Assert.assertEquals(published, Arrays.asList(QueryCategorizer.Category.HAS_DATA, QueryCategorizer.Category.CLOSED));
+
+        querier.reset();
+        querier.consume(makeStream(3).collect(Collectors.toList()));
+        Assert.assertEquals(published, Arrays.asList(QueryCategorizer.Category.HAS_DATA, QueryCategorizer.Category.CLOSED,
+                                                     QueryCategorizer.Category.CLOSED));
+    }
+
+    @Test
+    public void testNotPublishingClosingForTimeWindows() {
+        List<QueryCategorizer.Category> published = new ArrayList<>();
+        Query query = new Query(new Projection(), null, new Raw(null), null, WindowUtils.makeTumblingWindow(1), null);
+        Querier querier = make(Querier.Mode.ALL, query);
+        querier.setListener(published::add);
+
+        querier.consume(makeStream(BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE + 1).collect(Collectors.toList()));
+        Assert.assertEquals(published, Collections.singletonList(QueryCategorizer.Category.HAS_DATA));
+    }
+
+    @Test
+    public void testDeadline() {
+        Querier querier = make(Querier.Mode.ALL, makeRawQuery());
+        Assert.assertEquals(querier.getDeadline(), Long.MAX_VALUE);
+
+        Query query = new Query(new Projection(), null, new Raw(null), null, new Window(), 1000L);
+        querier = make(Querier.Mode.ALL, query);
+        Assert.assertEquals(querier.getDeadline(), querier.getRunningQuery().getStartTime() + 1000L);
+
+        query = new Query(new Projection(), null, new Raw(null), null, WindowUtils.makeTumblingWindow(1000), 1000000L);
+        querier = make(Querier.Mode.ALL, query);
+        long deadline = querier.getDeadline();
+        Assert.assertTrue(deadline < querier.getRunningQuery().getStartTime() + 1000000L);
+        querier.reset();
+        Assert.assertEquals(querier.getDeadline(), deadline + 1000L);
+    }
+
     @Test
     public void testFiltering() {
         Expression filter = new BinaryExpression(new FieldExpression("field"),
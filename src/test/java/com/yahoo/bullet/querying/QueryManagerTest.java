@@ -6,14 +6,19 @@
 package com.yahoo.bullet.querying;
 
 import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.pubsub.Metadata;
 import com.yahoo.bullet.query.Projection;
 import com.yahoo.bullet.query.Window;
+import com.yahoo.bullet.query.WindowUtils;
 import com.yahoo.bullet.query.Query;
 import com.yahoo.bullet.query.aggregations.Raw;
 import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
 import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.querying.partitioning.CollidingPartitioner;
 import com.yahoo.bullet.querying.partitioning.SimpleEqualityPartitioner;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
@@ -24,7 +29,9 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -32,7 +39,10 @@ import java.util.List;
 import java.util.Map;
 
 import static java.util.Arrays.asList;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -88,6 +98,20 @@ public class QueryManagerTest {
         return config.validate();
     }
 
+    private static BulletConfig getIntervalPartitionerConfig(String... fields) {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_PARTITIONER_ENABLE, true);
+        config.set(BulletConfig.QUERY_PARTITIONER_CLASS_NAME, BulletConfig.INTERVAL_PARTITIONER_CLASS_NAME);
+        config.set(BulletConfig.INTERVAL_PARTITIONER_FIELDS, asList(fields));
+        return config.validate();
+    }
+
+    private static Query getQuery(Expression filter) {
+        Query query = new Query(new Projection(), filter, new Raw(null), null, new Window(), null);
+        query.configure(new BulletConfig());
+        return query;
+    }
+
     private static void addQuerier(QueryManager manager, int i, int j, Map<String, Querier> queriers) {
         String value = String.valueOf(i);
         String id = String.valueOf((i * 100) + j);
@@ -294,6 +318,334 @@ public class QueryManagerTest {
         verify(querierB, never()).consume(recordB);
     }
 
+    @Test
+    public void testCategorizingBatch() {
+        QueryManager manager = new QueryManager(getEqualityPartitionerConfig("A", "B"));
+        Query queryA = getQuery(ImmutablePair.of("A", "foo"));
+        Query queryB = getQuery(ImmutablePair.of("A", "foo"), ImmutablePair.of("B", "bar"));
+        Query queryC = getQuery(ImmutablePair.of("A", "baz"));
+        Querier querierA = getQuerier(queryA);
+        Querier querierB = getQuerier(queryB);
+        Querier querierC = getQuerier(queryC);
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+
+        BulletRecord recordA = RecordBox.get().add("A", "foo").add("B", "bar").getRecord();
+        BulletRecord recordB = RecordBox.get().add("A", "foo").getRecord();
+        BulletRecord recordC = RecordBox.get().add("A", "qux").getRecord();
+
+        QueryCategorizer categorizer = manager.categorize(asList(recordA, recordB, recordC));
+        Assert.assertEquals(categorizer.getDone().size(), 0);
+        Assert.assertEquals(categorizer.getClosed().size(), 0);
+        Assert.assertEquals(categorizer.getRateLimited().size(), 0);
+        verify(querierA, times(1)).consume(asList(recordA, recordB));
+        verify(querierB, times(1)).consume(asList(recordA));
+        verify(querierC, never()).consume(anyList());
+        verify(querierA, never()).consume(any(BulletRecord.class));
+        verify(querierA, times(1)).isDone();
+        verify(querierB, times(1)).isDone();
+        verify(querierC, never()).isDone();
+
+        Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 3L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 9L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED), 6L);
+    }
+
+    @Test
+    public void testCategorizingBatchWithRecordWindows() {
+        BulletConfig config = new BulletConfig();
+        Expression filter = new BinaryExpression(new FieldExpression("A"), new ValueExpression("foo"), Operation.EQUALS);
+        Query query = new Query(new Projection(), filter, new Raw(null), null, WindowUtils.makeSlidingWindow(1), null);
+        query.configure(config);
+        Querier querier = new Querier(new RunningQuery("idA", query, new Metadata()), config);
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", querier);
+
+        List<BulletRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(RecordBox.get().add("A", "foo").add("id", i).getRecord());
+        }
+
+        // Each record is a window by itself like it is when categorizing one record at a time
+        QueryCategorizer categorizer = manager.categorize(records);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(categorizer.getClosed().keySet(), Collections.singleton("idA"));
+            Assert.assertEquals(querier.getRecords(), Collections.singletonList(records.get(i)));
+            querier.reset();
+            Assert.assertEquals(categorizer.getRemaining().isEmpty(), i == 99);
+            categorizer = manager.categorizeRemaining(categorizer.getRemaining());
+        }
+        Assert.assertTrue(categorizer.isEmpty());
+        Assert.assertTrue(categorizer.getRemaining().isEmpty());
+    }
+
+    @Test
+    public void testConsumingBatchWithRecordWindows() {
+        BulletConfig config = new BulletConfig();
+        Query query = new Query(new Projection(), null, new Raw(null), null, WindowUtils.makeSlidingWindow(2), null);
+        query.configure(config);
+        Querier querier = new Querier(new RunningQuery("idA", query, new Metadata()), config);
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", querier);
+
+        BulletRecord recordA = RecordBox.get().add("id", 1).getRecord();
+        BulletRecord recordB = RecordBox.get().add("id", 2).getRecord();
+        BulletRecord recordC = RecordBox.get().add("id", 3).getRecord();
+        manager.consume(asList(recordA, recordB, recordC));
+
+        QueryCategorizer categorizer = manager.drain();
+        Assert.assertEquals(categorizer.getClosed().keySet(), Collections.singleton("idA"));
+        Assert.assertEquals(categorizer.getRemaining(), Collections.singletonMap("idA", Collections.singletonList(recordC)));
+        Assert.assertEquals(querier.getRecords(), asList(recordA, recordB));
+        querier.reset();
+
+        manager.consumeRemaining(categorizer.getRemaining());
+        Assert.assertEquals(querier.getRecords(), Collections.singletonList(recordC));
+        Assert.assertEquals(manager.drain().getHasData().keySet(), Collections.singleton("idA"));
+
+        // Removed queries are skipped
+        manager.removeAndGetQuery("idA");
+        manager.consumeRemaining(Collections.singletonMap("idA", Collections.singletonList(recordA)));
+        Assert.assertEquals(querier.getRecords(), Collections.singletonList(recordC));
+    }
+
+    @Test
+    public void testSharingFilterEvaluation() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_SHARED_EVALUATION_ENABLE, true);
+        config.validate();
+        Query queryA = getQuery(ImmutablePair.of("A", "foo"), ImmutablePair.of("B", "bar"));
+        Query queryB = getQuery(ImmutablePair.of("A", "foo"), ImmutablePair.of("B", "baz"));
+        Querier querierA = new Querier(new RunningQuery("idA", queryA, new Metadata()), config);
+        Querier querierB = new Querier(new RunningQuery("idB", queryB, new Metadata()), config);
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+
+        BulletRecord record = spy(RecordBox.get().add("A", "foo").add("B", "bar").getRecord());
+        manager.consume(record);
+        verify(record, times(1)).typedGet("A");
+        verify(record, times(1)).typedGet("B");
+        Assert.assertEquals(manager.drain().getHasData().keySet(), Collections.singleton("idA"));
+
+        BulletRecord recordA = spy(RecordBox.get().add("A", "foo").add("B", "baz").getRecord());
+        BulletRecord recordB = spy(RecordBox.get().add("A", "qux").getRecord());
+        manager.consume(asList(recordA, recordB));
+        verify(recordA, times(1)).typedGet("A");
+        verify(recordB, times(1)).typedGet("A");
+        Assert.assertEquals(manager.drain().getHasData().keySet(), Collections.singleton("idB"));
+
+        // Removed queries evaluate their filters by themselves
+        manager.removeAndGetQuery("idA");
+        record = spy(RecordBox.get().add("A", "foo").add("B", "bar").getRecord());
+        querierA.consume(record);
+        querierB.consume(record);
+        verify(record, times(2)).typedGet("A");
+    }
+
+    @Test
+    public void testSharingFilterEvaluationWithReusedRecords() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_SHARED_EVALUATION_ENABLE, true);
+        config.validate();
+        Query query = getQuery(ImmutablePair.of("A", "foo"));
+        Querier querier = new Querier(new RunningQuery("idA", query, new Metadata()), config);
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", querier);
+
+        BulletRecord record = RecordBox.get().add("A", "foo").getRecord();
+        manager.partition(record).values().forEach(q -> q.consume(record));
+        Assert.assertEquals(querier.getRecords().size(), 1);
+
+        // The same instance changed in place is evaluated anew once it is partitioned again
+        record.setString("A", "bar");
+        manager.partition(record).values().forEach(q -> q.consume(record));
+        Assert.assertEquals(querier.getRecords().size(), 1);
+
+        record.setString("A", "foo");
+        manager.categorize(record);
+        Assert.assertEquals(querier.getRecords().size(), 2);
+    }
+
+    @Test
+    public void testNotSharingFilterEvaluation() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_SHARED_EVALUATION_ENABLE, false);
+        config.validate();
+        Query queryA = getQuery(ImmutablePair.of("A", "foo"), ImmutablePair.of("B", "bar"));
+        Query queryB = getQuery(ImmutablePair.of("A", "foo"), ImmutablePair.of("B", "baz"));
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", new Querier(new RunningQuery("idA", queryA, new Metadata()), config));
+        manager.addQuery("idB", new Querier(new RunningQuery("idB", queryB, new Metadata()), config));
+
+        BulletRecord record = spy(RecordBox.get().add("A", "foo").add("B", "bar").getRecord());
+        manager.consume(record);
+        // Each query evaluates its own filter but the field itself is only extracted once for the record
+        verify(record, times(1)).typedGet("A");
+        verify(record, times(1)).typedGet("B");
+        Assert.assertEquals(manager.drain().getHasData().keySet(), Collections.singleton("idA"));
+    }
+
+    @Test
+    public void testSharingFieldExtraction() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_SHARED_EVALUATION_ENABLE, false);
+        config.validate();
+        Query queryA = getQuery(ImmutablePair.of("A", "foo"));
+        Query queryB = getQuery(ImmutablePair.of("A", "bar"));
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", new Querier(new RunningQuery("idA", queryA, new Metadata()), config));
+        manager.addQuery("idB", new Querier(new RunningQuery("idB", queryB, new Metadata()), config));
+
+        BulletRecord record = spy(RecordBox.get().add("A", "foo").getRecord());
+        QueryCategorizer categorizer = manager.categorize(record);
+        verify(record, times(1)).typedGet("A");
+        Assert.assertEquals(categorizer.getHasData().keySet(), Collections.singleton("idA"));
+
+        // Outside of the manager, the queries extract the field by themselves
+        record = spy(RecordBox.get().add("A", "foo").getRecord());
+        manager.getQuery("idA").consume(record);
+        manager.getQuery("idB").consume(record);
+        verify(record, times(2)).typedGet("A");
+    }
+
+    @Test
+    public void testSharingFieldExtractionInBatches() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_SHARED_EVALUATION_ENABLE, false);
+        config.validate();
+        Query queryA = getQuery(ImmutablePair.of("A", "foo"));
+        Query queryB = getQuery(ImmutablePair.of("A", "bar"));
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", new Querier(new RunningQuery("idA", queryA, new Metadata()), config));
+        manager.addQuery("idB", new Querier(new RunningQuery("idB", queryB, new Metadata()), config));
+
+        BulletRecord recordA = spy(RecordBox.get().add("A", "foo").getRecord());
+        BulletRecord recordB = spy(RecordBox.get().add("A", "bar").getRecord());
+        BulletRecord recordC = spy(RecordBox.get().add("A", "baz").getRecord());
+        QueryCategorizer categorizer = manager.categorize(asList(recordA, recordB, recordC));
+        verify(recordA, times(1)).typedGet("A");
+        verify(recordB, times(1)).typedGet("A");
+        verify(recordC, times(1)).typedGet("A");
+        Assert.assertEquals(categorizer.getHasData().keySet(), new HashSet<>(asList("idA", "idB")));
+
+        recordA = spy(RecordBox.get().add("A", "foo").getRecord());
+        recordB = spy(RecordBox.get().add("A", "bar").getRecord());
+        manager.consume(asList(recordA, recordB));
+        verify(recordA, times(1)).typedGet("A");
+        verify(recordB, times(1)).typedGet("A");
+
+        // Nothing is cached after the batch
+        manager.getQuery("idA").consume(recordA);
+        manager.getQuery("idB").consume(recordA);
+        verify(recordA, times(3)).typedGet("A");
+    }
+
+    @Test
+    public void testSkippingQueriesWithMissingRequiredFields() {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_REQUIRED_FIELDS_ENABLE, true);
+        config.validate();
+        Expression isNull = new UnaryExpression(new FieldExpression("B"), Operation.IS_NULL);
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", new Querier(new RunningQuery("idA", getQuery(ImmutablePair.of("A", "foo")), new Metadata()), config));
+        manager.addQuery("idB", new Querier(new RunningQuery("idB", getQuery(ImmutablePair.of("A", "foo"), ImmutablePair.of("B", "bar")), new Metadata()), config));
+        manager.addQuery("idC", new Querier(new RunningQuery("idC", getQuery(isNull), new Metadata()), config));
+
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", "foo").add("B", "bar").getRecord()).keySet(),
+                            new HashSet<>(asList("idA", "idB", "idC")));
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", "foo").getRecord()).keySet(),
+                            new HashSet<>(asList("idA", "idC")));
+        Assert.assertEquals(manager.partition(RecordBox.get().add("C", "foo").getRecord()).keySet(), Collections.singleton("idC"));
+
+        QueryCategorizer categorizer = manager.categorize(RecordBox.get().add("A", "foo").getRecord());
+        Assert.assertEquals(categorizer.getHasData().keySet(), new HashSet<>(asList("idA", "idC")));
+
+        Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 8L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED), 4L);
+
+        // Removed queries are not skipped any more
+        manager.removeAndGetQuery("idB");
+        Assert.assertEquals(manager.partition(RecordBox.get().getRecord()).keySet(), Collections.singleton("idC"));
+        manager.removeAndGetQuery("idA");
+        Assert.assertEquals(manager.partition(RecordBox.get().getRecord()).keySet(), Collections.singleton("idC"));
+    }
+
+    @Test
+    public void testDrainingChanges() {
+        BulletConfig config = getEqualityPartitionerConfig("A");
+        Query queryA = getQuery(ImmutablePair.of("A", "foo"));
+        Query queryB = getQuery(ImmutablePair.of("A", "bar"));
+        Querier querierA = new Querier(new RunningQuery("idA", queryA, new Metadata()), config);
+        Querier querierB = new Querier(new RunningQuery("idB", queryB, new Metadata()), config);
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+
+        Assert.assertTrue(manager.drain().isEmpty());
+
+        manager.consume(RecordBox.get().add("A", "foo").getRecord());
+        manager.consume(RecordBox.get().add("A", "baz").getRecord());
+        QueryCategorizer categorizer = manager.drain();
+        Assert.assertEquals(categorizer.getHasData().keySet(), Collections.singleton("idA"));
+        Assert.assertTrue(categorizer.getDone().isEmpty());
+        Assert.assertTrue(manager.drain().isEmpty());
+
+        List<BulletRecord> records = new ArrayList<>();
+        for (int i = 0; i < BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE; i++) {
+            records.add(RecordBox.get().add("A", "foo").getRecord());
+        }
+        records.add(RecordBox.get().add("A", "bar").getRecord());
+        manager.consume(records);
+        categorizer = manager.drain();
+        Assert.assertEquals(categorizer.getDone().keySet(), Collections.singleton("idA"));
+        Assert.assertEquals(categorizer.getHasData().keySet(), Collections.singleton("idB"));
+
+        manager.consume(RecordBox.get().add("A", "bar").getRecord());
+        manager.removeAndGetQuery("idB");
+        Assert.assertTrue(manager.drain().isEmpty());
+
+        Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 3L + BulletConfig.DEFAULT_RAW_AGGREGATION_MAX_SIZE);
+    }
+
+    @Test
+    public void testCategorizingExpired() throws Exception {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_TIMER_TICK_MS, 1);
+        config.validate();
+        Query queryA = new Query(new Projection(), null, new Raw(null), null, new Window(), 1L);
+        queryA.configure(config);
+        Query queryB = new Query(new Projection(), null, new Raw(null), null, new Window(), 3600000L);
+        queryB.configure(config);
+        Query queryC = getQuery(ImmutablePair.of("A", "foo"));
+        Querier querierA = spy(new Querier(new RunningQuery("idA", queryA, new Metadata()), config));
+        Querier querierB = spy(new Querier(new RunningQuery("idB", queryB, new Metadata()), config));
+        Querier querierC = spy(new Querier(new RunningQuery("idC", queryC, new Metadata()), config));
+        QueryManager manager = new QueryManager(config);
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+
+        Thread.sleep(5);
+        QueryCategorizer categorizer = manager.categorizeExpired();
+        Assert.assertEquals(categorizer.getDone().keySet(), Collections.singleton("idA"));
+        verify(querierB, never()).isDone();
+        verify(querierC, never()).isDone();
+
+        // Still timed out till removed
+        Thread.sleep(5);
+        Assert.assertEquals(manager.categorizeExpired().getDone().keySet(), Collections.singleton("idA"));
+        manager.removeAndGetQuery("idA");
+        Thread.sleep(5);
+        Assert.assertTrue(manager.categorizeExpired().isEmpty());
+        verify(querierB, never()).isDone();
+        verify(querierC, never()).isDone();
+    }
+
     @Test
     public void testSmallStatistics() {
         QueryManager manager = new QueryManager(getEqualityPartitionerConfig("A"));
@@ -384,16 +736,19 @@ public class QueryManagerTest {
         stats = manager.getStats();
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 3L);
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 3L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED), 0L);
 
         manager.categorize(recordB);
         stats = manager.getStats();
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 5L);
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 6L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED), 1L);
 
         manager.categorize(recordC);
         stats = manager.getStats();
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 6L);
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 9L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED), 3L);
     }
 
     @Test
@@ -431,4 +786,84 @@ public class QueryManagerTest {
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERY_COUNT), 0);
         Assert.assertEquals(stats.get(QueryManager.PartitionStat.PARTITION_COUNT), 0);
     }
+
+    @Test
+    public void testIntervalPartitioning() {
+        QueryManager manager = new QueryManager(getIntervalPartitionerConfig("A"));
+        Query queryA = getQuery(new BinaryExpression(new FieldExpression("A"), new ValueExpression(500), Operation.GREATER_THAN));
+        Query queryB = getQuery(new BinaryExpression(new FieldExpression("A"), new ValueExpression(100L), Operation.LESS_THAN_OR_EQUALS));
+        Query queryC = getQuery();
+        Querier querierA = getQuerier(queryA);
+        Querier querierB = getQuerier(queryB);
+        Querier querierC = getQuerier(queryC);
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+
+        Map<String, Querier> expected = new HashMap<>();
+        expected.put("idA", querierA);
+        expected.put("idC", querierC);
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", 600.0).getRecord()), expected);
+
+        expected.clear();
+        expected.put("idB", querierB);
+        expected.put("idC", querierC);
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", 42).getRecord()), expected);
+
+        expected.clear();
+        expected.put("idC", querierC);
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", 300L).getRecord()), expected);
+        Assert.assertEquals(manager.partition(RecordBox.get().getRecord()), expected);
+
+        Map<QueryManager.PartitionStat, Object> stats = manager.getStats();
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.ACTUAL_QUERIES_SEEN), 6L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.EXPECTED_QUERIES_SEEN), 12L);
+        Assert.assertEquals(stats.get(QueryManager.PartitionStat.QUERIES_SKIPPED), 6L);
+
+        manager.removeAndGetQuery("idA");
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", 600.0).getRecord()), expected);
+        Assert.assertEquals(manager.getStats().get(QueryManager.PartitionStat.PARTITION_COUNT), 2);
+    }
+
+    @Test
+    public void testPartitioningWithCollidingHashes() {
+        BulletConfig config = getEqualityPartitionerConfig("A", "B");
+        config.set(BulletConfig.QUERY_PARTITIONER_CLASS_NAME, CollidingPartitioner.class.getName());
+        QueryManager manager = new QueryManager(config.validate());
+        // The keys foo.-*, bar.-* and *-baz. all have the same hash
+        Querier querierA = getQuerier(getQuery(ImmutablePair.of("A", "foo")));
+        Querier querierB = getQuerier(getQuery(ImmutablePair.of("A", "bar")));
+        Querier querierC = getQuerier(getQuery(ImmutablePair.of("B", "baz")));
+        Querier querierD = getQuerier(getQuery());
+        manager.addQuery("idA", querierA);
+        manager.addQuery("idB", querierB);
+        manager.addQuery("idC", querierC);
+        manager.addQuery("idD", querierD);
+
+        Map<String, Querier> expected = new HashMap<>();
+        expected.put("idA", querierA);
+        expected.put("idD", querierD);
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", "foo").add("B", "qux").getRecord()), expected);
+
+        expected.clear();
+        expected.put("idB", querierB);
+        expected.put("idC", querierC);
+        expected.put("idD", querierD);
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", "bar").add("B", "baz").getRecord()), expected);
+
+        manager.removeAndGetQuery("idB");
+        expected.remove("idB");
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", "bar").add("B", "baz").getRecord()), expected);
+
+        manager.removeAndGetQuery("idC");
+        expected.remove("idC");
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", "bar").add("B", "baz").getRecord()), expected);
+
+        expected.put("idA", querierA);
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", "foo").add("B", "baz").getRecord()), expected);
+
+        manager.removeAndGetQuery("idA");
+        expected.remove("idA");
+        Assert.assertEquals(manager.partition(RecordBox.get().add("A", "foo").add("B", "baz").getRecord()), expected);
+    }
 }
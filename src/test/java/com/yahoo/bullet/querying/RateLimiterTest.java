@@ -39,6 +39,25 @@ public class RateLimiterTest {
         new RateLimiter(10, -10);
     }
 
+    @Test
+    public void testUsingClock() {
+        long[] time = {1000L};
+        RateLimiter limiter = new RateLimiter(10, 100, () -> time[0]);
+        limiter.add(5);
+        Assert.assertFalse(limiter.isRateLimited());
+        time[0] += 10;
+        Assert.assertEquals(limiter.getCurrentRate(), 0.5);
+
+        time[0] += 90;
+        Assert.assertFalse(limiter.isRateLimited());
+        limiter.add(11);
+        time[0] += 50;
+        Assert.assertFalse(limiter.isRateLimited());
+        time[0] += 50;
+        Assert.assertTrue(limiter.isRateLimited());
+        Assert.assertTrue(limiter.isExceededRate());
+    }
+
     @Test
     public void testCreationWithDefaultTimeInterval() {
         RateLimiter limiter = new RateLimiter(10);
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class RequiredFieldsTest {
+    private static Expression field(String name) {
+        return new FieldExpression(name);
+    }
+
+    private static Expression value(int value) {
+        return new ValueExpression(value);
+    }
+
+    private static Expression binary(Expression left, Expression right, Operation op) {
+        return new BinaryExpression(left, right, op);
+    }
+
+    private static Set<String> set(String... fields) {
+        return new HashSet<>(Arrays.asList(fields));
+    }
+
+    @Test
+    public void testRequiredFields() {
+        Expression a = binary(field("a"), value(1), Operation.EQUALS);
+        Expression b = binary(binary(field("b"), field("c"), Operation.ADD), value(1), Operation.GREATER_THAN);
+
+        Assert.assertEquals(RequiredFields.of(null), set());
+        Assert.assertEquals(RequiredFields.of(field("a")), set("a"));
+        Assert.assertEquals(RequiredFields.of(a), set("a"));
+        Assert.assertEquals(RequiredFields.of(b), set("b", "c"));
+        Assert.assertEquals(RequiredFields.of(binary(a, b, Operation.AND)), set("a", "b", "c"));
+        Assert.assertEquals(RequiredFields.of(new NAryExpression(Arrays.asList(a, field("d"), b), Operation.AND)), set("a", "b", "c", "d"));
+        Assert.assertEquals(RequiredFields.of(new UnaryExpression(a, Operation.NOT)), set("a"));
+        Assert.assertEquals(RequiredFields.of(new FieldExpression("e", "f")), set("e"));
+    }
+
+    @Test
+    public void testNotRequiredFields() {
+        Expression a = binary(field("a"), value(1), Operation.EQUALS);
+        Expression b = binary(field("b"), value(1), Operation.EQUALS);
+
+        Assert.assertEquals(RequiredFields.of(binary(a, b, Operation.OR)), set());
+        Assert.assertEquals(RequiredFields.of(binary(binary(a, b, Operation.OR), field("c"), Operation.AND)), set("c"));
+        Assert.assertEquals(RequiredFields.of(new UnaryExpression(field("a"), Operation.IS_NULL)), set());
+        Assert.assertEquals(RequiredFields.of(new UnaryExpression(field("a"), Operation.IS_NOT_NULL)), set());
+        Assert.assertEquals(RequiredFields.of(new NAryExpression(Arrays.asList(a, b, field("c")), Operation.IF)), set());
+        // NOT (a AND b) is true if a is missing and b is false
+        Assert.assertEquals(RequiredFields.of(new UnaryExpression(binary(a, b, Operation.AND), Operation.NOT)), set());
+        // The fields in a list are not required since the list itself is not null
+        Expression in = binary(value(1), new ListExpression(Collections.singletonList(field("a"))), Operation.IN);
+        Assert.assertEquals(RequiredFields.of(in), set());
+    }
+
+    @Test
+    public void testFindingMissingFields() {
+        RequiredFields requiredFields = new RequiredFields();
+        Assert.assertEquals(requiredFields.findMissing(RecordBox.get().getRecord()), set());
+
+        requiredFields.add("idA", set("a"));
+        requiredFields.add("idB", set("a", "b"));
+        requiredFields.add("idC", set());
+
+        Assert.assertEquals(requiredFields.findMissing(RecordBox.get().add("a", 1).add("b", 2).getRecord()), set());
+        Assert.assertEquals(requiredFields.findMissing(RecordBox.get().add("a", 1).add("c", 2).getRecord()), set("idB"));
+        Assert.assertEquals(requiredFields.findMissing(RecordBox.get().add("c", 2).getRecord()), set("idA", "idB"));
+
+        requiredFields.remove("idB");
+        requiredFields.remove("idC");
+        Assert.assertEquals(requiredFields.findMissing(RecordBox.get().add("a", 1).getRecord()), set());
+        Assert.assertEquals(requiredFields.findMissing(RecordBox.get().add("b", 1).getRecord()), set("idA"));
+
+        requiredFields.remove("idA");
+        Assert.assertEquals(requiredFields.findMissing(RecordBox.get().getRecord()), set());
+    }
+}
@@ -56,4 +56,30 @@ public class RunningQueryTest {
 
         Assert.assertTrue(runningQuery.isTimedOut());
     }
+
+    @Test
+    public void testTimingOutAtTime() {
+        BulletConfig config = new BulletConfig();
+        Query query = new Query(new Projection(), null, new Raw(null), null, new Window(), 1000L);
+        query.configure(config);
+        RunningQuery runningQuery = new RunningQuery("foo", query, new Metadata(null, null));
+
+        long startTime = runningQuery.getStartTime();
+        Assert.assertFalse(runningQuery.isTimedOut(startTime + 999L));
+        Assert.assertTrue(runningQuery.isTimedOut(startTime + 1000L));
+    }
+
+    @Test
+    public void testTimeoutTime() {
+        BulletConfig config = new BulletConfig();
+        Query query = new Query(new Projection(), null, new Raw(null), null, new Window(), 1000L);
+        query.configure(config);
+        RunningQuery runningQuery = new RunningQuery("foo", query, new Metadata(null, null));
+        Assert.assertEquals(runningQuery.getTimeoutTime(), runningQuery.getStartTime() + 1000L);
+
+        query = new Query(new Projection(), null, new Raw(null), null, new Window(), null);
+        query.configure(config);
+        runningQuery = new RunningQuery("foo", query, new Metadata(null, null));
+        Assert.assertEquals(runningQuery.getTimeoutTime(), Long.MAX_VALUE);
+    }
 }
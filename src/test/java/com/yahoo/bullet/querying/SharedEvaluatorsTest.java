@@ -0,0 +1,186 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying;
+
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.querying.evaluators.Evaluator;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SharedEvaluatorsTest {
+    private static Expression greaterThan(String field, int value) {
+        return new BinaryExpression(new FieldExpression(field), new ValueExpression(value), Operation.GREATER_THAN);
+    }
+
+    private static Expression and(Expression left, Expression right) {
+        return new BinaryExpression(left, right, Operation.AND);
+    }
+
+    private static BulletRecord record(int a, int b) {
+        return spy(RecordBox.get().add("a", a).add("b", b).getRecord());
+    }
+
+    @Test
+    public void testSharingEqualSubexpressions() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Evaluator first = shared.register(and(greaterThan("a", 0), greaterThan("b", 0)));
+        Evaluator second = shared.register(and(greaterThan("a", 0), greaterThan("b", 1)));
+        Evaluator third = shared.register(greaterThan("a", 0));
+        // a, a > 0, b, b > 0, b > 1 and the two ANDs
+        Assert.assertEquals(shared.size(), 7);
+
+        BulletRecord record = record(1, 1);
+        Assert.assertEquals(first.evaluate(record), new TypedObject(true));
+        Assert.assertEquals(second.evaluate(record), new TypedObject(false));
+        Assert.assertEquals(third.evaluate(record), new TypedObject(true));
+        verify(record, times(1)).typedGet("a");
+        verify(record, times(1)).typedGet("b");
+    }
+
+    @Test
+    public void testSharingEqualRegisteredExpressions() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Evaluator first = shared.register(greaterThan("a", 0));
+        Evaluator second = shared.register(greaterThan("a", 0));
+        Assert.assertSame(first, second);
+        Assert.assertEquals(shared.size(), 2);
+
+        BulletRecord record = record(1, 1);
+        Assert.assertEquals(first.evaluate(record), new TypedObject(true));
+        Assert.assertEquals(second.evaluate(record), new TypedObject(true));
+        verify(record, times(1)).typedGet("a");
+    }
+
+    @Test
+    public void testNotSharingConstants() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Evaluator evaluator = shared.register(new ValueExpression(1));
+        Assert.assertEquals(shared.size(), 0);
+        Assert.assertEquals(evaluator.evaluate(record(1, 1)), new TypedObject(1));
+        shared.unregister(new ValueExpression(1));
+        Assert.assertEquals(shared.size(), 0);
+    }
+
+    @Test
+    public void testEvaluatingNewRecords() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Evaluator evaluator = shared.register(greaterThan("a", 0));
+
+        BulletRecord recordA = record(1, 1);
+        BulletRecord recordB = record(0, 1);
+        Assert.assertEquals(evaluator.evaluate(recordA), new TypedObject(true));
+        Assert.assertEquals(evaluator.evaluate(recordB), new TypedObject(false));
+        Assert.assertEquals(evaluator.evaluate(recordA), new TypedObject(true));
+        verify(recordA, times(2)).typedGet("a");
+        verify(recordB, times(1)).typedGet("a");
+    }
+
+    @Test
+    public void testClearingForRecordsChangedInPlace() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Evaluator evaluator = shared.register(greaterThan("a", 0));
+
+        BulletRecord record = RecordBox.get().add("a", 1).getRecord();
+        Assert.assertEquals(evaluator.evaluate(record), new TypedObject(true));
+        record.typedSet("a", new TypedObject(0));
+        Assert.assertEquals(evaluator.evaluate(record), new TypedObject(true));
+        shared.clear();
+        Assert.assertEquals(evaluator.evaluate(record), new TypedObject(false));
+    }
+
+    @Test
+    public void testRememberingErrors() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Evaluator evaluator = shared.register(new UnaryExpression(new FieldExpression("a"), Operation.SIZE_OF));
+        BulletRecord record = record(1, 1);
+        for (int i = 0; i < 2; i++) {
+            try {
+                evaluator.evaluate(record);
+                Assert.fail();
+            } catch (RuntimeException ignored) {
+            }
+        }
+        verify(record, times(1)).typedGet("a");
+    }
+
+    @Test
+    public void testEvaluatingBatches() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Evaluator first = shared.register(greaterThan("a", 0));
+        Evaluator second = shared.register(and(greaterThan("a", 0), greaterThan("b", 0)));
+
+        BulletRecord recordA = record(1, 1);
+        BulletRecord recordB = record(0, 1);
+        BulletRecord recordC = record(1, 0);
+        shared.begin(Arrays.asList(recordA, recordB, recordC));
+        Assert.assertEquals(first.evaluate(recordA), new TypedObject(true));
+        Assert.assertEquals(first.evaluate(recordB), new TypedObject(false));
+        Assert.assertEquals(first.evaluate(recordC), new TypedObject(true));
+        Assert.assertEquals(second.evaluate(recordA), new TypedObject(true));
+        Assert.assertEquals(second.evaluate(recordB), new TypedObject(false));
+        Assert.assertEquals(second.evaluate(recordC), new TypedObject(false));
+        shared.end();
+
+        verify(recordA, times(1)).typedGet("a");
+        verify(recordB, times(1)).typedGet("a");
+        verify(recordC, times(1)).typedGet("a");
+
+        // Outside the batch only the last record is remembered
+        Assert.assertEquals(first.evaluate(recordA), new TypedObject(true));
+        Assert.assertEquals(first.evaluate(recordB), new TypedObject(false));
+        verify(recordA, times(2)).typedGet("a");
+    }
+
+    @Test
+    public void testUnregistering() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Expression first = and(greaterThan("a", 0), greaterThan("b", 0));
+        Expression second = greaterThan("a", 0);
+        shared.register(first);
+        Evaluator evaluator = shared.register(second);
+        Assert.assertEquals(shared.size(), 5);
+
+        shared.unregister(first);
+        Assert.assertEquals(shared.size(), 2);
+        Assert.assertEquals(evaluator.evaluate(record(1, 1)), new TypedObject(true));
+
+        // Freed slots are reused and do not see results remembered for the nodes that used them before
+        Evaluator other = shared.register(greaterThan("b", 5));
+        Assert.assertEquals(shared.size(), 4);
+        BulletRecord record = record(1, 1);
+        Assert.assertEquals(evaluator.evaluate(record), new TypedObject(true));
+        Assert.assertEquals(other.evaluate(record), new TypedObject(false));
+
+        shared.unregister(second);
+        shared.unregister(greaterThan("b", 5));
+        Assert.assertEquals(shared.size(), 0);
+        shared.unregister(second);
+        Assert.assertEquals(shared.size(), 0);
+    }
+
+    @Test
+    public void testFilteringWithSharedEvaluator() {
+        SharedEvaluators shared = new SharedEvaluators();
+        Filter filter = new Filter(shared.register(greaterThan("a", 0)));
+        Assert.assertTrue(filter.match(record(1, 1)));
+        Assert.assertFalse(filter.match(record(0, 1)));
+        Assert.assertFalse(filter.match(null));
+    }
+}
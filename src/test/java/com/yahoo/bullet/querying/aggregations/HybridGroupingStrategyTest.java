@@ -0,0 +1,314 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.aggregations.GroupBy;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation;
+import com.yahoo.bullet.querying.aggregations.sketches.KMVSketch;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.Clip;
+import com.yahoo.bullet.result.Meta.Concept;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.sketches.Family;
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static com.yahoo.bullet.TestHelpers.addMetadata;
+import static com.yahoo.bullet.TestHelpers.assertContains;
+import static com.yahoo.bullet.querying.aggregations.AggregationUtils.makeGroupFields;
+import static com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType.COUNT;
+import static com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType.SUM;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+@SuppressWarnings("unchecked")
+public class HybridGroupingStrategyTest {
+    private static List<Map.Entry<Concept, String>> ALL_METADATA =
+            asList(Pair.of(Concept.SKETCH_METADATA, "aggregate_stats"),
+                   Pair.of(Concept.SKETCH_THETA, "theta"),
+                   Pair.of(Concept.SKETCH_ESTIMATED_RESULT, "isEstimate"),
+                   Pair.of(Concept.SKETCH_UNIQUES_ESTIMATE, "uniquesApprox"),
+                   Pair.of(Concept.SKETCH_STANDARD_DEVIATIONS, "stddev"),
+                   Pair.of(Concept.SKETCH_FAMILY, "family"));
+
+    private static HybridGroupingStrategy makeGroupBy(BulletConfig config, List<String> fields, int size, GroupOperation... operations) {
+        config.set(BulletConfig.GROUP_AGGREGATION_EXACT_ENABLE, true);
+        GroupBy aggregation = new GroupBy(size, makeGroupFields(fields), new HashSet<>(asList(operations)));
+        return (HybridGroupingStrategy) aggregation.getStrategy(addMetadata(config, ALL_METADATA));
+    }
+
+    private static HybridGroupingStrategy makeGroupBy(int k, List<String> fields, int size, GroupOperation... operations) {
+        return makeGroupBy(TupleSketchingStrategyTest.makeConfiguration(k), fields, size, operations);
+    }
+
+    private static HybridGroupingStrategy makeGroupBy(int k) {
+        return makeGroupBy(k, singletonList("fieldA"), k, new GroupOperation(COUNT, null, "count"));
+    }
+
+    private static void consumeGroups(Strategy groupBy, int groups, int times) {
+        IntStream.range(0, groups * times).mapToObj(i -> RecordBox.get().add("fieldA", i % groups).getRecord())
+                                          .forEach(groupBy::consume);
+    }
+
+    private static Map<String, Object> getStats(Strategy groupBy) {
+        return (Map<String, Object>) groupBy.getMetadata().asMap().get("aggregate_stats");
+    }
+
+    @Test
+    public void testExactGroups() {
+        HybridGroupingStrategy groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 32, 4);
+
+        Assert.assertTrue(groupBy.isExact());
+
+        Clip aggregate = groupBy.getResult();
+        List<BulletRecord> records = aggregate.getRecords();
+        Assert.assertEquals(records.size(), 32);
+        Set<String> groups = new HashSet<>();
+        for (BulletRecord record : records) {
+            groups.add((String) record.typedGet("fieldA").getValue());
+            Assert.assertEquals(record.typedGet("count").getValue(), 4L);
+        }
+        Assert.assertEquals(groups.size(), 32);
+
+        Map<String, Object> stats = (Map<String, Object>) aggregate.getMeta().asMap().get("aggregate_stats");
+        Assert.assertEquals(stats.size(), 5);
+        Assert.assertFalse((Boolean) stats.get("isEstimate"));
+        Assert.assertEquals(stats.get("theta"), 1.0);
+        Assert.assertEquals(stats.get("uniquesApprox"), 32.0);
+        Assert.assertEquals((String) stats.get("family"), Family.TUPLE.getFamilyName());
+        Map<String, Map<String, Double>> standardDeviations = (Map<String, Map<String, Double>>) stats.get("stddev");
+        Assert.assertEquals(standardDeviations.keySet(), new HashSet<>(asList(KMVSketch.META_STD_DEV_1, KMVSketch.META_STD_DEV_2,
+                                                                              KMVSketch.META_STD_DEV_3)));
+        for (Map<String, Double> bounds : standardDeviations.values()) {
+            Assert.assertEquals(bounds.get(KMVSketch.META_STD_DEV_LB), 32.0);
+            Assert.assertEquals(bounds.get(KMVSketch.META_STD_DEV_UB), 32.0);
+        }
+
+        Assert.assertEquals(groupBy.getRecords(), aggregate.getRecords());
+        Assert.assertEquals(groupBy.getMetadata().asMap(), aggregate.getMeta().asMap());
+    }
+
+    @Test
+    public void testSameResultsAsSketchWhenExact() {
+        List<String> fields = asList("fieldA", "fieldB");
+        HybridGroupingStrategy groupBy = makeGroupBy(16, fields, 5, new GroupOperation(COUNT, null, "count"),
+                                                     new GroupOperation(SUM, "price", "priceSum"));
+        TupleSketchingStrategy sketchGroupBy = TupleSketchingStrategyTest.makeGroupBy(fields, 5, new GroupOperation(COUNT, null, "count"),
+                                                                                      new GroupOperation(SUM, "price", "priceSum"));
+
+        BulletRecord recordA = RecordBox.get().add("fieldA", "foo").add("fieldB", "bar").add("price", 3).getRecord();
+        BulletRecord recordB = RecordBox.get().addNull("fieldA").add("fieldB", "bar").add("price", 1).getRecord();
+        BulletRecord recordC = RecordBox.get().add("fieldA", "null").add("fieldB", "bar").getRecord();
+        for (BulletRecord record : asList(recordA, recordB, recordA, recordC, recordA)) {
+            groupBy.consume(record);
+            sketchGroupBy.consume(record);
+        }
+
+        List<BulletRecord> records = groupBy.getRecords();
+        List<BulletRecord> expected = sketchGroupBy.getRecords();
+        Assert.assertEquals(records.size(), 2);
+        Assert.assertEquals(records.size(), expected.size());
+        expected.forEach(record -> assertContains(records, record));
+
+        BulletRecord expectedA = RecordBox.get().add("fieldA", "foo").add("fieldB", "bar")
+                                                .add("count", 3L).add("priceSum", 9.0).getRecord();
+        BulletRecord expectedB = RecordBox.get().add("fieldA", "null").add("fieldB", "bar")
+                                                .add("count", 2L).add("priceSum", 1.0).getRecord();
+        assertContains(records, expectedA);
+        assertContains(records, expectedB);
+    }
+
+    @Test
+    public void testSwitchingToSketch() {
+        HybridGroupingStrategy groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 32, 1);
+        Assert.assertTrue(groupBy.isExact());
+
+        // The 33rd group moves all the groups into the sketch and the ones kept still have all their data
+        consumeGroups(groupBy, 64, 4);
+        Assert.assertFalse(groupBy.isExact());
+
+        Clip aggregate = groupBy.getResult();
+        List<BulletRecord> records = aggregate.getRecords();
+        Assert.assertEquals(records.size(), 32);
+        for (BulletRecord record : records) {
+            int group = Integer.valueOf((String) record.typedGet("fieldA").getValue());
+            Assert.assertEquals(record.typedGet("count").getValue(), group < 32 ? 5L : 4L);
+        }
+
+        Map<String, Object> stats = (Map<String, Object>) aggregate.getMeta().asMap().get("aggregate_stats");
+        Assert.assertEquals(stats.size(), 5);
+        Assert.assertTrue((Boolean) stats.get("isEstimate"));
+        Assert.assertTrue((Double) stats.get("theta") < 1.0);
+    }
+
+    @Test
+    public void testSameMetadataAsSketch() {
+        HybridGroupingStrategy groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 16, 1);
+        Assert.assertTrue(groupBy.isExact());
+        Map<String, Object> exactStats = getStats(groupBy);
+
+        TupleSketchingStrategy sketchGroupBy = TupleSketchingStrategyTest.makeGroupBy(TupleSketchingStrategyTest.makeConfiguration(32),
+                                                                                      makeGroupFields(singletonList("fieldA")), 32,
+                                                                                      singletonList(new GroupOperation(COUNT, null, "count")),
+                                                                                      ALL_METADATA);
+        consumeGroups(sketchGroupBy, 16, 1);
+        Map<String, Object> sketchStats = getStats(sketchGroupBy);
+
+        // Under the nominal entries, the sketch is exact too
+        Assert.assertEquals(exactStats, sketchStats);
+    }
+
+    @Test
+    public void testNotExactWhenSampling() {
+        BulletConfig config = TupleSketchingStrategyTest.makeConfiguration(BulletConfig.DEFAULT_GROUP_AGGREGATION_SKETCH_RESIZE_FACTOR,
+                                                                           0.5f, BulletConfig.DEFAULT_AGGREGATION_COMPOSITE_FIELD_SEPARATOR, 32);
+        HybridGroupingStrategy groupBy = makeGroupBy(config, singletonList("fieldA"), 32, new GroupOperation(COUNT, null, "count"));
+        Assert.assertFalse(groupBy.isExact());
+
+        consumeGroups(groupBy, 16, 1);
+        Assert.assertFalse(groupBy.isExact());
+        Assert.assertEquals(groupBy.getData()[0], HybridGroupingStrategy.SKETCH);
+        Assert.assertTrue((Double) getStats(groupBy).get("theta") < 1.0);
+
+        groupBy.reset();
+        Assert.assertFalse(groupBy.isExact());
+    }
+
+    @Test
+    public void testCombiningExactGroups() {
+        HybridGroupingStrategy groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 16, 2);
+        byte[] firstSerialized = groupBy.getData();
+        Assert.assertEquals(firstSerialized[0], HybridGroupingStrategy.EXACT);
+
+        groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 8, 3);
+        byte[] secondSerialized = groupBy.getData();
+
+        groupBy = makeGroupBy(32);
+        groupBy.combine(firstSerialized);
+        groupBy.combine(secondSerialized);
+        consumeGroups(groupBy, 4, 1);
+
+        Assert.assertTrue(groupBy.isExact());
+        List<BulletRecord> records = groupBy.getRecords();
+        Assert.assertEquals(records.size(), 16);
+        for (BulletRecord record : records) {
+            int group = Integer.valueOf((String) record.typedGet("fieldA").getValue());
+            long expected = 2L + (group < 8 ? 3L : 0L) + (group < 4 ? 1L : 0L);
+            Assert.assertEquals(record.typedGet("count").getValue(), expected);
+        }
+        Assert.assertFalse((Boolean) getStats(groupBy).get("isEstimate"));
+    }
+
+    @Test
+    public void testCombiningTooManyExactGroups() {
+        HybridGroupingStrategy groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 32, 1);
+        byte[] serialized = groupBy.getData();
+        Assert.assertEquals(serialized[0], HybridGroupingStrategy.EXACT);
+
+        groupBy = makeGroupBy(32);
+        IntStream.range(32, 64).mapToObj(i -> RecordBox.get().add("fieldA", i).getRecord()).forEach(groupBy::consume);
+        Assert.assertTrue(groupBy.isExact());
+        groupBy.combine(serialized);
+
+        Assert.assertFalse(groupBy.isExact());
+        Assert.assertEquals(groupBy.getData()[0], HybridGroupingStrategy.SKETCH);
+        List<BulletRecord> records = groupBy.getRecords();
+        Assert.assertEquals(records.size(), 32);
+        records.forEach(record -> Assert.assertEquals(record.typedGet("count").getValue(), 1L));
+        Assert.assertTrue((Boolean) getStats(groupBy).get("isEstimate"));
+    }
+
+    @Test
+    public void testCombiningSketchIntoExactGroups() {
+        HybridGroupingStrategy groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 64, 1);
+        byte[] serialized = groupBy.getData();
+        Assert.assertEquals(serialized[0], HybridGroupingStrategy.SKETCH);
+
+        groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 4, 2);
+        groupBy.combine(serialized);
+
+        Assert.assertFalse(groupBy.isExact());
+        List<BulletRecord> records = groupBy.getRecords();
+        // The groups kept depend on their hashes but the ones kept have all their data
+        Assert.assertFalse(records.isEmpty());
+        Assert.assertTrue(records.size() <= 32);
+        for (BulletRecord record : records) {
+            int group = Integer.valueOf((String) record.typedGet("fieldA").getValue());
+            Assert.assertEquals(record.typedGet("count").getValue(), group < 4 ? 3L : 1L);
+        }
+    }
+
+    @Test
+    public void testCombiningExactGroupsIntoSketch() {
+        HybridGroupingStrategy groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 4, 2);
+        byte[] serialized = groupBy.getData();
+
+        groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 64, 1);
+        groupBy.combine(serialized);
+
+        Assert.assertFalse(groupBy.isExact());
+        List<BulletRecord> records = groupBy.getRecords();
+        // The groups kept depend on their hashes but the ones kept have all their data
+        Assert.assertFalse(records.isEmpty());
+        Assert.assertTrue(records.size() <= 32);
+        for (BulletRecord record : records) {
+            int group = Integer.valueOf((String) record.typedGet("fieldA").getValue());
+            Assert.assertEquals(record.typedGet("count").getValue(), group < 4 ? 3L : 1L);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCombiningUnknownMode() {
+        makeGroupBy(32).combine(new byte[] { 2 });
+    }
+
+    @Test
+    public void testResetting() {
+        HybridGroupingStrategy groupBy = makeGroupBy(32);
+        consumeGroups(groupBy, 64, 1);
+        Assert.assertFalse(groupBy.isExact());
+
+        groupBy.reset();
+        Assert.assertTrue(groupBy.isExact());
+        Assert.assertTrue(groupBy.getRecords().isEmpty());
+
+        consumeGroups(groupBy, 2, 2);
+        List<BulletRecord> records = groupBy.getRecords();
+        Assert.assertEquals(records.size(), 2);
+        records.forEach(record -> Assert.assertEquals(record.typedGet("count").getValue(), 2L));
+        Assert.assertEquals(getStats(groupBy).get("uniquesApprox"), 2.0);
+    }
+
+    @Test
+    public void testNoMetadata() {
+        BulletConfig config = TupleSketchingStrategyTest.makeConfiguration(32);
+        config.set(BulletConfig.GROUP_AGGREGATION_EXACT_ENABLE, true);
+        GroupBy aggregation = new GroupBy(10, makeGroupFields(singletonList("fieldA")), new HashSet<>());
+        Strategy groupBy = aggregation.getStrategy(addMetadata(config, (List<Map.Entry<Concept, String>>) null));
+        consumeGroups(groupBy, 4, 1);
+
+        Assert.assertTrue(groupBy.getMetadata().asMap().isEmpty());
+        Assert.assertEquals(groupBy.getResult().getRecords().size(), 4);
+    }
+}
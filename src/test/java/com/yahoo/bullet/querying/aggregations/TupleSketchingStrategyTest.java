@@ -8,15 +8,20 @@ package com.yahoo.bullet.querying.aggregations;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.query.aggregations.GroupBy;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperationLayout;
+import com.yahoo.bullet.querying.aggregations.grouping.PrimitiveGroupData;
 import com.yahoo.bullet.querying.aggregations.sketches.KMVSketch;
+import com.yahoo.bullet.querying.aggregations.sketches.TupleSketch;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.Clip;
 import com.yahoo.bullet.result.Meta.Concept;
 import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.sketches.ResizeFactor;
 import org.apache.commons.lang3.tuple.Pair;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -402,4 +407,54 @@ public class TupleSketchingStrategyTest {
         Assert.assertEquals(groupBy.getRecords(), aggregate.getRecords());
         Assert.assertEquals(groupBy.getMetadata().asMap(), aggregate.getMeta().asMap());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnioningWithSketchesOfCompositeFields() {
+        List<String> fields = asList("fieldA", "fieldB");
+        GroupOperation count = new GroupOperation(COUNT, null, "count");
+        GroupOperationLayout layout = new GroupOperationLayout(singletonList(count));
+        BulletConfig config = makeConfiguration(64);
+        TupleSketchingStrategy groupBy = makeGroupBy(config, makeGroupFields(fields), 64, count);
+        IntStream.range(0, 16).mapToObj(i -> RecordBox.get().add("fieldA", i % 8).add("fieldB", "x").getRecord())
+                              .forEach(groupBy::consume);
+
+        // A sketch updated with the composite fields of the groups as keys as the strategy used to do
+        TupleSketch sketch = new TupleSketch(ResizeFactor.X8, 1.0f, 64, 64, config.getBulletRecordProvider(), layout,
+                                             makeGroupFields(fields));
+        String separator = BulletConfig.DEFAULT_AGGREGATION_COMPOSITE_FIELD_SEPARATOR;
+        for (int i = 0; i < 24; i++) {
+            String value = String.valueOf(i % 12);
+            Map<String, String> groupFields = new HashMap<>();
+            groupFields.put("fieldA", value);
+            groupFields.put("fieldB", "x");
+            PrimitiveGroupData data = new PrimitiveGroupData(groupFields, makeGroupFields(fields), layout);
+            data.setCachedRecord(RecordBox.get().add("fieldA", i % 12).add("fieldB", "x").getRecord());
+            sketch.update(value + separator + "x", data);
+        }
+        groupBy.combine(sketch.serialize());
+
+        // The same groups are merged rather than counted as different groups
+        List<BulletRecord> records = groupBy.getRecords();
+        Assert.assertEquals(records.size(), 12);
+        for (int i = 0; i < 12; i++) {
+            BulletRecord expected = RecordBox.get().add("fieldA", String.valueOf(i)).add("fieldB", "x")
+                                                   .add("count", i < 8 ? 4L : 2L).getRecord();
+            assertContains(records, expected);
+        }
+        Map<String, Object> stats = (Map<String, Object>) groupBy.getMetadata().asMap().get("aggregate_stats");
+        Assert.assertEquals(stats.get("uniquesApprox"), 12.0);
+        Assert.assertFalse((Boolean) stats.get("isEstimate"));
+    }
+
+    @Test
+    public void testIgnoringEmptyKeys() {
+        // As the sketch ignored the empty composite field of a group of one empty value
+        TupleSketchingStrategy groupBy = makeGroupBy(singletonList("fieldA"), 8, new GroupOperation(COUNT, null, "count"));
+        groupBy.consume(RecordBox.get().add("fieldA", "").getRecord());
+        Assert.assertTrue(groupBy.getRecords().isEmpty());
+
+        groupBy.consume(RecordBox.get().add("fieldA", "foo").getRecord());
+        Assert.assertEquals(groupBy.getRecords().size(), 1);
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType;
+import com.yahoo.bullet.record.BulletRecordProvider;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class GroupDataCodecTest {
+    private static BulletRecordProvider provider = new BulletConfig().getBulletRecordProvider();
+
+    private static final List<GroupOperation> OPERATIONS =
+            Arrays.asList(new GroupOperation(GroupOperationType.COUNT, null, "count"),
+                          new GroupOperation(GroupOperationType.MIN, "a", "min"),
+                          new GroupOperation(GroupOperationType.MAX, "a", "max"),
+                          new GroupOperation(GroupOperationType.SUM, "b", "sum"),
+                          new GroupOperation(GroupOperationType.AVG, "b", "avg"));
+    private static final GroupOperationLayout LAYOUT = new GroupOperationLayout(OPERATIONS);
+    private static final List<String> FIELDS = Arrays.asList("country", "device");
+
+    private static Map<String, String> makeAliases() {
+        Map<String, String> fieldAliases = new HashMap<>();
+        fieldAliases.put("country", "c");
+        fieldAliases.put("device", null);
+        return fieldAliases;
+    }
+
+    private static Map<String, String> makeGroups(String country, String device) {
+        Map<String, String> groupFields = new HashMap<>();
+        groupFields.put("country", country);
+        groupFields.put("device", device);
+        return groupFields;
+    }
+
+    private static <T extends GroupData> T consume(T data) {
+        data.consume(RecordBox.get().add("a", 1.5).add("b", 2L).getRecord());
+        data.consume(RecordBox.get().add("a", -4).getRecord());
+        return data;
+    }
+
+    private static PrimitiveGroupData makeData(String country, String device) {
+        return consume(new PrimitiveGroupData(makeGroups(country, device), makeAliases(), LAYOUT));
+    }
+
+    @Test
+    public void testHeader() {
+        byte[] header = GroupDataCodec.encodeHeader(LAYOUT, FIELDS, makeAliases());
+        GroupDataSummaryFactory factory = GroupDataCodec.decodeHeader(header);
+
+        Assert.assertEquals(factory.getLayout(), LAYOUT);
+        Assert.assertEquals(factory.getLayout().names, LAYOUT.names);
+        Assert.assertEquals(factory.getFields(), FIELDS);
+        Assert.assertEquals(factory.getFieldAliases(), makeAliases());
+    }
+
+    @Test
+    public void testGroup() {
+        PrimitiveGroupData data = makeData("\u65e5\u672c", null);
+        byte[] group = GroupDataCodec.encodeGroup(data, FIELDS);
+        PrimitiveGroupData decoded = GroupDataCodec.decodeGroup(group, LAYOUT, FIELDS, makeAliases());
+
+        Assert.assertEquals(decoded.groupFields, data.groupFields);
+        Assert.assertEquals(decoded.getAsBulletRecord(provider), data.getAsBulletRecord(provider));
+        Assert.assertEquals(decoded.getAsBulletRecord(provider).typedGet("c").getValue(), "\u65e5\u672c");
+
+        // The metrics are fixed width
+        Assert.assertEquals(group.length, 4 + "\u65e5\u672c".getBytes(StandardCharsets.UTF_8).length + 4 + data.getMetricsSize());
+    }
+
+    @Test
+    public void testEmptyGroup() {
+        PrimitiveGroupData data = new PrimitiveGroupData(new HashMap<>(), makeAliases(), LAYOUT);
+        data.groupFields.put("country", "");
+        data.groupFields.put("device", "");
+        PrimitiveGroupData decoded = GroupDataCodec.decodeGroup(GroupDataCodec.encodeGroup(data, FIELDS), LAYOUT, FIELDS, makeAliases());
+
+        Assert.assertEquals(decoded.getAsBulletRecord(provider), data.getAsBulletRecord(provider));
+        Assert.assertEquals(decoded.getMetricsAsBulletRecord(provider).typedGet("count").getValue(), 0L);
+        Assert.assertNull(decoded.getMetricsAsBulletRecord(provider).typedGet("avg").getValue());
+    }
+
+    @Test
+    public void testSizeAgainstJavaSerialization() {
+        PrimitiveGroupData data = makeData("us", "mobile");
+        int compact = GroupDataCodec.encodeGroup(data, FIELDS).length;
+        int serialized = SerializerDeserializer.toBytes(data).length;
+        GroupData mapData = consume(new GroupData(makeGroups("us", "mobile"), makeAliases(), GroupData.makeInitialMetrics(new HashSet<>(OPERATIONS))));
+        int mapSerialized = SerializerDeserializer.toBytes(mapData).length;
+
+        // 4 + 2 + 4 + 6 bytes of group values, 8 bytes of bitmap and 48 bytes of metrics
+        Assert.assertEquals(compact, 72);
+        Assert.assertEquals(data.getMetricsAsBulletRecord(provider), mapData.getMetricsAsBulletRecord(provider));
+        Assert.assertTrue(compact * 5 < serialized, compact + " vs " + serialized);
+        Assert.assertTrue(compact * 5 < mapSerialized, compact + " vs " + mapSerialized);
+    }
+}
@@ -7,6 +7,7 @@ package com.yahoo.bullet.querying.aggregations.grouping;
 
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.BulletRecordProvider;
 import com.yahoo.bullet.result.RecordBox;
 import com.yahoo.memory.Memory;
 import com.yahoo.memory.NativeMemory;
@@ -16,9 +17,12 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 
 public class GroupDataSummaryFactoryTest {
+    private static BulletRecordProvider provider = new BulletConfig().getBulletRecordProvider();
+
     private static CachingGroupData sampleSumGroupData(double sum) {
         CachingGroupData data;
         data = new CachingGroupData(singletonMap("fieldA", "bar"),
@@ -113,4 +117,79 @@ public class GroupDataSummaryFactoryTest {
         Assert.assertNotNull(deserialized);
         Assert.assertNull(deserialized.getData());
     }
+
+    @Test
+    public void testHeaderSerialization() {
+        GroupOperationLayout layout = new GroupOperationLayout(singletonList(new GroupOperation(GroupOperation.GroupOperationType.SUM, "fieldB", "sum")));
+        GroupDataSummaryFactory factory = new GroupDataSummaryFactory(layout, singletonMap("fieldA", "a"));
+        byte[] serialized = factory.toByteArray();
+        Assert.assertEquals(serialized[GroupDataSummaryFactory.VERSION_POSITION], GroupDataCodec.VERSION);
+
+        DeserializeResult<GroupDataSummaryFactory> deserialized = GroupDataSummaryFactory.fromMemory(new NativeMemory(serialized));
+        Assert.assertEquals(deserialized.getSize(), serialized.length);
+        Assert.assertEquals(deserialized.getObject().getLayout(), layout);
+        Assert.assertEquals(deserialized.getObject().getFields(), singletonList("fieldA"));
+        Assert.assertEquals(deserialized.getObject().getFieldAliases(), singletonMap("fieldA", "a"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsupportedHeaderVersion() {
+        GroupDataSummaryFactory.fromMemory(new NativeMemory(new byte[] {(byte) (GroupDataCodec.VERSION + 1), 0, 0, 0, 0}));
+    }
+
+    @Test
+    public void testCompactSummaries() {
+        GroupOperationLayout layout = new GroupOperationLayout(singletonList(new GroupOperation(GroupOperation.GroupOperationType.SUM, "fieldB", "sum")));
+        GroupDataSummaryFactory factory = new GroupDataSummaryFactory(layout, singletonMap("fieldA", "a"));
+        PrimitiveGroupData data = new PrimitiveGroupData(singletonMap("fieldA", "bar"), singletonMap("fieldA", "a"), layout);
+        data.setCachedRecord(RecordBox.get().add("fieldA", "bar").add("fieldB", 4.0).getRecord());
+
+        GroupDataSummary summary = (GroupDataSummary) factory.newSummary();
+        summary.update(data);
+        summary.update(data);
+        byte[] serialized = summary.toByteArray();
+
+        GroupDataSummary deserialized = (GroupDataSummary) factory.summaryFromMemory(new NativeMemory(serialized)).getObject();
+        BulletRecord expected = RecordBox.get().add("a", "bar").add("sum", 8.0).getRecord();
+        Assert.assertTrue(deserialized.isInitialized());
+        Assert.assertEquals(deserialized.getData().getAsBulletRecord(provider), expected);
+        // Written again in the compact format
+        Assert.assertEquals(deserialized.toByteArray(), serialized);
+
+        // Without the header, the data is only read with the header
+        deserialized = GroupDataSummary.fromMemory(new NativeMemory(serialized)).getObject();
+        Assert.assertNull(deserialized.getData());
+        Assert.assertEquals(deserialized.copy().toByteArray(), serialized);
+        deserialized.readWith(GroupDataSummaryFactory.fromMemory(new NativeMemory(factory.toByteArray())).getObject());
+        Assert.assertEquals(deserialized.getData().getAsBulletRecord(provider), expected);
+    }
+
+    @Test
+    public void testSummariesNotMatchingTheHeader() {
+        GroupOperationLayout layout = new GroupOperationLayout(singletonList(new GroupOperation(GroupOperation.GroupOperationType.SUM, "fieldB", "sum")));
+        GroupDataSummaryFactory factory = new GroupDataSummaryFactory(layout, singletonMap("fieldA", "a"));
+        Assert.assertFalse(factory.canEncode(sampleSumGroupData(1.0)));
+        Assert.assertFalse(factory.canEncode(new PrimitiveGroupData(singletonMap("fieldC", "bar"), emptyMap(), layout)));
+        Assert.assertFalse(factory.canEncode(new PrimitiveGroupData(layout)));
+        Assert.assertTrue(factory.canEncode(new PrimitiveGroupData(singletonMap("fieldA", "bar"), emptyMap(), layout)));
+        Assert.assertFalse(new GroupDataSummaryFactory().canEncode(new PrimitiveGroupData(singletonMap("fieldA", "bar"), emptyMap(), layout)));
+
+        // Written with Java serialization
+        GroupDataSummary summary = (GroupDataSummary) factory.newSummary();
+        summary.update(sampleSumGroupData(1.0));
+        GroupDataSummary deserialized = GroupDataSummary.fromMemory(new NativeMemory(summary.toByteArray())).getObject();
+        Assert.assertEquals(deserialized.getData().getMetricsAsBulletRecord(provider), summary.getData().getMetricsAsBulletRecord(provider));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadingCompactSummariesWithoutHeader() {
+        GroupOperationLayout layout = new GroupOperationLayout(singletonList(new GroupOperation(GroupOperation.GroupOperationType.SUM, "fieldB", "sum")));
+        GroupDataSummary summary = (GroupDataSummary) new GroupDataSummaryFactory(layout, singletonMap("fieldA", "a")).newSummary();
+        PrimitiveGroupData data = new PrimitiveGroupData(singletonMap("fieldA", "bar"), emptyMap(), layout);
+        data.setCachedRecord(RecordBox.get().getRecord());
+        summary.update(data);
+
+        GroupDataSummary deserialized = GroupDataSummary.fromMemory(new NativeMemory(summary.toByteArray())).getObject();
+        deserialized.readWith(new GroupDataSummaryFactory());
+    }
 }
@@ -330,6 +330,31 @@ public class GroupDataSummaryTest {
         Assert.assertNull(data);
     }
 
+    @Test
+    public void testUpdatingWithAggregatedData() {
+        GroupOperationLayout layout = new GroupOperationLayout(asList(new GroupOperation(COUNT, null, "count"),
+                                                                      new GroupOperation(SUM, "a", "sum")));
+        PrimitiveGroupData data = new PrimitiveGroupData(makeGroups(asList("foo")), emptyMap(), layout);
+        data.consume(RecordBox.get().add("a", 2).getRecord());
+        data.consume(RecordBox.get().add("a", 3).getRecord());
+
+        // Without a cached record, the data is copied and then combined
+        GroupDataSummary summary = new GroupDataSummary();
+        summary.update(data);
+        summary.update(data);
+        data.consume(RecordBox.get().add("a", 4).getRecord());
+
+        BulletRecord expected = RecordBox.get().add("count", 4L).add("sum", 10.0).getRecord();
+        Assert.assertEquals(summary.getData().getMetricsAsBulletRecord(provider), expected);
+        Assert.assertNotSame(summary.getData(), data);
+
+        // A cached record is still consumed
+        data.setCachedRecord(RecordBox.get().add("a", 1).getRecord());
+        summary.update(data);
+        expected = RecordBox.get().add("count", 5L).add("sum", 11.0).getRecord();
+        Assert.assertEquals(summary.getData().getMetricsAsBulletRecord(provider), expected);
+    }
+
     @Test
     public void testSerialization() {
         List<String> groups = asList("foo", "bar", "baz");
@@ -0,0 +1,137 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.BulletRecordProvider;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public class GroupKeyBuilderTest {
+    private static BulletRecordProvider provider = new BulletConfig().getBulletRecordProvider();
+
+    private static final GroupOperationLayout LAYOUT =
+            new GroupOperationLayout(Collections.singletonList(new GroupOperation(GroupOperationType.COUNT, null, "count")));
+    private static final List<String> FIELDS = Arrays.asList("a", "b");
+    private static final String SEPARATOR = "|*|";
+
+    private static GroupKeyBuilder makeBuilder() {
+        return new GroupKeyBuilder(FIELDS, SEPARATOR, Collections.singletonMap("a", "aliasA"), LAYOUT);
+    }
+
+    // The bytes of the composite field of the string forms of the values as the strategy used to present it
+    private static byte[] expectedKey(BulletRecord record) {
+        String composite = FIELDS.stream().map(field -> Objects.toString(record.typedGet(field).forceCast(Type.STRING).getValue()))
+                                 .collect(Collectors.joining(SEPARATOR));
+        return composite.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void assertKeyEquals(byte[] actual, byte[] expected) {
+        Assert.assertEquals(actual, expected);
+    }
+
+    private static void assertKey(GroupKeyBuilder builder, BulletRecord record) {
+        assertKeyEquals(builder.build(record), expectedKey(record));
+    }
+
+    @Test
+    public void testBytesOfCompositeField() {
+        GroupKeyBuilder builder = makeBuilder();
+        assertKey(builder, RecordBox.get().add("a", "foo").add("b", "bar").getRecord());
+        assertKey(builder, RecordBox.get().add("a", "").add("b", "").getRecord());
+        assertKey(builder, RecordBox.get().add("a", "0123456789abcdef").add("b", "0123456789abcdefg").getRecord());
+        assertKey(builder, RecordBox.get().add("a", "\u65e5\u672c").add("b", "\ud83d\ude00 \ud83d").getRecord());
+    }
+
+    @Test
+    public void testTypedValues() {
+        GroupKeyBuilder builder = makeBuilder();
+        assertKey(builder, RecordBox.get().add("a", 0L).add("b", -42).getRecord());
+        assertKey(builder, RecordBox.get().add("a", Long.MAX_VALUE).add("b", Long.MIN_VALUE).getRecord());
+        assertKey(builder, RecordBox.get().add("a", Integer.MIN_VALUE).add("b", 1234567890123L).getRecord());
+        assertKey(builder, RecordBox.get().add("a", 1.5).add("b", true).getRecord());
+        assertKey(builder, RecordBox.get().add("a", 2.0f).addNull("b").getRecord());
+        assertKey(builder, RecordBox.get().getRecord());
+    }
+
+    @Test
+    public void testSameGroupsAsStringForms() {
+        GroupKeyBuilder builder = makeBuilder();
+        byte[] key = builder.build(RecordBox.get().add("a", 42L).getRecord()).clone();
+
+        assertKeyEquals(builder.build(RecordBox.get().add("a", "42").add("b", "null").getRecord()), key);
+        assertKeyEquals(builder.build(RecordBox.get().add("a", 42).addNull("b").getRecord()), key);
+        assertKeyEquals(builder.build(new String[] { "42", "null" }), key);
+        assertKeyEquals(builder.build(new String[] { "42", null }), key);
+        Assert.assertNotEquals(builder.build(RecordBox.get().add("a", 43L).getRecord()), key);
+    }
+
+    @Test
+    public void testReusingBuffers() {
+        GroupKeyBuilder builder = makeBuilder();
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            value.append("\u00e9").append(i);
+        }
+        BulletRecord longRecord = RecordBox.get().add("a", value.toString()).add("b", "x").getRecord();
+        BulletRecord shortRecord = RecordBox.get().add("a", "y").getRecord();
+        BulletRecord otherShortRecord = RecordBox.get().add("a", "z").getRecord();
+
+        byte[] key = builder.build(shortRecord);
+        assertKeyEquals(builder.build(longRecord), expectedKey(longRecord));
+        // Short keys of the same length reuse their array
+        Assert.assertSame(builder.build(otherShortRecord), key);
+        assertKeyEquals(key, expectedKey(otherShortRecord));
+        assertKeyEquals(builder.build(shortRecord), expectedKey(shortRecord));
+    }
+
+    @Test
+    public void testGroupFields() {
+        GroupKeyBuilder builder = makeBuilder();
+        builder.build(RecordBox.get().add("a", 42L).add("b", 1.5).getRecord());
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("a", "42");
+        expected.put("b", "1.5");
+        Assert.assertEquals(builder.getGroupFields(), expected);
+
+        builder.build(new String[] { "foo", null });
+        expected.put("a", "foo");
+        expected.put("b", "null");
+        Assert.assertEquals(builder.getGroupFields(), expected);
+    }
+
+    @Test
+    public void testContainer() {
+        GroupKeyBuilder builder = makeBuilder();
+        PrimitiveGroupData container = builder.getContainer();
+        Assert.assertSame(builder.getContainer(), container);
+
+        builder.build(RecordBox.get().add("a", "foo").add("b", 7L).getRecord());
+        PrimitiveGroupData group = container.partialCopy();
+        builder.build(RecordBox.get().add("a", "bar").getRecord());
+        group.consume(RecordBox.get().getRecord());
+
+        // The group keeps the values it was created with
+        BulletRecord expected = RecordBox.get().add("aliasA", "foo").add("b", "7").add("count", 1L).getRecord();
+        Assert.assertEquals(group.getAsBulletRecord(provider), expected);
+        Assert.assertEquals(group.getClass(), PrimitiveGroupData.class);
+        Assert.assertEquals(container.partialCopy().groupFields.get("a"), "bar");
+    }
+}
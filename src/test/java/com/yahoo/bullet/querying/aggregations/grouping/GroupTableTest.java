@@ -0,0 +1,146 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType;
+import com.yahoo.bullet.record.BulletRecordProvider;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GroupTableTest {
+    private static BulletRecordProvider provider = new BulletConfig().getBulletRecordProvider();
+
+    private static final GroupOperationLayout LAYOUT =
+            new GroupOperationLayout(Arrays.asList(new GroupOperation(GroupOperationType.COUNT, null, "count"),
+                                                   new GroupOperation(GroupOperationType.SUM, "a", "sum")));
+    private static final List<String> FIELDS = Arrays.asList("device", "country");
+
+    private static GroupTable makeTable() {
+        Map<String, String> fieldAliases = new HashMap<>();
+        fieldAliases.put("device", "d");
+        fieldAliases.put("country", null);
+        return new GroupTable(LAYOUT, FIELDS, fieldAliases);
+    }
+
+    private static Map<String, Long> getCounts(GroupTable table) {
+        Map<String, Long> counts = new HashMap<>();
+        table.forEach((values, group) -> counts.put(String.join("|", values), (Long) group.getMetric(LAYOUT.operations[0])));
+        return counts;
+    }
+
+    @Test
+    public void testGettingGroups() {
+        GroupTable table = makeTable();
+        String[] values = { "mobile", "us" };
+
+        PrimitiveGroupData group = table.getOrCreate(values);
+        group.consume(RecordBox.get().add("a", 2).getRecord());
+        // The values can be reused
+        values[1] = "jp";
+        table.getOrCreate(values).consume(RecordBox.get().getRecord());
+        values[1] = "us";
+
+        Assert.assertSame(table.getOrCreate(values), group);
+        Assert.assertSame(table.getOrCreate(new String[] { "mobile", "us" }), group);
+        Assert.assertEquals(table.size(), 2);
+
+        Assert.assertEquals(group.getAsBulletRecord(provider),
+                            RecordBox.get().add("d", "mobile").add("country", "us").add("count", 1L).add("sum", 2.0).getRecord());
+    }
+
+    @Test
+    public void testNullValues() {
+        GroupTable table = makeTable();
+        table.getOrCreate(new String[] { null, "us" }).consume(RecordBox.get().getRecord());
+        table.getOrCreate(new String[] { "null", "us" }).consume(RecordBox.get().getRecord());
+        table.getOrCreate(new String[] { null, "us" }).consume(RecordBox.get().getRecord());
+
+        Assert.assertEquals(table.size(), 2);
+        Assert.assertEquals(table.getOrCreate(new String[] { null, "us" }).getMetric(LAYOUT.operations[0]), 2L);
+        Assert.assertEquals(table.getOrCreate(new String[] { "null", "us" }).getMetric(LAYOUT.operations[0]), 1L);
+    }
+
+    @Test
+    public void testGrowing() {
+        GroupTable table = makeTable();
+        for (int i = 0; i < 1000; i++) {
+            table.getOrCreate(new String[] { String.valueOf(i % 500), "us" }).consume(RecordBox.get().getRecord());
+        }
+        Assert.assertEquals(table.size(), 500);
+
+        Map<String, Long> counts = getCounts(table);
+        Assert.assertEquals(counts.size(), 500);
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals(counts.get(i + "|us"), (Long) 2L);
+        }
+    }
+
+    @Test
+    public void testMerging() {
+        GroupTable table = makeTable();
+        table.getOrCreate(new String[] { "mobile", "us" }).consume(RecordBox.get().add("a", 1).getRecord());
+
+        GroupTable another = makeTable();
+        another.getOrCreate(new String[] { "mobile", "us" }).consume(RecordBox.get().add("a", 2).getRecord());
+        another.getOrCreate(new String[] { "desktop", "us" }).consume(RecordBox.get().add("a", 3).getRecord());
+        another.forEach(table::merge);
+
+        Assert.assertEquals(table.size(), 2);
+        PrimitiveGroupData group = table.getOrCreate(new String[] { "mobile", "us" });
+        Assert.assertEquals(group.getMetric(LAYOUT.operations[0]), 2L);
+        Assert.assertEquals(group.getMetric(LAYOUT.operations[1]), 3.0);
+    }
+
+    @Test
+    public void testSerialization() {
+        GroupTable table = makeTable();
+        table.getOrCreate(new String[] { "mobile", "us" }).consume(RecordBox.get().add("a", 1).getRecord());
+        table.getOrCreate(new String[] { "mobile", "us" }).consume(RecordBox.get().add("a", 5).getRecord());
+        table.getOrCreate(new String[] { null, "jp" }).consume(RecordBox.get().getRecord());
+
+        GroupTable deserialized = makeTable();
+        GroupTable.deserialize(table.serialize(), FIELDS, deserialized::merge);
+
+        Assert.assertEquals(deserialized.size(), 2);
+        table.forEach((values, group) -> Assert.assertEquals(deserialized.getOrCreate(values).getAsBulletRecord(provider),
+                                                            group.getAsBulletRecord(provider)));
+        Assert.assertEquals(deserialized.size(), 2);
+    }
+
+    @Test
+    public void testSerializingEmptyTable() {
+        GroupTable deserialized = makeTable();
+        GroupTable.deserialize(makeTable().serialize(), FIELDS, deserialized::merge);
+
+        Assert.assertEquals(deserialized.size(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDeserializingWithoutHeader() {
+        GroupTable.deserialize(new GroupDataSummaryFactory().toByteArray(), FIELDS, (values, group) -> { });
+    }
+
+    @Test
+    public void testClearing() {
+        GroupTable table = makeTable();
+        for (int i = 0; i < 100; i++) {
+            table.getOrCreate(new String[] { String.valueOf(i), "us" });
+        }
+        table.clear();
+
+        Assert.assertEquals(table.size(), 0);
+        Assert.assertTrue(getCounts(table).isEmpty());
+        table.getOrCreate(new String[] { "mobile", "us" }).consume(RecordBox.get().getRecord());
+        Assert.assertEquals(getCounts(table).get("mobile|us"), (Long) 1L);
+    }
+}
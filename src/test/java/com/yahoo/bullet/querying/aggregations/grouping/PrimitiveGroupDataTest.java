@@ -0,0 +1,213 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.aggregations.grouping;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation.GroupOperationType;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.record.BulletRecordProvider;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class PrimitiveGroupDataTest {
+    private static BulletRecordProvider provider = new BulletConfig().getBulletRecordProvider();
+
+    private static Set<GroupOperation> makeOperations() {
+        return new HashSet<>(Arrays.asList(new GroupOperation(GroupOperationType.COUNT, null, "count"),
+                                           new GroupOperation(GroupOperationType.MIN, "a", "min"),
+                                           new GroupOperation(GroupOperationType.MAX, "a", "max"),
+                                           new GroupOperation(GroupOperationType.SUM, "a", "sum"),
+                                           new GroupOperation(GroupOperationType.AVG, "a", "avg"),
+                                           new GroupOperation(GroupOperationType.SUM, "b", "sumB"),
+                                           new GroupOperation(GroupOperationType.AVG, "c", "avgC")));
+    }
+
+    private static List<BulletRecord> makeRecords() {
+        List<BulletRecord> records = new ArrayList<>();
+        records.add(RecordBox.get().add("a", 4).add("b", 1L).getRecord());
+        records.add(RecordBox.get().add("a", -8.8).add("b", "2.5").getRecord());
+        records.add(RecordBox.get().add("a", "foo").getRecord());
+        records.add(RecordBox.get().addNull("a").add("b", 3.0f).getRecord());
+        records.add(RecordBox.get().add("a", 12345.67).getRecord());
+        records.add(RecordBox.get().add("a", Long.MAX_VALUE).getRecord());
+        return records;
+    }
+
+    private static void assertSameResults(GroupData actual, GroupData expected) {
+        Assert.assertEquals(actual.getMetricsAsBulletRecord(provider), expected.getMetricsAsBulletRecord(provider));
+    }
+
+    @Test
+    public void testLayout() {
+        GroupOperation avg = new GroupOperation(GroupOperationType.AVG, "a", "avg");
+        GroupOperation count = new GroupOperation(GroupOperationType.COUNT, null, "count");
+        GroupOperationLayout layout = new GroupOperationLayout(Arrays.asList(avg, count));
+
+        Assert.assertEquals(layout.size(), 2);
+        Assert.assertEquals(layout.indexOf(count), 0);
+        Assert.assertEquals(layout.indexOf(avg), 1);
+        Assert.assertEquals(layout.indexOf(new GroupOperation(GroupOperationType.COUNT_FIELD, "a", null)), 1);
+        Assert.assertEquals(layout.indexOf(new GroupOperation(GroupOperationType.SUM, "a", "sum")), -1);
+
+        Assert.assertEquals(layout, new GroupOperationLayout(Arrays.asList(count, new GroupOperation(GroupOperationType.AVG, "a", "other"))));
+        // The order of the operations does not matter
+        Assert.assertEquals(layout, new GroupOperationLayout(Arrays.asList(count, avg)));
+        Assert.assertEquals(layout.hashCode(), new GroupOperationLayout(Arrays.asList(count, avg)).hashCode());
+        Assert.assertNotEquals(layout, new GroupOperationLayout(Collections.singletonList(count)));
+        Assert.assertNotEquals(layout, null);
+    }
+
+    @Test
+    public void testNoData() {
+        Set<GroupOperation> operations = makeOperations();
+        PrimitiveGroupData data = new PrimitiveGroupData(new GroupOperationLayout(operations));
+
+        assertSameResults(data, new GroupData(operations));
+        Assert.assertEquals(data.getMetricsAsBulletRecord(provider).typedGet("count").getValue(), 0L);
+        Assert.assertNull(data.getMetricsAsBulletRecord(provider).typedGet("avg").getValue());
+    }
+
+    @Test
+    public void testConsumingSameAsGroupData() {
+        Set<GroupOperation> operations = makeOperations();
+        PrimitiveGroupData data = new PrimitiveGroupData(new GroupOperationLayout(operations));
+        GroupData expected = new GroupData(operations);
+
+        for (BulletRecord record : makeRecords()) {
+            data.consume(record);
+            expected.consume(record);
+            assertSameResults(data, expected);
+        }
+        BulletRecord result = data.getMetricsAsBulletRecord(provider);
+        Assert.assertEquals(result.typedGet("count").getValue(), 6L);
+        Assert.assertEquals(result.typedGet("min").getValue(), -8.8);
+        Assert.assertEquals(result.typedGet("sumB").getValue(), 6.5);
+        Assert.assertNull(result.typedGet("avgC").getValue());
+    }
+
+    @Test
+    public void testManyOperations() {
+        Set<GroupOperation> operations = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            operations.add(new GroupOperation(i % 2 == 0 ? GroupOperationType.SUM : GroupOperationType.AVG, "f" + i, "m" + i));
+        }
+        PrimitiveGroupData data = new PrimitiveGroupData(new GroupOperationLayout(operations));
+        GroupData expected = new GroupData(operations);
+
+        RecordBox box = RecordBox.get();
+        for (int i = 0; i < 100; i += 3) {
+            box.add("f" + i, i);
+        }
+        data.consume(box.getRecord());
+        expected.consume(box.getRecord());
+        assertSameResults(data, expected);
+    }
+
+    @Test
+    public void testCombiningSameAsGroupData() {
+        Set<GroupOperation> operations = makeOperations();
+        List<BulletRecord> records = makeRecords();
+        PrimitiveGroupData data = new PrimitiveGroupData(new GroupOperationLayout(operations));
+        PrimitiveGroupData another = new PrimitiveGroupData(new GroupOperationLayout(operations));
+        GroupData expected = new GroupData(operations);
+        GroupData expectedAnother = new GroupData(operations);
+        for (int i = 0; i < records.size(); i++) {
+            (i % 2 == 0 ? data : another).consume(records.get(i));
+            (i % 2 == 0 ? expected : expectedAnother).consume(records.get(i));
+        }
+
+        // Combining with an empty one changes nothing
+        data.combine(new PrimitiveGroupData(new GroupOperationLayout(operations)));
+        assertSameResults(data, expected);
+
+        data.combine(SerializerDeserializer.toBytes(another));
+        expected.combine(expectedAnother);
+        assertSameResults(data, expected);
+    }
+
+    @Test
+    public void testCombiningWithGroupData() {
+        Set<GroupOperation> operations = makeOperations();
+        List<BulletRecord> records = makeRecords();
+        PrimitiveGroupData data = new PrimitiveGroupData(new GroupOperationLayout(operations));
+        GroupData another = new GroupData(operations);
+        GroupData expected = new GroupData(operations);
+        records.forEach(data::consume);
+        records.forEach(another::consume);
+        records.forEach(expected::consume);
+
+        // Both ways
+        byte[] serialized = SerializerDeserializer.toBytes(data);
+        data.combine(CachingGroupData.copy(another));
+        another.combine(serialized);
+        expected.combine(CachingGroupData.copy(expected));
+        assertSameResults(data, expected);
+        assertSameResults(another, expected);
+    }
+
+    @Test
+    public void testCombiningWithAnotherLayout() {
+        GroupOperation count = new GroupOperation(GroupOperationType.COUNT, null, "count");
+        GroupOperation sum = new GroupOperation(GroupOperationType.SUM, "a", "sum");
+        GroupOperation avg = new GroupOperation(GroupOperationType.AVG, "a", "avg");
+        PrimitiveGroupData data = new PrimitiveGroupData(new GroupOperationLayout(Arrays.asList(count, sum, avg)));
+        PrimitiveGroupData another = new PrimitiveGroupData(new GroupOperationLayout(Arrays.asList(avg, sum)));
+        BulletRecord record = RecordBox.get().add("a", 2).getRecord();
+        data.consume(record);
+        another.consume(record);
+        another.consume(record);
+
+        data.combine(another);
+
+        BulletRecord expected = RecordBox.get().add("count", 1L).add("sum", 6.0).add("avg", 2.0).getRecord();
+        Assert.assertEquals(data.getMetricsAsBulletRecord(provider), expected);
+    }
+
+    @Test
+    public void testGroupFields() {
+        Map<String, String> groupFields = new HashMap<>();
+        groupFields.put("fieldA", "foo");
+        groupFields.put("fieldB", "bar");
+        Map<String, String> fieldAliases = Collections.singletonMap("fieldA", "aliasA");
+        GroupOperationLayout layout = new GroupOperationLayout(Collections.singletonList(new GroupOperation(GroupOperationType.COUNT, null, "count")));
+        PrimitiveGroupData data = new PrimitiveGroupData(groupFields, fieldAliases, layout);
+        data.consume(RecordBox.get().getRecord());
+
+        BulletRecord expected = RecordBox.get().add("aliasA", "foo").add("fieldB", "bar").add("count", 1L).getRecord();
+        Assert.assertEquals(data.getAsBulletRecord(provider), expected);
+    }
+
+    @Test
+    public void testCopies() {
+        Set<GroupOperation> operations = makeOperations();
+        GroupOperationLayout layout = new GroupOperationLayout(operations);
+        PrimitiveGroupData data = new PrimitiveGroupData(Collections.singletonMap("fieldA", "foo"), Collections.emptyMap(), layout);
+        makeRecords().forEach(data::consume);
+
+        PrimitiveGroupData partialCopy = data.partialCopy();
+        Assert.assertSame(partialCopy.getLayout(), layout);
+        assertSameResults(partialCopy, new GroupData(operations));
+
+        CachingGroupData copy = CachingGroupData.copy(data);
+        Assert.assertTrue(copy instanceof PrimitiveGroupData);
+        Assert.assertEquals(copy.getAsBulletRecord(provider), data.getAsBulletRecord(provider));
+
+        // The copy is independent
+        copy.consume(RecordBox.get().add("a", 1).getRecord());
+        Assert.assertNotEquals(copy.getAsBulletRecord(provider), data.getAsBulletRecord(provider));
+    }
+}
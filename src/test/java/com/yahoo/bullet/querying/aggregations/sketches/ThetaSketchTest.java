@@ -210,4 +210,46 @@ public class ThetaSketchTest {
         actual = actuals.get(0);
         Assert.assertEquals(actual, expected);
     }
+
+    @Test
+    public void testTypedUpdatesAreTheSameAsStrings() {
+        ThetaSketch sketch = new ThetaSketch(ResizeFactor.X4, Family.ALPHA, 1.0f, 512, provider);
+        ThetaSketch another = new ThetaSketch(ResizeFactor.X4, Family.ALPHA, 1.0f, 512, provider);
+        for (long i = -512; i < 512; i++) {
+            sketch.update(i * 1000003L);
+            another.update(String.valueOf(i * 1000003L));
+            sketch.update(i / 3.0);
+            another.update(String.valueOf(i / 3.0));
+        }
+        sketch.update(Long.MIN_VALUE);
+        another.update(String.valueOf(Long.MIN_VALUE));
+
+        Assert.assertEquals(sketch.serialize(), another.serialize());
+        Assert.assertEquals(sketch.getRecords(), another.getRecords());
+    }
+
+    @Test
+    public void testCompositeUpdatesAreTheSameAsStrings() {
+        ThetaSketch sketch = new ThetaSketch(ResizeFactor.X4, Family.ALPHA, 1.0f, 512, provider);
+        ThetaSketch another = new ThetaSketch(ResizeFactor.X4, Family.ALPHA, 1.0f, 512, provider);
+        for (int i = 0; i < 1024; i++) {
+            Object[] values = { i, (long) -i, "\u00e9" + i, i / 2.0, null, i % 2 == 0 };
+            sketch.update(values, "|*|");
+            another.update(i + "|*|" + (-i) + "|*|\u00e9" + i + "|*|" + (i / 2.0) + "|*|null|*|" + (i % 2 == 0));
+        }
+
+        Assert.assertEquals(sketch.serialize(), another.serialize());
+        Assert.assertEquals(sketch.getRecords(), another.getRecords());
+    }
+
+    @Test
+    public void testEmptyCompositeIsIgnoredLikeEmptyStrings() {
+        ThetaSketch sketch = new ThetaSketch(ResizeFactor.X4, Family.ALPHA, 1.0f, 512, provider);
+        sketch.update(new Object[] { "" }, "|*|");
+        sketch.update("");
+        sketch.update(new Object[] { "", "" }, "|*|");
+
+        List<BulletRecord> actuals = sketch.getRecords();
+        Assert.assertEquals(actuals.get(0), RecordBox.get().add(ThetaSketch.COUNT_FIELD, 1L).getRecord());
+    }
 }
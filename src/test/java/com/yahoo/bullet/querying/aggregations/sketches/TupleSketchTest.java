@@ -8,7 +8,11 @@ package com.yahoo.bullet.querying.aggregations.sketches;
 import com.yahoo.bullet.TestHelpers;
 import com.yahoo.bullet.querying.aggregations.grouping.CachingGroupData;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupData;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupDataSummary;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupDataSummaryFactory;
 import com.yahoo.bullet.querying.aggregations.grouping.GroupOperation;
+import com.yahoo.bullet.querying.aggregations.grouping.GroupOperationLayout;
+import com.yahoo.bullet.querying.aggregations.grouping.PrimitiveGroupData;
 import com.yahoo.bullet.common.BulletConfig;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.record.BulletRecordProvider;
@@ -18,6 +22,8 @@ import com.yahoo.bullet.result.RecordBox;
 import com.yahoo.sketches.Family;
 import com.yahoo.sketches.ResizeFactor;
 import com.yahoo.sketches.SketchesArgumentException;
+import com.yahoo.sketches.tuple.UpdatableSketch;
+import com.yahoo.sketches.tuple.UpdatableSketchBuilder;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -221,6 +227,90 @@ public class TupleSketchTest {
         }
     }
 
+    @Test
+    public void testUnioningCompactSketches() {
+        GroupOperationLayout layout = new GroupOperationLayout(OPERATIONS);
+        Map<String, String> fieldAliases = new HashMap<>();
+        fieldAliases.put("A", "a");
+        fieldAliases.put("B", "B");
+        PrimitiveGroupData data = new PrimitiveGroupData(null, fieldAliases, layout);
+
+        TupleSketch sketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider, layout, fieldAliases);
+        IntStream.range(0, 64).forEach(i -> sketch.update(addToData(String.valueOf(i % 8), 1, data), data));
+        TupleSketch anotherSketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider, layout, fieldAliases);
+        IntStream.range(0, 64).forEach(i -> anotherSketch.update(addToData(String.valueOf(i % 4), 1, data), data));
+
+        // Only the metrics and the group values of each group follow the header
+        byte[] serialized = sketch.serialize();
+        TupleSketch plainSketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider);
+        IntStream.range(0, 64).forEach(i -> plainSketch.update(addToData(String.valueOf(i % 8), 1, this.data), this.data));
+        Assert.assertTrue(serialized.length * 4 < plainSketch.serialize().length);
+
+        TupleSketch unionSketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider, layout, fieldAliases);
+        unionSketch.union(serialized);
+        unionSketch.union(anotherSketch.serialize());
+        TupleSketch plainUnionSketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider);
+        plainUnionSketch.union(unionSketch.serialize());
+
+        List<BulletRecord> results = plainUnionSketch.getResult(null, null).getRecords();
+        Assert.assertEquals(results.size(), 8);
+        for (BulletRecord actual : results) {
+            int fieldA = Integer.valueOf((String) actual.typedGet("a").getValue());
+            long count = fieldA < 4 ? 24L : 8L;
+            Assert.assertEquals(actual.typedGet("B").getValue(), "1.0");
+            Assert.assertEquals(actual.typedGet("cnt").getValue(), count);
+            Assert.assertEquals(actual.typedGet("sumB").getValue(), (double) count);
+            Assert.assertEquals(actual.typedGet("avgA").getValue(), (double) fieldA);
+        }
+    }
+
+    @Test
+    public void testUnioningSketchesSerializedWithoutAHeader() {
+        // Tuple sketches used to be serialized by themselves with the summaries written without a layout
+        UpdatableSketch<CachingGroupData, GroupDataSummary> oldSketch =
+                new UpdatableSketchBuilder<>(new GroupDataSummaryFactory()).setNominalEntries(32).build();
+        IntStream.range(0, 64).forEach(i -> oldSketch.update(addToData(String.valueOf(i % 8), 1, data), data));
+        byte[] serialized = oldSketch.compact().toByteArray();
+
+        GroupOperationLayout layout = new GroupOperationLayout(OPERATIONS);
+        Map<String, String> fieldAliases = new HashMap<>();
+        fieldAliases.put("A", "A");
+        fieldAliases.put("B", "B");
+        PrimitiveGroupData data = new PrimitiveGroupData(null, fieldAliases, layout);
+        TupleSketch sketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider, layout, fieldAliases);
+        IntStream.range(0, 32).forEach(i -> sketch.update(addToData(String.valueOf(i % 4), 1, data), data));
+
+        TupleSketch unionSketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider, layout, fieldAliases);
+        unionSketch.union(serialized);
+        unionSketch.union(sketch.serialize());
+        TupleSketch plainUnionSketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider);
+        plainUnionSketch.union(serialized);
+        plainUnionSketch.union(sketch.serialize());
+
+        for (TupleSketch union : Arrays.asList(unionSketch, plainUnionSketch)) {
+            List<BulletRecord> results = union.getResult(null, null).getRecords();
+            Assert.assertEquals(results.size(), 8);
+            for (BulletRecord actual : results) {
+                int fieldA = Integer.valueOf((String) actual.typedGet("A").getValue());
+                long count = fieldA < 4 ? 16L : 8L;
+                Assert.assertEquals(actual.typedGet("B").getValue(), "1.0");
+                Assert.assertEquals(actual.typedGet("cnt").getValue(), count);
+                Assert.assertEquals(actual.typedGet("sumB").getValue(), (double) count);
+                Assert.assertEquals(actual.typedGet("avgA").getValue(), (double) fieldA);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnioningAnUnknownVersion() {
+        TupleSketch sketch = new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider);
+        sketch.update(addToData("foo", 0.0, data), data);
+        byte[] serialized = sketch.serialize();
+        serialized[TupleSketch.MAGIC.length] = TupleSketch.FORMAT_VERSION + 1;
+
+        new TupleSketch(ResizeFactor.X4, 1.0f, 32, 16, provider).union(serialized);
+    }
+
     @Test
     public void testResetting() {
         data = new CachingGroupData(null, Collections.emptyMap(), new HashMap<>());
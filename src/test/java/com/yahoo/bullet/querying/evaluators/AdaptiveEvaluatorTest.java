@@ -0,0 +1,188 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+
+public class AdaptiveEvaluatorTest {
+    private static class CountingEvaluator extends Evaluator {
+        private static final long serialVersionUID = 1L;
+
+        private final TypedObject value;
+        private final int work;
+        private int count = 0;
+        private double sink = 0;
+
+        private CountingEvaluator(TypedObject value, int work) {
+            this.value = value;
+            this.work = work;
+        }
+
+        @Override
+        public TypedObject evaluate(BulletRecord record) {
+            count++;
+            for (int i = 0; i < work; i++) {
+                sink += Math.sqrt(i);
+            }
+            return value;
+        }
+    }
+
+    private static class FailingEvaluator extends Evaluator {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public TypedObject evaluate(BulletRecord record) {
+            throw new UnsupportedOperationException("fail");
+        }
+    }
+
+    private static final Boolean[] VALUES = {true, false, null};
+
+    private static Evaluator evaluator(Boolean value) {
+        return valueEvaluator(value);
+    }
+
+    private static void assertSameAsOperations(List<Evaluator> operands) {
+        AdaptiveEvaluator and = new AdaptiveEvaluator(operands, Operation.AND);
+        AdaptiveEvaluator or = new AdaptiveEvaluator(operands, Operation.OR);
+        BulletRecord record = RecordBox.get().getRecord();
+        TypedObject expectedAnd = NAryOperations.allMatch(operands, record);
+        TypedObject expectedOr = NAryOperations.anyMatch(operands, record);
+        // Goes past a few samples and reorders
+        for (int i = 0; i < AdaptiveEvaluator.SAMPLE_PERIOD * AdaptiveEvaluator.SAMPLES_PER_REORDER * 2; i++) {
+            Assert.assertEquals(and.evaluate(record), expectedAnd);
+            Assert.assertEquals(or.evaluate(record), expectedOr);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorNotAndOr() {
+        new AdaptiveEvaluator(Collections.singletonList(evaluator(true)), Operation.XOR);
+    }
+
+    @Test
+    public void testThreeValuedResults() {
+        for (Boolean a : VALUES) {
+            assertSameAsOperations(Collections.singletonList(evaluator(a)));
+            for (Boolean b : VALUES) {
+                assertSameAsOperations(Arrays.asList(evaluator(a), evaluator(b)));
+                for (Boolean c : VALUES) {
+                    assertSameAsOperations(Arrays.asList(evaluator(a), evaluator(b), evaluator(c)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReorderingDecidingOperandsFirst() {
+        CountingEvaluator never = new CountingEvaluator(TypedObject.TRUE, 1000);
+        CountingEvaluator always = new CountingEvaluator(TypedObject.FALSE, 0);
+        AdaptiveEvaluator evaluator = new AdaptiveEvaluator(Arrays.asList(never, always), Operation.AND);
+        BulletRecord record = RecordBox.get().getRecord();
+
+        int reorder = AdaptiveEvaluator.SAMPLE_PERIOD * AdaptiveEvaluator.SAMPLES_PER_REORDER;
+        for (int i = 0; i < reorder; i++) {
+            Assert.assertEquals(evaluator.evaluate(record), TypedObject.FALSE);
+        }
+        Assert.assertEquals(evaluator.order, new int[]{1, 0});
+        Assert.assertEquals(never.count, reorder);
+
+        never.count = 0;
+        for (int i = 0; i < reorder; i++) {
+            Assert.assertEquals(evaluator.evaluate(record), TypedObject.FALSE);
+        }
+        // Only evaluated when sampling
+        Assert.assertEquals(never.count, AdaptiveEvaluator.SAMPLES_PER_REORDER);
+        Assert.assertEquals(always.count, reorder * 2);
+    }
+
+    @Test
+    public void testReorderingForOr() {
+        List<Evaluator> operands = new ArrayList<>();
+        operands.add(evaluator(false));
+        operands.add(evaluator(null));
+        operands.add(evaluator(true));
+        AdaptiveEvaluator evaluator = new AdaptiveEvaluator(operands, Operation.OR);
+        BulletRecord record = RecordBox.get().getRecord();
+        for (int i = 0; i < AdaptiveEvaluator.SAMPLE_PERIOD * AdaptiveEvaluator.SAMPLES_PER_REORDER; i++) {
+            Assert.assertEquals(evaluator.evaluate(record), TypedObject.TRUE);
+        }
+        Assert.assertEquals(evaluator.order[0], 2);
+    }
+
+    @Test
+    public void testErrors() {
+        BulletRecord record = RecordBox.get().getRecord();
+        Evaluator and = new AdaptiveEvaluator(Arrays.asList(new FailingEvaluator(), evaluator(false)), Operation.AND);
+        Assert.assertEquals(and.evaluate(record), TypedObject.FALSE);
+
+        Evaluator or = new AdaptiveEvaluator(Arrays.asList(new FailingEvaluator(), evaluator(true)), Operation.OR);
+        Assert.assertEquals(or.evaluate(record), TypedObject.TRUE);
+
+        for (Boolean value : Arrays.asList(true, null)) {
+            Evaluator failing = new AdaptiveEvaluator(Arrays.asList(new FailingEvaluator(), evaluator(value)), Operation.AND);
+            try {
+                failing.evaluate(record);
+                Assert.fail();
+            } catch (UnsupportedOperationException ignored) {
+            }
+        }
+
+        Evaluator error = new AdaptiveEvaluator(Arrays.asList(EvaluatorUtils.errorEvaluator(), evaluator(null)), Operation.AND);
+        Assert.assertSame(error.evaluate(record), Evaluator.ERROR);
+        error = new AdaptiveEvaluator(Arrays.asList(EvaluatorUtils.errorEvaluator(), evaluator(false)), Operation.AND);
+        Assert.assertEquals(error.evaluate(record), TypedObject.FALSE);
+        // A thrown error takes precedence
+        error = new AdaptiveEvaluator(Arrays.asList(EvaluatorUtils.errorEvaluator(), new FailingEvaluator()), Operation.OR);
+        try {
+            error.evaluate(record);
+            Assert.fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    @Test
+    public void testCountingSwallowedErrors() {
+        BulletRecord record = RecordBox.get().getRecord();
+        long swallowed = AdaptiveEvaluator.getSwallowedErrors();
+
+        Evaluator or = new AdaptiveEvaluator(Arrays.asList(new FailingEvaluator(), evaluator(true)), Operation.OR);
+        or.evaluate(record);
+        Evaluator and = new AdaptiveEvaluator(Arrays.asList(EvaluatorUtils.errorEvaluator(), evaluator(false)), Operation.AND);
+        and.evaluate(record);
+        Assert.assertEquals(AdaptiveEvaluator.getSwallowedErrors(), swallowed + 2);
+
+        // Errors that end the evaluation are not swallowed
+        Evaluator failing = new AdaptiveEvaluator(Arrays.asList(new FailingEvaluator(), evaluator(true)), Operation.AND);
+        try {
+            failing.evaluate(record);
+            Assert.fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+        Evaluator error = new AdaptiveEvaluator(Arrays.asList(EvaluatorUtils.errorEvaluator(), evaluator(null)), Operation.OR);
+        error.evaluate(record);
+        Assert.assertEquals(AdaptiveEvaluator.getSwallowedErrors(), swallowed + 2);
+
+        // Sampled evaluations count them too
+        for (int i = 0; i < AdaptiveEvaluator.SAMPLE_PERIOD; i++) {
+            or.evaluate(record);
+        }
+        Assert.assertEquals(AdaptiveEvaluator.getSwallowedErrors(), swallowed + 2 + AdaptiveEvaluator.SAMPLE_PERIOD);
+    }
+}
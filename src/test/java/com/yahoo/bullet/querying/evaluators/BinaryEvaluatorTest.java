@@ -6,17 +6,68 @@
 package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static com.yahoo.bullet.querying.evaluators.BinaryOperations.BINARY_OPERATORS;
 
 public class BinaryEvaluatorTest {
+    private static final Map<Type, List<Serializable>> VALUES = new HashMap<>();
+
+    static {
+        VALUES.put(Type.INTEGER, Arrays.asList(7, -3, 0, Integer.MAX_VALUE, null));
+        VALUES.put(Type.LONG, Arrays.asList(7L, -3L, 0L, Long.MAX_VALUE, null));
+        VALUES.put(Type.FLOAT, Arrays.asList(7.5f, -3.25f, 0.0f, 0.1f, null));
+        VALUES.put(Type.DOUBLE, Arrays.asList(7.5, -3.25, 0.0, 0.1, null));
+    }
+
+    private static final List<Type> NUMERIC = Arrays.asList(Type.INTEGER, Type.LONG, Type.FLOAT, Type.DOUBLE);
+
+    private static Expression field(String name, Type type) {
+        FieldExpression expression = new FieldExpression(name);
+        expression.setType(type);
+        return expression;
+    }
+
+    private static Object evaluate(BinaryEvaluator evaluator, BulletRecord record, boolean boxed) {
+        try {
+            return boxed ? evaluator.op.apply(evaluator.left, evaluator.right, record) : evaluator.evaluate(record);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static void assertSameAsBoxed(Operation op) {
+        for (Type leftType : NUMERIC) {
+            for (Type rightType : NUMERIC) {
+                BinaryEvaluator evaluator = new BinaryEvaluator(new BinaryExpression(field("a", leftType), field("b", rightType), op));
+                for (Serializable a : VALUES.get(leftType)) {
+                    for (Serializable b : VALUES.get(rightType)) {
+                        RecordBox box = RecordBox.get();
+                        box = a == null ? box.addNull("a") : box.add("a", a);
+                        box = b == null ? box.addNull("b") : box.add("b", b);
+                        BulletRecord record = box.getRecord();
+                        Assert.assertEquals(evaluate(evaluator, record, false), evaluate(evaluator, record, true), a + " " + op + " " + b);
+                    }
+                }
+            }
+        }
+    }
+
     @Test
     public void testConstructor() {
         BinaryExpression expression = new BinaryExpression(new ValueExpression(1), new ValueExpression(2), Operation.ADD);
@@ -28,4 +79,101 @@ public class BinaryEvaluatorTest {
         Assert.assertEquals(evaluator.op, BINARY_OPERATORS.get(Operation.ADD));
         Assert.assertEquals(evaluator.evaluate(RecordBox.get().getRecord()), new TypedObject(Type.INTEGER, 3));
     }
+
+    @Test
+    public void testPrimitiveArithmetic() {
+        for (Operation op : Arrays.asList(Operation.ADD, Operation.SUB, Operation.MUL, Operation.DIV, Operation.MOD)) {
+            assertSameAsBoxed(op);
+        }
+        BinaryEvaluator evaluator = new BinaryEvaluator(new BinaryExpression(field("a", Type.INTEGER), field("b", Type.FLOAT), Operation.ADD));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.FLOAT);
+        evaluator = new BinaryEvaluator(new BinaryExpression(field("a", Type.INTEGER), field("b", Type.LONG), Operation.MUL));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.LONG);
+    }
+
+    @Test
+    public void testPrimitiveComparisons() {
+        for (Operation op : Arrays.asList(Operation.EQUALS, Operation.NOT_EQUALS, Operation.GREATER_THAN, Operation.LESS_THAN,
+                                          Operation.GREATER_THAN_OR_EQUALS, Operation.LESS_THAN_OR_EQUALS)) {
+            assertSameAsBoxed(op);
+        }
+        BinaryEvaluator evaluator = new BinaryEvaluator(new BinaryExpression(field("a", Type.INTEGER), field("b", Type.LONG), Operation.LESS_THAN));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.BOOLEAN);
+    }
+
+    @Test
+    public void testNestedPrimitiveEvaluation() {
+        // (a * 100) / b > 5.0
+        Expression product = new BinaryExpression(field("a", Type.LONG), new ValueExpression(100), Operation.MUL);
+        Expression quotient = new BinaryExpression(product, field("b", Type.DOUBLE), Operation.DIV);
+        BinaryEvaluator evaluator = new BinaryEvaluator(new BinaryExpression(quotient, new ValueExpression(5.0), Operation.GREATER_THAN));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.BOOLEAN);
+        Assert.assertEquals(evaluator.left.getPrimitiveType(), Type.DOUBLE);
+
+        Assert.assertTrue(evaluator.evaluateBoolean(RecordBox.get().add("a", 3L).add("b", 50.0).getRecord()));
+        Assert.assertFalse(evaluator.wasNull());
+        Assert.assertFalse(evaluator.evaluateBoolean(RecordBox.get().add("a", 2L).add("b", 50.0).getRecord()));
+        Assert.assertFalse(evaluator.wasNull());
+        Assert.assertFalse(evaluator.evaluateBoolean(RecordBox.get().add("a", 2L).addNull("b").getRecord()));
+        Assert.assertTrue(evaluator.wasNull());
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 3L).add("b", 50.0).getRecord()), TypedObject.TRUE);
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().getRecord()), TypedObject.NULL);
+    }
+
+    @Test
+    public void testNotPrimitive() {
+        // Numbers of different types are not compared for equality
+        BinaryExpression expression = new BinaryExpression(field("a", Type.INTEGER), field("b", Type.LONG), Operation.EQUALS);
+        Assert.assertNull(new BinaryEvaluator(expression).getPrimitiveType());
+        expression = new BinaryExpression(field("a", Type.INTEGER), field("b", Type.DOUBLE), Operation.GREATER_THAN);
+        Assert.assertNull(new BinaryEvaluator(expression).getPrimitiveType());
+        expression = new BinaryExpression(new FieldExpression("a"), new ValueExpression(1), Operation.ADD);
+        Assert.assertNull(new BinaryEvaluator(expression).getPrimitiveType());
+        expression = new BinaryExpression(field("a", Type.STRING), new ValueExpression("b"), Operation.ADD);
+        Assert.assertNull(new BinaryEvaluator(expression).getPrimitiveType());
+
+        // Not primitive, so this goes through the result
+        BinaryEvaluator evaluator = new BinaryEvaluator(new BinaryExpression(new FieldExpression("a"), new ValueExpression(1), Operation.ADD));
+        Assert.assertEquals(evaluator.evaluateLong(RecordBox.get().add("a", 2).getRecord()), 3L);
+        Assert.assertFalse(evaluator.wasNull());
+        Assert.assertEquals(evaluator.evaluateDouble(RecordBox.get().addNull("a").getRecord()), 0.0);
+        Assert.assertTrue(evaluator.wasNull());
+    }
+
+    @Test
+    public void testValuesNotOfTheirDeclaredTypes() {
+        // A field declared as a LONG holding a DOUBLE is compared as a DOUBLE as in the boxed operation
+        BinaryEvaluator evaluator = new BinaryEvaluator(new BinaryExpression(field("a", Type.LONG), new ValueExpression(1L), Operation.GREATER_THAN));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.BOOLEAN);
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 1.5).getRecord()), TypedObject.TRUE);
+        BulletRecord string = RecordBox.get().add("a", "foo").getRecord();
+        Assert.assertEquals(evaluate(evaluator, string, false), evaluate(evaluator, string, true));
+
+        BulletRecord[] batch = {RecordBox.get().add("a", 1.5).getRecord(), RecordBox.get().add("a", 1L).getRecord(),
+                                RecordBox.get().add("a", 2L).getRecord(), string};
+        byte[] results = new byte[batch.length];
+        evaluator.evaluate(batch, new int[] {0, 1, 2, 3}, batch.length, results);
+        Assert.assertEquals(results[0], Evaluator.BATCH_TRUE);
+        Assert.assertEquals(results[1], Evaluator.BATCH_FALSE);
+        Assert.assertEquals(results[2], Evaluator.BATCH_TRUE);
+        byte expected;
+        try {
+            expected = Evaluator.toBatchResult(evaluator.op.apply(evaluator.left, evaluator.right, string));
+        } catch (RuntimeException e) {
+            expected = Evaluator.BATCH_ERROR;
+        }
+        Assert.assertEquals(results[3], expected);
+
+        // A field declared as an INTEGER holding a LONG is not narrowed
+        evaluator = new BinaryEvaluator(new BinaryExpression(field("a", Type.INTEGER), new ValueExpression(1), Operation.ADD));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.INTEGER);
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 3000000000L).getRecord()), new TypedObject(Type.LONG, 3000000001L));
+
+        // A field declared as a LONG holding a STRING is an error in nested arithmetic as well
+        Expression sum = new BinaryExpression(field("a", Type.LONG), new ValueExpression(1L), Operation.ADD);
+        evaluator = new BinaryEvaluator(new BinaryExpression(sum, new ValueExpression(2L), Operation.MUL));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.LONG);
+        Assert.assertTrue(Evaluator.isError(evaluator.evaluate(string)));
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 1.5).getRecord()), new TypedObject(Type.DOUBLE, 5.0));
+    }
 }
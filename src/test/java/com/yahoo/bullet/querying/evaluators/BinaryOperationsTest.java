@@ -5,6 +5,12 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
 import com.yahoo.bullet.typesystem.Type;
@@ -13,9 +19,13 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.errorEvaluator;
 import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.fieldEvaluator;
 import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.listEvaluator;
 import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
@@ -328,6 +338,176 @@ public class BinaryOperationsTest {
         Assert.assertEquals(BinaryOperations.notRegexLikeAny(valueEvaluator("abbc"), listEvaluator(".*abc", null), null), TypedObject.NULL);
     }
 
+    @Test
+    public void testGetOperatorNotSpecialized() {
+        Assert.assertEquals(getOperator(Operation.ADD, new ValueExpression(1)), BinaryOperations.BINARY_OPERATORS.get(Operation.ADD));
+        Assert.assertEquals(getOperator(Operation.REGEX_LIKE, new FieldExpression("abc")), BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE));
+        Assert.assertEquals(getOperator(Operation.REGEX_LIKE, new ValueExpression(null)), BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE));
+        Assert.assertEquals(getOperator(Operation.REGEX_LIKE, new ValueExpression(1)), BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE));
+        Assert.assertEquals(getOperator(Operation.REGEX_LIKE, new ValueExpression("[")), BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE));
+        Assert.assertEquals(getOperator(Operation.NOT_REGEX_LIKE, new ValueExpression("[")), BinaryOperations.BINARY_OPERATORS.get(Operation.NOT_REGEX_LIKE));
+        Assert.assertEquals(getOperator(Operation.REGEX_LIKE_ANY, new FieldExpression("abc")), BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE_ANY));
+        Assert.assertEquals(getOperator(Operation.REGEX_LIKE_ANY, listExpression(".*abc", "[")), BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE_ANY));
+        Assert.assertEquals(getOperator(Operation.NOT_REGEX_LIKE_ANY, listExpression(".*abc", 1)), BinaryOperations.BINARY_OPERATORS.get(Operation.NOT_REGEX_LIKE_ANY));
+        Assert.assertEquals(getOperator(Operation.REGEX_LIKE_ANY, new ListExpression(Arrays.asList(new ValueExpression(".*abc"), new FieldExpression("abc")))),
+                            BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE_ANY));
+    }
+
+    @Test
+    public void testConstantRegexLike() {
+        BinaryOperations.BinaryOperator operator = getOperator(Operation.REGEX_LIKE, new ValueExpression(".*abc"));
+        Assert.assertNotEquals(operator, BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE));
+        Assert.assertEquals(operator.apply(valueEvaluator("aabc"), null, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator("abbc"), null, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator(null), null, null), TypedObject.NULL);
+    }
+
+    @Test
+    public void testConstantNotRegexLike() {
+        BinaryOperations.BinaryOperator operator = getOperator(Operation.NOT_REGEX_LIKE, new ValueExpression(".*abc"));
+        Assert.assertNotEquals(operator, BinaryOperations.BINARY_OPERATORS.get(Operation.NOT_REGEX_LIKE));
+        Assert.assertEquals(operator.apply(valueEvaluator("aabc"), null, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator("abbc"), null, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator(null), null, null), TypedObject.NULL);
+    }
+
+    @Test
+    public void testConstantRegexLikeAny() {
+        BinaryOperations.BinaryOperator operator = getOperator(Operation.REGEX_LIKE_ANY, listExpression(".*abc", ".*bbc"));
+        Assert.assertNotEquals(operator, BinaryOperations.BINARY_OPERATORS.get(Operation.REGEX_LIKE_ANY));
+        Assert.assertEquals(operator.apply(valueEvaluator("aabc"), null, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator("abbc"), null, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator("abcc"), null, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator(null), null, null), TypedObject.NULL);
+
+        operator = getOperator(Operation.REGEX_LIKE_ANY, listExpression());
+        Assert.assertEquals(operator.apply(valueEvaluator("abbc"), null, null), TypedObject.FALSE);
+
+        operator = getOperator(Operation.REGEX_LIKE_ANY, listExpression(null, ".*bbc"));
+        Assert.assertEquals(operator.apply(valueEvaluator("abbc"), null, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator("aabc"), null, null), TypedObject.NULL);
+    }
+
+    @Test
+    public void testConstantNotRegexLikeAny() {
+        BinaryOperations.BinaryOperator operator = getOperator(Operation.NOT_REGEX_LIKE_ANY, listExpression(".*abc", ".*bbc"));
+        Assert.assertNotEquals(operator, BinaryOperations.BINARY_OPERATORS.get(Operation.NOT_REGEX_LIKE_ANY));
+        Assert.assertEquals(operator.apply(valueEvaluator("aabc"), null, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator("abcc"), null, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator(null), null, null), TypedObject.NULL);
+
+        operator = getOperator(Operation.NOT_REGEX_LIKE_ANY, listExpression(".*abc", null));
+        Assert.assertEquals(operator.apply(valueEvaluator("aabc"), null, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator("abbc"), null, null), TypedObject.NULL);
+    }
+
+    @Test
+    public void testGetConstantSet() {
+        Assert.assertNull(BinaryOperations.getConstantSet(new ValueExpression(1)));
+        Assert.assertNull(BinaryOperations.getConstantSet(listExpression()));
+        Assert.assertNull(BinaryOperations.getConstantSet(listExpression((Serializable) null)));
+        Assert.assertNull(BinaryOperations.getConstantSet(listExpression(1, 2L)));
+        Assert.assertNull(BinaryOperations.getConstantSet(new ListExpression(Arrays.asList(new ValueExpression(1), new FieldExpression("abc")))));
+
+        BinaryOperations.ConstantSet set = BinaryOperations.getConstantSet(listExpression(1, null, 3));
+        Assert.assertEquals(set.type, Type.INTEGER);
+        Assert.assertTrue(set.containsNull);
+        Assert.assertEquals(set.contains(1), TypedObject.TRUE);
+        Assert.assertEquals(set.contains(2), TypedObject.NULL);
+
+        set = BinaryOperations.getConstantSet(listExpression(0.0, -0.0, 1.5));
+        Assert.assertEquals(set.type, Type.DOUBLE);
+        Assert.assertFalse(set.containsNull);
+        Assert.assertEquals(set.contains(0.0), TypedObject.TRUE);
+        Assert.assertEquals(set.contains(-0.0), TypedObject.TRUE);
+        Assert.assertEquals(set.contains(1.5), TypedObject.TRUE);
+        Assert.assertEquals(set.contains(2.5), TypedObject.FALSE);
+
+        set = BinaryOperations.getConstantSet(listExpression(1.5f));
+        Assert.assertEquals(set.type, Type.FLOAT);
+        Assert.assertEquals(set.contains(1.5f), TypedObject.TRUE);
+        Assert.assertEquals(set.contains(2.5f), TypedObject.FALSE);
+
+        set = BinaryOperations.getConstantSet(listExpression("foo", "bar"));
+        Assert.assertEquals(set.type, Type.STRING);
+        Assert.assertEquals(set.contains("foo"), TypedObject.TRUE);
+        Assert.assertEquals(set.contains("baz"), TypedObject.FALSE);
+    }
+
+    @Test
+    public void testConstantIn() {
+        BinaryOperations.BinaryOperator operator = getOperator(Operation.IN, listExpression(456, 789));
+        Assert.assertNotEquals(operator, BinaryOperations.BINARY_OPERATORS.get(Operation.IN));
+        Evaluator right = listEvaluator(456, 789);
+        Assert.assertEquals(operator.apply(valueEvaluator(123), right, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator(456), right, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator(null), right, null), TypedObject.NULL);
+
+        operator = getOperator(Operation.IN, listExpression(456, null));
+        right = listEvaluator(456, null);
+        Assert.assertEquals(operator.apply(valueEvaluator(456), right, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator(123), right, null), TypedObject.NULL);
+        // Falls back when the types differ
+        Assert.assertEquals(operator.apply(valueEvaluator(456L), right, null), BinaryOperations.in(valueEvaluator(456L), right, null));
+    }
+
+    @Test
+    public void testConstantNotIn() {
+        BinaryOperations.BinaryOperator operator = getOperator(Operation.NOT_IN, listExpression("foo", "bar"));
+        Assert.assertNotEquals(operator, BinaryOperations.BINARY_OPERATORS.get(Operation.NOT_IN));
+        Evaluator right = listEvaluator("foo", "bar");
+        Assert.assertEquals(operator.apply(valueEvaluator("foo"), right, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator("baz"), right, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator(null), right, null), TypedObject.NULL);
+
+        operator = getOperator(Operation.NOT_IN, listExpression("foo", null));
+        right = listEvaluator("foo", null);
+        Assert.assertEquals(operator.apply(valueEvaluator("foo"), right, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator("baz"), right, null), TypedObject.NULL);
+    }
+
+    @Test
+    public void testConstantEqualsAny() {
+        BinaryOperations.BinaryOperator operator = getOperator(Operation.EQUALS_ANY, listExpression(2L, 4L, 6L));
+        Assert.assertNotEquals(operator, BinaryOperations.BINARY_OPERATORS.get(Operation.EQUALS_ANY));
+        Evaluator right = listEvaluator(2L, 4L, 6L);
+        Assert.assertEquals(operator.apply(valueEvaluator(2L), right, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator(3L), right, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator(null), right, null), TypedObject.NULL);
+        // Falls back when the types differ
+        Assert.assertEquals(operator.apply(valueEvaluator(2), right, null), BinaryOperations.equalsAny(valueEvaluator(2), right, null));
+
+        operator = getOperator(Operation.EQUALS_ANY, listExpression(3L, null, 6L));
+        right = listEvaluator(3L, null, 6L);
+        Assert.assertEquals(operator.apply(valueEvaluator(2L), right, null), TypedObject.NULL);
+        Assert.assertEquals(operator.apply(valueEvaluator(6L), right, null), TypedObject.TRUE);
+    }
+
+    @Test
+    public void testConstantNotEqualsAll() {
+        BinaryOperations.BinaryOperator operator = getOperator(Operation.NOT_EQUALS_ALL, listExpression(2, 4, 6));
+        Assert.assertNotEquals(operator, BinaryOperations.BINARY_OPERATORS.get(Operation.NOT_EQUALS_ALL));
+        Evaluator right = listEvaluator(2, 4, 6);
+        Assert.assertEquals(operator.apply(valueEvaluator(2), right, null), TypedObject.FALSE);
+        Assert.assertEquals(operator.apply(valueEvaluator(3), right, null), TypedObject.TRUE);
+        Assert.assertEquals(operator.apply(valueEvaluator(null), right, null), TypedObject.NULL);
+
+        operator = getOperator(Operation.NOT_EQUALS_ALL, listExpression(2, null, 6));
+        right = listEvaluator(2, null, 6);
+        Assert.assertEquals(operator.apply(valueEvaluator(3), right, null), TypedObject.NULL);
+        Assert.assertEquals(operator.apply(valueEvaluator(2), right, null), TypedObject.FALSE);
+    }
+
+    @Test
+    public void testPatternCache() {
+        BinaryOperations.PATTERN_CACHE.clear();
+        Assert.assertEquals(BinaryOperations.regexLike(valueEvaluator("aabc"), valueEvaluator(".*abc"), null), TypedObject.TRUE);
+        Assert.assertEquals(BinaryOperations.regexLike(valueEvaluator("abbc"), valueEvaluator(".*abc"), null), TypedObject.FALSE);
+        Assert.assertEquals(BinaryOperations.PATTERN_CACHE.size(), 1);
+        Assert.assertEquals(BinaryOperations.regexLikeAny(valueEvaluator("abbc"), listEvaluator(".*abc", ".*bbc"), null), TypedObject.TRUE);
+        Assert.assertEquals(BinaryOperations.PATTERN_CACHE.size(), 2);
+    }
+
     @Test
     public void testSizeIs() {
         Assert.assertEquals(BinaryOperations.sizeIs(listEvaluator(1, 2, 3), valueEvaluator(3), null), TypedObject.TRUE);
@@ -458,4 +638,48 @@ public class BinaryOperationsTest {
         Assert.assertEquals(BinaryOperations.filter(listEvaluator(1, 2, 3, 4, 5), listEvaluator(false, null, false, true, true), null),
                             new TypedObject(Type.INTEGER_LIST, new ArrayList<>(Arrays.asList(4, 5))));
     }
+
+    @Test
+    public void testErrors() {
+        Assert.assertSame(BinaryOperations.add(valueEvaluator("2"), valueEvaluator(4), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.sub(valueEvaluator(2), valueEvaluator(true), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.mul(valueEvaluator("2"), valueEvaluator("4"), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.div(valueEvaluator(false), valueEvaluator(4L), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.mod(valueEvaluator(2.0), valueEvaluator("4"), null), Evaluator.ERROR);
+        Assert.assertSame(getOperator(Operation.REGEX_LIKE, new ValueExpression(".*")).apply(valueEvaluator(1), valueEvaluator(".*"), null), Evaluator.ERROR);
+
+        // Errors are passed on wherever they would have been thrown
+        Evaluator failing = errorEvaluator();
+        Assert.assertSame(BinaryOperations.add(failing, valueEvaluator(1), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.greaterThan(valueEvaluator(1), failing, null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.and(failing, valueEvaluator(false), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.and(valueEvaluator(true), failing, null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.or(failing, valueEvaluator(true), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.or(valueEvaluator(false), failing, null), Evaluator.ERROR);
+        Assert.assertEquals(BinaryOperations.and(valueEvaluator(false), failing, null), TypedObject.FALSE);
+        Assert.assertEquals(BinaryOperations.or(valueEvaluator(true), failing, null), TypedObject.TRUE);
+    }
+
+    @Test
+    public void testRegexErrors() {
+        Assert.assertSame(BinaryOperations.regexLike(valueEvaluator(1), valueEvaluator(".*"), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.regexLike(valueEvaluator("abc"), valueEvaluator(1), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.notRegexLike(valueEvaluator(1), valueEvaluator(".*"), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.notRegexLike(valueEvaluator("abc"), valueEvaluator(1), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.regexLikeAny(valueEvaluator(1), listEvaluator(".*"), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.regexLikeAny(valueEvaluator("abc"), listEvaluator(1, 2), null), Evaluator.ERROR);
+        Assert.assertSame(BinaryOperations.notRegexLikeAny(valueEvaluator(1), listEvaluator(".*"), null), Evaluator.ERROR);
+
+        Assert.assertSame(getOperator(Operation.NOT_REGEX_LIKE, new ValueExpression(".*")).apply(valueEvaluator(1), null, null), Evaluator.ERROR);
+        Assert.assertSame(getOperator(Operation.REGEX_LIKE_ANY, listExpression(".*")).apply(valueEvaluator(1), null, null), Evaluator.ERROR);
+        Assert.assertSame(getOperator(Operation.NOT_REGEX_LIKE_ANY, listExpression(".*")).apply(valueEvaluator(1.0), null, null), Evaluator.ERROR);
+    }
+
+    private static BinaryOperations.BinaryOperator getOperator(Operation op, Expression right) {
+        return BinaryOperations.getOperator(new BinaryExpression(new FieldExpression("abc"), right, op));
+    }
+
+    private static ListExpression listExpression(Serializable... values) {
+        return new ListExpression(Stream.of(values).map(ValueExpression::new).collect(Collectors.toCollection(ArrayList::new)));
+    }
 }
@@ -6,6 +6,7 @@
 package com.yahoo.bullet.querying.evaluators;
 
 import com.yahoo.bullet.query.expressions.CastExpression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.result.RecordBox;
 import com.yahoo.bullet.typesystem.Type;
@@ -24,4 +25,27 @@ public class CastEvaluatorTest {
         Assert.assertEquals(evaluator.castType, Type.STRING);
         Assert.assertEquals(evaluator.evaluate(RecordBox.get().getRecord()), new TypedObject(Type.STRING, "5"));
     }
+
+    @Test
+    public void testPrimitiveCasts() {
+        FieldExpression field = new FieldExpression("a");
+        field.setType(Type.DOUBLE);
+        CastEvaluator evaluator = new CastEvaluator(new CastExpression(field, Type.INTEGER));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.INTEGER);
+        Assert.assertEquals(evaluator.evaluateLong(RecordBox.get().add("a", 2.7).getRecord()), 2L);
+        Assert.assertFalse(evaluator.wasNull());
+        Assert.assertEquals(evaluator.evaluateLong(RecordBox.get().add("a", 1e12).getRecord()), (long) Integer.MAX_VALUE);
+        evaluator.evaluateLong(RecordBox.get().addNull("a").getRecord());
+        Assert.assertTrue(evaluator.wasNull());
+
+        field = new FieldExpression("a");
+        field.setType(Type.LONG);
+        evaluator = new CastEvaluator(new CastExpression(field, Type.FLOAT));
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.FLOAT);
+        Assert.assertEquals(evaluator.evaluateDouble(RecordBox.get().add("a", 3L).getRecord()), 3.0);
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 3L).getRecord()), new TypedObject(Type.FLOAT, 3.0f));
+
+        Assert.assertNull(new CastEvaluator(new CastExpression(field, Type.STRING)).getPrimitiveType());
+        Assert.assertNull(new CastEvaluator(new CastExpression(new FieldExpression("a"), Type.LONG)).getPrimitiveType());
+    }
 }
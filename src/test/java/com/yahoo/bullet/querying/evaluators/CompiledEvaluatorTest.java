@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompiledEvaluatorTest {
+    private static EvaluatorBuilder makeBuilder(boolean adaptive) {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_FILTER_ADAPTIVE_ENABLE, adaptive);
+        config.set(BulletConfig.QUERY_FILTER_COMPILE_ENABLE, true);
+        return new EvaluatorBuilder(config.validate());
+    }
+
+    private static Expression binary(Expression left, Expression right, Operation op) {
+        return new BinaryExpression(left, right, op);
+    }
+
+    private static Expression field(String name) {
+        return new FieldExpression(name);
+    }
+
+    private static Expression value(Serializable value) {
+        return new ValueExpression(value);
+    }
+
+    private static List<BulletRecord> makeRecords() {
+        List<BulletRecord> records = new ArrayList<>();
+        Serializable[] as = {1, 0, 5L, 2.5, null};
+        Boolean[] bs = {true, false, null};
+        for (Serializable a : as) {
+            for (Boolean b : bs) {
+                for (Boolean c : bs) {
+                    RecordBox box = RecordBox.get();
+                    box = a == null ? box.addNull("a") : box.add("a", a);
+                    box = b == null ? box.addNull("b") : box.add("b", b);
+                    box = c == null ? box.addNull("c") : box.add("c", c);
+                    records.add(box.getRecord());
+                }
+            }
+        }
+        // Missing fields
+        records.add(RecordBox.get().getRecord());
+        return records;
+    }
+
+    private static Object evaluate(Evaluator evaluator, BulletRecord record) {
+        try {
+            TypedObject value = evaluator.evaluate(record);
+            // The error is a null, so it is checked by reference
+            return Evaluator.isError(value) ? "ERROR" : value;
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static void assertSameResults(Expression expression, Evaluator compiled) {
+        Evaluator interpreted = expression.getEvaluator();
+        for (BulletRecord record : makeRecords()) {
+            Assert.assertEquals(evaluate(compiled, record), evaluate(interpreted, record), expression + " on " + record);
+        }
+    }
+
+    private static void assertCompiledSameResults(Expression expression) {
+        Evaluator compiled = makeBuilder(false).build(expression);
+        Assert.assertTrue(compiled instanceof CompiledEvaluator);
+        assertSameResults(expression, compiled);
+    }
+
+    @Test
+    public void testArithmetic() {
+        for (Operation op : Arrays.asList(Operation.ADD, Operation.SUB, Operation.MUL, Operation.DIV, Operation.MOD)) {
+            assertCompiledSameResults(binary(field("a"), value(2), op));
+            assertCompiledSameResults(binary(value(2.0f), field("a"), op));
+            // Integer division by zero throws
+            assertCompiledSameResults(binary(field("a"), field("a"), op));
+        }
+        assertCompiledSameResults(binary(binary(field("a"), value(3L), Operation.MUL), binary(field("a"), value(1), Operation.SUB), Operation.ADD));
+    }
+
+    @Test
+    public void testComparisons() {
+        for (Operation op : Arrays.asList(Operation.EQUALS, Operation.NOT_EQUALS, Operation.GREATER_THAN, Operation.LESS_THAN,
+                                          Operation.GREATER_THAN_OR_EQUALS, Operation.LESS_THAN_OR_EQUALS)) {
+            assertCompiledSameResults(binary(field("a"), value(1), op));
+            assertCompiledSameResults(binary(binary(field("a"), value(1), Operation.ADD), value(2L), op));
+            assertCompiledSameResults(binary(field("b"), field("c"), op));
+        }
+    }
+
+    @Test
+    public void testLogicalOperations() {
+        for (Operation op : Arrays.asList(Operation.AND, Operation.OR)) {
+            assertCompiledSameResults(binary(field("b"), field("c"), op));
+            assertCompiledSameResults(binary(field("b"), binary(field("a"), value(0), Operation.GREATER_THAN), op));
+            assertCompiledSameResults(new NAryExpression(Arrays.asList(field("b"), field("c"), binary(field("a"), value(1), Operation.EQUALS)), op));
+            // Casting a number to a boolean throws
+            assertCompiledSameResults(binary(field("b"), field("a"), op));
+        }
+        for (Operation op : Arrays.asList(Operation.NOT, Operation.IS_NULL, Operation.IS_NOT_NULL)) {
+            assertCompiledSameResults(new UnaryExpression(field("b"), op));
+            assertCompiledSameResults(new UnaryExpression(binary(field("b"), field("c"), Operation.OR), op));
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        Expression error = binary(field("a"), value("foo"), Operation.ADD);
+        assertCompiledSameResults(error);
+        for (Operation op : Arrays.asList(Operation.ADD, Operation.EQUALS, Operation.AND, Operation.OR)) {
+            assertCompiledSameResults(binary(error, field("b"), op));
+            assertCompiledSameResults(binary(field("b"), error, op));
+        }
+        for (Operation op : Arrays.asList(Operation.NOT, Operation.IS_NULL, Operation.IS_NOT_NULL)) {
+            assertCompiledSameResults(new UnaryExpression(error, op));
+        }
+        Assert.assertSame(makeBuilder(false).build(error).evaluate(RecordBox.get().add("a", 1).getRecord()), Evaluator.ERROR);
+    }
+
+    @Test
+    public void testInterpretingNodesThatAreNotCompiled() {
+        Expression in = binary(field("a"), new ListExpression(Arrays.asList(value(1), value(2))), Operation.IN);
+        Expression size = new UnaryExpression(field("a"), Operation.SIZE_OF);
+        assertCompiledSameResults(binary(in, field("b"), Operation.AND));
+        assertCompiledSameResults(binary(field("c"), binary(size, value(0), Operation.GREATER_THAN), Operation.OR));
+        assertCompiledSameResults(new UnaryExpression(new NAryExpression(Arrays.asList(field("b")), Operation.AND), Operation.NOT));
+    }
+
+    @Test
+    public void testNotCompiling() {
+        EvaluatorBuilder builder = makeBuilder(false);
+        Assert.assertTrue(builder.build(field("a")) instanceof FieldEvaluator);
+        Assert.assertTrue(builder.build(value(1)) instanceof ValueEvaluator);
+        Assert.assertTrue(builder.build(new UnaryExpression(field("a"), Operation.SIZE_OF)) instanceof UnaryEvaluator);
+        Assert.assertTrue(builder.build(new NAryExpression(Arrays.asList(field("b")), Operation.AND)) instanceof NAryEvaluator);
+    }
+
+    @Test
+    public void testNotCompilingAdaptiveOperations() {
+        EvaluatorBuilder builder = makeBuilder(true);
+        Expression and = binary(field("b"), field("c"), Operation.AND);
+        Assert.assertTrue(builder.build(and) instanceof AdaptiveEvaluator);
+
+        Expression not = new UnaryExpression(and, Operation.NOT);
+        Evaluator evaluator = builder.build(not);
+        Assert.assertTrue(evaluator instanceof CompiledEvaluator);
+        assertSameResults(not, evaluator);
+    }
+
+    @Test
+    public void testSerialization() {
+        Expression expression = binary(binary(field("a"), value(1), Operation.GREATER_THAN), field("b"), Operation.AND);
+        Evaluator evaluator = makeBuilder(false).build(expression);
+        Evaluator deserialized = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(evaluator));
+        Assert.assertTrue(deserialized instanceof CompiledEvaluator);
+        assertSameResults(expression, deserialized);
+        Assert.assertEquals(deserialized.evaluate(RecordBox.get().add("a", 2).add("b", true).getRecord()), TypedObject.TRUE);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class EvaluatorBuilderTest {
+    private static Expression makeExpression() {
+        Expression greater = new BinaryExpression(new FieldExpression("a"), new ValueExpression(1), Operation.GREATER_THAN);
+        Expression or = new NAryExpression(Arrays.asList(new FieldExpression("b"), new FieldExpression("c")), Operation.OR);
+        return new UnaryExpression(new BinaryExpression(greater, or, Operation.AND), Operation.NOT);
+    }
+
+    private static BulletConfig makeConfig(boolean adaptive) {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_FILTER_ADAPTIVE_ENABLE, adaptive);
+        return config.validate();
+    }
+
+    @Test
+    public void testDefaultEvaluators() {
+        UnaryEvaluator evaluator = (UnaryEvaluator) new EvaluatorBuilder().build(makeExpression());
+        Assert.assertTrue(evaluator.operand instanceof BinaryEvaluator);
+        BinaryEvaluator and = (BinaryEvaluator) evaluator.operand;
+        Assert.assertTrue(and.left instanceof BinaryEvaluator);
+        Assert.assertTrue(and.right instanceof NAryEvaluator);
+
+        evaluator = (UnaryEvaluator) new EvaluatorBuilder(makeConfig(false)).build(makeExpression());
+        Assert.assertTrue(evaluator.operand instanceof BinaryEvaluator);
+    }
+
+    @Test
+    public void testAdaptiveEvaluators() {
+        UnaryEvaluator evaluator = (UnaryEvaluator) new EvaluatorBuilder(makeConfig(true)).build(makeExpression());
+        Assert.assertTrue(evaluator.operand instanceof AdaptiveEvaluator);
+        AdaptiveEvaluator and = (AdaptiveEvaluator) evaluator.operand;
+        Assert.assertEquals(and.op, Operation.AND);
+        Assert.assertTrue(and.operands[0] instanceof BinaryEvaluator);
+        Assert.assertTrue(and.operands[1] instanceof AdaptiveEvaluator);
+        Assert.assertEquals(((AdaptiveEvaluator) and.operands[1]).op, Operation.OR);
+
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 2).add("b", false).add("c", true).getRecord()), TypedObject.FALSE);
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", 0).add("b", true).getRecord()), TypedObject.TRUE);
+    }
+
+    @Test
+    public void testEmptyNAryIsNotAdaptive() {
+        Expression expression = new NAryExpression(Collections.emptyList(), Operation.AND);
+        Assert.assertTrue(new EvaluatorBuilder(makeConfig(true)).build(expression) instanceof NAryEvaluator);
+    }
+}
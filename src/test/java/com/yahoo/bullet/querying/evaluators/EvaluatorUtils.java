@@ -8,6 +8,8 @@ package com.yahoo.bullet.querying.evaluators;
 import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.ListExpression;
 import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.typesystem.TypedObject;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -26,4 +28,13 @@ public class EvaluatorUtils {
     static FieldEvaluator fieldEvaluator(String field) {
         return new FieldEvaluator(new FieldExpression(field));
     }
+
+    static Evaluator errorEvaluator() {
+        return new Evaluator() {
+            @Override
+            public TypedObject evaluate(BulletRecord record) {
+                return ERROR;
+            }
+        };
+    }
 }
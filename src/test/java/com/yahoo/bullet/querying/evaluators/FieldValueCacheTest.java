@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class FieldValueCacheTest {
+    private static BulletRecord makeRecord() {
+        Map<String, Serializable> map = new HashMap<>();
+        map.put("0", "x");
+        return spy(RecordBox.get().add("a", 1)
+                                  .addMap("demographics", Pair.of("country", "us"), Pair.of("0", "zero"))
+                                  .addListOfMaps("list", map)
+                                  .getRecord());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        FieldValueCache.end();
+    }
+
+    @Test
+    public void testExtractingOncePerRecord() {
+        BulletRecord record = makeRecord();
+        FieldEvaluator a = new FieldEvaluator(new FieldExpression("a"));
+        FieldEvaluator country = new FieldEvaluator(new FieldExpression("demographics", "country"));
+        FieldEvaluator otherCountry = new FieldEvaluator(new FieldExpression("demographics", "country"));
+
+        Assert.assertTrue(FieldValueCache.begin(record));
+        Assert.assertEquals(a.evaluate(record), new TypedObject(Type.INTEGER, 1));
+        Assert.assertEquals(a.evaluate(record), new TypedObject(Type.INTEGER, 1));
+        Assert.assertEquals(country.evaluate(record), new TypedObject(Type.STRING, "us"));
+        Assert.assertEquals(otherCountry.evaluate(record), new TypedObject(Type.STRING, "us"));
+        verify(record, times(1)).typedGet("a");
+        verify(record, times(1)).typedGet("demographics", "country");
+
+        // Already caching the record
+        Assert.assertFalse(FieldValueCache.begin(record));
+        a.evaluate(record);
+        verify(record, times(1)).typedGet("a");
+
+        FieldValueCache.end();
+        a.evaluate(record);
+        verify(record, times(2)).typedGet("a");
+    }
+
+    @Test
+    public void testNotCachingOtherRecords() {
+        BulletRecord record = makeRecord();
+        BulletRecord other = makeRecord();
+        FieldEvaluator a = new FieldEvaluator(new FieldExpression("a"));
+
+        FieldValueCache.begin(record);
+        a.evaluate(other);
+        a.evaluate(other);
+        verify(other, times(2)).typedGet("a");
+
+        // Moving to a new record forgets the values of the last one
+        Assert.assertTrue(FieldValueCache.begin(other));
+        a.evaluate(other);
+        a.evaluate(record);
+        a.evaluate(other);
+        verify(other, times(3)).typedGet("a");
+        verify(record, times(1)).typedGet("a");
+    }
+
+    @Test
+    public void testExtractingOncePerRecordInBatches() {
+        BulletRecord recordA = makeRecord();
+        BulletRecord recordB = makeRecord();
+        BulletRecord other = makeRecord();
+        FieldEvaluator a = new FieldEvaluator(new FieldExpression("a"));
+
+        Assert.assertFalse(FieldValueCache.begin(Collections.emptyList()));
+        Assert.assertTrue(FieldValueCache.begin(Arrays.asList(recordA, recordB)));
+        a.evaluate(recordA);
+        a.evaluate(recordB);
+        a.evaluate(recordA);
+        a.evaluate(recordB);
+        a.evaluate(other);
+        a.evaluate(other);
+        verify(recordA, times(1)).typedGet("a");
+        verify(recordB, times(1)).typedGet("a");
+        verify(other, times(2)).typedGet("a");
+
+        // Already caching a batch or a record in it
+        Assert.assertFalse(FieldValueCache.begin(Collections.singletonList(other)));
+        Assert.assertFalse(FieldValueCache.begin(recordB));
+        a.evaluate(recordB);
+        verify(recordB, times(1)).typedGet("a");
+
+        FieldValueCache.end();
+        a.evaluate(recordA);
+        verify(recordA, times(2)).typedGet("a");
+
+        // A single record replaces the batch
+        FieldValueCache.begin(Arrays.asList(recordA, recordB));
+        Assert.assertTrue(FieldValueCache.begin(other));
+        a.evaluate(recordA);
+        a.evaluate(other);
+        a.evaluate(other);
+        verify(recordA, times(3)).typedGet("a");
+        verify(other, times(3)).typedGet("a");
+    }
+
+    @Test
+    public void testPathsWithDifferentKeyTypes() {
+        BulletRecord record = makeRecord();
+        FieldEvaluator mapKey = new FieldEvaluator(new FieldExpression("demographics", "0"));
+        FieldEvaluator listIndex = new FieldEvaluator(new FieldExpression("list", 0, "0"));
+
+        FieldValueCache.begin(record);
+        Assert.assertEquals(mapKey.evaluate(record), new TypedObject(Type.STRING, "zero"));
+        Assert.assertEquals(listIndex.evaluate(record), new TypedObject(Type.STRING, "x"));
+        Assert.assertEquals(mapKey.evaluate(record), new TypedObject(Type.STRING, "zero"));
+    }
+
+    @Test
+    public void testNotCachingKeysThatDependOnTheRecord() {
+        BulletRecord record = makeRecord();
+        FieldEvaluator country = new FieldEvaluator(new FieldExpression("demographics", new FieldExpression("b")));
+        record.typedSet("b", new TypedObject(Type.STRING, "country"));
+
+        FieldValueCache.begin(record);
+        Assert.assertEquals(country.evaluate(record), new TypedObject(Type.STRING, "us"));
+        Assert.assertEquals(country.evaluate(record), new TypedObject(Type.STRING, "us"));
+        verify(record, times(2)).typedGet("demographics", "country");
+        // The key itself is a field that is cached
+        verify(record, times(1)).typedGet("b");
+    }
+}
@@ -5,9 +5,11 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.query.expressions.FieldExpression;
 import com.yahoo.bullet.query.expressions.NAryExpression;
 import com.yahoo.bullet.query.expressions.Operation;
 import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
 import com.yahoo.bullet.result.RecordBox;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
@@ -19,6 +21,12 @@ import java.util.Arrays;
 import static com.yahoo.bullet.querying.evaluators.NAryOperations.N_ARY_OPERATORS;
 
 public class NAryEvaluatorTest {
+    private static FieldExpression field(String name, Type type) {
+        FieldExpression expression = new FieldExpression(name);
+        expression.setType(type);
+        return expression;
+    }
+
     @Test
     public void testConstructor() {
         NAryExpression expression = new NAryExpression(Arrays.asList(new ValueExpression(false),
@@ -34,4 +42,51 @@ public class NAryEvaluatorTest {
         Assert.assertEquals(evaluator.op, N_ARY_OPERATORS.get(Operation.IF));
         Assert.assertEquals(evaluator.evaluate(RecordBox.get().getRecord()), new TypedObject(Type.INTEGER, 2));
     }
+
+    @Test
+    public void testPrimitiveBetween() {
+        Integer[] values = {1, 5, 10, null};
+        for (Operation op : Arrays.asList(Operation.BETWEEN, Operation.NOT_BETWEEN)) {
+            NAryExpression expression = new NAryExpression(Arrays.asList(field("a", Type.LONG), field("b", Type.INTEGER),
+                                                                         field("c", Type.DOUBLE)), op);
+            NAryEvaluator evaluator = new NAryEvaluator(expression);
+            Assert.assertEquals(evaluator.getPrimitiveType(), Type.BOOLEAN);
+            for (Integer a : values) {
+                for (Integer b : values) {
+                    for (Integer c : values) {
+                        RecordBox box = RecordBox.get();
+                        box = a == null ? box.addNull("a") : box.add("a", a.longValue());
+                        box = b == null ? box.addNull("b") : box.add("b", b);
+                        box = c == null ? box.addNull("c") : box.add("c", c.doubleValue());
+                        BulletRecord record = box.getRecord();
+                        Assert.assertEquals(evaluator.evaluate(record), evaluator.op.apply(evaluator.operands, record));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBetweenValuesNotOfTheirDeclaredTypes() {
+        NAryExpression expression = new NAryExpression(Arrays.asList(field("a", Type.LONG), new ValueExpression(1L),
+                                                                     new ValueExpression(2L)), Operation.BETWEEN);
+        NAryEvaluator evaluator = new NAryEvaluator(expression);
+        Assert.assertEquals(evaluator.getPrimitiveType(), Type.BOOLEAN);
+        BulletRecord record = RecordBox.get().add("a", 2.5).getRecord();
+        Assert.assertEquals(evaluator.evaluate(record), TypedObject.FALSE);
+        Assert.assertEquals(evaluator.evaluate(record), evaluator.op.apply(evaluator.operands, record));
+
+        byte[] results = new byte[1];
+        evaluator.evaluate(new BulletRecord[] {record}, new int[] {0}, 1, results);
+        Assert.assertEquals(results[0], Evaluator.BATCH_FALSE);
+    }
+
+    @Test
+    public void testNotPrimitiveBetween() {
+        NAryExpression expression = new NAryExpression(Arrays.asList(field("a", Type.STRING), new ValueExpression("a"),
+                                                                     new ValueExpression("c")), Operation.BETWEEN);
+        NAryEvaluator evaluator = new NAryEvaluator(expression);
+        Assert.assertNull(evaluator.getPrimitiveType());
+        Assert.assertEquals(evaluator.evaluate(RecordBox.get().add("a", "b").getRecord()), TypedObject.TRUE);
+    }
 }
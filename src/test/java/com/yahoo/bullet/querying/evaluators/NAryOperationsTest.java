@@ -5,6 +5,11 @@
  */
 package com.yahoo.bullet.querying.evaluators;
 
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.ValueExpression;
 import com.yahoo.bullet.typesystem.Type;
 import com.yahoo.bullet.typesystem.TypedObject;
 import org.testng.Assert;
@@ -14,7 +19,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 
+import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.errorEvaluator;
 import static com.yahoo.bullet.querying.evaluators.EvaluatorUtils.valueEvaluator;
+import static com.yahoo.bullet.querying.evaluators.NAryOperations.N_ARY_OPERATORS;
 
 public class NAryOperationsTest {
     @Test
@@ -164,4 +171,56 @@ public class NAryOperationsTest {
         Assert.assertEquals(NAryOperations.unixTimestamp(Arrays.asList(valueEvaluator(null), valueEvaluator("yyyyMMddHH")), null), TypedObject.NULL);
         Assert.assertEquals(NAryOperations.unixTimestamp(Arrays.asList(valueEvaluator("2021030519"), valueEvaluator(null)), null), TypedObject.NULL);
     }
+
+    @Test
+    public void testConstantUnixTimestampFormat() {
+        NAryExpression constant = new NAryExpression(Arrays.asList(new FieldExpression("abc"), new ValueExpression("yyyyMMddHH")), Operation.UNIX_TIMESTAMP);
+        NAryOperations.NAryOperator operator = NAryOperations.getOperator(constant);
+        Assert.assertNotEquals(operator, N_ARY_OPERATORS.get(Operation.UNIX_TIMESTAMP));
+        Assert.assertEquals(operator.apply(Arrays.asList(valueEvaluator("2021010100"), null), null), new TypedObject(Type.LONG, 1609459200L));
+        Assert.assertEquals(operator.apply(Arrays.asList(valueEvaluator(2021010100), null), null), new TypedObject(Type.LONG, 1609459200L));
+        Assert.assertEquals(operator.apply(Arrays.asList(valueEvaluator(null), null), null), TypedObject.NULL);
+        Assert.assertSame(operator.apply(Arrays.asList(valueEvaluator("foo"), null), null), Evaluator.ERROR);
+        Assert.assertSame(operator.apply(Arrays.asList(valueEvaluator(true), null), null), Evaluator.ERROR);
+
+        for (Expression pattern : Arrays.asList(new FieldExpression("def"), new ValueExpression(1), new ValueExpression("yyyy {"))) {
+            NAryExpression expression = new NAryExpression(Arrays.asList(new FieldExpression("abc"), pattern), Operation.UNIX_TIMESTAMP);
+            Assert.assertEquals(NAryOperations.getOperator(expression), N_ARY_OPERATORS.get(Operation.UNIX_TIMESTAMP));
+        }
+        NAryExpression current = new NAryExpression(Collections.emptyList(), Operation.UNIX_TIMESTAMP);
+        Assert.assertEquals(NAryOperations.getOperator(current), N_ARY_OPERATORS.get(Operation.UNIX_TIMESTAMP));
+    }
+
+    @Test
+    public void testUnixTimestampFormatCache() {
+        NAryOperations.FORMAT_CACHE.clear();
+        NAryOperations.unixTimestamp(Arrays.asList(valueEvaluator("2021010100"), valueEvaluator("yyyyMMddHH")), null);
+        NAryOperations.unixTimestamp(Arrays.asList(valueEvaluator("2021010200"), valueEvaluator("yyyyMMddHH")), null);
+        Assert.assertEquals(NAryOperations.FORMAT_CACHE.size(), 1);
+        NAryOperations.unixTimestamp(Arrays.asList(valueEvaluator("20210101"), valueEvaluator("yyyyMMdd")), null);
+        Assert.assertEquals(NAryOperations.FORMAT_CACHE.size(), 2);
+
+        Assert.assertSame(NAryOperations.unixTimestamp(Arrays.asList(valueEvaluator("2021010100"), valueEvaluator(1)), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.unixTimestamp(Collections.singletonList(valueEvaluator(1)), null), Evaluator.ERROR);
+    }
+
+    @Test
+    public void testErrors() {
+        Assert.assertSame(NAryOperations.between(Arrays.asList(valueEvaluator(5), valueEvaluator("1"), valueEvaluator(10)), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.between(Arrays.asList(valueEvaluator("b"), valueEvaluator("a"), valueEvaluator(10)), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.between(Arrays.asList(valueEvaluator(true), valueEvaluator(false), valueEvaluator(true)), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.notBetween(Arrays.asList(valueEvaluator(5), valueEvaluator(1), valueEvaluator("10")), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.substring(Arrays.asList(valueEvaluator(12345), valueEvaluator(2)), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.substring(Arrays.asList(valueEvaluator("hello"), valueEvaluator("2")), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.substring(Arrays.asList(valueEvaluator("hello"), valueEvaluator(2), valueEvaluator(true)), null), Evaluator.ERROR);
+
+        // Errors are passed on wherever they would have been thrown
+        Assert.assertSame(NAryOperations.allMatch(Arrays.asList(valueEvaluator(true), errorEvaluator(), valueEvaluator(false)), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.anyMatch(Arrays.asList(valueEvaluator(false), errorEvaluator(), valueEvaluator(true)), null), Evaluator.ERROR);
+        Assert.assertEquals(NAryOperations.allMatch(Arrays.asList(valueEvaluator(false), errorEvaluator()), null), TypedObject.FALSE);
+        Assert.assertSame(NAryOperations.ternary(Arrays.asList(errorEvaluator(), valueEvaluator(1), valueEvaluator(2)), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.between(Arrays.asList(errorEvaluator(), valueEvaluator(1), valueEvaluator(2)), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.substring(Arrays.asList(valueEvaluator("hello"), errorEvaluator()), null), Evaluator.ERROR);
+        Assert.assertSame(NAryOperations.unixTimestamp(Collections.singletonList(errorEvaluator()), null), Evaluator.ERROR);
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.evaluators;
+
+import com.yahoo.bullet.common.SerializerDeserializer;
+import com.yahoo.bullet.typesystem.Type;
+import com.yahoo.bullet.typesystem.TypedObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+public class TimestampFormatTest {
+    private static List<String> makeDates(char separator) {
+        List<String> dates = new ArrayList<>();
+        for (int year : Arrays.asList(1, 1900, 1969, 1970, 2000, 2020, 2021, 2100, 9999)) {
+            for (int month = 1; month <= 12; month++) {
+                for (int day : Arrays.asList(1, 15, 28, 29, 30, 31)) {
+                    // Noon so that the local time always exists for Timestamp
+                    dates.add(String.format("%04d-%02d-%02d%c12:%02d:%02d", year, month, day, separator, day, 59 - day));
+                }
+            }
+        }
+        return dates;
+    }
+
+    private static long parseWithTimestamp(String date) {
+        return Timestamp.valueOf(date).toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long parseWithFormatter(String date, String pattern) {
+        return LocalDateTime.parse(date, DateTimeFormatter.ofPattern(pattern)).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long parse(TimestampFormat format, String date) {
+        return ((Number) format.parse(date).getValue()).longValue();
+    }
+
+    @Test
+    public void testDefaultLayout() {
+        for (String date : makeDates(' ')) {
+            Assert.assertEquals(((Number) TimestampFormat.parseDefault(date).getValue()).longValue(), parseWithTimestamp(date), date);
+        }
+        Assert.assertEquals(TimestampFormat.parseDefault("2021-01-01 00:00:00"), new TypedObject(Type.LONG, 1609459200L));
+        Assert.assertEquals(TimestampFormat.parseDefault("2021-01-01 00:00:00.999"), new TypedObject(Type.LONG, 1609459200L));
+        Assert.assertEquals(TimestampFormat.parseDefault("2021-01-01 00:00:00.123456789"), new TypedObject(Type.LONG, 1609459200L));
+        Assert.assertEquals(TimestampFormat.parseDefault("1969-12-31 23:59:59"), new TypedObject(Type.LONG, -1L));
+    }
+
+    @Test
+    public void testDefaultLayoutFallback() {
+        // Not in exactly the default layout but still taken by Timestamp
+        for (String date : Arrays.asList("2021-1-5 12:30:00", " 2021-01-05 12:30:00", "2021-02-30 12:30:00")) {
+            Assert.assertEquals(((Number) TimestampFormat.parseDefault(date).getValue()).longValue(), parseWithTimestamp(date), date);
+        }
+    }
+
+    @Test
+    public void testDefaultLayoutInOtherTimeZones() {
+        TimeZone zone = TimeZone.getDefault();
+        try {
+            // 2:30 does not exist in Los Angeles on this day since the clocks moved from 2:00 to 3:00, so it is 3:30
+            TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+            for (String date : Arrays.asList("2021-03-14 02:30:00", "2021-03-14 01:30:00", "2021-11-07 01:30:00")) {
+                Assert.assertEquals(((Number) TimestampFormat.parseDefault(date).getValue()).longValue(), parseWithTimestamp(date), date);
+            }
+            Assert.assertEquals(TimestampFormat.parseDefault("2021-03-14 02:30:00"), new TypedObject(Type.LONG, 1615692600L));
+
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            Assert.assertEquals(TimestampFormat.parseDefault("2021-03-14 02:30:00"), new TypedObject(Type.LONG, 1615689000L));
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+    }
+
+    @Test
+    public void testDefaultLayoutBeforeGregorianCalendar() {
+        // These days were skipped when the Gregorian calendar started
+        for (String date : Arrays.asList("1582-10-04 12:00:00", "1582-10-10 12:00:00", "1582-10-15 12:00:00")) {
+            Assert.assertEquals(((Number) TimestampFormat.parseDefault(date).getValue()).longValue(), parseWithTimestamp(date), date);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDefaultLayoutFailure() {
+        TimestampFormat.parseDefault("2021/01/01 00:00:00");
+    }
+
+    @Test
+    public void testPatternLayouts() {
+        for (String pattern : Arrays.asList(TimestampFormat.DEFAULT_PATTERN, TimestampFormat.ISO_PATTERN)) {
+            TimestampFormat format = new TimestampFormat(pattern);
+            char separator = pattern.equals(TimestampFormat.ISO_PATTERN) ? 'T' : ' ';
+            // Invalid days such as February 30 are left to the formatter to resolve
+            for (String date : makeDates(separator)) {
+                Assert.assertEquals(parse(format, date), parseWithFormatter(date, pattern), date);
+            }
+        }
+        TimestampFormat iso = new TimestampFormat(TimestampFormat.ISO_PATTERN);
+        Assert.assertEquals(iso.parse("2021-01-01T00:00:00"), new TypedObject(Type.LONG, 1609459200L));
+        Assert.assertEquals(iso.parse("2021-02-30T00:00:00"), new TypedObject(Type.LONG, parseWithFormatter("2021-02-30T00:00:00", TimestampFormat.ISO_PATTERN)));
+    }
+
+    @Test
+    public void testOtherPatterns() {
+        TimestampFormat format = new TimestampFormat("yyyyMMddHH");
+        Assert.assertEquals(format.parse("2021010100"), new TypedObject(Type.LONG, 1609459200L));
+
+        format = new TimestampFormat("dd/MM/yyyy HH:mm");
+        Assert.assertEquals(parse(format, "31/12/2020 23:59"), parseWithFormatter("31/12/2020 23:59", "dd/MM/yyyy HH:mm"));
+    }
+
+    @Test
+    public void testErrors() {
+        TimestampFormat format = new TimestampFormat(TimestampFormat.DEFAULT_PATTERN);
+        Assert.assertSame(format.parse("foo"), Evaluator.ERROR);
+        Assert.assertSame(format.parse("2021-01-01"), Evaluator.ERROR);
+        Assert.assertSame(format.parse("2021-01-01 00:00:00 "), Evaluator.ERROR);
+        Assert.assertSame(format.parse("2021-13-01 00:00:00"), Evaluator.ERROR);
+        Assert.assertSame(format.parse("2021-01-01 25:00:00"), Evaluator.ERROR);
+        Assert.assertSame(format.parse("2021-01-01T00:00:00"), Evaluator.ERROR);
+
+        // Cannot be resolved into a date and time
+        Assert.assertSame(new TimestampFormat("yyyy").parse("2021"), Evaluator.ERROR);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBadPattern() {
+        new TimestampFormat("yyyy-MM-dd {");
+    }
+
+    @Test
+    public void testSerialization() {
+        TimestampFormat format = new TimestampFormat("yyyyMMddHH");
+        TimestampFormat deserialized = SerializerDeserializer.fromBytes(SerializerDeserializer.toBytes(format));
+        Assert.assertEquals(deserialized.parse("2021010100"), new TypedObject(Type.LONG, 1609459200L));
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.record.BulletRecord;
+
+/**
+ * A {@link SimpleEqualityPartitioner} that uses the lengths of the keys as their hashes so that keys collide.
+ */
+public class CollidingPartitioner extends SimpleEqualityPartitioner {
+    public CollidingPartitioner(BulletConfig config) {
+        super(config);
+    }
+
+    @Override
+    public long getHash(String key) {
+        return key.length();
+    }
+
+    @Override
+    public int getHashes(BulletRecord record, long[] hashes) {
+        int count = super.getHashes(record, hashes);
+        for (int i = 0; i < count; i++) {
+            hashes[i] = getHash(getKey(record, i));
+        }
+        return count;
+    }
+}
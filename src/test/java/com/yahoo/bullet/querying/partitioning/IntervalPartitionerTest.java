@@ -0,0 +1,172 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.Projection;
+import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.query.Window;
+import com.yahoo.bullet.query.aggregations.Raw;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+
+public class IntervalPartitionerTest {
+    private static IntervalPartitioner createPartitioner(String... fields) {
+        BulletConfig config = new BulletConfig();
+        config.set(BulletConfig.QUERY_PARTITIONER_ENABLE, true);
+        config.set(BulletConfig.QUERY_PARTITIONER_CLASS_NAME, BulletConfig.INTERVAL_PARTITIONER_CLASS_NAME);
+        config.set(BulletConfig.INTERVAL_PARTITIONER_FIELDS, asList(fields));
+        config.validate();
+        return new IntervalPartitioner(config);
+    }
+
+    private static Query createQuery(Expression filter) {
+        Query query = new Query(new Projection(), filter, new Raw(null), null, new Window(), null);
+        query.configure(new BulletConfig());
+        return query;
+    }
+
+    private static Expression compare(String field, Operation op, Serializable value) {
+        return new BinaryExpression(new FieldExpression(field), new ValueExpression(value), op);
+    }
+
+    private static Expression between(String field, Serializable lower, Serializable upper, Operation op) {
+        return new NAryExpression(asList(new FieldExpression(field), new ValueExpression(lower), new ValueExpression(upper)), op);
+    }
+
+    private static Set<String> keys(String... keys) {
+        return new HashSet<>(asList(keys));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFieldsRequired() {
+        createPartitioner();
+    }
+
+    @Test
+    public void testDefaultPartitioningQueryWithNoFilters() {
+        IntervalPartitioner partitioner = createPartitioner("A");
+        Assert.assertEquals(partitioner.getKeys(createQuery(null)), singleton("*"));
+    }
+
+    @Test
+    public void testDefaultPartitioningQueryWithUnrelatedFilters() {
+        IntervalPartitioner partitioner = createPartitioner("A");
+        Assert.assertEquals(partitioner.getKeys(createQuery(compare("B", Operation.GREATER_THAN, 5))), singleton("*"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(compare("A", Operation.GREATER_THAN, "5"))), singleton("*"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(compare("A", Operation.EQUALS, 5))), singleton("*"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(compare("A", Operation.GREATER_THAN, Double.NaN))), singleton("*"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(new UnaryExpression(compare("A", Operation.GREATER_THAN, 5), Operation.NOT))),
+                            singleton("*"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(new BinaryExpression(new FieldExpression("A"), new FieldExpression("B"), Operation.LESS_THAN))),
+                            singleton("*"));
+    }
+
+    @Test
+    public void testPartitioningForComparisons() {
+        IntervalPartitioner partitioner = createPartitioner("A");
+        Assert.assertEquals(partitioner.getKeys(createQuery(compare("A", Operation.GREATER_THAN, 500))), singleton("A:[500.0, Infinity]"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(compare("A", Operation.GREATER_THAN_OR_EQUALS, 500L))), singleton("A:[500.0, Infinity]"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(compare("A", Operation.LESS_THAN, 1.5))), singleton("A:[-Infinity, 1.5]"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(compare("A", Operation.LESS_THAN_OR_EQUALS, 2.5f))), singleton("A:[-Infinity, 2.5]"));
+
+        // 500 < A
+        Query query = createQuery(new BinaryExpression(new ValueExpression(500), new FieldExpression("A"), Operation.LESS_THAN));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("A:[500.0, Infinity]"));
+    }
+
+    @Test
+    public void testPartitioningForBetween() {
+        IntervalPartitioner partitioner = createPartitioner("A");
+        Assert.assertEquals(partitioner.getKeys(createQuery(between("A", 1, 10, Operation.BETWEEN))), singleton("A:[1.0, 10.0]"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(between("A", 1, 10, Operation.NOT_BETWEEN))),
+                            keys("A:[-Infinity, 1.0]", "A:[10.0, Infinity]"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(between("A", 1, null, Operation.BETWEEN))), singleton("*"));
+        // Nothing is between these
+        Assert.assertEquals(partitioner.getKeys(createQuery(between("A", 10, 1, Operation.BETWEEN))), singleton("*"));
+    }
+
+    @Test
+    public void testPartitioningForAndsAndOrs() {
+        IntervalPartitioner partitioner = createPartitioner("A", "B");
+        Expression greater = compare("A", Operation.GREATER_THAN, 5);
+        Expression lesser = compare("A", Operation.LESS_THAN, 10);
+        Expression other = compare("B", Operation.LESS_THAN, 10);
+
+        Query query = createQuery(new BinaryExpression(greater, lesser, Operation.AND));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("A:[5.0, 10.0]"));
+
+        query = createQuery(new NAryExpression(asList(other, greater, lesser), Operation.AND));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("A:[5.0, 10.0]"));
+
+        query = createQuery(new BinaryExpression(between("A", 0, 1, Operation.BETWEEN), between("A", 20, 30, Operation.BETWEEN), Operation.OR));
+        Assert.assertEquals(partitioner.getKeys(query), keys("A:[0.0, 1.0]", "A:[20.0, 30.0]"));
+
+        query = createQuery(new NAryExpression(asList(lesser, compare("A", Operation.GREATER_THAN, 5)), Operation.OR));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("A:[-Infinity, Infinity]"));
+
+        // Only B is restricted on all sides of the OR
+        query = createQuery(new BinaryExpression(new BinaryExpression(greater, other, Operation.AND), other, Operation.OR));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("B:[-Infinity, 10.0]"));
+
+        // No value is possible
+        query = createQuery(new BinaryExpression(lesser, compare("A", Operation.GREATER_THAN, 20), Operation.AND));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("*"));
+    }
+
+    @Test
+    public void testRecordKeys() {
+        IntervalPartitioner partitioner = createPartitioner("A", "B");
+        Assert.assertEquals(partitioner.getKeys(RecordBox.get().add("A", 5).getRecord()), singleton("*"));
+
+        partitioner.getKeys(createQuery(compare("A", Operation.GREATER_THAN, 500)));
+        partitioner.getKeys(createQuery(between("A", 100, 600, Operation.BETWEEN)));
+        partitioner.getKeys(createQuery(compare("B", Operation.LESS_THAN, 0)));
+
+        BulletRecord record = RecordBox.get().add("A", 550).add("B", -1.0).getRecord();
+        Assert.assertEquals(partitioner.getKeys(record), keys("*", "A:[500.0, Infinity]", "A:[100.0, 600.0]", "B:[-Infinity, 0.0]"));
+
+        record = RecordBox.get().add("A", 50L).add("B", 1.0).getRecord();
+        Assert.assertEquals(partitioner.getKeys(record), singleton("*"));
+
+        // Missing fields can never satisfy the ranges
+        Assert.assertEquals(partitioner.getKeys(RecordBox.get().getRecord()), singleton("*"));
+
+        // Non-numeric values and NaNs see all the ranges for the field
+        record = RecordBox.get().add("A", "550").add("B", Double.NaN).getRecord();
+        Assert.assertEquals(partitioner.getKeys(record), keys("*", "A:[500.0, Infinity]", "A:[100.0, 600.0]", "B:[-Infinity, 0.0]"));
+    }
+
+    @Test
+    public void testRelease() {
+        IntervalPartitioner partitioner = createPartitioner("A");
+        partitioner.getKeys(createQuery(compare("A", Operation.GREATER_THAN, 500)));
+        partitioner.getKeys(createQuery(compare("A", Operation.GREATER_THAN, 100)));
+
+        BulletRecord record = RecordBox.get().add("A", 550).getRecord();
+        Assert.assertEquals(partitioner.getKeys(record), keys("*", "A:[500.0, Infinity]", "A:[100.0, Infinity]"));
+
+        partitioner.release("A:[500.0, Infinity]");
+        partitioner.release("unknown");
+        Assert.assertEquals(partitioner.getKeys(record), keys("*", "A:[100.0, Infinity]"));
+    }
+}
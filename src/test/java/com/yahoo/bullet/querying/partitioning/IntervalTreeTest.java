@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class IntervalTreeTest {
+    private static Set<String> find(IntervalTree<String> tree, double point) {
+        Set<String> result = new HashSet<>();
+        tree.find(point, result);
+        return result;
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    @Test
+    public void testInterval() {
+        Interval interval = new Interval(1.0, 5.0);
+        Assert.assertFalse(interval.isEmpty());
+        Assert.assertTrue(interval.contains(1.0));
+        Assert.assertTrue(interval.contains(5.0));
+        Assert.assertFalse(interval.contains(5.5));
+        Assert.assertFalse(interval.contains(Double.NaN));
+        Assert.assertTrue(new Interval(5.0, 1.0).isEmpty());
+        Assert.assertTrue(Interval.ALL.contains(Double.NEGATIVE_INFINITY));
+        Assert.assertEquals(interval.toString(), "[1.0, 5.0]");
+    }
+
+    @Test
+    public void testIntervalIntersect() {
+        Interval interval = new Interval(1.0, 5.0);
+        Assert.assertEquals(interval.intersect(new Interval(3.0, 8.0)).toString(), "[3.0, 5.0]");
+        Assert.assertEquals(interval.intersect(new Interval(5.0, 8.0)).toString(), "[5.0, 5.0]");
+        Assert.assertNull(interval.intersect(new Interval(6.0, 8.0)));
+    }
+
+    @Test
+    public void testIntervalNormalize() {
+        List<Interval> intervals = Arrays.asList(new Interval(6.0, 8.0), new Interval(1.0, 3.0), new Interval(2.0, 4.0),
+                                                 new Interval(9.0, 7.0), new Interval(8.0, 10.0));
+        Assert.assertEquals(Interval.normalize(intervals).toString(), "[[1.0, 4.0], [6.0, 10.0]]");
+        Assert.assertTrue(Interval.normalize(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testEmptyTree() {
+        IntervalTree<String> tree = new IntervalTree<>(Collections.emptyMap());
+        Assert.assertEquals(tree.size(), 0);
+        Assert.assertTrue(find(tree, 1.0).isEmpty());
+    }
+
+    @Test
+    public void testFind() {
+        Map<String, Interval> intervals = new HashMap<>();
+        intervals.put("a", new Interval(Double.NEGATIVE_INFINITY, 0.0));
+        intervals.put("b", new Interval(0.0, 10.0));
+        intervals.put("c", new Interval(5.0, 5.0));
+        intervals.put("d", new Interval(8.0, Double.POSITIVE_INFINITY));
+        intervals.put("e", Interval.ALL);
+        intervals.put("f", new Interval(3.0, 1.0));
+        IntervalTree<String> tree = new IntervalTree<>(intervals);
+
+        Assert.assertEquals(tree.size(), 5);
+        Assert.assertEquals(new HashSet<>(tree.getValues()), set("a", "b", "c", "d", "e"));
+        Assert.assertEquals(find(tree, -100.0), set("a", "e"));
+        Assert.assertEquals(find(tree, 0.0), set("a", "b", "e"));
+        Assert.assertEquals(find(tree, 5.0), set("b", "c", "e"));
+        Assert.assertEquals(find(tree, 9.0), set("b", "d", "e"));
+        Assert.assertEquals(find(tree, 11.0), set("d", "e"));
+        Assert.assertEquals(find(tree, Double.POSITIVE_INFINITY), set("d", "e"));
+        Assert.assertTrue(find(tree, Double.NaN).isEmpty());
+    }
+
+    @Test
+    public void testFindMatchesLinearScan() {
+        Random random = new Random(42);
+        Map<String, Interval> intervals = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            double lower = random.nextInt(1000);
+            intervals.put(String.valueOf(i), new Interval(lower, lower + random.nextInt(100)));
+        }
+        IntervalTree<String> tree = new IntervalTree<>(intervals);
+        for (int i = 0; i < 1000; i++) {
+            double point = random.nextInt(1200) - 100;
+            List<String> expected = new ArrayList<>();
+            intervals.forEach((key, interval) -> {
+                if (interval.contains(point)) {
+                    expected.add(key);
+                }
+            });
+            Assert.assertEquals(find(tree, point), new HashSet<>(expected));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ *  Copyright 2021, Yahoo Inc.
+ *  Licensed under the terms of the Apache License, Version 2.0.
+ *  See the LICENSE file associated with the project for terms.
+ */
+package com.yahoo.bullet.querying.partitioning;
+
+import com.yahoo.bullet.common.BulletConfig;
+import com.yahoo.bullet.query.Projection;
+import com.yahoo.bullet.query.Query;
+import com.yahoo.bullet.query.Window;
+import com.yahoo.bullet.query.aggregations.Raw;
+import com.yahoo.bullet.query.expressions.BinaryExpression;
+import com.yahoo.bullet.query.expressions.Expression;
+import com.yahoo.bullet.query.expressions.FieldExpression;
+import com.yahoo.bullet.query.expressions.ListExpression;
+import com.yahoo.bullet.query.expressions.NAryExpression;
+import com.yahoo.bullet.query.expressions.Operation;
+import com.yahoo.bullet.query.expressions.UnaryExpression;
+import com.yahoo.bullet.query.expressions.ValueExpression;
+import com.yahoo.bullet.record.BulletRecord;
+import com.yahoo.bullet.result.RecordBox;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+
+public class MultiValueEqualityPartitionerTest {
+    private BulletConfig config;
+
+    @BeforeMethod
+    public void setup() {
+        config = new BulletConfig();
+        config.set(BulletConfig.QUERY_PARTITIONER_ENABLE, true);
+        config.set(BulletConfig.QUERY_PARTITIONER_CLASS_NAME, BulletConfig.MULTI_VALUE_EQUALITY_PARTITIONER_CLASS_NAME);
+        config.set(BulletConfig.EQUALITY_PARTITIONER_DELIMITER, "-");
+    }
+
+    private MultiValueEqualityPartitioner createPartitioner(String... fields) {
+        config.set(BulletConfig.EQUALITY_PARTITIONER_FIELDS, asList(fields));
+        config.validate();
+        return new MultiValueEqualityPartitioner(config);
+    }
+
+    private Query createQuery(Expression filter) {
+        Query query = new Query(new Projection(), filter, new Raw(null), null, new Window(), null);
+        query.configure(config);
+        return query;
+    }
+
+    private static Expression equals(String field, Serializable value) {
+        return new BinaryExpression(new FieldExpression(field), new ValueExpression(value), Operation.EQUALS);
+    }
+
+    private static Expression in(String field, Serializable... values) {
+        ListExpression list = new ListExpression(Stream.of(values).<Expression>map(ValueExpression::new).collect(Collectors.toList()));
+        return new BinaryExpression(new FieldExpression(field), list, Operation.IN);
+    }
+
+    private static Expression and(Expression left, Expression right) {
+        return new BinaryExpression(left, right, Operation.AND);
+    }
+
+    private static Expression or(Expression left, Expression right) {
+        return new BinaryExpression(left, right, Operation.OR);
+    }
+
+    private static Set<String> keys(String... keys) {
+        return new HashSet<>(asList(keys));
+    }
+
+    @Test
+    public void testDefaultPartitioningQueryWithNoFilters() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Assert.assertEquals(partitioner.getKeys(createQuery(null)), singleton("*-*"));
+    }
+
+    @Test
+    public void testDefaultPartitioningQueryWithUnrelatedFilters() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Assert.assertEquals(partitioner.getKeys(createQuery(in("C", "foo", "bar"))), singleton("*-*"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(new FieldExpression("A"))), singleton("*-*"));
+        Assert.assertEquals(partitioner.getKeys(createQuery(new UnaryExpression(equals("A", "foo"), Operation.NOT))), singleton("*-*"));
+    }
+
+    @Test
+    public void testSingleValuesMatchSimpleEqualityPartitioner() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B", "C");
+        Query query = createQuery(and(and(equals("A", "bar"), equals("B", null)), equals("D", "qux")));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("bar.-null-*"));
+    }
+
+    @Test
+    public void testPartitioningForIn() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(in("A", "foo", "bar", null));
+        Assert.assertEquals(partitioner.getKeys(query), keys("foo.-*", "bar.-*"));
+    }
+
+    @Test
+    public void testPartitioningForEqualsAny() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        ListExpression list = new ListExpression(asList(new ValueExpression(1), new ValueExpression(2)));
+        Query query = createQuery(new BinaryExpression(new FieldExpression("B"), list, Operation.EQUALS_ANY));
+        Assert.assertEquals(partitioner.getKeys(query), keys("*-1.", "*-2."));
+    }
+
+    @Test
+    public void testDefaultPartitioningForInWithNonConstantValues() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        ListExpression list = new ListExpression(asList(new ValueExpression("foo"), new FieldExpression("C")));
+        Query query = createQuery(new BinaryExpression(new FieldExpression("A"), list, Operation.IN));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("*-*"));
+    }
+
+    @Test
+    public void testPartitioningForOrOfEquals() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(or(equals("A", "foo"), or(equals("A", "bar"), in("A", "baz"))));
+        Assert.assertEquals(partitioner.getKeys(query), keys("foo.-*", "bar.-*", "baz.-*"));
+    }
+
+    @Test
+    public void testPartitioningForOrOfDifferentFields() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(or(and(equals("A", "foo"), equals("B", "bar")), equals("A", "baz")));
+        Assert.assertEquals(partitioner.getKeys(query), keys("foo.-*", "baz.-*"));
+
+        query = createQuery(or(equals("A", "foo"), equals("B", "bar")));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("*-*"));
+    }
+
+    @Test
+    public void testPartitioningForAndOfMultipleValues() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(and(or(equals("A", "foo"), equals("A", "bar")), in("B", "baz", "qux")));
+        Assert.assertEquals(partitioner.getKeys(query), keys("foo.-baz.", "foo.-qux.", "bar.-baz.", "bar.-qux."));
+    }
+
+    @Test
+    public void testPartitioningForAndIntersectsValues() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(and(in("A", "foo", "bar"), in("A", "bar", "baz")));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("bar.-*"));
+
+        // No value is possible
+        query = createQuery(and(equals("A", "foo"), equals("A", "bar")));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("*-*"));
+    }
+
+    @Test
+    public void testPartitioningForNAryExpressions() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(new NAryExpression(asList(new NAryExpression(asList(equals("A", "foo"), equals("A", "bar")), Operation.OR),
+                                                            equals("B", "baz"),
+                                                            new FieldExpression("C")),
+                                                     Operation.AND));
+        Assert.assertEquals(partitioner.getKeys(query), keys("foo.-baz.", "bar.-baz."));
+
+        query = createQuery(new NAryExpression(asList(equals("A", "foo"), new FieldExpression("C")), Operation.OR));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("*-*"));
+
+        query = createQuery(new NAryExpression(asList(equals("A", "foo"), equals("B", "bar")), Operation.IF));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("*-*"));
+    }
+
+    @Test
+    public void testDefaultPartitioningWhenExceedingMaxKeys() {
+        config.set(BulletConfig.EQUALITY_PARTITIONER_MAX_KEYS, 4);
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(and(in("A", "a", "b"), in("B", "c", "d")));
+        Assert.assertEquals(partitioner.getKeys(query).size(), 4);
+
+        query = createQuery(and(in("A", "a", "b", "c"), in("B", "c", "d")));
+        Assert.assertEquals(partitioner.getKeys(query), singleton("*-*"));
+    }
+
+    @Test
+    public void testRecordSeesOnlyMatchingQueryKeys() {
+        MultiValueEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Set<String> queryKeys = partitioner.getKeys(createQuery(and(in("A", "foo", "bar"), in("B", "baz", "qux"))));
+
+        BulletRecord record = RecordBox.get().add("A", "bar").add("B", "qux").getRecord();
+        Set<String> recordKeys = partitioner.getKeys(record);
+        recordKeys.retainAll(queryKeys);
+        Assert.assertEquals(recordKeys, singleton("bar.-qux."));
+
+        record = RecordBox.get().add("A", "bar").add("B", "quux").getRecord();
+        recordKeys = partitioner.getKeys(record);
+        recordKeys.retainAll(queryKeys);
+        Assert.assertTrue(recordKeys.isEmpty());
+    }
+}
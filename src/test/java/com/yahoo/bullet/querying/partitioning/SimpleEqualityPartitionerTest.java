@@ -234,4 +234,49 @@ public class SimpleEqualityPartitionerTest {
         Set<String> actual = partitioner.getKeys(record);
         Assert.assertEquals(actual, expected);
     }
+
+    private static void assertHashesMatchKeys(SimpleEqualityPartitioner partitioner, BulletRecord record) {
+        long[] hashes = new long[partitioner.getMaximumRecordKeys()];
+        int count = partitioner.getHashes(record, hashes);
+        Set<String> keys = partitioner.getKeys(record);
+        Assert.assertEquals(count, keys.size());
+
+        Set<Long> expected = new HashSet<>();
+        keys.forEach(key -> expected.add(partitioner.getHash(key)));
+        Set<Long> actual = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            actual.add(hashes[i]);
+            Assert.assertTrue(keys.contains(partitioner.getKey(record, i)));
+            Assert.assertEquals(partitioner.getHash(partitioner.getKey(record, i)), hashes[i]);
+        }
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testHashesForRecord() {
+        SimpleEqualityPartitioner partitioner = createPartitioner("A", "B", "C.d");
+        Assert.assertEquals(partitioner.getMaximumRecordKeys(), 8);
+
+        assertHashesMatchKeys(partitioner, RecordBox.get().getRecord());
+        assertHashesMatchKeys(partitioner, RecordBox.get().add("A", "null").add("B", 42L).getRecord());
+        assertHashesMatchKeys(partitioner, RecordBox.get().add("A", "foo").add("B", "bar").addMap("C", ImmutablePair.of("d", "baz")).getRecord());
+    }
+
+    @Test
+    public void testHashesMatchQueryKeys() {
+        SimpleEqualityPartitioner partitioner = createPartitioner("A", "B");
+        Query query = createQuery(new BinaryExpression(new FieldExpression("A"), new ValueExpression("foo"), Operation.EQUALS));
+        String key = partitioner.getKeys(query).iterator().next();
+
+        BulletRecord record = RecordBox.get().add("A", "foo").add("B", "bar").getRecord();
+        long[] hashes = new long[partitioner.getMaximumRecordKeys()];
+        int count = partitioner.getHashes(record, hashes);
+        // The key for A with B as ANY is at the position with only the first bit set
+        Assert.assertEquals(count, 4);
+        Assert.assertEquals(hashes[1], partitioner.getHash(key));
+        Assert.assertEquals(partitioner.getKey(record, 1), key);
+
+        // Not the same key as the null value
+        Assert.assertNotEquals(partitioner.getHash("null-*"), partitioner.getHash("null.-*"));
+    }
 }
@@ -42,5 +42,27 @@ public class HavingStrategyTest {
         Assert.assertEquals(result.getRecords().get(0).typedGet("a").getValue(), 6);
         Assert.assertEquals(result.getRecords().get(1).typedGet("a").getValue(), 8);
         Assert.assertEquals(result.getRecords().get(2).typedGet("a").getValue(), 7);
+        Assert.assertEquals(strategy.getEvaluationErrors(), 0L);
+    }
+
+    @Test
+    public void testEvaluationErrors() {
+        List<BulletRecord> records = new ArrayList<>();
+        records.add(RecordBox.get().add("a", 6).getRecord());
+        records.add(RecordBox.get().add("a", "foo").getRecord());
+        records.add(RecordBox.get().getRecord());
+
+        Clip clip = new Clip();
+        clip.add(records);
+
+        // a + 1 > 5
+        BinaryExpression sum = new BinaryExpression(new FieldExpression("a"), new ValueExpression(1), Operation.ADD);
+        BinaryExpression expression = new BinaryExpression(sum, new ValueExpression(5), Operation.GREATER_THAN);
+        HavingStrategy strategy = (HavingStrategy) new Having(expression).getPostStrategy();
+        Clip result = strategy.execute(clip);
+
+        Assert.assertEquals(result.getRecords().size(), 1);
+        Assert.assertEquals(result.getRecords().get(0).typedGet("a").getValue(), 6);
+        Assert.assertEquals(strategy.getEvaluationErrors(), 1L);
     }
 }
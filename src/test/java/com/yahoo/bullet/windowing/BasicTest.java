@@ -41,6 +41,7 @@ public class BasicTest {
     public void testCreation() {
         Basic basic = new Basic(strategy, null, config);
         Assert.assertNotNull(basic.getMetadata());
+        Assert.assertEquals(basic.getCloseTime(), Long.MAX_VALUE);
     }
 
     @Test
@@ -59,6 +59,33 @@ public class TumblingTest {
         Assert.assertEquals(tumbling.windowLength, 1000L);
     }
 
+    @Test
+    public void testCloseTime() {
+        long start = System.currentTimeMillis();
+        Tumbling tumbling = make(1000, 1000);
+        long closeTime = tumbling.getCloseTime();
+        Assert.assertTrue(closeTime >= start + 1000L && closeTime <= System.currentTimeMillis() + 1000L);
+        tumbling.reset();
+        Assert.assertEquals(tumbling.getCloseTime(), closeTime + 1000L);
+    }
+
+    @Test
+    public void testClosingWithClock() {
+        long[] time = {1000L};
+        config.setClock(() -> time[0]);
+        Tumbling tumbling = make(1000, 1000);
+        Assert.assertEquals(tumbling.getCloseTime(), 2000L);
+        time[0] = 1999L;
+        Assert.assertFalse(tumbling.isClosed());
+        time[0] = 2000L;
+        Assert.assertTrue(tumbling.isClosed());
+        tumbling.reset();
+        Assert.assertFalse(tumbling.isClosed());
+        time[0] = 5000L;
+        tumbling.start();
+        Assert.assertEquals(tumbling.getCloseTime(), 6000L);
+    }
+
     @Test
     public void testClampingToMinimumEmit() {
         Tumbling tumbling = make(1000, 5000);